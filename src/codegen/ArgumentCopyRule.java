@@ -0,0 +1,105 @@
+package codegen;
+
+import java.util.List;
+
+/**
+ * This rule removes the copy of a temporary register into $a0 before a
+ * syscall by having the instruction that computed the temporary write
+ * $a0 instead.
+ * lw     $t0, fee
+ * li     $v0, 1
+ * addi   $a0, $t0, 0
+ * becomes
+ * lw     $a0, fee
+ * li     $v0, 1
+ *
+ * The code generator copies a register into $a0 with addi only when the
+ * temporary it holds is read for the last time, and uses move when the
+ * temporary is still needed, so only the addi form is retargeted. The
+ * rule only looks as far back as the window, and it stops
+ * at labels and control instructions, or at anything else that reads or
+ * writes either register.
+ *
+ * @author Marissa Allen
+ */
+public class ArgumentCopyRule implements PeepholeRule
+{
+    /**
+     * Returns the name the rule is reported under.
+     *
+     * @return - The name of the rule.
+     */
+    @Override
+    public String getName()
+    {
+        return "copy to argument";
+    }
+
+    /**
+     * Retargets the instruction that computed a register copied to $a0.
+     *
+     * @param window - The lines held by the optimizer, oldest first.
+     * @return - True if the window was changed.
+     */
+    @Override
+    public boolean apply(List<Instruction> window)
+    {
+        int last = window.size() - 1;
+        if (last < 1)
+        {
+            return false;
+        }
+        Instruction copy = window.get(last);
+        String source = copySource(copy);
+        if (source == null)
+        {
+            return false;
+        }
+        for (int index = last - 1; index >= 0; index--)
+        {
+            Instruction before = window.get(index);
+            if (!before.isInstruction() || before.isControl() ||
+                    before.reads("$a0") || before.writes("$a0"))
+            {
+                return false;
+            }
+            if (before.writes(source))
+            {
+                /*An instruction like add $t0, $t0, $t1 reads its sources
+                before it writes, so it can still be retargeted.*/
+                window.set(index, before.withOperand(0, "$a0"));
+                window.remove(last);
+                return true;
+            }
+            if (before.reads(source))
+            {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the temporary register a copy into $a0 copies from.
+     *
+     * @param copy - The instruction to check.
+     * @return - The temporary register, or null if the instruction is
+     * not addi $a0, $tN, 0.
+     */
+    private String copySource(Instruction copy)
+    {
+        String source = null;
+        if (copy.is("addi") && copy.getOperandCount() == 3 &&
+                copy.getOperand(2).equals("0"))
+        {
+            source = copy.getOperand(1);
+        }
+        if (copy.getOperandCount() > 0 &&
+                copy.getOperand(0).equals("$a0") && source != null &&
+                source.startsWith("$t"))
+        {
+            return source;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,81 @@
+package codegen;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * This class writes MIPS assembly code straight into a sink as the code
+ * generator produces it. The sink can be any Appendable, such as a
+ * Writer for an .asm file or a StringBuilder when the code is wanted as
+ * a String. Because every piece of code is appended once and never
+ * copied again, the time and memory used to write a program grow
+ * linearly with the number of instructions emitted. Each Instruction
+ * it is given is written on a line of its own.
+ *
+ * @author Marissa Allen
+ */
+public class AssemblyEmitter implements InstructionSink
+{
+    private Appendable sink;
+
+    /**
+     * AssemblyEmitter constructor that takes in the sink the assembly
+     * code will be written to.
+     *
+     * @param sink - The Appendable the assembly code is written to.
+     */
+    public AssemblyEmitter(Appendable sink)
+    {
+        this.sink = sink;
+    }
+
+    /**
+     * Appends a piece of assembly code to the sink.
+     *
+     * @param code - The assembly code to write.
+     * @return - This emitter, so calls can be chained.
+     */
+    public AssemblyEmitter emit(CharSequence code)
+    {
+        try
+        {
+            sink.append(code);
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Failed to write assembly code", ex);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a line of assembly code to the sink, followed by a newline.
+     *
+     * @param instruction - The line of assembly code to write.
+     */
+    @Override
+    public void emit(Instruction instruction)
+    {
+        emit(instruction.toString()).emit("\n");
+    }
+
+    /**
+     * Flushes the sink if it buffers its output.
+     */
+    @Override
+    public void flush()
+    {
+        if (sink instanceof Flushable)
+        {
+            try
+            {
+                ((Flushable) sink).flush();
+            }
+            catch (IOException ex)
+            {
+                throw new RuntimeException("Failed to write assembly code",
+                        ex);
+            }
+        }
+    }
+}
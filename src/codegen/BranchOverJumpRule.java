@@ -0,0 +1,97 @@
+package codegen;
+
+import java.util.List;
+
+/**
+ * This rule turns a branch over a jump into one branch with the
+ * opposite condition, the pattern an if statement with an empty else
+ * part leaves behind.
+ * blt    $t0, $t1, endLoop1
+ * j      Next1
+ * endLoop1:
+ * becomes
+ * bge    $t0, $t1, Next1
+ * endLoop1:
+ *
+ * @author Marissa Allen
+ */
+public class BranchOverJumpRule implements PeepholeRule
+{
+    /**
+     * Every branch and the branch with the opposite condition.
+     */
+    private static final String[][] OPPOSITES =
+            {
+                    {"beq", "bne"}, {"blt", "bge"}, {"bgt", "ble"},
+                    {"beqz", "bnez"}, {"bltz", "bgez"}, {"bgtz", "blez"}
+            };
+
+    /**
+     * Returns the name the rule is reported under.
+     *
+     * @return - The name of the rule.
+     */
+    @Override
+    public String getName()
+    {
+        return "branch over jump";
+    }
+
+    /**
+     * Replaces a branch over a jump with the opposite branch to the
+     * jump's label.
+     *
+     * @param window - The lines held by the optimizer, oldest first.
+     * @return - True if the window was changed.
+     */
+    @Override
+    public boolean apply(List<Instruction> window)
+    {
+        int size = window.size();
+        if (size < 3)
+        {
+            return false;
+        }
+        Instruction branch = window.get(size - 3);
+        Instruction jump = window.get(size - 2);
+        Instruction label = window.get(size - 1);
+        if (!branch.isBranch() || !jump.isJump() || !label.isLabel() ||
+                !label.getLabel().equals(branch.getTarget()))
+        {
+            return false;
+        }
+        String opposite = opposite(branch.getOp());
+        if (opposite == null)
+        {
+            return false;
+        }
+        window.set(size - 3, branch.withOp(opposite)
+                .withOperand(branch.getOperandCount() - 1,
+                        jump.getTarget()));
+        window.remove(size - 2);
+        return true;
+    }
+
+    /**
+     * Finds the branch with the opposite condition.
+     *
+     * @param op - The mnemonic of a branch.
+     * @return - The mnemonic of the opposite branch, or null if it isn't
+     * known.
+     */
+    private String opposite(String op)
+    {
+        for (String[] pair : OPPOSITES)
+        {
+            if (pair[0].equals(op))
+            {
+                return pair[1];
+            }
+            if (pair[1].equals(op))
+            {
+                return pair[0];
+            }
+        }
+        return null;
+    }
+}
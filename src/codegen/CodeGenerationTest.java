@@ -7,6 +7,10 @@ import static org.junit.Assert.*;
 import parser.Parser;
 import syntaxtree.*;
 import parser.TypeEnum;
+import simulator.Assembler;
+import simulator.Simulator;
+
+import java.io.StringReader;
 
 /**
  * A JUnit Java class that illustrates passing in a ProgramNode,
@@ -62,59 +66,47 @@ public class CodeGenerationTest
                 ".text\n" +
                 "\n" +
                 "main:\n" +
-                "addi    $sp, $sp, -4   " +
+                "addi   $sp, $sp, -4     " +
                 "# Decrements 4 off the stack pointer register.\n" +
-                "sw    $ra 0($sp)       " +
+                "sw     $ra, 0($sp)      " +
                 "# Saves register $ra for use as a return register.\n" +
-                "li     $t0,  4         " +
-                "# Loads a register with a specific numeric value. \n" +
-                "sw     $t0, fee        " +
-                " # Memory[label] = $reg\n" +
-                "li     $t0,  5        " +
-                " # Loads a register with a specific numeric value. \n" +
-                "sw     $t0, fi         " +
-                "# Memory[label] = $reg\n" +
-                "li     $t2,  3        " +
-                " # Loads a register with a specific numeric value. \n" +
-                "lw     $t3, fee        " +
-                " # Loads the variable labels.\n" +
-                "mult   $t2,   $t3\n" +
-                "mflo   $t1\n" +
-                "lw     $t2, fi         # Loads the variable labels.\n" +
-                "add    $t0,   $t1,   $t2\n" +
-                "sw     $t0, fo         # Memory[label] = $reg\n" +
-                "lw     $t1, fo         # Loads the variable labels.\n" +
-                "li     $t2,  13        " +
-                " # Loads a register with a specific numeric value. \n" +
-                "blt    $t1,   $t2, endLoop3\n" +
-                "\n" +
-                "li     $t1,  26         " +
-                "# Loads a register with a specific numeric value. \n" +
-                "sw     $t1, fo         # Memory[label] = $reg\n" +
-                "\n" +
-                "j Next \n" +
-                "\n" +
-                "endLoop3:\n" +
-                "li     $t1,  13        " +
-                " # Loads a register with a specific numeric value. \n" +
-                "sw     $t1, fo         # Memory[label] = $reg\n" +
-                "\n" +
-                "Next: \n" +
-                "lw     $t0, fo         # Loads the variable labels.\n" +
-                "li    $v0, 1\n" +
-                "addi   $a0, $t0, 0     " +
-                "# Adds the two registers together and \n" +
-                "                       " +
-                "# stores them in $a0 to be printed.\n" +
-                "syscall               " +
-                " # Prints the stored register value.\n" +
-                "lw    $ra 0($sp)      " +
-                " # Restores the original value $ra had in main. \n" +
-                "addi    $sp, $sp, 4   " +
-                " # Increments 4 onto the stack pointer register. \n" +
-                "jr $ra                " +
-                " # Jumps back to the line after jal main in \n" +
-                "                       # the code. End.\n";
+                "li     $t0, 4           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "sw     $t0, fee         # Memory[label] = $reg\n" +
+                "li     $t0, 5           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "sw     $t0, fi          # Memory[label] = $reg\n" +
+                "li     $t0, 3           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "lw     $t1, fee         # Loads the variable labels.\n" +
+                "mult   $t0, $t1\n" +
+                "mflo   $t0\n" +
+                "lw     $t1, fi          # Loads the variable labels.\n" +
+                "add    $t0, $t0, $t1\n" +
+                "sw     $t0, fo          # Memory[label] = $reg\n" +
+                "lw     $t0, fo          # Loads the variable labels.\n" +
+                "slti   $a1, $t0, 13\n" +
+                "beq    $a1, $zero, Else1\n" +
+                "li     $t0, 13          " +
+                "# Loads a register with a specific numeric value.\n" +
+                "sw     $t0, fo          # Memory[label] = $reg\n" +
+                "j      Next1\n" +
+                "Else1:\n" +
+                "li     $t0, 26          " +
+                "# Loads a register with a specific numeric value.\n" +
+                "sw     $t0, fo          # Memory[label] = $reg\n" +
+                "Next1:\n" +
+                "lw     $t0, fo          # Loads the variable labels.\n" +
+                "li     $v0, 1\n" +
+                "addi   $a0, $t0, 0      # Copies the value into $a0.\n" +
+                "syscall                 " +
+                "# Prints the stored register value.\n" +
+                "lw     $ra, 0($sp)      " +
+                "# Restores the original value $ra had in main.\n" +
+                "addi   $sp, $sp, 4      " +
+                "# Increments 4 onto the stack pointer register.\n" +
+                "jr     $ra              " +
+                "# Jumps back to the line after jal main. End.\n";
         String actual = gen.genCode(); //toString of with manual asm code
         assertEquals(expected, actual);
         System.out.println("Passed! Generated assembly code for the " +
@@ -157,17 +149,16 @@ public class CodeGenerationTest
                 ".text\n" +
                 "\n" +
                 "main:\n" +
-                "addi    $sp, $sp, -4   " +
+                "addi   $sp, $sp, -4     " +
                 "# Decrements 4 off the stack pointer register.\n" +
-                "sw    $ra 0($sp)       " +
+                "sw     $ra, 0($sp)      " +
                 "# Saves register $ra for use as a return register.\n" +
-                "lw    $ra 0($sp)       " +
-                "# Restores the original value $ra had in main. \n" +
-                "addi    $sp, $sp, 4    " +
-                "# Increments 4 onto the stack pointer register. \n" +
-                "jr $ra                 " +
-                "# Jumps back to the line after jal main in \n" +
-                "                       # the code. End.\n";
+                "lw     $ra, 0($sp)      " +
+                "# Restores the original value $ra had in main.\n" +
+                "addi   $sp, $sp, 4      " +
+                "# Increments 4 onto the stack pointer register.\n" +
+                "jr     $ra              " +
+                "# Jumps back to the line after jal main. End.\n";
         String actual = gen.genCode();
         assertEquals(expected, actual);
         System.out.println("Passed! Generated assembly code for the " +
@@ -198,25 +189,22 @@ public class CodeGenerationTest
         StatementNode stateNode = parser.statement();
         CodeGeneration gen =
                 new CodeGeneration(null, null);
-        String expected = "li     $t1,  3         " +
-                "# Loads a register with a specific numeric value. \n" +
-                "li     $t2,  3         " +
-                "# Loads a register with a specific numeric value. \n" +
-                "beq    $t1,   $t2, endLoop1\n" +
-                "\n" +
-                "li     $v0,  0         " +
-                "# Loads a register with a specific numeric value. \n" +
-                "                       " +
+        String expected = "li     $t0, 3           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "li     $t1, 3           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "bne    $t0, $t1, Else1\n" +
+                "li     $t0, 3           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "sw     $t0, foo         # Memory[label] = $reg\n" +
+                "j      Next1\n" +
+                "Else1:\n" +
+                "li     $t0, 0           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "addi   $v0, $t0, 0      # Copies the value into $v0.\n" +
+                "j      endMain          " +
                 "# Returns the function statements\n" +
-                "\n" +
-                "j Next \n" +
-                "\n" +
-                "endLoop1:\n" +
-                "li     $t1,  3         " +
-                "# Loads a register with a specific numeric value. \n" +
-                "sw     $t1, foo         # Memory[label] = $reg\n" +
-                "\n" +
-                "Next: \n";
+                "Next1:\n";
         String actual = gen.writeCode(stateNode);
         assertEquals(expected, actual);
         System.out.println("Passed! Generated assembly code for" +
@@ -244,18 +232,230 @@ public class CodeGenerationTest
         ExpressionNode expNode = parser.expression();
         CodeGeneration gen =
                 new CodeGeneration(null, null);
-        String expected = "li     $t1,  3         " +
-                "# Loads a register with a specific numeric value. \n" +
-                "li     $t2,  4         " +
-                "# Loads a register with a specific numeric value. \n" +
-                "add    $t0,   $t1,   $t2\n" +
-                "li     $t1,  5         " +
-                "# Loads a register with a specific numeric value. \n" +
-                "add    $t0,   $t0,   $t1\n";
+        String expected = "li     $t1, 3           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "addi   $t1, $t1, 4\n" +
+                "addi   $t0, $t1, 5\n";
         String actual = gen.writeCode(expNode, "$t0");
         assertEquals(expected, actual);
         System.out.println("Passed! Generated assembly code for" +
                 " the expression.");
     }
 
+    /**
+     * This method tests the genCode method that streams the assembly
+     * code into an Appendable. The code written into the sink should
+     * match the String returned by the genCode method for the same
+     * program. This is a text string test.
+     */
+    @Test
+    public void testGenCodeStreamed()
+    {
+        System.out.println("\n" + "##############################" +
+                "\n" + "# Test streamed assembly code #" + "\n" +
+                "##############################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi: integer;\n" +
+                "begin\n" +
+                "fee := 4;\n" +
+                "while fee < 10 do fee := fee + 1;\n" +
+                "read(fi);\n" +
+                "write( fee * fi)\n" +
+                "end\n" +
+                ".\n";
+        Parser parser = new Parser(test, false);
+        ProgramNode program = parser.program();
+        String expected = new CodeGeneration(program, null).genCode();
+        StringBuilder actual = new StringBuilder();
+        new CodeGeneration(program, null).genCode(actual);
+        assertEquals(expected, actual.toString());
+        System.out.println("Passed! Streamed the assembly code for the " +
+                "program.");
+    }
+
+    /**
+     * This method tests that the operands of an operation are evaluated
+     * in Sethi-Ullman order. In 1 - (2 * 3) the right operand needs more
+     * registers than the left, so it is evaluated first and the whole
+     * expression only needs two registers. This is a text string test.
+     */
+    @Test
+    public void testSethiUllmanOrder()
+    {
+        System.out.println("\n" + "#############################" +
+                "\n" + "# Test Sethi-Ullman ordering #" + "\n" +
+                "#############################" + "\n");
+
+        Parser parser = new Parser("1 - (2 * 3)", false);
+        ExpressionNode expNode = parser.expression();
+        CodeGeneration gen = new CodeGeneration(null, null);
+        String expected = "li     $t1, 2           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "li     $t2, 3           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "mult   $t1, $t2\n" +
+                "mflo   $t1\n" +
+                "li     $t2, 1           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "sub    $t0, $t2, $t1\n";
+        String actual = gen.writeCode(expNode, "$t0");
+        assertEquals(expected, actual);
+        System.out.println("Passed! Generated the operands in " +
+                "Sethi-Ullman order.");
+    }
+
+    /**
+     * This method tests spilling. With only two registers to hand out,
+     * (1 + 2) * (3 + 4) needs three, so some temporaries have to live
+     * in stack slots that are made room for before the code and given
+     * back after it. This is a text string test.
+     */
+    @Test
+    public void testSpill()
+    {
+        System.out.println("\n" + "######################" +
+                "\n" + "# Test register spill #" + "\n" +
+                "######################" + "\n");
+
+        Parser parser = new Parser("(1 + 2) * (3 + 4)", false);
+        ExpressionNode expNode = parser.expression();
+        CodeGeneration gen = new CodeGeneration(null, null,
+                new RegisterAllocator(2));
+        String expected = "addi   $sp, $sp, -4     " +
+                "# Makes room for spilled temporaries.\n" +
+                "li     $t1, 1           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "addi   $v1, $t1, 2\n" +
+                "sw     $v1, 0($sp)      " +
+                "# Spills a temporary onto the stack.\n" +
+                "li     $t1, 3           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "addi   $t1, $t1, 4\n" +
+                "lw     $v1, 0($sp)\n" +
+                "mult   $v1, $t1\n" +
+                "mflo   $t0\n" +
+                "addi   $sp, $sp, 4      " +
+                "# Pops the spilled temporaries off the stack.\n";
+        String actual = gen.writeCode(expNode, "$t0");
+        assertEquals(expected, actual);
+        System.out.println("Passed! Spilled a register to the stack.");
+    }
+
+    /**
+     * This method tests a whole program with only two registers to hand
+     * out. No saved register is used, so main saves none, and the
+     * product that doesn't fit is spilled. The program prints what it
+     * prints with every register.
+     * This is a text string test.
+     */
+    @Test
+    public void testSmallAllocator()
+    {
+        System.out.println("\n" + "#########################" +
+                "\n" + "# Test small allocator #" + "\n" +
+                "#########################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi, fo: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "fi := (fee + 1) * (fee + 2) - (fee + 3) * (fee + 4);\n" +
+                "fo := 0;\n" +
+                "while fee > 0 do\n" +
+                "begin\n" +
+                "fo := fo + fi * fee;\n" +
+                "fee := fee - 1\n" +
+                "end;\n" +
+                "write(fo)\n" +
+                "end\n" +
+                ".\n";
+        assertEquals(0, new RegisterAllocator(2).savedRegisters(3).length);
+        String actual = new CodeGeneration(new Parser(test, false)
+                .program(), null, new RegisterAllocator(2)).genCode();
+        assertTrue(actual.contains("sw     $v1, 0($sp)      " +
+                "# Spills a temporary onto the stack.\n"));
+        assertFalse(actual.contains("$s0"));
+        assertFalse(actual.contains("$t2"));
+        StringBuilder output = new StringBuilder();
+        new Simulator(new Assembler().assemble(actual),
+                new StringReader("3\n"), output).run();
+        assertEquals("-132", output.toString());
+        System.out.println("Passed! Compiled a program with two " +
+                "registers.");
+    }
+
+    /**
+     * This method tests immediate operands. Constants that fit in 16
+     * bits go straight into addi, andi, ori and slti, with the constant
+     * of 255 and fi swapped to the right, while 40000 is too big and is
+     * loaded with li. Zero is stored from $zero.
+     * This is a text string test.
+     */
+    @Test
+    public void testImmediates()
+    {
+        System.out.println("\n" + "###################" + "\n" +
+                "# Test immediates #" + "\n" +
+                "###################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi, fo: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "fi := fee - 1;\n" +
+                "fo := 255 and fi;\n" +
+                "while 100 > fee do\n" +
+                "fee := fee + 40000\n" +
+                ";\n" +
+                "fi := 0;\n" +
+                "write(fo or 8)\n" +
+                "end\n" +
+                ".\n";
+        ProgramNode program = new Parser(test, false).program();
+        String expected =
+                "lw     $t0, fee         # Loads the variable labels.\n" +
+                "addi   $t0, $t0, -1\n" +
+                "sw     $t0, fi          # Memory[label] = $reg\n" +
+                "lw     $t0, fi          # Loads the variable labels.\n" +
+                "andi   $t0, $t0, 255\n" +
+                "sw     $t0, fo          # Memory[label] = $reg\n" +
+                "lw     $t0, fee         # Loads the variable labels.\n" +
+                "slti   $a1, $t0, 100\n" +
+                "beq    $a1, $zero, endLoop1\n" +
+                "TopWhile1:\n" +
+                "lw     $t0, fee         # Loads the variable labels.\n" +
+                "li     $t1, 40000       " +
+                "# Loads a register with a specific numeric value.\n" +
+                "add    $t0, $t0, $t1\n" +
+                "sw     $t0, fee         # Memory[label] = $reg\n" +
+                "lw     $t0, fee         # Loads the variable labels.\n" +
+                "slti   $a1, $t0, 100\n" +
+                "bne    $a1, $zero, TopWhile1\n" +
+                "endLoop1:\n" +
+                "sw     $zero, fi        # Memory[label] = $reg\n" +
+                "lw     $t0, fo          # Loads the variable labels.\n" +
+                "ori    $t0, $t0, 8\n";
+        String actual = new CodeGeneration(program, null).genCode();
+        assertTrue(actual.contains(expected));
+        assertTrue(actual.contains("addi   $t0, $t0, -1\n"));
+        assertTrue(actual.contains("andi   $t0, $t0, 255\n"));
+        assertTrue(actual.contains("slti   $a1, $t0, 100\n"));
+        assertTrue(actual.contains("ori    $t0, $t0, 8\n"));
+        assertTrue(actual.contains("sw     $zero, fi "));
+
+        //Only 40000 doesn't fit in 16 bits, so it is the only constant that
+        //is loaded into a register, and only its add has a register form.
+        for (String line : actual.split("\n"))
+        {
+            if (line.startsWith("li ") && line.contains("$t"))
+            {
+                assertTrue(line, line.contains(", 40000"));
+            }
+            assertFalse(line, line.startsWith("sub ") ||
+                    line.startsWith("and ") || line.startsWith("or ") ||
+                    line.startsWith("slt "));
+        }
+        assertEquals(1, actual.split("\nadd ", -1).length - 1);
+    }
 }
@@ -0,0 +1,434 @@
+package codegen;
+
+import java.util.Arrays;
+
+/**
+ * This class holds one line of MIPS assembly code in a structured form,
+ * so the code can be inspected and rewritten before it is written out.
+ * A line is either a label, a MIPS instruction made of a mnemonic, its
+ * operands and an optional comment, or a line of raw text such as a
+ * directive in the .data section. Instructions are never changed once
+ * they are made; the with methods return a changed copy.
+ *
+ * An instruction is written with its mnemonic padded to seven columns,
+ * its operands separated by commas, and its comment starting at column
+ * twenty four, like:
+ * lw     $t0, fee          # Loads the variable labels.
+ *
+ * @author Marissa Allen
+ */
+public class Instruction
+{
+    /**
+     * The column the operands of an instruction start at.
+     */
+    private static final int OPERAND_COLUMN = 7;
+
+    /**
+     * The column the comment of an instruction starts at.
+     */
+    private static final int COMMENT_COLUMN = 24;
+
+    private String label;
+    private String text;
+    private String op;
+    private String[] operands;
+    private String comment;
+
+    /**
+     * Instruction constructor that takes in a mnemonic and its operands.
+     *
+     * @param op - The mnemonic, such as add or lw.
+     * @param operands - The registers, values, addresses and labels the
+     * instruction works on, in the order they are written.
+     */
+    public Instruction(String op, String... operands)
+    {
+        this(op, operands, null);
+    }
+
+    /**
+     * Instruction constructor that takes in a mnemonic, its operands and
+     * a comment.
+     *
+     * @param op - The mnemonic, such as add or lw.
+     * @param operands - The registers, values, addresses and labels the
+     * instruction works on, in the order they are written.
+     * @param comment - The comment written after the instruction, or
+     * null for none.
+     */
+    public Instruction(String op, String[] operands, String comment)
+    {
+        this.op = op;
+        this.operands = operands.clone();
+        this.comment = comment;
+    }
+
+    /**
+     * Instruction constructor for label and text lines, which have no
+     * mnemonic.
+     */
+    private Instruction()
+    {
+        this.operands = new String[0];
+    }
+
+    /**
+     * Creates a label line, such as main:.
+     *
+     * @param name - The name of the label, without the colon.
+     * @return - The label line.
+     */
+    public static Instruction label(String name)
+    {
+        Instruction answer = new Instruction();
+        answer.label = name;
+        return answer;
+    }
+
+    /**
+     * Creates a line of raw text that is written exactly as it is given,
+     * such as a directive or a declaration in the .data section.
+     *
+     * @param line - The text of the line, without the newline.
+     * @return - The text line.
+     */
+    public static Instruction text(String line)
+    {
+        Instruction answer = new Instruction();
+        answer.text = line;
+        return answer;
+    }
+
+    /**
+     * Returns a copy of this instruction with a comment.
+     *
+     * @param comment - The comment written after the instruction.
+     * @return - The commented copy.
+     */
+    public Instruction withComment(String comment)
+    {
+        return new Instruction(op, operands, comment);
+    }
+
+    /**
+     * Returns a copy of this instruction with a different mnemonic.
+     *
+     * @param op - The new mnemonic.
+     * @return - The changed copy.
+     */
+    public Instruction withOp(String op)
+    {
+        return new Instruction(op, operands, comment);
+    }
+
+    /**
+     * Returns a copy of this instruction with one operand changed.
+     *
+     * @param index - The position of the operand, starting at zero.
+     * @param operand - The new operand.
+     * @return - The changed copy.
+     */
+    public Instruction withOperand(int index, String operand)
+    {
+        String[] changed = operands.clone();
+        changed[index] = operand;
+        return new Instruction(op, changed, comment);
+    }
+
+    /**
+     * Checks to see if this line is a label.
+     *
+     * @return - True if this line is a label.
+     */
+    public boolean isLabel()
+    {
+        return label != null;
+    }
+
+    /**
+     * Checks to see if this line is raw text.
+     *
+     * @return - True if this line is raw text.
+     */
+    public boolean isText()
+    {
+        return text != null;
+    }
+
+    /**
+     * Checks to see if this line is a MIPS instruction.
+     *
+     * @return - True if this line has a mnemonic.
+     */
+    public boolean isInstruction()
+    {
+        return op != null;
+    }
+
+    /**
+     * Checks to see if this line is an instruction with the given
+     * mnemonic.
+     *
+     * @param mnemonic - The mnemonic to look for.
+     * @return - True if this line is that instruction.
+     */
+    public boolean is(String mnemonic)
+    {
+        return mnemonic.equals(op);
+    }
+
+    /**
+     * Checks to see if this instruction is a conditional branch, such as
+     * beq or blt. The label it branches to is its last operand.
+     *
+     * @return - True if this instruction is a conditional branch.
+     */
+    public boolean isBranch()
+    {
+        return op != null && op.startsWith("b");
+    }
+
+    /**
+     * Checks to see if this instruction is an unconditional jump to a
+     * label.
+     *
+     * @return - True if this instruction is a j.
+     */
+    public boolean isJump()
+    {
+        return "j".equals(op);
+    }
+
+    /**
+     * Checks to see if control can leave this instruction some other way
+     * than falling through to the next one, or if the instruction has
+     * effects outside of its operands, like a syscall does.
+     *
+     * @return - True for branches, jumps, jr, jal and syscall.
+     */
+    public boolean isControl()
+    {
+        return isBranch() || isJump() || "jr".equals(op) ||
+                "jal".equals(op) || "syscall".equals(op);
+    }
+
+    /**
+     * Returns the label a branch or jump goes to.
+     *
+     * @return - The target label, or null if this is not a branch or
+     * jump.
+     */
+    public String getTarget()
+    {
+        if (isBranch() || isJump())
+        {
+            return operands[operands.length - 1];
+        }
+        return null;
+    }
+
+    /**
+     * Returns the register this instruction writes, which is its first
+     * operand for every instruction that has one.
+     *
+     * @return - The register written, or null if the instruction only
+     * reads registers, like sw, mult and the branches do.
+     */
+    public String getDefinedRegister()
+    {
+        if (op == null || operands.length == 0 || op.equals("sw") ||
+                op.equals("mult") || op.equals("div") || isControl())
+        {
+            return null;
+        }
+        return operands[0];
+    }
+
+    /**
+     * Checks to see if this instruction reads a register, including as
+     * the base register of an address like 4($sp).
+     *
+     * @param reg - The register.
+     * @return - True if the register is read.
+     */
+    public boolean reads(String reg)
+    {
+        if (op == null)
+        {
+            return false;
+        }
+        if (op.equals("syscall"))
+        {
+            return reg.equals("$v0") || reg.equals("$a0");
+        }
+        int first = getDefinedRegister() == null ? 0 : 1;
+        for (int index = first; index < operands.length; index++)
+        {
+            if (operands[index].equals(reg) ||
+                    operands[index].endsWith("(" + reg + ")"))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks to see if this instruction writes a register.
+     *
+     * @param reg - The register.
+     * @return - True if the register is written.
+     */
+    public boolean writes(String reg)
+    {
+        if ("syscall".equals(op))
+        {
+            return reg.equals("$v0");
+        }
+        return reg.equals(getDefinedRegister());
+    }
+
+    /**
+     * Returns the name of this label.
+     *
+     * @return - The label name, or null if this line isn't a label.
+     */
+    public String getLabel()
+    {
+        return label;
+    }
+
+    /**
+     * Returns the mnemonic of this instruction.
+     *
+     * @return - The mnemonic, or null if this line isn't an instruction.
+     */
+    public String getOp()
+    {
+        return op;
+    }
+
+    /**
+     * Returns one operand of this instruction.
+     *
+     * @param index - The position of the operand, starting at zero.
+     * @return - The operand.
+     */
+    public String getOperand(int index)
+    {
+        return operands[index];
+    }
+
+    /**
+     * Returns how many operands this instruction has.
+     *
+     * @return - The number of operands.
+     */
+    public int getOperandCount()
+    {
+        return operands.length;
+    }
+
+    /**
+     * Returns the comment of this instruction.
+     *
+     * @return - The comment, or null if it has none.
+     */
+    public String getComment()
+    {
+        return comment;
+    }
+
+    /**
+     * Compares the label, text, mnemonic and operands of two lines.
+     * Comments are not compared.
+     *
+     * @param o - The object to compare to.
+     * @return - True if the lines are the same code.
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof Instruction))
+        {
+            return false;
+        }
+        Instruction other = (Instruction) o;
+        return toCode().equals(other.toCode());
+    }
+
+    /**
+     * Returns a hash code that agrees with equals.
+     *
+     * @return - The hash code of the line without its comment.
+     */
+    @Override
+    public int hashCode()
+    {
+        return toCode().hashCode();
+    }
+
+    /**
+     * Returns the line as it is written in an .asm file, without the
+     * newline at the end.
+     *
+     * @return - The line of assembly code.
+     */
+    @Override
+    public String toString()
+    {
+        if (comment == null || op == null)
+        {
+            return toCode();
+        }
+        StringBuilder answer = new StringBuilder(toCode());
+        pad(answer, COMMENT_COLUMN);
+        return answer.append("# ").append(comment).toString();
+    }
+
+    /**
+     * Returns the line as it is written in an .asm file without its
+     * comment.
+     *
+     * @return - The line of assembly code without a comment.
+     */
+    private String toCode()
+    {
+        if (label != null)
+        {
+            return label + ":";
+        }
+        if (text != null)
+        {
+            return text;
+        }
+        StringBuilder answer = new StringBuilder(op);
+        if (operands.length > 0)
+        {
+            pad(answer, OPERAND_COLUMN);
+            answer.append(String.join(", ", Arrays.asList(operands)));
+        }
+        return answer.toString();
+    }
+
+    /**
+     * Pads a line with spaces up to a column, always adding at least one
+     * space.
+     *
+     * @param line - The line to pad.
+     * @param column - The column to pad up to.
+     */
+    private static void pad(StringBuilder line, int column)
+    {
+        do
+        {
+            line.append(' ');
+        }
+        while (line.length() < column);
+    }
+}
@@ -0,0 +1,592 @@
+package codegen;
+
+import ir.Const;
+import ir.IrProgram;
+import ir.Kind;
+import ir.Operand;
+import ir.Operator;
+import ir.Quad;
+import ir.Temp;
+import ir.Var;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class turns the three address code of an IrProgram into MIPS
+ * instructions. Registers are assigned to the Temps of the program by a
+ * LinearScan first, and then each Quad is replaced by the instructions
+ * that carry it out, which are handed to an InstructionSink.
+ *
+ * The instructions for operations and branches are picked by a
+ * TreeTiler, which finds the cheapest cover of each Quad from a table of
+ * rules. A constant that an instruction can take as an immediate is put
+ * in the Quad itself first, so fee + 1 is an addi and fee < 10 is an
+ * slti, and the Temp that held it gets no register or li.
+ *
+ * Temps that were spilled live in stack slots. They are loaded into
+ * $v1 or $a1 right before they are read, and a result that goes in a
+ * stack slot is computed in $v1 and stored right after. Constants and
+ * variables used as operands are loaded the same way, and the constant
+ * zero is read straight from $zero.
+ *
+ * @author Marissa Allen
+ */
+public class InstructionSelector
+{
+    /**
+     * The register the left operand of a Quad is loaded into.
+     */
+    private static final String LEFT_SCRATCH = "$v1";
+
+    /**
+     * The register the right operand of a Quad is loaded into.
+     */
+    private static final String RIGHT_SCRATCH = "$a1";
+
+    /**
+     * The registers the left and right operands of a tree are loaded
+     * into.
+     */
+    private static final String[] SCRATCHES = {LEFT_SCRATCH, RIGHT_SCRATCH};
+
+    /**
+     * The label at the end of main that a return jumps to.
+     */
+    private static final String EXIT_LABEL = "endMain";
+
+    private InstructionSink out;
+    private RegisterAllocator registers;
+    private TreeTiler tiler;
+    private LinearScan scan;
+    private Operand result;
+    private String resultRegister;
+    private int position;
+
+    /**
+     * InstructionSelector constructor that takes in the sink the
+     * instructions go to and the registers that can be used.
+     *
+     * @param out - The InstructionSink the instructions are handed to.
+     * @param registers - The RegisterAllocator registers are taken from.
+     */
+    public InstructionSelector(InstructionSink out,
+                               RegisterAllocator registers)
+    {
+        this(out, registers, new TreeTiler(TreeTiler.defaultRules()));
+    }
+
+    /**
+     * InstructionSelector constructor that also takes in the TreeTiler
+     * that picks the instructions for operations and branches.
+     *
+     * @param out - The InstructionSink the instructions are handed to.
+     * @param registers - The RegisterAllocator registers are taken from.
+     * @param tiler - The TreeTiler, with its rule table.
+     */
+    public InstructionSelector(InstructionSink out,
+                               RegisterAllocator registers, TreeTiler tiler)
+    {
+        this.out = out;
+        this.registers = registers;
+        this.tiler = tiler;
+    }
+
+    /**
+     * Writes the whole assembly program: the .data section with a word
+     * for every variable, then main, which saves $ra and the saved
+     * registers it uses, makes room for the spilled Temps, runs the code
+     * of the program and restores everything before it returns. The
+     * sink is flushed at the end.
+     *
+     * @param program - The IrProgram for a whole pascal program.
+     */
+    public void selectProgram(IrProgram program)
+    {
+        foldImmediates(program);
+        scan = new LinearScan(program, registers);
+        result = null;
+
+        //Program overall section. Writes .data section and a .ascizz.
+        out.emit(Instruction.text(
+                "# The .data section of the MIPS assembly"));
+        out.emit(Instruction.text(".data"));
+        out.emit(Instruction.text("newline:    .asciiz     \"\\" + "n" +
+                "\" "));
+
+        //Declarations section
+        for (String variable : program.getVariables())
+        {
+            /*Mips assigns variables as varname: .word 0
+            * and*/
+            out.emit(Instruction.text(variable + " :   .word   0"));
+        }
+
+        //Program overall section. Writes beginning of main.
+        out.emit(Instruction.text(""));
+        out.emit(Instruction.text(".text"));
+        out.emit(Instruction.text(""));
+        out.emit(Instruction.label("main"));
+        out.emit(new Instruction("addi", "$sp", "$sp", "-4").withComment(
+                "Decrements 4 off the stack pointer register."));
+        out.emit(new Instruction("sw", "$ra", "0($sp)").withComment(
+                "Saves register $ra for use as a return register."));
+
+        /*The saved registers main uses are known before any code is
+        written, because the registers were allocated first.*/
+        String[] saved =
+                registers.savedRegisters(scan.getRegistersUsed());
+        if (saved.length > 0)
+        {
+            out.emit(new Instruction("addi", "$sp", "$sp",
+                    "-" + 4 * saved.length).withComment(
+                    "Makes room to save the $s registers."));
+            for (int index = 0; index < saved.length; index++)
+            {
+                out.emit(new Instruction("sw", saved[index],
+                        4 * index + "($sp)"));
+            }
+        }
+        makeSpillRoom();
+
+        //Statement section
+        boolean returns = selectBody(program);
+
+        //Program overall section. Writes end of main.
+        if (returns)
+        {
+            out.emit(Instruction.label(EXIT_LABEL));
+        }
+        freeSpillRoom();
+        if (saved.length > 0)
+        {
+            for (int index = 0; index < saved.length; index++)
+            {
+                out.emit(new Instruction("lw", saved[index],
+                        4 * index + "($sp)"));
+            }
+            out.emit(new Instruction("addi", "$sp", "$sp",
+                    Integer.toString(4 * saved.length)).withComment(
+                    "Restores the $s registers."));
+        }
+        out.emit(new Instruction("lw", "$ra", "0($sp)").withComment(
+                "Restores the original value $ra had in main."));
+        out.emit(new Instruction("addi", "$sp", "$sp", "4").withComment(
+                "Increments 4 onto the stack pointer register."));
+        out.emit(new Instruction("jr", "$ra").withComment(
+                "Jumps back to the line after jal main. End."));
+        out.flush();
+    }
+
+    /**
+     * Writes the code for a statement or expression on its own, without
+     * the .data section or the start and end of main. If the program
+     * has a result, it is put in the given register. Room for spilled
+     * Temps is made before the code and given back after it.
+     *
+     * @param program - The IrProgram for a statement or expression.
+     * @param resultRegister - The register the result is put in, or
+     * null.
+     */
+    public void selectFragment(IrProgram program, String resultRegister)
+    {
+        boolean taken = resultRegister != null &&
+                registers.take(resultRegister);
+        foldImmediates(program);
+        scan = new LinearScan(program, registers);
+        if (taken)
+        {
+            registers.free(resultRegister);
+        }
+        this.result = program.getResult();
+        this.resultRegister = resultRegister;
+        makeSpillRoom();
+        selectBody(program);
+        freeSpillRoom();
+        this.result = null;
+        out.flush();
+    }
+
+    /**
+     * Writes the code for every Quad of a program.
+     *
+     * @param program - The IrProgram.
+     * @return - True if the program has a RETURN.
+     */
+    private boolean selectBody(IrProgram program)
+    {
+        boolean returns = false;
+        List<Quad> quads = program.getQuads();
+        for (position = 0; position < quads.size(); position++)
+        {
+            Quad quad = quads.get(position);
+            select(quad);
+            returns |= quad.getKind() == Kind.RETURN;
+        }
+        return returns;
+    }
+
+    /**
+     * Makes room on the stack for the spilled Temps.
+     */
+    private void makeSpillRoom()
+    {
+        if (scan.getSlotCount() > 0)
+        {
+            out.emit(new Instruction("addi", "$sp", "$sp",
+                    "-" + 4 * scan.getSlotCount()).withComment(
+                    "Makes room for spilled temporaries."));
+        }
+    }
+
+    /**
+     * Gives back the room on the stack for the spilled Temps.
+     */
+    private void freeSpillRoom()
+    {
+        if (scan.getSlotCount() > 0)
+        {
+            out.emit(new Instruction("addi", "$sp", "$sp",
+                    Integer.toString(4 * scan.getSlotCount())).withComment(
+                    "Pops the spilled temporaries off the stack."));
+        }
+    }
+
+    /**
+     * Writes the instructions for one Quad.
+     *
+     * @param quad - The Quad.
+     */
+    private void select(Quad quad)
+    {
+        switch (quad.getKind())
+        {
+            case BINARY:
+                binary(quad);
+                break;
+            case COPY:
+                copy(quad);
+                break;
+            case BRANCH:
+                tiler.select(quad, target(), null, SCRATCHES);
+                break;
+            case JUMP:
+                out.emit(new Instruction("j", quad.getLabel()));
+                break;
+            case LABEL:
+                out.emit(Instruction.label(quad.getLabel()));
+                break;
+            case READ:
+                out.emit(new Instruction("li", "$v0", "5"));
+                out.emit(new Instruction("syscall").withComment(
+                        "Reads an integer into $v0."));
+                store("$v0", quad.getResult());
+                break;
+            case WRITE:
+                out.emit(new Instruction("li", "$v0", "1"));
+                load("$a0", quad.getLeft());
+                out.emit(new Instruction("syscall").withComment(
+                        "Prints the stored register value."));
+                break;
+            case RETURN:
+                load("$v0", quad.getLeft());
+                out.emit(new Instruction("j", EXIT_LABEL).withComment(
+                        "Returns the function statements"));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Writes the instructions for a BINARY Quad, which the TreeTiler
+     * picks, and spills the result if its Temp lives on the stack.
+     *
+     * @param quad - The BINARY Quad.
+     */
+    private void binary(Quad quad)
+    {
+        String dest = def(quad.getResult());
+        tiler.select(quad, target(), dest, SCRATCHES);
+        spill(quad.getResult(), dest);
+    }
+
+    /**
+     * Returns the Target the TreeTiler hands its instructions to, which
+     * loads a leaf the way any other operand is loaded.
+     *
+     * @return - The Target.
+     */
+    private TreeTiler.Target target()
+    {
+        return new TreeTiler.Target()
+        {
+            @Override
+            public void emit(Instruction instruction)
+            {
+                out.emit(instruction);
+            }
+
+            @Override
+            public String load(Operand operand, String scratch)
+            {
+                return use(operand, scratch);
+            }
+        };
+    }
+
+    /**
+     * Puts the constants of a program into the Quads whose cheapest
+     * cover doesn't cost more with the constant in them, like fee + 1,
+     * which is an addi, or fee > 0, which is a bgtz, and removes the
+     * loads of the Temps that held them when nothing else reads them.
+     * This is done before registers are allocated, so those Temps don't
+     * take one. A constant on the left of +, and, or or a comparison is
+     * swapped to the right first.
+     *
+     * @param program - The IrProgram.
+     */
+    private void foldImmediates(IrProgram program)
+    {
+        Map<Temp, Integer> constants = program.findConstants();
+        if (constants.isEmpty())
+        {
+            return;
+        }
+        for (Quad quad : program.getQuads())
+        {
+            Integer left = constants.get(quad.getLeft());
+            Integer right = constants.get(quad.getRight());
+            if (quad.getKind() == Kind.COPY)
+            {
+                //Stores zero straight from $zero.
+                if (quad.getResult() instanceof Var && left != null &&
+                        left == 0)
+                {
+                    quad.setLeft(new Const(0));
+                }
+                continue;
+            }
+            if (quad.getKind() != Kind.BINARY &&
+                    quad.getKind() != Kind.BRANCH)
+            {
+                continue;
+            }
+            Operator op = quad.getOp();
+            if (left != null && right == null &&
+                    !(quad.getRight() instanceof Const) &&
+                    (op.isRelational() || op == Operator.ADD ||
+                    op == Operator.ADDU || op == Operator.AND ||
+                    op == Operator.OR))
+            {
+                Operand swap = quad.getLeft();
+                quad.setLeft(quad.getRight());
+                quad.setRight(swap);
+                quad.setOp(mirror(op));
+                right = left;
+                left = null;
+            }
+            if (right != null)
+            {
+                Operand kept = quad.getRight();
+                int cost = tiler.cost(quad);
+                quad.setRight(new Const(right));
+                if (tiler.cost(quad) > cost)
+                {
+                    quad.setRight(kept);
+                }
+            }
+            if (left != null)
+            {
+                Operand kept = quad.getLeft();
+                int cost = tiler.cost(quad);
+                quad.setLeft(new Const(left));
+                if (tiler.cost(quad) > cost)
+                {
+                    quad.setLeft(kept);
+                }
+            }
+        }
+        program.removeUnused(constants.keySet());
+    }
+
+    /**
+     * Finds the operator that gives the same answer with its operands
+     * swapped.
+     *
+     * @param op - The operator.
+     * @return - The operator, with < and > and <= and >= swapped.
+     */
+    private Operator mirror(Operator op)
+    {
+        switch (op)
+        {
+            case LT:
+                return Operator.GT;
+            case GT:
+                return Operator.LT;
+            case LE:
+                return Operator.GE;
+            case GE:
+                return Operator.LE;
+            default:
+                return op;
+        }
+    }
+
+    /**
+     * Writes the instructions for a COPY Quad. Copying into a Temp loads
+     * the Temp, and copying into a Var stores into memory.
+     *
+     * @param quad - The COPY Quad.
+     */
+    private void copy(Quad quad)
+    {
+        Operand target = quad.getResult();
+        if (target instanceof Var)
+        {
+            String value = use(quad.getLeft(), LEFT_SCRATCH);
+            out.emit(new Instruction("sw", value,
+                    ((Var) target).getName()).withComment(
+                    "Memory[label] = $reg"));
+        }
+        else
+        {
+            String dest = def(target);
+            load(dest, quad.getLeft());
+            spill(target, dest);
+        }
+    }
+
+    /**
+     * Writes the instruction that puts the value of an operand in a
+     * given register. A Temp that is still needed after a write is
+     * copied with move, and one that is read for the last time with
+     * addi, which the peephole optimizer can remove.
+     *
+     * @param reg - The register to put the value in.
+     * @param source - The operand.
+     */
+    private void load(String reg, Operand source)
+    {
+        if (source instanceof Const)
+        {
+            out.emit(new Instruction("li", reg, source.toString())
+                    .withComment("Loads a register with a specific " +
+                            "numeric value."));
+        }
+        else if (source instanceof Var)
+        {
+            out.emit(new Instruction("lw", reg, source.toString())
+                    .withComment("Loads the variable labels."));
+        }
+        else if (scan.getSlot((Temp) source) >= 0)
+        {
+            out.emit(new Instruction("lw", reg, slot((Temp) source)));
+        }
+        else if (scan.isLiveAfter((Temp) source, position))
+        {
+            out.emit(new Instruction("move", reg,
+                    scan.getRegister((Temp) source)));
+        }
+        else if (!reg.equals(scan.getRegister((Temp) source)))
+        {
+            out.emit(new Instruction("addi", reg,
+                    scan.getRegister((Temp) source), "0").withComment(
+                    "Copies the value into " + reg + "."));
+        }
+    }
+
+    /**
+     * Writes the instruction that stores a register into a variable or a
+     * Temp.
+     *
+     * @param reg - The register holding the value.
+     * @param target - The operand the value is stored in.
+     */
+    private void store(String reg, Operand target)
+    {
+        if (target instanceof Var)
+        {
+            out.emit(new Instruction("sw", reg, target.toString())
+                    .withComment("Memory[label] = $reg"));
+        }
+        else if (scan.getSlot((Temp) target) >= 0)
+        {
+            out.emit(new Instruction("sw", reg, slot((Temp) target)));
+        }
+        else
+        {
+            out.emit(new Instruction("move", def(target), reg));
+        }
+    }
+
+    /**
+     * Finds a register holding the value of an operand that is read,
+     * loading it into a scratch register if it isn't in one already.
+     *
+     * @param operand - The operand that is read.
+     * @param scratch - The register to load it into if it has to be.
+     * @return - The register holding the value.
+     */
+    private String use(Operand operand, String scratch)
+    {
+        if (operand instanceof Const && ((Const) operand).getValue() == 0)
+        {
+            return "$zero";
+        }
+        if (operand instanceof Temp && scan.getSlot((Temp) operand) < 0)
+        {
+            return scan.getRegister((Temp) operand);
+        }
+        load(scratch, operand);
+        return scratch;
+    }
+
+    /**
+     * Finds the register the result of a Quad is written into.
+     *
+     * @param target - The Temp that is written.
+     * @return - The register of the Temp, the register the result of a
+     * fragment goes in, or a scratch register if the Temp was spilled.
+     */
+    private String def(Operand target)
+    {
+        if (target.equals(result) && resultRegister != null)
+        {
+            return resultRegister;
+        }
+        if (scan.getSlot((Temp) target) >= 0)
+        {
+            return LEFT_SCRATCH;
+        }
+        return scan.getRegister((Temp) target);
+    }
+
+    /**
+     * Stores a result into its stack slot if its Temp was spilled.
+     *
+     * @param target - The Temp that was written.
+     * @param reg - The register the result was computed in.
+     */
+    private void spill(Operand target, String reg)
+    {
+        if (target instanceof Temp && scan.getSlot((Temp) target) >= 0 &&
+                reg.equals(LEFT_SCRATCH))
+        {
+            out.emit(new Instruction("sw", reg, slot((Temp) target))
+                    .withComment("Spills a temporary onto the stack."));
+        }
+    }
+
+    /**
+     * Returns the address of the stack slot of a spilled Temp.
+     *
+     * @param temp - The spilled Temp.
+     * @return - The address, like 4($sp).
+     */
+    private String slot(Temp temp)
+    {
+        return 4 * scan.getSlot(temp) + "($sp)";
+    }
+}
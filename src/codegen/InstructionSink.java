@@ -0,0 +1,28 @@
+package codegen;
+
+/**
+ * An InstructionSink takes in the lines of assembly code made by the
+ * code generator one at a time. Sinks can be chained, so code can pass
+ * through a PeepholeOptimizer on its way to an AssemblyEmitter that
+ * writes it out.
+ *
+ * @author Marissa Allen
+ */
+public interface InstructionSink
+{
+    /**
+     * Takes in the next line of assembly code.
+     *
+     * @param instruction - The line of assembly code.
+     */
+    void emit(Instruction instruction);
+
+    /**
+     * Passes on any lines this sink is still holding, and flushes the
+     * sinks it passes lines to. It is called once the last line of a
+     * program has been emitted.
+     */
+    default void flush()
+    {
+    }
+}
@@ -0,0 +1,52 @@
+package codegen;
+
+import java.util.List;
+
+/**
+ * This rule removes a jump or branch to the label right after it, since
+ * control gets to the label either way.
+ * j      Next1
+ * Next1:
+ * becomes
+ * Next1:
+ *
+ * @author Marissa Allen
+ */
+public class JumpToNextRule implements PeepholeRule
+{
+    /**
+     * Returns the name the rule is reported under.
+     *
+     * @return - The name of the rule.
+     */
+    @Override
+    public String getName()
+    {
+        return "jump to next label";
+    }
+
+    /**
+     * Removes a jump or branch that is followed by the label it goes to.
+     *
+     * @param window - The lines held by the optimizer, oldest first.
+     * @return - True if the window was changed.
+     */
+    @Override
+    public boolean apply(List<Instruction> window)
+    {
+        int size = window.size();
+        if (size < 2)
+        {
+            return false;
+        }
+        Instruction jump = window.get(size - 2);
+        Instruction label = window.get(size - 1);
+        if (label.isLabel() && (jump.isJump() || jump.isBranch()) &&
+                label.getLabel().equals(jump.getTarget()))
+        {
+            window.remove(size - 2);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,297 @@
+package codegen;
+
+import ir.BasicBlock;
+import ir.IrProgram;
+import ir.Operand;
+import ir.Quad;
+import ir.Temp;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class decides which register holds each Temp of an IrProgram,
+ * using linear scan register allocation. Every Temp gets a live
+ * interval, from the first place it is written or live to the last
+ * place it is read or live, in the order the Quads are laid out. The
+ * intervals are handed registers from a RegisterAllocator in the order
+ * they start, and a register is given back as soon as the interval
+ * holding it ends. When every register is in use, the interval that
+ * ends last is spilled and lives in a stack slot instead.
+ *
+ * Temps that hold a variable promoted to a register for a whole loop
+ * are handed a saved register when one is free.
+ *
+ * Positions are counted two to a Quad, so a Quad reads its operands at
+ * an even position and writes its result at the odd position after it.
+ * That way the result of a Quad can reuse the register of an operand
+ * the Quad reads for the last time, but never the register of a Temp
+ * that is still live afterwards.
+ *
+ * @author Marissa Allen
+ */
+public class LinearScan
+{
+    private Map<Temp, String> registerOf = new HashMap<>();
+    private Map<Temp, Integer> slotOf = new HashMap<>();
+    private Map<Temp, Integer> endOf = new HashMap<>();
+    private int registersUsed = 0;
+
+    /**
+     * LinearScan constructor that allocates the registers for every Temp
+     * of a program. Every register taken from the RegisterAllocator is
+     * given back before the constructor returns.
+     *
+     * @param program - The IrProgram to allocate registers for.
+     * @param registers - The RegisterAllocator registers are taken from.
+     */
+    public LinearScan(IrProgram program, RegisterAllocator registers)
+    {
+        Map<Temp, int[]> intervals = intervals(program);
+        List<Temp> order = new ArrayList<>(intervals.keySet());
+        order.sort((a, b) -> intervals.get(a)[0] != intervals.get(b)[0] ?
+                Integer.compare(intervals.get(a)[0], intervals.get(b)[0]) :
+                Integer.compare(a.getNumber(), b.getNumber()));
+        List<Temp> active = new ArrayList<>();
+        for (Temp temp : order)
+        {
+            int start = intervals.get(temp)[0];
+            int end = intervals.get(temp)[1];
+            endOf.put(temp, end);
+            //Frees the registers of the intervals that have ended.
+            for (int index = active.size() - 1; index >= 0; index--)
+            {
+                Temp other = active.get(index);
+                if (intervals.get(other)[1] < start)
+                {
+                    registers.free(registerOf.get(other));
+                    active.remove(index);
+                }
+            }
+            String reg = program.getPromoted().contains(temp) ?
+                    registers.allocateSaved() : registers.allocate();
+            if (reg == null)
+            {
+                Temp longest = temp;
+                for (Temp other : active)
+                {
+                    if (intervals.get(other)[1] >
+                            intervals.get(longest)[1])
+                    {
+                        longest = other;
+                    }
+                }
+                if (longest != temp)
+                {
+                    reg = registerOf.remove(longest);
+                    active.remove(longest);
+                }
+                slotOf.put(longest, slotOf.size());
+            }
+            if (reg != null)
+            {
+                registerOf.put(temp, reg);
+                active.add(temp);
+                registersUsed = Math.max(registersUsed,
+                        registers.indexOf(reg) + 1);
+            }
+        }
+        for (Temp temp : active)
+        {
+            registers.free(registerOf.get(temp));
+        }
+    }
+
+    /**
+     * Returns the register that holds a Temp.
+     *
+     * @param temp - The Temp.
+     * @return - The name of the register, or null if it was spilled.
+     */
+    public String getRegister(Temp temp)
+    {
+        return registerOf.get(temp);
+    }
+
+    /**
+     * Returns the stack slot that holds a spilled Temp. Slot n is at
+     * 4 * n($sp) once the spill slots have been made room for.
+     *
+     * @param temp - The Temp.
+     * @return - The slot number, or -1 if the Temp is in a register.
+     */
+    public int getSlot(Temp temp)
+    {
+        return slotOf.getOrDefault(temp, -1);
+    }
+
+    /**
+     * Returns the number of stack slots spilled Temps need.
+     *
+     * @return - The number of spill slots.
+     */
+    public int getSlotCount()
+    {
+        return slotOf.size();
+    }
+
+    /**
+     * Returns how far into the list of registers the allocation went,
+     * which is the most registers in use at once unless saved registers
+     * were handed out early. The saved registers main has to save are
+     * found from this number.
+     *
+     * @return - One more than the index of the highest register used.
+     */
+    public int getRegistersUsed()
+    {
+        return registersUsed;
+    }
+
+    /**
+     * Checks to see if a Temp is read after a Quad.
+     *
+     * @param temp - The Temp.
+     * @param position - The position of the Quad, counting every Quad of
+     * the program from zero.
+     * @return - True if the interval of the Temp goes past the Quad.
+     */
+    public boolean isLiveAfter(Temp temp, int position)
+    {
+        return endOf.getOrDefault(temp, -1) > 2 * position + 1;
+    }
+
+    /**
+     * Finds the live interval of every Temp. The interval covers every
+     * position the Temp is written or read at, and every block it is
+     * live into or out of.
+     *
+     * @param program - The IrProgram.
+     * @return - The start and end position of each Temp's interval.
+     */
+    private Map<Temp, int[]> intervals(IrProgram program)
+    {
+        List<BasicBlock> blocks = program.getBlocks();
+        int count = program.getTempCount() + 1;
+        BitSet[] liveIn = liveIn(blocks, count);
+        Map<Temp, int[]> answer = new HashMap<>();
+        int position = 0;
+        for (BasicBlock block : blocks)
+        {
+            int first = 2 * position;
+            for (Quad quad : block.getQuads())
+            {
+                for (Operand use : quad.getUses())
+                {
+                    if (use instanceof Temp)
+                    {
+                        cover(answer, (Temp) use, 2 * position);
+                    }
+                }
+                if (quad.getResult() instanceof Temp)
+                {
+                    cover(answer, (Temp) quad.getResult(),
+                            2 * position + 1);
+                }
+                position++;
+            }
+            int last = 2 * position - 1;
+            BitSet liveOut = new BitSet();
+            for (BasicBlock successor : block.getSuccessors())
+            {
+                liveOut.or(liveIn[successor.getNumber()]);
+            }
+            for (int number = liveIn[block.getNumber()].nextSetBit(0);
+                 number >= 0;
+                 number = liveIn[block.getNumber()].nextSetBit(number + 1))
+            {
+                cover(answer, new Temp(number), first);
+            }
+            for (int number = liveOut.nextSetBit(0); number >= 0;
+                 number = liveOut.nextSetBit(number + 1))
+            {
+                cover(answer, new Temp(number), last);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Widens the interval of a Temp to cover a position.
+     *
+     * @param intervals - The intervals found so far.
+     * @param temp - The Temp.
+     * @param position - The position to cover.
+     */
+    private void cover(Map<Temp, int[]> intervals, Temp temp, int position)
+    {
+        int[] interval = intervals.computeIfAbsent(temp,
+                key -> new int[]{position, position});
+        interval[0] = Math.min(interval[0], position);
+        interval[1] = Math.max(interval[1], position);
+    }
+
+    /**
+     * Finds the Temps that are live at the start of each block, by
+     * repeating the backwards liveness equations until nothing changes.
+     * live in = uses before a write + (live out - writes)
+     *
+     * @param blocks - The blocks of the program.
+     * @param count - One more than the largest Temp number.
+     * @return - The live in set of each block, by block number.
+     */
+    private BitSet[] liveIn(List<BasicBlock> blocks, int count)
+    {
+        int size = blocks.size();
+        BitSet[] uses = new BitSet[size];
+        BitSet[] defs = new BitSet[size];
+        BitSet[] liveIn = new BitSet[size];
+        for (BasicBlock block : blocks)
+        {
+            int number = block.getNumber();
+            uses[number] = new BitSet(count);
+            defs[number] = new BitSet(count);
+            liveIn[number] = new BitSet(count);
+            for (Quad quad : block.getQuads())
+            {
+                for (Operand use : quad.getUses())
+                {
+                    if (use instanceof Temp &&
+                            !defs[number].get(((Temp) use).getNumber()))
+                    {
+                        uses[number].set(((Temp) use).getNumber());
+                    }
+                }
+                if (quad.getResult() instanceof Temp)
+                {
+                    defs[number].set(((Temp) quad.getResult()).getNumber());
+                }
+            }
+        }
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (int index = size - 1; index >= 0; index--)
+            {
+                BasicBlock block = blocks.get(index);
+                BitSet in = new BitSet(count);
+                for (BasicBlock successor : block.getSuccessors())
+                {
+                    in.or(liveIn[successor.getNumber()]);
+                }
+                in.andNot(defs[index]);
+                in.or(uses[index]);
+                if (!in.equals(liveIn[index]))
+                {
+                    liveIn[index] = in;
+                    changed = true;
+                }
+            }
+        }
+        return liveIn;
+    }
+}
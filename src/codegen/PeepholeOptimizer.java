@@ -0,0 +1,182 @@
+package codegen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is an InstructionSink that removes wasteful instruction
+ * sequences from the code passing through it on the way to another
+ * sink. It holds the last few lines it was given in a window, and every
+ * time a line comes in each PeepholeRule gets a chance to rewrite the end
+ * of the window. Once the window is full, the oldest line is passed on.
+ * The size of the window and the rules are chosen when the optimizer is
+ * made, and it counts how many instructions each rule removed.
+ *
+ * Example:
+ * PeepholeOptimizer peephole =
+ *         new PeepholeOptimizer(new AssemblyEmitter(printWriter));
+ * codeGen.genCode(peephole);
+ * System.out.print(peephole);
+ *
+ * @author Marissa Allen
+ */
+public class PeepholeOptimizer implements InstructionSink
+{
+    /**
+     * The number of lines held when no window size is given.
+     */
+    public static final int DEFAULT_WINDOW = 4;
+
+    private InstructionSink next;
+    private int window;
+    private List<PeepholeRule> rules;
+    private List<Instruction> held = new ArrayList<>();
+    private Map<String, Integer> removed = new LinkedHashMap<>();
+
+    /**
+     * PeepholeOptimizer constructor that uses the default window and
+     * every rule from defaultRules.
+     *
+     * @param next - The sink the optimized code is passed on to.
+     */
+    public PeepholeOptimizer(InstructionSink next)
+    {
+        this(next, DEFAULT_WINDOW, defaultRules());
+    }
+
+    /**
+     * PeepholeOptimizer constructor that takes in the window size and the
+     * rules to use.
+     *
+     * @param next - The sink the optimized code is passed on to.
+     * @param window - The number of lines held, at least three so every
+     * default rule can match.
+     * @param rules - The rules to apply, in the order they are tried.
+     */
+    public PeepholeOptimizer(InstructionSink next, int window,
+                             List<PeepholeRule> rules)
+    {
+        if (window < 1)
+        {
+            throw new IllegalArgumentException("Peephole window must be " +
+                    "at least 1");
+        }
+        this.next = next;
+        this.window = window;
+        this.rules = new ArrayList<>(rules);
+        for (PeepholeRule rule : rules)
+        {
+            removed.put(rule.getName(), 0);
+        }
+    }
+
+    /**
+     * Returns a new list of every rule, in the order they are tried.
+     *
+     * @return - The store then load, jump to next label, branch over
+     * jump and copy to argument rules.
+     */
+    public static List<PeepholeRule> defaultRules()
+    {
+        return new ArrayList<>(Arrays.asList(new StoreLoadRule(),
+                new JumpToNextRule(), new BranchOverJumpRule(),
+                new ArgumentCopyRule()));
+    }
+
+    /**
+     * Takes in the next line of code, applies the rules to the window
+     * until none of them match, and passes on the lines that no longer
+     * fit in the window.
+     *
+     * @param instruction - The line of assembly code.
+     */
+    @Override
+    public void emit(Instruction instruction)
+    {
+        held.add(instruction);
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (PeepholeRule rule : rules)
+            {
+                int before = held.size();
+                if (rule.apply(held))
+                {
+                    removed.merge(rule.getName(), before - held.size(),
+                            Integer::sum);
+                    changed = true;
+                }
+            }
+        }
+        while (held.size() > window)
+        {
+            next.emit(held.remove(0));
+        }
+    }
+
+    /**
+     * Passes on every line still held in the window and flushes the next
+     * sink.
+     */
+    @Override
+    public void flush()
+    {
+        for (Instruction instruction : held)
+        {
+            next.emit(instruction);
+        }
+        held.clear();
+        next.flush();
+    }
+
+    /**
+     * Returns how many instructions a rule has removed.
+     *
+     * @param rule - The name of the rule.
+     * @return - The number of instructions removed by the rule.
+     */
+    public int getRemoved(String rule)
+    {
+        return removed.getOrDefault(rule, 0);
+    }
+
+    /**
+     * Returns how many instructions every rule has removed together.
+     *
+     * @return - The total number of instructions removed.
+     */
+    public int getRemoved()
+    {
+        int answer = 0;
+        for (int count : removed.values())
+        {
+            answer += count;
+        }
+        return answer;
+    }
+
+    /**
+     * Returns a table of how many instructions each rule removed.
+     *
+     * @return - A String with one line per rule and a total.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder answer = new StringBuilder();
+        answer.append("Peephole optimizer, window of ").append(window)
+                .append("\n");
+        for (Map.Entry<String, Integer> entry : removed.entrySet())
+        {
+            answer.append(String.format("%-22s%6d removed\n",
+                    entry.getKey(), entry.getValue()));
+        }
+        answer.append(String.format("%-22s%6d removed\n", "total",
+                getRemoved()));
+        return answer.toString();
+    }
+}
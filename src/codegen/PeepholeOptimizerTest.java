@@ -0,0 +1,177 @@
+package codegen;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import parser.Parser;
+import syntaxtree.ProgramNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A JUnit Java class that illustrates passing instructions through the
+ * PeepholeOptimizer and making sure each rule removes the instructions
+ * it should, and only those.
+ *
+ * @author Marissa Allen
+ */
+public class PeepholeOptimizerTest
+{
+    /**
+     * This method tests the store then load rule. A load from the
+     * address that was just stored to is dropped, or becomes a move when
+     * it loads a different register.
+     */
+    @Test
+    public void testStoreLoad()
+    {
+        System.out.println("\n" + "#########################" + "\n" +
+                "# Test store then load  #" + "\n" +
+                "#########################" + "\n");
+
+        List<Instruction> code = new ArrayList<>();
+        PeepholeOptimizer peephole = new PeepholeOptimizer(code::add);
+        peephole.emit(new Instruction("sw", "$t0", "fee"));
+        peephole.emit(new Instruction("lw", "$t0", "fee"));
+        peephole.emit(new Instruction("sw", "$t0", "fi"));
+        peephole.emit(new Instruction("lw", "$t1", "fi"));
+        peephole.emit(new Instruction("sw", "$t0", "fo"));
+        peephole.emit(new Instruction("lw", "$t0", "fee"));
+        peephole.flush();
+        String expected = "[sw     $t0, fee, sw     $t0, fi, " +
+                "move   $t1, $t0, sw     $t0, fo, lw     $t0, fee]";
+        assertEquals(expected, code.toString());
+        assertEquals(1, peephole.getRemoved("store then load"));
+        System.out.println(code);
+    }
+
+    /**
+     * This method tests the jump to next label and branch over jump
+     * rules on the code an if statement with an empty else part and a
+     * jump to the next line leave behind.
+     */
+    @Test
+    public void testJumps()
+    {
+        System.out.println("\n" + "#########################" + "\n" +
+                "# Test jumps            #" + "\n" +
+                "#########################" + "\n");
+
+        List<Instruction> code = new ArrayList<>();
+        PeepholeOptimizer peephole = new PeepholeOptimizer(code::add);
+        peephole.emit(new Instruction("blt", "$t0", "$t1", "endLoop1"));
+        peephole.emit(new Instruction("j", "Next1"));
+        peephole.emit(Instruction.label("endLoop1"));
+        peephole.emit(new Instruction("j", "Next2"));
+        peephole.emit(Instruction.label("Next2"));
+        peephole.flush();
+        String expected = "[bge    $t0, $t1, Next1, endLoop1:, Next2:]";
+        assertEquals(expected, code.toString());
+        assertEquals(1, peephole.getRemoved("branch over jump"));
+        assertEquals(1, peephole.getRemoved("jump to next label"));
+
+        //Negative test, a jump to a different label is kept.
+        code.clear();
+        peephole = new PeepholeOptimizer(code::add);
+        peephole.emit(new Instruction("j", "Next1"));
+        peephole.emit(Instruction.label("endLoop1"));
+        peephole.flush();
+        assertEquals("[j      Next1, endLoop1:]", code.toString());
+        assertEquals(0, peephole.getRemoved());
+        System.out.println(code);
+    }
+
+    /**
+     * This method tests the copy to argument rule, which makes the
+     * instruction that computed a value write $a0 instead of copying the
+     * value there before a syscall.
+     */
+    @Test
+    public void testArgumentCopy()
+    {
+        System.out.println("\n" + "#########################" + "\n" +
+                "# Test argument copy    #" + "\n" +
+                "#########################" + "\n");
+
+        List<Instruction> code = new ArrayList<>();
+        PeepholeOptimizer peephole = new PeepholeOptimizer(code::add);
+        peephole.emit(new Instruction("mflo", "$t0"));
+        peephole.emit(new Instruction("li", "$v0", "1"));
+        peephole.emit(new Instruction("addi", "$a0", "$t0", "0"));
+        peephole.emit(new Instruction("syscall"));
+        peephole.flush();
+        String expected = "[mflo   $a0, li     $v0, 1, syscall]";
+        assertEquals(expected, code.toString());
+        assertEquals(1, peephole.getRemoved("copy to argument"));
+
+        //Negative test, the temporary is read after it is computed.
+        code.clear();
+        peephole = new PeepholeOptimizer(code::add);
+        peephole.emit(new Instruction("lw", "$t0", "fee"));
+        peephole.emit(new Instruction("sw", "$t0", "fi"));
+        peephole.emit(new Instruction("addi", "$a0", "$t0", "0"));
+        peephole.flush();
+        assertEquals(3, code.size());
+
+        //Negative test, a window of one can't see the computation.
+        code.clear();
+        peephole = new PeepholeOptimizer(code::add, 1,
+                Collections.singletonList(new ArgumentCopyRule()));
+        peephole.emit(new Instruction("lw", "$t0", "fee"));
+        peephole.emit(new Instruction("li", "$v0", "1"));
+        peephole.emit(new Instruction("addi", "$a0", "$t0", "0"));
+        peephole.flush();
+        assertEquals(3, code.size());
+        System.out.println(code);
+    }
+
+    /**
+     * This method tests the optimizer on the code for a whole program
+     * and prints the report of how many instructions each rule removed.
+     * This is a text string test.
+     */
+    @Test
+    public void testGenCode()
+    {
+        System.out.println("\n" + "#########################" + "\n" +
+                "# Test optimized program #" + "\n" +
+                "#########################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fo: integer;\n" +
+                "begin\n" +
+                "fee := 4;\n" +
+                "fo := fee + 1;\n" +
+                "if fo < 13 then fo := 13 else begin end;\n" +
+                "write( fo)\n" +
+                "end\n" +
+                ".\n";
+        ProgramNode program = new Parser(test, false).program();
+        StringBuilder actual = new StringBuilder();
+        PeepholeOptimizer peephole =
+                new PeepholeOptimizer(new AssemblyEmitter(actual));
+        new CodeGeneration(program, null).genCode(peephole);
+        String expected = "li     $t0, 4           " +
+                "# Loads a register with a specific numeric value.\n" +
+                "sw     $t0, fee         # Memory[label] = $reg\n" +
+                "addi   $t0, $t0, 1\n" +
+                "sw     $t0, fo          # Memory[label] = $reg\n" +
+                "slti   $a1, $t0, 13\n" +
+                "beq    $a1, $zero, Next1\n" +
+                "li     $t0, 13          " +
+                "# Loads a register with a specific numeric value.\n" +
+                "sw     $t0, fo          # Memory[label] = $reg\n" +
+                "Next1:\n" +
+                "lw     $a0, fo          # Loads the variable labels.\n" +
+                "li     $v0, 1\n" +
+                "syscall                 " +
+                "# Prints the stored register value.\n";
+        assertTrue(actual.toString().contains(expected));
+        assertEquals(3, peephole.getRemoved());
+        System.out.println(actual);
+        System.out.print(peephole);
+    }
+}
@@ -0,0 +1,30 @@
+package codegen;
+
+import java.util.List;
+
+/**
+ * A PeepholeRule looks at the last few lines of code held by a
+ * PeepholeOptimizer and replaces a wasteful pattern with a cheaper one.
+ * Every pattern ends at the newest line, so a rule only has to look
+ * backwards from the end of the window.
+ *
+ * @author Marissa Allen
+ */
+public interface PeepholeRule
+{
+    /**
+     * Returns the name the rule is reported under.
+     *
+     * @return - The name of the rule.
+     */
+    String getName();
+
+    /**
+     * Rewrites the end of the window if it matches this rule's pattern.
+     * Lines may be removed from the window or replaced in it.
+     *
+     * @param window - The lines held by the optimizer, oldest first.
+     * @return - True if the window was changed.
+     */
+    boolean apply(List<Instruction> window);
+}
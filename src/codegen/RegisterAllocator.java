@@ -0,0 +1,200 @@
+package codegen;
+
+/**
+ * This class hands out the MIPS registers that hold the values of
+ * expressions while they are computed. The temporary registers $t0-$t9
+ * are handed out first, followed by the saved registers $s0-$s7, and
+ * the lowest free register is always handed out next. A register is
+ * given back with free once the value in it has been used.
+ *
+ * @author Marissa Allen
+ */
+public class RegisterAllocator
+{
+    /**
+     * Every register that can be handed out, in the order they are
+     * handed out.
+     */
+    private static final String[] REGISTERS =
+            {
+                    "$t0", "$t1", "$t2", "$t3", "$t4", "$t5", "$t6",
+                    "$t7", "$t8", "$t9", "$s0", "$s1", "$s2", "$s3",
+                    "$s4", "$s5", "$s6", "$s7"
+            };
+
+    /**
+     * The number of temporary registers at the front of REGISTERS.
+     */
+    private static final int TEMPORARY_COUNT = 10;
+
+    private String[] registers;
+    private boolean[] inUse;
+    private int free;
+
+    /**
+     * RegisterAllocator constructor that hands out every temporary and
+     * saved register.
+     */
+    public RegisterAllocator()
+    {
+        this(REGISTERS.length);
+    }
+
+    /**
+     * RegisterAllocator constructor that only hands out the first count
+     * registers of $t0-$t9, $s0-$s7.
+     *
+     * @param count - The number of registers to hand out, at least two.
+     */
+    public RegisterAllocator(int count)
+    {
+        if (count < 2 || count > REGISTERS.length)
+        {
+            throw new IllegalArgumentException("Register count must be " +
+                    "between 2 and " + REGISTERS.length);
+        }
+        this.registers = new String[count];
+        System.arraycopy(REGISTERS, 0, registers, 0, count);
+        this.inUse = new boolean[count];
+        this.free = count;
+    }
+
+    /**
+     * Hands out the lowest numbered free register.
+     *
+     * @return - The name of the register, or null if every register is
+     * in use.
+     */
+    public String allocate()
+    {
+        for (int index = 0; index < registers.length; index++)
+        {
+            if (!inUse[index])
+            {
+                inUse[index] = true;
+                free--;
+                return registers[index];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hands out the lowest numbered free saved register, $s0-$s7, for a
+     * value that stays in a register for a long time, such as a variable
+     * kept in a register for a whole loop. If no saved register is free,
+     * or this allocator doesn't hand any out, the lowest numbered free
+     * register is handed out instead.
+     *
+     * @return - The name of the register, or null if every register is
+     * in use.
+     */
+    public String allocateSaved()
+    {
+        for (int index = TEMPORARY_COUNT; index < registers.length; index++)
+        {
+            if (!inUse[index])
+            {
+                inUse[index] = true;
+                free--;
+                return registers[index];
+            }
+        }
+        return allocate();
+    }
+
+    /**
+     * Marks a register that was chosen by the caller as in use. Registers
+     * that this allocator does not hand out, such as $v0, are ignored.
+     *
+     * @param reg - The name of the register.
+     * @return - True if the register was free and is now held, false if
+     * it is not one of this allocator's registers or was already held.
+     */
+    public boolean take(String reg)
+    {
+        int index = indexOf(reg);
+        if (index < 0 || inUse[index])
+        {
+            return false;
+        }
+        inUse[index] = true;
+        free--;
+        return true;
+    }
+
+    /**
+     * Gives a register back so it can be handed out again.
+     *
+     * @param reg - The name of the register.
+     */
+    public void free(String reg)
+    {
+        int index = indexOf(reg);
+        if (index >= 0 && inUse[index])
+        {
+            inUse[index] = false;
+            free++;
+        }
+    }
+
+    /**
+     * Returns how many registers are free.
+     *
+     * @return - The number of free registers.
+     */
+    public int available()
+    {
+        return free;
+    }
+
+    /**
+     * Returns how many registers this allocator can hand out.
+     *
+     * @return - The number of registers.
+     */
+    public int size()
+    {
+        return registers.length;
+    }
+
+    /**
+     * Returns the saved registers, $s0-$s7, that will be handed out when
+     * at most the given number of registers are in use at once. These
+     * are the registers main has to save and restore.
+     *
+     * @param registersUsed - The most registers in use at any one time.
+     * @return - The names of the saved registers that will be used.
+     */
+    public String[] savedRegisters(int registersUsed)
+    {
+        int used = Math.min(registersUsed, registers.length);
+        int saved = Math.max(0, used - TEMPORARY_COUNT);
+        if (saved == 0)
+        {
+            return new String[0];
+        }
+        String[] answer = new String[saved];
+        System.arraycopy(registers, TEMPORARY_COUNT, answer, 0, saved);
+        return answer;
+    }
+
+    /**
+     * Finds where a register is in this allocator's list of registers.
+     *
+     * @param reg - The name of the register.
+     * @return - The index of the register, or -1 if it is not handed out
+     * by this allocator.
+     */
+    public int indexOf(String reg)
+    {
+        for (int index = 0; index < registers.length; index++)
+        {
+            if (registers[index].equals(reg))
+            {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
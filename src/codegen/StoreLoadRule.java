@@ -0,0 +1,63 @@
+package codegen;
+
+import java.util.List;
+
+/**
+ * This rule removes a load from an address that was stored to by the
+ * instruction right before it. The value is still in the register that
+ * was stored, so the load is dropped if it loads the same register, or
+ * becomes a register move if it loads a different one.
+ * sw     $t0, fee
+ * lw     $t0, fee
+ * becomes
+ * sw     $t0, fee
+ *
+ * @author Marissa Allen
+ */
+public class StoreLoadRule implements PeepholeRule
+{
+    /**
+     * Returns the name the rule is reported under.
+     *
+     * @return - The name of the rule.
+     */
+    @Override
+    public String getName()
+    {
+        return "store then load";
+    }
+
+    /**
+     * Rewrites a load from the address the last instruction stored to.
+     *
+     * @param window - The lines held by the optimizer, oldest first.
+     * @return - True if the window was changed.
+     */
+    @Override
+    public boolean apply(List<Instruction> window)
+    {
+        int size = window.size();
+        if (size < 2)
+        {
+            return false;
+        }
+        Instruction store = window.get(size - 2);
+        Instruction load = window.get(size - 1);
+        if (!store.is("sw") || !load.is("lw") ||
+                !store.getOperand(1).equals(load.getOperand(1)))
+        {
+            return false;
+        }
+        if (store.getOperand(0).equals(load.getOperand(0)))
+        {
+            window.remove(size - 1);
+        }
+        else
+        {
+            window.set(size - 1, new Instruction("move",
+                    new String[]{load.getOperand(0), store.getOperand(0)},
+                    load.getComment()));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,118 @@
+package codegen;
+
+import ir.Const;
+import ir.Operand;
+
+/**
+ * A Tile is one TileRule matched at one node of a tree while the tree is
+ * being turned into instructions. It gives the TileAction of the rule
+ * what it needs to write them: the registers or immediates its operands
+ * ended up in, the register its result goes in, and the label of a
+ * branch.
+ *
+ * @author Marissa Allen
+ */
+public class Tile
+{
+    private TreeTiler.Target target;
+    private Operand leaf;
+    private String[] operands;
+    private String dest;
+    private String scratch;
+    private String label;
+
+    /**
+     * Tile constructor that takes in everything a rule's action can use.
+     *
+     * @param target - Where the instructions go.
+     * @param leaf - The operand of a leaf, or null.
+     * @param operands - The registers or immediates of the operands.
+     * @param dest - The register the result goes in.
+     * @param scratch - A register the tile can use for itself.
+     * @param label - The label a branch goes to, or null.
+     */
+    Tile(TreeTiler.Target target, Operand leaf, String[] operands,
+         String dest, String scratch, String label)
+    {
+        this.target = target;
+        this.leaf = leaf;
+        this.operands = operands;
+        this.dest = dest;
+        this.scratch = scratch;
+        this.label = label;
+    }
+
+    /**
+     * Returns where an operand of the tile is.
+     *
+     * @param index - 0 for the left operand and 1 for the right one.
+     * @return - The register or immediate.
+     */
+    public String getOperand(int index)
+    {
+        return operands[index];
+    }
+
+    /**
+     * Returns the value of a constant leaf.
+     *
+     * @return - The constant.
+     */
+    public int getConstant()
+    {
+        return ((Const) leaf).getValue();
+    }
+
+    /**
+     * Returns the register the result of the tile goes in.
+     *
+     * @return - The register.
+     */
+    public String getDest()
+    {
+        return dest;
+    }
+
+    /**
+     * Returns a register the tile can use for a value of its own, like
+     * the flag an slti sets.
+     *
+     * @return - The register.
+     */
+    public String getScratch()
+    {
+        return scratch;
+    }
+
+    /**
+     * Returns the label a branch tile goes to.
+     *
+     * @return - The label.
+     */
+    public String getLabel()
+    {
+        return label;
+    }
+
+    /**
+     * Writes one instruction.
+     *
+     * @param op - The mnemonic.
+     * @param operands - The operands of the instruction.
+     */
+    public void emit(String op, String... operands)
+    {
+        target.emit(new Instruction(op, operands));
+    }
+
+    /**
+     * Puts the operand of a leaf in a register, loading it if it isn't in
+     * one already.
+     *
+     * @return - The register holding it.
+     */
+    public String load()
+    {
+        return target.load(leaf, dest);
+    }
+}
@@ -0,0 +1,22 @@
+package codegen;
+
+/**
+ * A TileAction writes the instructions for a tile that a TileRule
+ * matched, once the operands of the tile are in registers or are known
+ * immediates.
+ *
+ * @author Marissa Allen
+ */
+@FunctionalInterface
+public interface TileAction
+{
+    /**
+     * Writes the instructions of a tile.
+     *
+     * @param tile - The matched tile, with its operands, the register its
+     * result goes in and the label it branches to.
+     * @return - The register or immediate holding the value of the tile,
+     * for the tile above it to use, or null for a branch.
+     */
+    String emit(Tile tile);
+}
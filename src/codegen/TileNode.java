@@ -0,0 +1,137 @@
+package codegen;
+
+import ir.Const;
+import ir.Operand;
+import ir.Quad;
+import ir.Var;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A TileNode is a node of the tree a TreeTiler covers with tiles. The
+ * root of a tree is a BINARY or BRANCH Quad, named by its Operator, and
+ * its leaves are the operands of the Quad, named CONST, VAR or TEMP.
+ * While a tree is labeled, each node keeps the cheapest rule that makes
+ * each nonterminal, and what it costs.
+ *
+ * @author Marissa Allen
+ */
+class TileNode
+{
+    private String op;
+    private Operand leaf;
+    private TileNode[] children;
+    private Map<String, Integer> costs = new HashMap<>();
+    private Map<String, TileRule> rules = new HashMap<>();
+
+    /**
+     * TileNode constructor that takes in what the node is.
+     *
+     * @param op - The operator or leaf kind.
+     * @param leaf - The operand of a leaf, or null.
+     * @param children - The operands of an operator.
+     */
+    private TileNode(String op, Operand leaf, TileNode... children)
+    {
+        this.op = op;
+        this.leaf = leaf;
+        this.children = children;
+    }
+
+    /**
+     * Makes the tree of a BINARY or BRANCH Quad.
+     *
+     * @param quad - The Quad.
+     * @return - The root of the tree.
+     */
+    static TileNode of(Quad quad)
+    {
+        return new TileNode(quad.getOp().name(), null,
+                leaf(quad.getLeft()), leaf(quad.getRight()));
+    }
+
+    /**
+     * Makes the leaf of an operand.
+     *
+     * @param operand - The operand.
+     * @return - The leaf.
+     */
+    private static TileNode leaf(Operand operand)
+    {
+        String kind = operand instanceof Const ? "CONST" :
+                operand instanceof Var ? "VAR" : "TEMP";
+        return new TileNode(kind, operand);
+    }
+
+    /**
+     * Returns the operator or leaf kind of the node.
+     *
+     * @return - The name, like ADD or CONST.
+     */
+    String getOp()
+    {
+        return op;
+    }
+
+    /**
+     * Returns the operand of a leaf.
+     *
+     * @return - The operand, or null for an operator.
+     */
+    Operand getLeaf()
+    {
+        return leaf;
+    }
+
+    /**
+     * Returns the operands of an operator.
+     *
+     * @return - The children, left first.
+     */
+    TileNode[] getChildren()
+    {
+        return children;
+    }
+
+    /**
+     * Returns the cost of making a nonterminal at this node.
+     *
+     * @param goal - The nonterminal.
+     * @return - The cost, or Integer.MAX_VALUE if no rule makes it.
+     */
+    int getCost(String goal)
+    {
+        return costs.getOrDefault(goal, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the cheapest rule that makes a nonterminal at this node.
+     *
+     * @param goal - The nonterminal.
+     * @return - The rule, or null if no rule makes it.
+     */
+    TileRule getRule(String goal)
+    {
+        return rules.get(goal);
+    }
+
+    /**
+     * Keeps a rule if it makes its goal more cheaply than the rules seen
+     * before it.
+     *
+     * @param rule - The rule.
+     * @param cost - The cost of the rule with the costs of its operands.
+     * @return - True if the rule was kept.
+     */
+    boolean offer(TileRule rule, int cost)
+    {
+        if (cost >= getCost(rule.getGoal()))
+        {
+            return false;
+        }
+        costs.put(rule.getGoal(), cost);
+        rules.put(rule.getGoal(), rule);
+        return true;
+    }
+}
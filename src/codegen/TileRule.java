@@ -0,0 +1,190 @@
+package codegen;
+
+import java.util.function.IntPredicate;
+
+/**
+ * A TileRule is one row of the rule table of a TreeTiler. It says that a
+ * node with a given operator, whose operands can be had as the given
+ * nonterminals, can itself be had as the goal nonterminal for a cost, and
+ * how to write the instructions that do it. Like:
+ * reg <- ADD(reg, imm)   cost 1   addi $d, $s, imm
+ *
+ * A leaf rule matches an operand: a CONST, VAR or TEMP, and a constant
+ * can be guarded by a test of its value. A chain rule turns one
+ * nonterminal into another, like reg <- zero, which reads $zero.
+ *
+ * @author Marissa Allen
+ */
+public class TileRule
+{
+    private String goal;
+    private String op;
+    private String[] operands;
+    private int cost;
+    private IntPredicate guard;
+    private TileAction action;
+
+    /**
+     * TileRule constructor that takes in every part of the rule.
+     *
+     * @param goal - The nonterminal the rule makes.
+     * @param op - The operator or leaf kind matched, or null for a chain
+     * rule.
+     * @param operands - The nonterminals of the operands, or of the one
+     * nonterminal a chain rule starts from.
+     * @param cost - The number of instructions the rule writes.
+     * @param guard - The test of a constant leaf, or null.
+     * @param action - Writes the instructions.
+     */
+    private TileRule(String goal, String op, String[] operands, int cost,
+                     IntPredicate guard, TileAction action)
+    {
+        if (cost < 0)
+        {
+            throw new IllegalArgumentException("The cost of a rule can't " +
+                    "be negative");
+        }
+        this.goal = goal;
+        this.op = op;
+        this.operands = operands;
+        this.cost = cost;
+        this.guard = guard;
+        this.action = action;
+    }
+
+    /**
+     * Makes a rule for an operator node.
+     *
+     * @param goal - The nonterminal the rule makes.
+     * @param op - The name of the Operator, like ADD or LT.
+     * @param cost - The number of instructions the rule writes.
+     * @param action - Writes the instructions.
+     * @param operands - The nonterminals of the left and right operands.
+     * @return - The TileRule.
+     */
+    public static TileRule node(String goal, String op, int cost,
+                                TileAction action, String... operands)
+    {
+        return new TileRule(goal, op, operands, cost, null, action);
+    }
+
+    /**
+     * Makes a rule for an operand.
+     *
+     * @param goal - The nonterminal the rule makes.
+     * @param kind - CONST, VAR or TEMP.
+     * @param cost - The number of instructions the rule writes.
+     * @param guard - The test the value of a constant has to pass, or
+     * null.
+     * @param action - Writes the instructions, and returns the register
+     * or immediate the operand is in.
+     * @return - The TileRule.
+     */
+    public static TileRule leaf(String goal, String kind, int cost,
+                                IntPredicate guard, TileAction action)
+    {
+        return new TileRule(goal, kind, new String[0], cost, guard, action);
+    }
+
+    /**
+     * Makes a rule that turns one nonterminal into another.
+     *
+     * @param goal - The nonterminal the rule makes.
+     * @param from - The nonterminal it starts from.
+     * @param cost - The number of instructions the rule writes.
+     * @param action - Writes the instructions, with the value of the
+     * starting nonterminal as operand 0.
+     * @return - The TileRule.
+     */
+    public static TileRule chain(String goal, String from, int cost,
+                                 TileAction action)
+    {
+        return new TileRule(goal, null, new String[]{from}, cost, null,
+                action);
+    }
+
+    /**
+     * Returns the nonterminal the rule makes.
+     *
+     * @return - The goal.
+     */
+    public String getGoal()
+    {
+        return goal;
+    }
+
+    /**
+     * Returns the operator or leaf kind the rule matches.
+     *
+     * @return - The operator, or null for a chain rule.
+     */
+    public String getOp()
+    {
+        return op;
+    }
+
+    /**
+     * Returns the nonterminals of the operands.
+     *
+     * @return - The nonterminals, left first.
+     */
+    public String[] getOperands()
+    {
+        return operands;
+    }
+
+    /**
+     * Returns the cost of the rule.
+     *
+     * @return - The number of instructions the rule writes.
+     */
+    public int getCost()
+    {
+        return cost;
+    }
+
+    /**
+     * Checks to see if a chain rule.
+     *
+     * @return - True if the rule turns one nonterminal into another.
+     */
+    public boolean isChain()
+    {
+        return op == null;
+    }
+
+    /**
+     * Checks to see if a constant passes the guard of the rule.
+     *
+     * @param value - The value of a constant leaf.
+     * @return - True if the rule has no guard or the value passes it.
+     */
+    public boolean accepts(int value)
+    {
+        return guard == null || guard.test(value);
+    }
+
+    /**
+     * Returns what writes the instructions of the rule.
+     *
+     * @return - The TileAction.
+     */
+    public TileAction getAction()
+    {
+        return action;
+    }
+
+    /**
+     * Returns the rule as it is written in a rule table.
+     *
+     * @return - A String like reg <- ADD(reg, imm) 1.
+     */
+    @Override
+    public String toString()
+    {
+        String pattern = isChain() ? operands[0] : op +
+                (operands.length == 0 ? "" :
+                        "(" + String.join(", ", operands) + ")");
+        return goal + " <- " + pattern + " " + cost;
+    }
+}
@@ -0,0 +1,545 @@
+package codegen;
+
+import ir.Const;
+import ir.Kind;
+import ir.Operand;
+import ir.Quad;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class picks the instructions for a BINARY or BRANCH Quad by
+ * covering its tree with tiles from a table of TileRules, the way a
+ * bottom up rewrite system does. The tree is labeled from the leaves
+ * up: every rule whose operator matches a node and whose operands can be
+ * had is offered, and the node keeps the cheapest rule for each
+ * nonterminal. Chain rules are tried after, until no nonterminal gets
+ * cheaper. The tree is then reduced from the root down, each node by
+ * the rule chosen for the nonterminal its parent needs, so the cover
+ * written is the cheapest one the table allows.
+ *
+ * The nonterminals of the default table are:
+ * reg      a value in a register
+ * zero     the constant 0, read from $zero
+ * imm      a constant that fits a signed 16 bit immediate
+ * negimm   a constant whose negative fits one, for sub
+ * uimm     a constant that fits an unsigned 16 bit immediate
+ * shamt    a shift amount from 0 to 31
+ * immplus  a constant one less than a signed 16 bit immediate, for the
+ *          slti that checks > and <=
+ * stmt     a branch
+ *
+ * A comparison is a stmt when it is a BRANCH, and a reg when it is a
+ * BINARY used as a value, which is set to 1 or 0 with slt, sltu, xor
+ * and sltiu instead of a branch.
+ *
+ * The table can be changed to tune the code without touching the
+ * labeler: a new rule is added, or a cost is changed, and the cheapest
+ * cover changes with it.
+ *
+ * @author Marissa Allen
+ */
+public class TreeTiler
+{
+    public static final String REG = "reg";
+    public static final String ZERO = "zero";
+    public static final String IMM = "imm";
+    public static final String NEG_IMM = "negimm";
+    public static final String UIMM = "uimm";
+    public static final String SHAMT = "shamt";
+    public static final String IMM_PLUS = "immplus";
+    public static final String STMT = "stmt";
+
+    /**
+     * Where the instructions of a tree go, and how a leaf is put in a
+     * register.
+     */
+    interface Target
+    {
+        /**
+         * Takes in one instruction.
+         *
+         * @param instruction - The instruction.
+         */
+        void emit(Instruction instruction);
+
+        /**
+         * Puts an operand in a register, loading it if it has to be.
+         *
+         * @param operand - The operand.
+         * @param scratch - The register to load it into if it has to be.
+         * @return - The register holding it.
+         */
+        String load(Operand operand, String scratch);
+    }
+
+    private List<TileRule> rules;
+
+    /**
+     * TreeTiler constructor that takes in the rule table.
+     *
+     * @param rules - The rules, which may come in any order.
+     */
+    public TreeTiler(List<TileRule> rules)
+    {
+        this.rules = new ArrayList<>(rules);
+    }
+
+    /**
+     * Returns a new list of the rules for the MIPS instructions the
+     * selector writes. The cost of a rule is the number of machine
+     * instructions it takes, so a blt, which the assembler turns into an
+     * slt and a bne, costs two, and a bltz against zero costs one.
+     *
+     * @return - The default rule table.
+     */
+    public static List<TileRule> defaultRules()
+    {
+        List<TileRule> table = new ArrayList<>();
+
+        //Leaves
+        table.add(TileRule.leaf(REG, "TEMP", 0, null, Tile::load));
+        table.add(TileRule.leaf(REG, "VAR", 1, null, Tile::load));
+        table.add(TileRule.leaf(REG, "CONST", 1, null, Tile::load));
+        table.add(TileRule.leaf(ZERO, "CONST", 0, value -> value == 0,
+                tile -> "$zero"));
+        table.add(TileRule.leaf(IMM, "CONST", 0, TreeTiler::isShort,
+                tile -> Integer.toString(tile.getConstant())));
+        table.add(TileRule.leaf(NEG_IMM, "CONST", 0,
+                value -> isShort(-value),
+                tile -> Integer.toString(-tile.getConstant())));
+        table.add(TileRule.leaf(UIMM, "CONST", 0,
+                value -> value >= 0 && value <= 0xFFFF,
+                tile -> Integer.toString(tile.getConstant())));
+        table.add(TileRule.leaf(SHAMT, "CONST", 0,
+                value -> value >= 0 && value < 32,
+                tile -> Integer.toString(tile.getConstant())));
+        table.add(TileRule.leaf(IMM_PLUS, "CONST", 0,
+                value -> value < Short.MAX_VALUE && isShort(value),
+                tile -> Integer.toString(tile.getConstant() + 1)));
+        table.add(TileRule.chain(REG, ZERO, 0, tile -> tile.getOperand(0)));
+
+        //Arithmetic
+        table.add(TileRule.node(REG, "ADD", 1, three("add"), REG, REG));
+        table.add(TileRule.node(REG, "ADD", 1, three("addi"), REG, IMM));
+        table.add(TileRule.node(REG, "SUB", 1, three("sub"), REG, REG));
+        table.add(TileRule.node(REG, "SUB", 1, three("addi"), REG,
+                NEG_IMM));
+        table.add(TileRule.node(REG, "ADDU", 1, three("addu"), REG, REG));
+        table.add(TileRule.node(REG, "ADDU", 1, three("addiu"), REG, IMM));
+        table.add(TileRule.node(REG, "SUBU", 1, three("subu"), REG, REG));
+        table.add(TileRule.node(REG, "SUBU", 1, three("addiu"), REG,
+                NEG_IMM));
+        table.add(TileRule.node(REG, "AND", 1, three("and"), REG, REG));
+        table.add(TileRule.node(REG, "AND", 1, three("andi"), REG, UIMM));
+        table.add(TileRule.node(REG, "OR", 1, three("or"), REG, REG));
+        table.add(TileRule.node(REG, "OR", 1, three("ori"), REG, UIMM));
+        table.add(TileRule.node(REG, "SHL", 1, three("sllv"), REG, REG));
+        table.add(TileRule.node(REG, "SHL", 1, three("sll"), REG, SHAMT));
+        table.add(TileRule.node(REG, "SAR", 1, three("srav"), REG, REG));
+        table.add(TileRule.node(REG, "SAR", 1, three("sra"), REG, SHAMT));
+        table.add(TileRule.node(REG, "SHR", 1, three("srlv"), REG, REG));
+        table.add(TileRule.node(REG, "SHR", 1, three("srl"), REG, SHAMT));
+        table.add(TileRule.node(REG, "MUL", 2, hiLo("mult", "mflo"), REG,
+                REG));
+        table.add(TileRule.node(REG, "MULHI", 2, hiLo("mult", "mfhi"), REG,
+                REG));
+        table.add(TileRule.node(REG, "DIV", 2, hiLo("div", "mflo"), REG,
+                REG));
+        table.add(TileRule.node(REG, "MOD", 2, hiLo("div", "mfhi"), REG,
+                REG));
+
+        //Comparisons used as values, which set a register to 1 or 0
+        table.add(TileRule.node(REG, "LT", 1, set("slt", false, false),
+                REG, REG));
+        table.add(TileRule.node(REG, "LT", 1, set("slti", false, false),
+                REG, IMM));
+        table.add(TileRule.node(REG, "GT", 1, set("slt", true, false),
+                REG, REG));
+        table.add(TileRule.node(REG, "GT", 2, set("slti", false, true),
+                REG, IMM_PLUS));
+        table.add(TileRule.node(REG, "LE", 2, set("slt", true, true),
+                REG, REG));
+        table.add(TileRule.node(REG, "LE", 1, set("slti", false, false),
+                REG, IMM_PLUS));
+        table.add(TileRule.node(REG, "GE", 2, set("slt", false, true),
+                REG, REG));
+        table.add(TileRule.node(REG, "GE", 2, set("slti", false, true),
+                REG, IMM));
+        table.add(TileRule.node(REG, "EQ", 2, equal("xor", true), REG,
+                REG));
+        table.add(TileRule.node(REG, "EQ", 2, equal("xori", true), REG,
+                UIMM));
+        table.add(TileRule.node(REG, "EQ", 1, zero(true), REG, ZERO));
+        table.add(TileRule.node(REG, "NE", 2, equal("xor", false), REG,
+                REG));
+        table.add(TileRule.node(REG, "NE", 2, equal("xori", false), REG,
+                UIMM));
+        table.add(TileRule.node(REG, "NE", 1, zero(false), REG, ZERO));
+
+        //Branches
+        table.add(TileRule.node(STMT, "EQ", 1, branch("beq"), REG, REG));
+        table.add(TileRule.node(STMT, "NE", 1, branch("bne"), REG, REG));
+        table.add(TileRule.node(STMT, "LT", 2, branch("blt"), REG, REG));
+        table.add(TileRule.node(STMT, "LE", 2, branch("ble"), REG, REG));
+        table.add(TileRule.node(STMT, "GT", 2, branch("bgt"), REG, REG));
+        table.add(TileRule.node(STMT, "GE", 2, branch("bge"), REG, REG));
+        table.add(TileRule.node(STMT, "LT", 1, branchZero("bltz"), REG,
+                ZERO));
+        table.add(TileRule.node(STMT, "LE", 1, branchZero("blez"), REG,
+                ZERO));
+        table.add(TileRule.node(STMT, "GT", 1, branchZero("bgtz"), REG,
+                ZERO));
+        table.add(TileRule.node(STMT, "GE", 1, branchZero("bgez"), REG,
+                ZERO));
+        table.add(TileRule.node(STMT, "LT", 2, branchLess("bne"), REG,
+                IMM));
+        table.add(TileRule.node(STMT, "GE", 2, branchLess("beq"), REG,
+                IMM));
+        table.add(TileRule.node(STMT, "LE", 2, branchLess("bne"), REG,
+                IMM_PLUS));
+        table.add(TileRule.node(STMT, "GT", 2, branchLess("beq"), REG,
+                IMM_PLUS));
+        return table;
+    }
+
+    /**
+     * Finds the cost of the cheapest cover of a Quad.
+     *
+     * @param quad - A BINARY or BRANCH Quad.
+     * @return - The number of instructions, or Integer.MAX_VALUE if the
+     * table can't cover it.
+     */
+    int cost(Quad quad)
+    {
+        TileNode root = TileNode.of(quad);
+        label(root);
+        return root.getCost(goalOf(quad));
+    }
+
+    /**
+     * Writes the cheapest cover of a Quad.
+     *
+     * @param quad - A BINARY or BRANCH Quad.
+     * @param target - Where the instructions go.
+     * @param dest - The register the result of a BINARY goes in.
+     * @param scratches - The registers the left and right operands are
+     * loaded into when they have to be.
+     */
+    void select(Quad quad, Target target, String dest, String[] scratches)
+    {
+        TileNode root = TileNode.of(quad);
+        label(root);
+        String goal = goalOf(quad);
+        if (root.getRule(goal) == null)
+        {
+            throw new RuntimeException("No instruction for the " +
+                    quad.getOp() + " operator");
+        }
+        reduce(root, goal, target, dest, scratches, quad.getLabel());
+    }
+
+    /**
+     * Finds the cheapest rule for every nonterminal at every node of a
+     * tree, leaves first.
+     *
+     * @param node - The root of the tree.
+     */
+    private void label(TileNode node)
+    {
+        for (TileNode child : node.getChildren())
+        {
+            label(child);
+        }
+        for (TileRule rule : rules)
+        {
+            if (rule.isChain() || !rule.getOp().equals(node.getOp()) ||
+                    rule.getOperands().length !=
+                            node.getChildren().length)
+            {
+                continue;
+            }
+            if (node.getLeaf() instanceof Const &&
+                    !rule.accepts(((Const) node.getLeaf()).getValue()))
+            {
+                continue;
+            }
+            long cost = rule.getCost();
+            for (int index = 0; index < rule.getOperands().length; index++)
+            {
+                cost += node.getChildren()[index].getCost(
+                        rule.getOperands()[index]);
+            }
+            if (cost < Integer.MAX_VALUE)
+            {
+                node.offer(rule, (int) cost);
+            }
+        }
+
+        //Chain rules can make other chain rules cheaper.
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (TileRule rule : rules)
+            {
+                if (!rule.isChain())
+                {
+                    continue;
+                }
+                int from = node.getCost(rule.getOperands()[0]);
+                if (from != Integer.MAX_VALUE &&
+                        node.offer(rule, from + rule.getCost()))
+                {
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the instructions of the rule chosen for a nonterminal at a
+     * node, after the instructions of its operands.
+     *
+     * @param node - The node.
+     * @param goal - The nonterminal wanted.
+     * @param target - Where the instructions go.
+     * @param dest - The register the value goes in.
+     * @param scratches - The registers for the left and right operands.
+     * @param label - The label of a branch.
+     * @return - The register or immediate holding the value.
+     */
+    private String reduce(TileNode node, String goal, Target target,
+                          String dest, String[] scratches, String label)
+    {
+        TileRule rule = node.getRule(goal);
+        String[] operands;
+        if (rule.isChain())
+        {
+            operands = new String[]{reduce(node, rule.getOperands()[0],
+                    target, dest, scratches, label)};
+        }
+        else
+        {
+            operands = new String[rule.getOperands().length];
+            for (int index = 0; index < operands.length; index++)
+            {
+                operands[index] = reduce(node.getChildren()[index],
+                        rule.getOperands()[index], target,
+                        scratches[index], scratches, label);
+            }
+        }
+        return rule.getAction().emit(new Tile(target, node.getLeaf(),
+                operands, dest, scratches[scratches.length - 1], label));
+    }
+
+    /**
+     * Finds the nonterminal a whole Quad has to be covered as.
+     *
+     * @param quad - The Quad.
+     * @return - stmt for a BRANCH, and reg for a BINARY.
+     */
+    private String goalOf(Quad quad)
+    {
+        return quad.getKind() == Kind.BRANCH ? STMT : REG;
+    }
+
+    /**
+     * Checks to see if a value fits a signed 16 bit immediate.
+     *
+     * @param value - The value.
+     * @return - True if it fits.
+     */
+    private static boolean isShort(int value)
+    {
+        return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+    }
+
+    /**
+     * Makes the action of an instruction with a result and two operands.
+     *
+     * @param mnemonic - The instruction.
+     * @return - The TileAction.
+     */
+    private static TileAction three(String mnemonic)
+    {
+        return tile ->
+        {
+            tile.emit(mnemonic, tile.getDest(), tile.getOperand(0),
+                    tile.getOperand(1));
+            return tile.getDest();
+        };
+    }
+
+    /**
+     * Makes the action of a mult or div, which leave their answer in the
+     * HI and LO registers.
+     *
+     * @param mnemonic - mult or div.
+     * @param move - mflo or mfhi.
+     * @return - The TileAction.
+     */
+    private static TileAction hiLo(String mnemonic, String move)
+    {
+        return tile ->
+        {
+            tile.emit(mnemonic, tile.getOperand(0), tile.getOperand(1));
+            tile.emit(move, tile.getDest());
+            return tile.getDest();
+        };
+    }
+
+    /**
+     * Makes the action of a comparison that sets a register to 1 when
+     * one operand is less than the other, and to 0 when it isn't:
+     * slt $d, $s, $t
+     * xori $d, $d, 1
+     * The xori, for >= and <=, turns the answer of < around.
+     *
+     * @param mnemonic - slt, or slti for an immediate.
+     * @param swap - True to check if the right operand is less.
+     * @param negate - True to turn the answer around.
+     * @return - The TileAction.
+     */
+    private static TileAction set(String mnemonic, boolean swap,
+                                  boolean negate)
+    {
+        return tile ->
+        {
+            tile.emit(mnemonic, tile.getDest(),
+                    tile.getOperand(swap ? 1 : 0),
+                    tile.getOperand(swap ? 0 : 1));
+            if (negate)
+            {
+                tile.emit("xori", tile.getDest(), tile.getDest(), "1");
+            }
+            return tile.getDest();
+        };
+    }
+
+    /**
+     * Makes the action of a comparison for = or <>, which xors the
+     * operands, leaving 0 only when they are equal, and then checks
+     * the difference against zero:
+     * xor $d, $s, $t
+     * sltiu $d, $d, 1       for =, 1 when $d is 0
+     * sltu $d, $zero, $d    for <>, 1 when $d isn't 0
+     *
+     * @param mnemonic - xor, or xori for an immediate.
+     * @param equal - True for =, and false for <>.
+     * @return - The TileAction.
+     */
+    private static TileAction equal(String mnemonic, boolean equal)
+    {
+        return tile ->
+        {
+            tile.emit(mnemonic, tile.getDest(), tile.getOperand(0),
+                    tile.getOperand(1));
+            if (equal)
+            {
+                tile.emit("sltiu", tile.getDest(), tile.getDest(), "1");
+            }
+            else
+            {
+                tile.emit("sltu", tile.getDest(), "$zero",
+                        tile.getDest());
+            }
+            return tile.getDest();
+        };
+    }
+
+    /**
+     * Makes the action of a comparison of a register with zero for = or
+     * <>, which needs no xor.
+     *
+     * @param equal - True for =, and false for <>.
+     * @return - The TileAction.
+     */
+    private static TileAction zero(boolean equal)
+    {
+        return tile ->
+        {
+            if (equal)
+            {
+                tile.emit("sltiu", tile.getDest(), tile.getOperand(0),
+                        "1");
+            }
+            else
+            {
+                tile.emit("sltu", tile.getDest(), "$zero",
+                        tile.getOperand(0));
+            }
+            return tile.getDest();
+        };
+    }
+
+    /**
+     * Makes the action of a branch that compares two registers.
+     *
+     * @param mnemonic - The branch.
+     * @return - The TileAction.
+     */
+    private static TileAction branch(String mnemonic)
+    {
+        return tile ->
+        {
+            tile.emit(mnemonic, tile.getOperand(0), tile.getOperand(1),
+                    tile.getLabel());
+            return null;
+        };
+    }
+
+    /**
+     * Makes the action of a branch that compares a register with zero.
+     *
+     * @param mnemonic - The branch.
+     * @return - The TileAction.
+     */
+    private static TileAction branchZero(String mnemonic)
+    {
+        return tile ->
+        {
+            tile.emit(mnemonic, tile.getOperand(0), tile.getLabel());
+            return null;
+        };
+    }
+
+    /**
+     * Makes the action of a branch on an slti, which sets a flag when a
+     * register is less than an immediate:
+     * slti $a1, $s, imm
+     * bne $a1, $zero, label
+     *
+     * @param mnemonic - bne to branch when the flag is set, or beq when
+     * it isn't.
+     * @return - The TileAction.
+     */
+    private static TileAction branchLess(String mnemonic)
+    {
+        return tile ->
+        {
+            tile.emit("slti", tile.getScratch(), tile.getOperand(0),
+                    tile.getOperand(1));
+            tile.emit(mnemonic, tile.getScratch(), "$zero",
+                    tile.getLabel());
+            return null;
+        };
+    }
+
+    /**
+     * Returns the rule table, one rule on each line.
+     *
+     * @return - A String of the rules.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder answer = new StringBuilder();
+        for (TileRule rule : rules)
+        {
+            answer.append(rule).append("\n");
+        }
+        return answer.toString();
+    }
+}
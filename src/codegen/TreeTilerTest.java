@@ -0,0 +1,190 @@
+package codegen;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import ir.Const;
+import ir.IrBuilder;
+import ir.IrProgram;
+import ir.Operator;
+import ir.Quad;
+import ir.Temp;
+import ir.Var;
+import parser.Parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A JUnit Java class that illustrates covering Quads with the cheapest
+ * tiles of a rule table.
+ *
+ * @author Marissa Allen
+ */
+public class TreeTilerTest
+{
+    private static final String TEST = "program foo;\n" +
+            "var fee, fi: integer;\n" +
+            "begin\n" +
+            "read(fee);\n" +
+            "fi := 0;\n" +
+            "while fee > 0 do\n" +
+            "begin\n" +
+            "fi := fi + fee;\n" +
+            "fee := fee - 1\n" +
+            "end;\n" +
+            "if fi < 50 then fi := 0 - fi else begin end;\n" +
+            "write(fi)\n" +
+            "end\n" +
+            ".\n";
+
+    /**
+     * Selects the instructions of the test program.
+     *
+     * @param tiler - The TreeTiler to pick them with.
+     * @return - The assembly code.
+     */
+    private String select(TreeTiler tiler)
+    {
+        IrProgram ir = new IrBuilder().build(
+                new Parser(TEST, false).program());
+        StringBuilder code = new StringBuilder();
+        new InstructionSelector(new AssemblyEmitter(code),
+                new RegisterAllocator(), tiler).selectProgram(ir);
+        return code.toString();
+    }
+
+    /**
+     * This method tests the costs of the cheapest covers. An immediate
+     * that fits is free, one that doesn't costs an li, and a branch
+     * against zero is one instruction where a blt is two. A comparison
+     * used as a value is an slt, or an xor and an sltiu for =.
+     */
+    @Test
+    public void testCost()
+    {
+        System.out.println("\n" + "#############" + "\n" +
+                "# Test cost #" + "\n" +
+                "#############" + "\n");
+
+        TreeTiler tiler = new TreeTiler(TreeTiler.defaultRules());
+        Temp fee = new Temp(1);
+        Temp fi = new Temp(2);
+        assertEquals(1, tiler.cost(Quad.binary(Operator.ADD, fi, fee,
+                new Const(1))));
+        assertEquals(2, tiler.cost(Quad.binary(Operator.ADD, fi, fee,
+                new Const(40000))));
+        assertEquals(2, tiler.cost(Quad.binary(Operator.ADD, fi,
+                new Var("fee"), new Const(1))));
+        assertEquals(2, tiler.cost(Quad.binary(Operator.MUL, fi, fee,
+                new Const(0))));
+        assertEquals(1, tiler.cost(Quad.branch(Operator.GT, fee,
+                new Const(0), "Next1")));
+        assertEquals(2, tiler.cost(Quad.branch(Operator.GT, fee, fi,
+                "Next1")));
+        assertEquals(2, tiler.cost(Quad.branch(Operator.LE, fee,
+                new Const(32766), "Next1")));
+        assertEquals(3, tiler.cost(Quad.branch(Operator.LE, fee,
+                new Const(32767), "Next1")));
+
+        assertEquals(1, tiler.cost(Quad.binary(Operator.LT, fi, fee,
+                new Const(1))));
+        assertEquals(2, tiler.cost(Quad.binary(Operator.EQ, fi, fee, fi)));
+        assertEquals(1, tiler.cost(Quad.binary(Operator.NE, fi, fee,
+                new Const(0))));
+
+        //Negative test, an empty table covers nothing.
+        assertEquals(Integer.MAX_VALUE, new TreeTiler(new ArrayList<>())
+                .cost(Quad.binary(Operator.LT, fi, fee, new Const(1))));
+        System.out.print(tiler);
+    }
+
+    /**
+     * This method tests the code picked by the default table. The loop
+     * tests against zero become blez and bgtz, fi < 50 an slti, and
+     * 0 - fi reads $zero.
+     * This is a text string test.
+     */
+    @Test
+    public void testDefaultRules()
+    {
+        System.out.println("\n" + "######################" + "\n" +
+                "# Test default rules #" + "\n" +
+                "######################" + "\n");
+
+        String expected = "lw     $t0, fee         " +
+                "# Loads the variable labels.\n" +
+                "blez   $t0, endLoop1\n";
+        String actual = select(new TreeTiler(TreeTiler.defaultRules()));
+        assertTrue(actual.contains(expected));
+        assertTrue(actual.contains("bgtz   $t0, TopWhile1\n"));
+        assertTrue(actual.contains("slti   $a1, $t0, 50\n" +
+                "beq    $a1, $zero, Next2\n"));
+        assertTrue(actual.contains("sub    $t0, $zero, $t0\n"));
+        System.out.print(actual);
+    }
+
+    /**
+     * This method tests changing the table. Without the slti rules,
+     * fi < 50 costs less with 50 in a register, so it is loaded with li
+     * and compared with a bge.
+     * This is a text string test.
+     */
+    @Test
+    public void testChangedRules()
+    {
+        System.out.println("\n" + "######################" + "\n" +
+                "# Test changed rules #" + "\n" +
+                "######################" + "\n");
+
+        List<TileRule> rules = TreeTiler.defaultRules();
+        rules.removeIf(rule -> rule.toString().contains("imm") &&
+                rule.getGoal().equals(TreeTiler.STMT));
+        String expected = "li     $t1, 50          " +
+                "# Loads a register with a specific numeric value.\n" +
+                "bge    $t0, $t1, Next2\n";
+        String actual = select(new TreeTiler(rules));
+        assertTrue(actual.contains(expected));
+        assertFalse(actual.contains("slti"));
+        System.out.print(actual);
+    }
+
+    /**
+     * This method tests comparisons used as values. fee < fi is an slt,
+     * fee = fi an xor and an sltiu, fee <> 0 an sltu with $zero, and
+     * none of them branch.
+     * This is a text string test.
+     */
+    @Test
+    public void testValues()
+    {
+        System.out.println("\n" + "###############" + "\n" +
+                "# Test values #" + "\n" +
+                "###############" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi, fo: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "read(fi);\n" +
+                "fo := fee < fi;\n" +
+                "write(fee = fi);\n" +
+                "write(fo + (fee <> 0))\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = new IrBuilder().build(
+                new Parser(test, false).program());
+        StringBuilder code = new StringBuilder();
+        new InstructionSelector(new AssemblyEmitter(code),
+                new RegisterAllocator(), new TreeTiler(
+                TreeTiler.defaultRules())).selectProgram(ir);
+        String actual = code.toString();
+        assertTrue(actual.contains("slt    $t0, $t0, $t1\n"));
+        assertTrue(actual.contains("xor    $t0, $t0, $t1\n" +
+                "sltiu  $t0, $t0, 1\n"));
+        assertTrue(actual.contains("sltu   $t0, $zero, $t0\n"));
+        assertFalse(actual.contains("Set"));
+        System.out.print(actual);
+    }
+}
@@ -0,0 +1,449 @@
+package compiler;
+
+import analysis.SemanticAnalyzer;
+import codegen.AssemblyEmitter;
+import codegen.CodeGeneration;
+import codegen.PeepholeOptimizer;
+import ir.LoopLayout;
+import optimizer.ConstantFolder;
+import parser.Parser;
+import parser.SymbolTable;
+import syntaxtree.ProgramNode;
+import syntaxtree.TreePrinter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * This class compiles many pascal files in one JVM, so a build of
+ * thousands of files starts the JVM once, and the compiler is compiled
+ * by HotSpot once, instead of once for every file. Each file is
+ * compiled the way CompilerMain compiles one, into the .asm, .table and
+ * .tree files next to it, and the files are compiled at the same time
+ * on a ForkJoinPool, whose threads steal work from each other when they
+ * run out.
+ *
+ * The largest files are started first, so a big file isn't left to run
+ * alone at the end while the other threads have nothing to do. The text
+ * of a file is only read when it is started, and the files that are
+ * being compiled never add up to more than the memory limit, in bytes of
+ * heap. The heap a file takes is only estimated from its size, since it
+ * isn't known until the file is parsed. The tree and the code take some
+ * dozens of bytes for each byte of source, but the live sets of the
+ * register allocator have a bit for each temporary in each block, so
+ * they grow with the square of the size, and take most of the heap of a
+ * big file. A file whose estimate is bigger than the limit is compiled
+ * alone.
+ *
+ * A file that doesn't parse, or fails the SemanticAnalyzer, is counted
+ * as a failure with its message, and the other files go on. So is a file
+ * that is nested too deeply and overflows the stack of its thread. The
+ * time each phase took, added up over all the threads, the files per
+ * second and the failures are printed with toString.
+ *
+ * Example:
+ * BatchCompiler batch = new BatchCompiler(1);
+ * batch.compile(BatchCompiler.collect(paths));
+ * System.out.print(batch);
+ *
+ * @author Marissa Allen
+ */
+public class BatchCompiler
+{
+    private static final String[] PHASES = {"read", "parse", "analyze",
+            "generate", "write"};
+    private static final int READ = 0;
+    private static final int PARSE = 1;
+    private static final int ANALYZE = 2;
+    private static final int GENERATE = 3;
+    private static final int WRITE = 4;
+
+    /**
+     * A file that failed, and why.
+     */
+    private static class Failure
+    {
+        private final Path file;
+        private final String message;
+
+        Failure(Path file, String message)
+        {
+            this.file = file;
+            this.message = message;
+        }
+    }
+
+    private int level;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int memoryLimit = (int) Math.min(Integer.MAX_VALUE,
+            Runtime.getRuntime().maxMemory() / 2);
+    private AtomicLongArray phaseTimes = new AtomicLongArray(PHASES.length);
+    private Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+    private int files = 0;
+    private long bytes = 0;
+    private long wallTime = 0;
+
+    /**
+     * BatchCompiler constructor that takes in the optimization level,
+     * 0 or 1, like the -O0 and -O1 of CompilerMain.
+     *
+     * @param level - The optimization level.
+     */
+    public BatchCompiler(int level)
+    {
+        this.level = level;
+    }
+
+    /**
+     * Sets how many files are compiled at the same time. The default is
+     * the number of processors. A number less than one is reported with
+     * an IllegalArgumentException.
+     *
+     * @param parallelism - The number of threads.
+     * @return - This BatchCompiler, so calls can be chained.
+     */
+    public BatchCompiler setParallelism(int parallelism)
+    {
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("The parallelism must be " +
+                    "at least 1");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets how many bytes of heap the files that are compiled at once can
+     * take, as estimated from their sizes. The default is half of the
+     * heap of the JVM. A limit less than one is reported with an
+     * IllegalArgumentException.
+     *
+     * @param memoryLimit - The limit in bytes.
+     * @return - This BatchCompiler, so calls can be chained.
+     */
+    public BatchCompiler setMemoryLimit(int memoryLimit)
+    {
+        if (memoryLimit < 1)
+        {
+            throw new IllegalArgumentException("The memory limit must be " +
+                    "at least 1 byte");
+        }
+        this.memoryLimit = memoryLimit;
+        return this;
+    }
+
+    /**
+     * Finds the files to compile. A file is compiled whatever its name,
+     * and a directory is searched, with the directories inside of it, for
+     * the files whose names end in .pas. A path that can't be read is
+     * reported with an UncheckedIOException.
+     *
+     * @param paths - The files and directories.
+     * @return - The files.
+     */
+    public static List<Path> collect(List<String> paths)
+    {
+        List<Path> answer = new ArrayList<>();
+        for (String name : paths)
+        {
+            Path path = Paths.get(name);
+            if (!Files.isDirectory(path))
+            {
+                answer.add(path);
+                continue;
+            }
+            try (Stream<Path> walk = Files.walk(path))
+            {
+                answer.addAll(walk.filter(Files::isRegularFile)
+                        .filter(file -> file.toString().endsWith(".pas"))
+                        .sorted()
+                        .collect(Collectors.toList()));
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Compiles the files, the largest first, and waits until they are
+     * all done. The counts and times are added to those of the files
+     * this BatchCompiler has already compiled.
+     *
+     * @param paths - The files.
+     */
+    public void compile(List<Path> paths)
+    {
+        Map<Path, Long> sizes = new HashMap<>();
+        for (Path path : paths)
+        {
+            sizes.put(path, size(path));
+        }
+        List<Path> order = new ArrayList<>(paths);
+        order.sort(Comparator.comparing(sizes::get,
+                Comparator.reverseOrder()));
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Semaphore memory = new Semaphore(memoryLimit);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        try
+        {
+            for (Path path : order)
+            {
+                long size = sizes.get(path);
+                int cost = (int) Math.max(1, Math.min(memoryLimit,
+                        estimate(size)));
+                /*The files are started in order, and a file waits here
+                until the ones before it leave room for it.*/
+                memory.acquireUninterruptibly(cost);
+                tasks.add(pool.submit(() ->
+                {
+                    try
+                    {
+                        compile(path);
+                    }
+                    finally
+                    {
+                        memory.release(cost);
+                    }
+                }));
+                files++;
+                bytes += size;
+            }
+            for (ForkJoinTask<?> task : tasks)
+            {
+                task.join();
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        wallTime += System.nanoTime() - start;
+    }
+
+    /**
+     * Compiles one file, and counts it as a failure if it fails.
+     *
+     * @param path - The file.
+     */
+    private void compile(Path path)
+    {
+        try
+        {
+            long time = System.nanoTime();
+            String text = new String(Files.readAllBytes(path));
+            time = lap(READ, time);
+
+            Parser parser = new Parser(text, false);
+            ProgramNode program = parser.program();
+            SymbolTable symbols = parser.getSymbolTable();
+            time = lap(PARSE, time);
+
+            SemanticAnalyzer analyzer = new SemanticAnalyzer(program,
+                    symbols);
+            analyzer.analyze();
+            time = lap(ANALYZE, time);
+            String assembly = null;
+            if (analyzer.goodToGo())
+            {
+                assembly = generate(program, symbols);
+            }
+            time = lap(GENERATE, time);
+
+            write(path, assembly, program, symbols);
+            lap(WRITE, time);
+            if (assembly == null)
+            {
+                failures.add(new Failure(path, "Semantic Analyzer failed"));
+            }
+        }
+        catch (IOException | RuntimeException | StackOverflowError ex)
+        {
+            failures.add(new Failure(path, ex.toString()));
+        }
+    }
+
+    /**
+     * Folds, optimizes and lowers a program into assembly code.
+     *
+     * @param program - The ProgramNode, with its types.
+     * @param symbols - The SymbolTable of the program.
+     * @return - The assembly code.
+     */
+    private String generate(ProgramNode program, SymbolTable symbols)
+    {
+        StringBuilder assembly = new StringBuilder();
+        AssemblyEmitter emitter = new AssemblyEmitter(assembly);
+        if (level > 0)
+        {
+            new ConstantFolder().fold(program);
+            CodeGeneration codeGen = new CodeGeneration(program, symbols);
+            codeGen.setPassManager(CompilerMain.optimizations());
+            codeGen.genCode(new PeepholeOptimizer(emitter));
+        }
+        else
+        {
+            CodeGeneration codeGen = new CodeGeneration(program, symbols);
+            codeGen.setLoopLayout(LoopLayout.TOP_TEST);
+            codeGen.genCode(emitter);
+        }
+        return assembly.toString();
+    }
+
+    /**
+     * Writes the .asm, .table and .tree files of a program next to it.
+     *
+     * @param path - The pascal file.
+     * @param assembly - The assembly code, or null if there is none.
+     * @param program - The ProgramNode.
+     * @param symbols - The SymbolTable of the program.
+     */
+    private static void write(Path path, String assembly,
+                              ProgramNode program, SymbolTable symbols)
+            throws IOException
+    {
+        String name = path.getFileName().toString();
+        int dotIndex = name.lastIndexOf(".");
+        String baseName = dotIndex > 0 ? name.substring(0, dotIndex) :
+                name;
+        Path base = path.resolveSibling(baseName);
+        if (assembly != null)
+        {
+            Files.write(Paths.get(base + ".asm"), assembly.getBytes());
+        }
+        Files.write(Paths.get(base + ".table"),
+                symbols.toString().getBytes());
+        try (PrintWriter printWriter = new PrintWriter(base + ".tree"))
+        {
+            program.printTree(new TreePrinter(printWriter), 0);
+        }
+    }
+
+    /**
+     * Adds the time since a phase started to the time of the phase.
+     *
+     * @param phase - The phase.
+     * @param start - When it started, from System.nanoTime.
+     * @return - Now, when the next phase starts.
+     */
+    private long lap(int phase, long start)
+    {
+        long now = System.nanoTime();
+        phaseTimes.addAndGet(phase, now - start);
+        return now;
+    }
+
+    /**
+     * Returns the size of a file, or zero if it can't be read, in which
+     * case it fails when it is compiled.
+     *
+     * @param path - The file.
+     * @return - The number of bytes.
+     */
+    private static long size(Path path)
+    {
+        try
+        {
+            return Files.size(path);
+        }
+        catch (IOException ex)
+        {
+            return 0;
+        }
+    }
+
+    /**
+     * Estimates the bytes of heap it takes to compile a file. It is 64
+     * bytes for each byte of source, for the tree and the code, and the
+     * size over 128 more for each byte, for the live sets, which is a
+     * little more than the most a file of loops and ifs took at -O0 or
+     * -O1.
+     *
+     * @param size - The size of the file in bytes.
+     * @return - The bytes of heap.
+     */
+    private static long estimate(long size)
+    {
+        return size * (64 + size / 128);
+    }
+
+    /**
+     * Returns the number of files that were compiled, with the ones that
+     * failed.
+     *
+     * @return - The number of files.
+     */
+    public int getFileCount()
+    {
+        return files;
+    }
+
+    /**
+     * Returns the number of files that failed.
+     *
+     * @return - The number of failures.
+     */
+    public int getFailureCount()
+    {
+        return failures.size();
+    }
+
+    /**
+     * Returns a report of the batch: how many files were compiled and how
+     * fast, the files that failed, and the time of each phase, added up
+     * over all the threads.
+     *
+     * @return - The report.
+     */
+    @Override
+    public String toString()
+    {
+        double seconds = wallTime / 1e9;
+        StringBuilder answer = new StringBuilder(String.format(
+                "Compiled %d files, %d bytes, in %.2f s on %d threads, " +
+                "%.1f files/sec\n", files, bytes, seconds, parallelism,
+                seconds > 0 ? files / seconds : 0.0));
+        answer.append(String.format("%d failed\n", failures.size()));
+        List<Failure> sorted = new ArrayList<>(failures);
+        Collections.sort(sorted, Comparator.comparing(
+                (Failure failure) -> failure.file));
+        for (Failure failure : sorted)
+        {
+            answer.append("    ").append(failure.file).append(": ")
+                    .append(failure.message).append("\n");
+        }
+        answer.append(String.format("%-12s%10s\n", "phase", "ms"));
+        long total = 0;
+        for (int phase = 0; phase < PHASES.length; phase++)
+        {
+            total += phaseTimes.get(phase);
+            answer.append(String.format("%-12s%10.1f\n", PHASES[phase],
+                    phaseTimes.get(phase) / 1e6));
+        }
+        answer.append(String.format("%-12s%10.1f\n", "total", total / 1e6));
+        return answer.toString();
+    }
+}
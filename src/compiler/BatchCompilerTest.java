@@ -0,0 +1,106 @@
+package compiler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A JUnit Java class that illustrates compiling a directory of pascal
+ * files at once with a BatchCompiler.
+ *
+ * @author Marissa Allen
+ */
+public class BatchCompilerTest
+{
+    private static final String TEST = "program foo;\n" +
+            "var fee, fi: integer;\n" +
+            "begin\n" +
+            "read(fee);\n" +
+            "fi := 0;\n" +
+            "while fee > 0 do\n" +
+            "begin\n" +
+            "fi := fi + fee;\n" +
+            "fee := fee - 1\n" +
+            "end;\n" +
+            "write(fi)\n" +
+            "end\n" +
+            ".\n";
+
+    /**
+     * This method tests compiling a directory, with a directory inside of
+     * it, on two threads with a memory limit smaller than a file. The
+     * good files get their .asm, .table and .tree files, the file that
+     * doesn't parse and the file that is nested too deeply for the stack
+     * are failures, and a file that isn't a .pas file in a directory
+     * isn't compiled.
+     * This is a text string test.
+     */
+    @Test
+    public void testCompile() throws IOException
+    {
+        System.out.println("\n" + "################" + "\n" +
+                "# Test compile #" + "\n" +
+                "################" + "\n");
+
+        Path directory = Files.createTempDirectory("batch");
+        Path inside = Files.createDirectory(directory.resolve("inside"));
+        Files.write(directory.resolve("foo.pas"), TEST.getBytes());
+        Files.write(inside.resolve("fum.pas"), TEST.getBytes());
+        Files.write(inside.resolve("bad.pas"),
+                "program foo;\nbegin\n".getBytes());
+        Files.write(directory.resolve("notes.txt"), "fee".getBytes());
+        StringBuilder deep = new StringBuilder("program foo;\n" +
+                "var fee: integer;\n" +
+                "begin\n" +
+                "fee := ");
+        for (int depth = 0; depth < 100000; depth++)
+        {
+            deep.append('(');
+        }
+        deep.append('1');
+        for (int depth = 0; depth < 100000; depth++)
+        {
+            deep.append(')');
+        }
+        deep.append("\nend\n.\n");
+        Files.write(inside.resolve("deep.pas"), deep.toString().getBytes());
+
+        List<Path> files = BatchCompiler.collect(
+                Arrays.asList(directory.toString()));
+        assertEquals(4, files.size());
+        BatchCompiler batch = new BatchCompiler(1).setParallelism(2)
+                .setMemoryLimit(100);
+        batch.compile(files);
+        assertEquals(4, batch.getFileCount());
+        assertEquals(2, batch.getFailureCount());
+        assertTrue(Files.exists(directory.resolve("foo.asm")));
+        assertTrue(Files.exists(directory.resolve("foo.table")));
+        assertTrue(Files.exists(inside.resolve("fum.tree")));
+        assertFalse(Files.exists(inside.resolve("bad.asm")));
+        assertEquals(new String(Files.readAllBytes(
+                directory.resolve("foo.asm"))), new String(
+                Files.readAllBytes(inside.resolve("fum.asm"))));
+        String report = batch.toString();
+        assertTrue(report.startsWith("Compiled 4 files"));
+        assertTrue(report.contains("2 failed\n"));
+        assertTrue(report.contains("bad.pas"));
+        assertTrue(report.contains("deep.pas: java.lang.StackOverflowError"));
+        System.out.print(report);
+
+        try
+        {
+            batch.setParallelism(0);
+            fail("A parallelism of zero was set.");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            System.out.println(ex.getMessage());
+        }
+    }
+}
@@ -1,12 +1,36 @@
 package compiler;
 
+import codegen.AssemblyEmitter;
 import codegen.CodeGeneration;
+import codegen.PeepholeOptimizer;
+import interpreter.Interpreter;
+import ir.LoopLayout;
+import ir.PassManager;
+import jvm.JvmProgram;
+import jvm.PascalIO;
+import optimizer.ConstantFolder;
+import optimizer.DeadCodeElimination;
+import optimizer.LocalValueNumbering;
+import optimizer.LoopInvariantCodeMotion;
+import optimizer.ScalarPromotion;
+import optimizer.StrengthReduction;
 import parser.Parser;
 import parser.SymbolTable;
+import simulator.Assembler;
+import simulator.CostModel;
+import simulator.MachineCode;
+import simulator.Simulator;
 import syntaxtree.ProgramNode;
+import syntaxtree.TreePrinter;
 import analysis.SemanticAnalyzer;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 
 /**
@@ -22,9 +46,25 @@ import java.io.PrintWriter;
  * the declarations and statements of a program are semantically correct
  * assign the type of each ExpressionNode, and make sure that the
  * variable is declared before use. If the variable has been declared,
- * then the symbol table and a ProgramNode from the parser are passed
+ * then the constant parts of the expressions are folded, and the symbol
+ * table and a ProgramNode from the parser are passed
  * into the CodeGeneration class, and MIPS assembly code will be
- * generated by the code generator and written to a file.
+ * generated by the code generator, cleaned up by the peephole optimizer
+ * and written to a file. The optimizations can be turned off by putting
+ * -O0 before the file name, and -O1, which turns them on, is the default.
+ * With -run, the assembly code is also run in the Simulator, and the
+ * number of instructions it took is printed. -profile runs it too, and
+ * prints the cycles it took on a pipeline, with its instruction mix.
+ * With -jvm, the program is lowered into a JVM class and run in this
+ * JVM, reading from the console and printing to it, and -interpret
+ * runs it straight from its syntax tree in the Interpreter. -tiered
+ * interprets it too, but compiles the while loops that turn out to be
+ * hot into JVM bytecode while they run.
+ *
+ * When more than one file, or a directory, is given, the files are all
+ * compiled at once by a BatchCompiler, with as many threads as -j says,
+ * like -j8, and a summary of the batch is printed at the end instead of
+ * the reports of each file.
  *
  * @author Marissa Allen
  */
@@ -41,8 +81,66 @@ public class CompilerMain
         else
         {
             /*Takes an input file from the command line argument and
-            stores it in a String called fileName.*/
-            String fileName = args[0];
+            stores it in a String called fileName. Arguments that start
+            with -O set the optimization level.*/
+            String fileName = null;
+            List<String> fileNames = new ArrayList<>();
+            int parallelism = 0;
+            int level = 1;
+            boolean run = false;
+            boolean profile = false;
+            boolean jvm = false;
+            boolean interpret = false;
+            int compileThreshold = 0;
+            for (String arg : args)
+            {
+                if (arg.equals("-O0") || arg.equals("-O1"))
+                {
+                    level = arg.charAt(2) - '0';
+                }
+                else if (arg.equals("-run"))
+                {
+                    run = true;
+                }
+                else if (arg.equals("-profile"))
+                {
+                    run = true;
+                    profile = true;
+                }
+                else if (arg.equals("-jvm"))
+                {
+                    jvm = true;
+                }
+                else if (arg.equals("-interpret"))
+                {
+                    interpret = true;
+                }
+                else if (arg.equals("-tiered"))
+                {
+                    interpret = true;
+                    compileThreshold =
+                            Interpreter.DEFAULT_COMPILE_THRESHOLD;
+                }
+                else if (arg.matches("-j[0-9]+"))
+                {
+                    parallelism = Integer.parseInt(arg.substring(2));
+                }
+                else
+                {
+                    fileName = arg;
+                    fileNames.add(arg);
+                }
+            }
+            if (fileName == null)
+            {
+                System.out.println("Please enter a file name");
+                System.exit(0);
+            }
+            if (fileNames.size() > 1 || Files.isDirectory(Paths.get(fileName)))
+            {
+                compileBatch(fileNames, level, parallelism);
+                return;
+            }
             Parser instance = new Parser
                     (fileName, true);
 
@@ -50,10 +148,28 @@ public class CompilerMain
             SymbolTable st = instance.getSymbolTable();
             SemanticAnalyzer sa = new SemanticAnalyzer(pn, st);
             sa.analyze();
+            if (sa.goodToGo() && interpret)
+            {
+                interpret(pn, compileThreshold);
+            }
             if (sa.goodToGo())
             {
+                /*Folds the constant parts of the expressions so the code
+                generator doesn't compute them at runtime.*/
+                if (level > 0)
+                {
+                    new ConstantFolder().fold(pn);
+                }
                 CodeGeneration codeGen = new CodeGeneration(pn, st);
-                String code = codeGen.genCode();
+                PassManager passes = optimizations();
+                if (level > 0)
+                {
+                    codeGen.setPassManager(passes);
+                }
+                else
+                {
+                    codeGen.setLoopLayout(LoopLayout.TOP_TEST);
+                }
                 //write to asm file
 
                 int dotIndex = fileName.indexOf(".");
@@ -66,24 +182,45 @@ public class CompilerMain
                 try
                 {
                     PrintWriter printWriter = new PrintWriter(fileOutName);
-                    //Writing symbol table toString out to the .table file
-                    printWriter.print(code);
+                    /*Streaming the assembly code out to the .asm file
+                    through the peephole optimizer as it is generated.*/
+                    AssemblyEmitter emitter =
+                            new AssemblyEmitter(printWriter);
+                    if (level > 0)
+                    {
+                        PeepholeOptimizer peephole =
+                                new PeepholeOptimizer(emitter);
+                        codeGen.genCode(peephole);
+                        if (!passes.getPasses().isEmpty())
+                        {
+                            System.out.print(passes);
+                        }
+                        System.out.print(peephole);
+                    }
+                    else
+                    {
+                        codeGen.genCode(emitter);
+                    }
                     printWriter.close();
                 }
                 catch (Exception e)
                 {
                     System.out.println("Failed to write to file");
                 }
+                if (run)
+                {
+                    simulate(fileOutName, profile);
+                }
+                if (jvm)
+                {
+                    runOnJvm(pn);
+                }
             }
             else
             {
                 System.out.println("Semantic Analyzer failed. No " +
                         "assembly code generated.");
             }
-            /*Calls Parser Object method program. Constructor
-            is automatically called when an object of the class is
-            created. */
-            String indentedString = pn.indentedToString(0);
             /*The symbol table toString generated by passing the file
             into the program method. */
             String tableString = st.toString();
@@ -110,9 +247,9 @@ public class CompilerMain
             try
             {
                 PrintWriter printWriter = new PrintWriter(fileOutName);
-                /*Writing a syntax tree indentedToString out to the
-                .tree file*/
-                printWriter.print(indentedString);
+                /*Streaming the syntax tree out to the .tree file one
+                node at a time.*/
+                pn.printTree(new TreePrinter(printWriter), 0);
                 printWriter.close();
             }
             catch (Exception e)
@@ -121,4 +258,139 @@ public class CompilerMain
             }
         }
     }
+
+    /**
+     * Compiles many files at once with a BatchCompiler, and prints the
+     * summary of the batch.
+     *
+     * @param fileNames - The files and directories to compile.
+     * @param level - The optimization level.
+     * @param parallelism - The number of threads, or zero for one for
+     * each processor.
+     */
+    private static void compileBatch(List<String> fileNames, int level,
+                                     int parallelism)
+    {
+        BatchCompiler batch = new BatchCompiler(level);
+        if (parallelism > 0)
+        {
+            batch.setParallelism(parallelism);
+        }
+        batch.compile(BatchCompiler.collect(fileNames));
+        System.out.print(batch);
+    }
+
+    /**
+     * Makes the IR passes -O1 runs, in the order they run. Each program
+     * needs its own PassManager, since it keeps the report of its run.
+     *
+     * @return - The PassManager.
+     */
+    static PassManager optimizations()
+    {
+        return new PassManager()
+                .add(new DeadCodeElimination())
+                .add(new ScalarPromotion())
+                .add(new StrengthReduction())
+                .add(new LoopInvariantCodeMotion())
+                .add(new LocalValueNumbering())
+                .add(new DeadCodeElimination());
+    }
+
+    /**
+     * Runs a program in the Interpreter, reading from the console and
+     * printing to it, and then prints how long it took.
+     *
+     * @param program - The ProgramNode of the program, with the types
+     * the SemanticAnalyzer assigned.
+     * @param compileThreshold - The iterations before a while loop is
+     * compiled, or zero to never compile one.
+     */
+    private static void interpret(ProgramNode program, int compileThreshold)
+    {
+        try
+        {
+            Interpreter interpreter = new Interpreter(program)
+                    .setCompileThreshold(compileThreshold);
+            long start = System.nanoTime();
+            interpreter.run(PascalIO.console());
+            long time = System.nanoTime() - start;
+            System.out.println();
+            System.out.println("Interpreted in " + time / 1000000 +
+                    " ms, " + interpreter.getRewriteCount() +
+                    " nodes specialized, " +
+                    interpreter.getCompiledLoopCount() + " loops compiled");
+        }
+        catch (RuntimeException e)
+        {
+            System.out.println("Failed to interpret " +
+                    program.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs a program in this JVM, reading from the console and printing
+     * to it, and then prints how long it took.
+     *
+     * @param program - The ProgramNode of the program.
+     */
+    private static void runOnJvm(ProgramNode program)
+    {
+        try
+        {
+            JvmProgram jvmProgram = new JvmProgram(program);
+            long start = System.nanoTime();
+            jvmProgram.run(PascalIO.console());
+            long time = System.nanoTime() - start;
+            System.out.println();
+            System.out.println("Ran on the JVM in " + time / 1000000 +
+                    " ms");
+        }
+        catch (RuntimeException e)
+        {
+            System.out.println("Failed to run " + program.getName() +
+                    " on the JVM: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs an .asm file in the Simulator, reading from the console and
+     * printing to it, and then prints how many instructions it took.
+     *
+     * @param asmFileName - The name of the .asm file.
+     * @param profile - True to also print the cycles, stalls, branches
+     * and instruction mix of the run on the default pipeline.
+     */
+    private static void simulate(String asmFileName, boolean profile)
+    {
+        try
+        {
+            String source = new String(Files.readAllBytes(
+                    Paths.get(asmFileName)));
+            MachineCode code = new Assembler().assemble(source);
+            Simulator simulator = new Simulator(code,
+                    new InputStreamReader(System.in), System.out);
+            if (profile)
+            {
+                simulator.setCostModel(new CostModel());
+            }
+            simulator.run();
+            System.out.println();
+            System.out.println("Executed " +
+                    simulator.getInstructionCount() + " instructions");
+            if (profile)
+            {
+                System.out.print(simulator.getProfiler());
+            }
+        }
+        catch (IOException e)
+        {
+            System.out.println("Failed to read " + asmFileName);
+        }
+        catch (RuntimeException e)
+        {
+            System.out.println("Failed to run " + asmFileName + ": " +
+                    e.getMessage());
+        }
+    }
 }
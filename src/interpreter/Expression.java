@@ -0,0 +1,574 @@
+package interpreter;
+
+import ir.Operator;
+import syntaxtree.ExpressionNode;
+
+/**
+ * The base class of the expression nodes an Interpreter runs, and the
+ * nodes themselves. An expression starts out Uninitialized, and the
+ * first time it is run it is replaced by a node that only does what the
+ * types of the expression need: an IntAdd adds two ints, with no checks
+ * of what kind of numbers they are, and an IntVariable reads its slot of
+ * the Frame. An integer node gives its value as a real when a real is
+ * asked for, so an int in a real expression costs nothing more, but a
+ * real can't be used where an integer is needed, which is reported with
+ * a RuntimeException.
+ *
+ * @author Marissa Allen
+ */
+abstract class Expression extends Node
+{
+    /**
+     * Computes the value of the expression as an integer. A comparison
+     * gives 1 when it is true and 0 when it is false.
+     *
+     * @param frame - The variables of the program.
+     * @return - The value.
+     */
+    abstract int executeInt(Frame frame);
+
+    /**
+     * Computes the value of the expression as a real.
+     *
+     * @param frame - The variables of the program.
+     * @return - The value.
+     */
+    double executeReal(Frame frame)
+    {
+        return executeInt(frame);
+    }
+
+    /**
+     * Reports a real that is used as an integer.
+     *
+     * @return - Nothing, it always throws.
+     */
+    static int notInteger()
+    {
+        throw new RuntimeException("A real number can't be used as an " +
+                "integer");
+    }
+
+    /**
+     * An expression that hasn't run yet. It replaces itself with the
+     * node the Specializer makes for it the first time it runs.
+     */
+    static final class Uninitialized extends Expression
+    {
+        private final ExpressionNode syntax;
+        private final Specializer specializer;
+
+        Uninitialized(ExpressionNode syntax, Specializer specializer)
+        {
+            this.syntax = syntax;
+            this.specializer = specializer;
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return replace(specializer.specialize(syntax)).executeInt(frame);
+        }
+
+        @Override
+        double executeReal(Frame frame)
+        {
+            return replace(specializer.specialize(syntax))
+                    .executeReal(frame);
+        }
+    }
+
+    /**
+     * An int constant.
+     */
+    static final class IntConstant extends Expression
+    {
+        private final int value;
+
+        IntConstant(int value)
+        {
+            this.value = value;
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return value;
+        }
+    }
+
+    /**
+     * A real constant.
+     */
+    static final class RealConstant extends Expression
+    {
+        private final double value;
+
+        RealConstant(double value)
+        {
+            this.value = value;
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return notInteger();
+        }
+
+        @Override
+        double executeReal(Frame frame)
+        {
+            return value;
+        }
+    }
+
+    /**
+     * Reads an integer variable from its slot.
+     */
+    static final class IntVariable extends Expression
+    {
+        private final int slot;
+
+        IntVariable(int slot)
+        {
+            this.slot = slot;
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return frame.ints[slot];
+        }
+    }
+
+    /**
+     * Reads a real variable from its slot.
+     */
+    static final class RealVariable extends Expression
+    {
+        private final int slot;
+
+        RealVariable(int slot)
+        {
+            this.slot = slot;
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return notInteger();
+        }
+
+        @Override
+        double executeReal(Frame frame)
+        {
+            return frame.reals[slot];
+        }
+    }
+
+    /**
+     * An int plus a constant, which is what most of the adds and
+     * subtracts in a loop are, with one child to run instead of two.
+     */
+    static final class IntAddConstant extends Expression
+    {
+        private Expression left;
+        private final int value;
+
+        IntAddConstant(Expression left, int value)
+        {
+            this.left = adopt(left);
+            this.value = value;
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) + value;
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement)
+        {
+            left = (Expression) replacement;
+        }
+    }
+
+    /**
+     * An operation on two values.
+     */
+    abstract static class Binary extends Expression
+    {
+        Expression left;
+        Expression right;
+
+        Binary(Expression left, Expression right)
+        {
+            this.left = adopt(left);
+            this.right = adopt(right);
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement)
+        {
+            if (child == left)
+            {
+                left = (Expression) replacement;
+            }
+            else
+            {
+                right = (Expression) replacement;
+            }
+        }
+    }
+
+    /**
+     * An add of two ints.
+     */
+    static final class IntAdd extends Binary
+    {
+        IntAdd(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) + right.executeInt(frame);
+        }
+    }
+
+    /**
+     * A subtract of two ints.
+     */
+    static final class IntSub extends Binary
+    {
+        IntSub(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) - right.executeInt(frame);
+        }
+    }
+
+    /**
+     * A multiply of two ints.
+     */
+    static final class IntMul extends Binary
+    {
+        IntMul(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) * right.executeInt(frame);
+        }
+    }
+
+    /**
+     * An int div, which throws an ArithmeticException when it divides
+     * by zero.
+     */
+    static final class IntDiv extends Binary
+    {
+        IntDiv(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) / right.executeInt(frame);
+        }
+    }
+
+    /**
+     * An int mod, which throws an ArithmeticException when it divides
+     * by zero.
+     */
+    static final class IntMod extends Binary
+    {
+        IntMod(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) % right.executeInt(frame);
+        }
+    }
+
+    /**
+     * A bitwise and of two ints that aren't conditions.
+     */
+    static final class IntAnd extends Binary
+    {
+        IntAnd(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) & right.executeInt(frame);
+        }
+    }
+
+    /**
+     * A bitwise or of two ints that aren't conditions.
+     */
+    static final class IntOr extends Binary
+    {
+        IntOr(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) | right.executeInt(frame);
+        }
+    }
+
+    /**
+     * An = of two ints.
+     */
+    static final class IntEqual extends Binary
+    {
+        IntEqual(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) == right.executeInt(frame) ?
+                    1 : 0;
+        }
+    }
+
+    /**
+     * An <> of two ints.
+     */
+    static final class IntNotEqual extends Binary
+    {
+        IntNotEqual(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) != right.executeInt(frame) ?
+                    1 : 0;
+        }
+    }
+
+    /**
+     * A < of two ints.
+     */
+    static final class IntLess extends Binary
+    {
+        IntLess(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) < right.executeInt(frame) ?
+                    1 : 0;
+        }
+    }
+
+    /**
+     * A <= of two ints.
+     */
+    static final class IntLessEqual extends Binary
+    {
+        IntLessEqual(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) <= right.executeInt(frame) ?
+                    1 : 0;
+        }
+    }
+
+    /**
+     * A > of two ints.
+     */
+    static final class IntGreater extends Binary
+    {
+        IntGreater(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) > right.executeInt(frame) ?
+                    1 : 0;
+        }
+    }
+
+    /**
+     * A >= of two ints.
+     */
+    static final class IntGreaterEqual extends Binary
+    {
+        IntGreaterEqual(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) >= right.executeInt(frame) ?
+                    1 : 0;
+        }
+    }
+
+    /**
+     * An and of two conditions, which only runs its right side when the
+     * left side is true.
+     */
+    static final class And extends Binary
+    {
+        And(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) != 0 &&
+                    right.executeInt(frame) != 0 ? 1 : 0;
+        }
+    }
+
+    /**
+     * An or of two conditions, which only runs its right side when the
+     * left side is false.
+     */
+    static final class Or extends Binary
+    {
+        Or(Expression left, Expression right)
+        {
+            super(left, right);
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return left.executeInt(frame) != 0 ||
+                    right.executeInt(frame) != 0 ? 1 : 0;
+        }
+    }
+
+    /**
+     * An operation on two reals, where either side may be an int.
+     */
+    static final class RealArithmetic extends Binary
+    {
+        private final Operator operator;
+
+        RealArithmetic(Operator operator, Expression left,
+                       Expression right)
+        {
+            super(left, right);
+            this.operator = operator;
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            return notInteger();
+        }
+
+        @Override
+        double executeReal(Frame frame)
+        {
+            double a = left.executeReal(frame);
+            double b = right.executeReal(frame);
+            switch (operator)
+            {
+                case ADD:
+                    return a + b;
+                case SUB:
+                    return a - b;
+                case MUL:
+                    return a * b;
+                default:
+                    return a / b;
+            }
+        }
+    }
+
+    /**
+     * A comparison of two reals, where either side may be an int.
+     */
+    static final class RealCompare extends Binary
+    {
+        private final Operator operator;
+
+        RealCompare(Operator operator, Expression left, Expression right)
+        {
+            super(left, right);
+            this.operator = operator;
+        }
+
+        @Override
+        int executeInt(Frame frame)
+        {
+            double a = left.executeReal(frame);
+            double b = right.executeReal(frame);
+            boolean answer;
+            switch (operator)
+            {
+                case EQ:
+                    answer = a == b;
+                    break;
+                case NE:
+                    answer = a != b;
+                    break;
+                case LT:
+                    answer = a < b;
+                    break;
+                case LE:
+                    answer = a <= b;
+                    break;
+                case GT:
+                    answer = a > b;
+                    break;
+                default:
+                    answer = a >= b;
+                    break;
+            }
+            return answer ? 1 : 0;
+        }
+    }
+}
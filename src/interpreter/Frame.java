@@ -0,0 +1,36 @@
+package interpreter;
+
+import jvm.PascalIO;
+
+/**
+ * This class holds the variables of a program while an Interpreter runs
+ * it. Each variable is given a slot when the program is read, an index
+ * into the integers or into the reals depending on its type, so a node
+ * reads and writes a variable with one array access instead of looking
+ * up its name. The Frame also has the PascalIO the program reads from
+ * and prints to.
+ *
+ * @author Marissa Allen
+ */
+final class Frame
+{
+    final int[] ints;
+    final double[] reals;
+    final PascalIO io;
+
+    /**
+     * Frame constructor that takes in how many variables of each type
+     * the program has, and its input and output. The variables all start
+     * at zero.
+     *
+     * @param intCount - The number of integer variables.
+     * @param realCount - The number of real variables.
+     * @param io - The PascalIO of the run.
+     */
+    Frame(int intCount, int realCount, PascalIO io)
+    {
+        ints = new int[intCount];
+        reals = new double[realCount];
+        this.io = io;
+    }
+}
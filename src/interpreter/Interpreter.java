@@ -0,0 +1,179 @@
+package interpreter;
+
+import jvm.PascalIO;
+import syntaxtree.ProgramNode;
+
+/**
+ * This class runs a pascal program straight from its syntax tree, with
+ * no code generated, so a small program can be run as soon as it is
+ * parsed. The tree is turned into a tree of executable nodes that
+ * specialize themselves: each node starts out Uninitialized, and the
+ * first time it runs, it replaces itself with a node for exactly the
+ * types the SemanticAnalyzer gave it, like an IntAdd of two ints, or an
+ * IntVariable that reads its slot of the Frame. After the first run of
+ * a statement, running it again is only calls from node to node, which
+ * the JVM inlines into a loop close to the code it would compile for the
+ * program itself.
+ *
+ * The Interpreter can also tier up: with a compile threshold, each
+ * while loop counts its iterations, and a loop that runs that many is
+ * compiled into JVM bytecode and run by HotSpot from the iteration it
+ * was on, with the variables the Interpreter had, so a short program
+ * starts at once and a long loop still runs at the speed of compiled
+ * code. A loop the JVM code generator can't compile, like one with a
+ * real number in it, stays in the Interpreter.
+ *
+ * Unlike the code generators, the interpreter supports real numbers,
+ * and / divides as reals. The variables keep their values after a run,
+ * until the next run, and can be read with getVariable and
+ * getRealVariable. A div or mod by zero throws an ArithmeticException,
+ * and the other errors are reported with a RuntimeException.
+ *
+ * @author Marissa Allen
+ */
+public class Interpreter
+{
+    /**
+     * A compile threshold that compiles the loops that run long enough
+     * for compiling them to pay off.
+     */
+    public static final int DEFAULT_COMPILE_THRESHOLD = 10000;
+
+    private ProgramNode program;
+    private Specializer specializer;
+    private LoopCompiler loops;
+
+    /**
+     * The main statement is held in a Sequence, so it has a parent to
+     * replace itself in.
+     */
+    private Statement root;
+    private Frame frame;
+
+    /**
+     * Interpreter constructor that takes in the program to run.
+     *
+     * @param program - The ProgramNode.
+     */
+    public Interpreter(ProgramNode program)
+    {
+        this.program = program;
+        specializer = new Specializer(program.getVariables());
+        root = new Statement.Sequence(new Statement[]
+                {specializer.statement(program.getMain())});
+        frame = new Frame(specializer.getIntCount(),
+                specializer.getRealCount(), null);
+    }
+
+    /**
+     * Sets how many iterations a while loop runs in the Interpreter
+     * before it is compiled. It has to be set before the first run, and
+     * zero, the default, never compiles a loop. A threshold below zero
+     * is reported with an IllegalArgumentException.
+     *
+     * @param compileThreshold - The iterations before a loop is compiled.
+     * @return - This Interpreter.
+     */
+    public Interpreter setCompileThreshold(int compileThreshold)
+    {
+        if (compileThreshold < 0)
+        {
+            throw new IllegalArgumentException("The compile threshold " +
+                    "can't be negative");
+        }
+        loops = compileThreshold == 0 ? null : new LoopCompiler(program,
+                specializer.getIntNames(), compileThreshold);
+        specializer.setLoopCompiler(loops);
+        return this;
+    }
+
+    /**
+     * Runs the program, with every variable starting at zero, and then
+     * flushes its output.
+     *
+     * @param io - The PascalIO the program reads from and prints to.
+     */
+    public void run(PascalIO io)
+    {
+        frame = new Frame(specializer.getIntCount(),
+                specializer.getRealCount(), io);
+        try
+        {
+            root.execute(frame);
+        }
+        catch (Statement.Halt halt)
+        {
+            //A return statement stopped the program.
+        }
+        finally
+        {
+            io.flush();
+        }
+    }
+
+    /**
+     * Returns the value an integer variable has now.
+     *
+     * @param name - The name of the variable.
+     * @return - The value of the variable.
+     */
+    public int getVariable(String name)
+    {
+        Integer slot = specializer.intSlot(name);
+        if (slot == null)
+        {
+            throw new RuntimeException("The program has no integer " +
+                    "variable " + name);
+        }
+        return frame.ints[slot];
+    }
+
+    /**
+     * Returns the value a real variable has now.
+     *
+     * @param name - The name of the variable.
+     * @return - The value of the variable.
+     */
+    public double getRealVariable(String name)
+    {
+        Integer slot = specializer.realSlot(name);
+        if (slot == null)
+        {
+            throw new RuntimeException("The program has no real " +
+                    "variable " + name);
+        }
+        return frame.reals[slot];
+    }
+
+    /**
+     * Returns how many nodes have replaced themselves with specialized
+     * ones. Every node that runs is rewritten once, on its first run.
+     *
+     * @return - The number of rewrites.
+     */
+    public int getRewriteCount()
+    {
+        return specializer.getRewriteCount();
+    }
+
+    /**
+     * Returns how many while loops were hot and have been compiled.
+     *
+     * @return - The number of compiled loops.
+     */
+    public int getCompiledLoopCount()
+    {
+        return loops == null ? 0 : loops.getCompiledCount();
+    }
+
+    /**
+     * Returns how many while loops were hot but couldn't be compiled,
+     * and are still interpreted.
+     *
+     * @return - The number of hot loops left in the Interpreter.
+     */
+    public int getInterpretedLoopCount()
+    {
+        return loops == null ? 0 : loops.getFailedCount();
+    }
+}
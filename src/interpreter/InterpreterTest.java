@@ -0,0 +1,248 @@
+package interpreter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import analysis.SemanticAnalyzer;
+import jvm.PascalIO;
+import parser.Parser;
+import syntaxtree.ProgramNode;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * A JUnit Java class that illustrates running a pascal program straight
+ * from its syntax tree, with nodes that specialize themselves.
+ *
+ * @author Marissa Allen
+ */
+public class InterpreterTest
+{
+    private static final String TEST = "program foo;\n" +
+            "var fee, fi, fo: integer;\n" +
+            "begin\n" +
+            "read(fee);\n" +
+            "fi := 0;\n" +
+            "fo := 0;\n" +
+            "while fee > 0 do\n" +
+            "begin\n" +
+            "fi := fi + fee * 3;\n" +
+            "fo := fo + fee mod 4;\n" +
+            "fee := fee - 1\n" +
+            "end;\n" +
+            "write(fi);\n" +
+            "write(fo < fi)\n" +
+            "end\n" +
+            ".\n";
+
+    /**
+     * Runs a program with the given input.
+     *
+     * @param interpreter - The Interpreter.
+     * @param input - The input of the program.
+     * @return - What the program printed.
+     */
+    private String run(Interpreter interpreter, String input)
+    {
+        StringWriter output = new StringWriter();
+        interpreter.run(new PascalIO(new StringReader(input), output));
+        return output.toString();
+    }
+
+    /**
+     * Parses and analyzes a program.
+     *
+     * @param program - The pascal program.
+     * @return - The ProgramNode with the types of its expressions.
+     */
+    private ProgramNode analyze(String program)
+    {
+        Parser parser = new Parser(program, false);
+        ProgramNode answer = parser.program();
+        new SemanticAnalyzer(answer, parser.getSymbolTable()).analyze();
+        return answer;
+    }
+
+    /**
+     * This method tests running a program. It prints what it prints on
+     * the other backends, 165 and then 1. Every node is rewritten on its
+     * first run and never again, so running the program a second time
+     * rewrites nothing.
+     * This is a text string test.
+     */
+    @Test
+    public void testRun()
+    {
+        System.out.println("\n" + "############" + "\n" +
+                "# Test run #" + "\n" +
+                "############" + "\n");
+
+        Interpreter interpreter = new Interpreter(analyze(TEST));
+        assertEquals(0, interpreter.getRewriteCount());
+        assertEquals("1651", run(interpreter, "10\n"));
+        assertEquals(15, interpreter.getVariable("fo"));
+        int rewrites = interpreter.getRewriteCount();
+        assertEquals(32, rewrites);
+        assertEquals("31", run(interpreter, "1\n"));
+        assertEquals(rewrites, interpreter.getRewriteCount());
+        System.out.println(run(interpreter, "1000\n"));
+
+        //The loop never runs, so its body is never built.
+        interpreter = new Interpreter(analyze(TEST));
+        assertEquals("00", run(interpreter, "0\n"));
+        assertTrue(interpreter.getRewriteCount() < rewrites);
+    }
+
+    /**
+     * This method tests real numbers, which only the interpreter
+     * supports. An int in a real expression is used as a real, and a /
+     * of two integers is real.
+     */
+    @Test
+    public void testReals()
+    {
+        System.out.println("\n" + "##############" + "\n" +
+                "# Test reals #" + "\n" +
+                "##############" + "\n");
+
+        Interpreter interpreter = new Interpreter(analyze(
+                "program foo;\n" +
+                "var fee, fi: real;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "fi := fee * 3 + 0.5;\n" +
+                "if fi > 5\n" +
+                "then\n" +
+                "write(7 / 2)\n" +
+                "else\n" +
+                "write(fi * 2)\n" +
+                "end\n" +
+                ".\n"));
+        assertEquals("3.5", run(interpreter, "2.5\n"));
+        assertEquals(8.0, interpreter.getRealVariable("fi"), 0.0);
+        assertEquals("7.0", run(interpreter, "1\n"));
+    }
+
+    /**
+     * This method tests compiling a hot loop. With a threshold of 4, the
+     * loop isn't compiled by a run of 3 iterations, but the iterations of
+     * every run are counted, so it is compiled in the first iteration of
+     * the next run, and runs the rest on the JVM with the variables it
+     * had, printing the same thing. A loop with a real number in it
+     * stays in the interpreter.
+     */
+    @Test
+    public void testTiered()
+    {
+        System.out.println("\n" + "###############" + "\n" +
+                "# Test tiered #" + "\n" +
+                "###############" + "\n");
+
+        Interpreter interpreter = new Interpreter(analyze(TEST))
+                .setCompileThreshold(4);
+        assertEquals("181", run(interpreter, "3\n"));
+        assertEquals(0, interpreter.getCompiledLoopCount());
+        assertEquals("1651", run(interpreter, "10\n"));
+        assertEquals(1, interpreter.getCompiledLoopCount());
+        assertEquals(15, interpreter.getVariable("fo"));
+        assertEquals(0, interpreter.getVariable("fee"));
+        assertEquals("31", run(interpreter, "1\n"));
+        System.out.println(run(interpreter, "1000\n"));
+
+        //The variables are copied back when the compiled loop throws.
+        interpreter = new Interpreter(analyze("program foo;\n" +
+                "var fee, fi, fo: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "while fee < 100 do\n" +
+                "begin\n" +
+                "fo := 5 - fee;\n" +
+                "fi := fi + 100 div fo;\n" +
+                "fee := fee + 1\n" +
+                "end\n" +
+                "end\n" +
+                ".\n")).setCompileThreshold(2);
+        try
+        {
+            run(interpreter, "0\n");
+            fail("A div by zero didn't throw.");
+        }
+        catch (ArithmeticException ex)
+        {
+            System.out.println(ex.getMessage());
+        }
+        assertEquals(1, interpreter.getCompiledLoopCount());
+        assertEquals(228, interpreter.getVariable("fi"));
+        assertEquals(5, interpreter.getVariable("fee"));
+
+        interpreter = new Interpreter(analyze("program foo;\n" +
+                "var fee, fi: real;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "while fee > 0 do\n" +
+                "begin\n" +
+                "fee := fee - 1;\n" +
+                "fi := fi + 0.5\n" +
+                "end;\n" +
+                "write(fi)\n" +
+                "end\n" +
+                ".\n")).setCompileThreshold(2);
+        assertEquals("5.0", run(interpreter, "10\n"));
+        assertEquals(0, interpreter.getCompiledLoopCount());
+        assertEquals(1, interpreter.getInterpretedLoopCount());
+    }
+
+    /**
+     * This method tests the errors of a program. A div by zero throws an
+     * ArithmeticException, and a div of real numbers is reported with a
+     * RuntimeException when it is first run.
+     */
+    @Test
+    public void testErrors()
+    {
+        System.out.println("\n" + "###############" + "\n" +
+                "# Test errors #" + "\n" +
+                "###############" + "\n");
+
+        Interpreter interpreter = new Interpreter(analyze(
+                "program foo;\n" +
+                "var fee, fi: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "fi := 7 div fee;\n" +
+                "write(fi)\n" +
+                "end\n" +
+                ".\n"));
+        assertEquals("3", run(interpreter, "2\n"));
+        try
+        {
+            run(interpreter, "0\n");
+            fail("A div by zero didn't throw.");
+        }
+        catch (ArithmeticException ex)
+        {
+            System.out.println(ex.getMessage());
+        }
+
+        //Negative test, a div of real numbers.
+        interpreter = new Interpreter(analyze("program foo;\n" +
+                "var fee: real;\n" +
+                "begin\n" +
+                "fee := 2.5;\n" +
+                "fee := fee div 2\n" +
+                "end\n" +
+                ".\n"));
+        try
+        {
+            run(interpreter, "");
+            fail("A div of real numbers was run.");
+        }
+        catch (RuntimeException ex)
+        {
+            System.out.println(ex.getMessage());
+        }
+        assertEquals(2.5, interpreter.getRealVariable("fee"), 0.0);
+    }
+}
@@ -0,0 +1,101 @@
+package interpreter;
+
+import jvm.JvmLoop;
+import syntaxtree.ProgramNode;
+import syntaxtree.WhileStatementNode;
+
+/**
+ * This class decides when a while loop an Interpreter is running is hot
+ * enough to compile, and compiles it. A loop is counted from its first
+ * iteration by a ProfiledWhile, and once it has run compileThreshold
+ * iterations, all its runs put together, it is lowered to a JvmLoop,
+ * which HotSpot compiles into machine code like any other method. The
+ * loop takes over from the Interpreter where it is, at the test of its
+ * next iteration, with the variables the Interpreter has in its Frame.
+ *
+ * A loop the JVM code generator can't lower, like one with a real number
+ * in it, goes on in the Interpreter, and is no longer counted.
+ *
+ * @author Marissa Allen
+ */
+final class LoopCompiler
+{
+    private final ProgramNode program;
+    private final String[] variables;
+    private final int compileThreshold;
+    private int compiled = 0;
+    private int failed = 0;
+
+    /**
+     * LoopCompiler constructor that takes in the program, the names of
+     * its integer variables in the order of their slots, and how many
+     * iterations make a loop hot.
+     *
+     * @param program - The ProgramNode.
+     * @param variables - The names of the integer variables.
+     * @param compileThreshold - The iterations before a loop is compiled.
+     */
+    LoopCompiler(ProgramNode program, String[] variables,
+                 int compileThreshold)
+    {
+        this.program = program;
+        this.variables = variables;
+        this.compileThreshold = compileThreshold;
+    }
+
+    /**
+     * Returns how many iterations make a loop hot.
+     *
+     * @return - The compile threshold.
+     */
+    int getCompileThreshold()
+    {
+        return compileThreshold;
+    }
+
+    /**
+     * Returns how many loops have been compiled.
+     *
+     * @return - The number of compiled loops.
+     */
+    int getCompiledCount()
+    {
+        return compiled;
+    }
+
+    /**
+     * Returns how many hot loops couldn't be compiled.
+     *
+     * @return - The number of loops left in the Interpreter.
+     */
+    int getFailedCount()
+    {
+        return failed;
+    }
+
+    /**
+     * Makes the node a hot loop is replaced with: a CompiledWhile if the
+     * loop can be compiled, and a While that isn't counted if it can't.
+     *
+     * @param syntax - The while loop.
+     * @param test - The node of its test.
+     * @param body - The node of its body.
+     * @return - The Statement that runs the rest of the loop.
+     */
+    Statement compile(WhileStatementNode syntax, Expression test,
+                      Statement body)
+    {
+        try
+        {
+            Statement answer = new Statement.CompiledWhile(
+                    new JvmLoop(program, syntax, variables));
+            compiled++;
+            return answer;
+        }
+        catch (RuntimeException ex)
+        {
+            failed++;
+            return new Statement.While(test, body);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package interpreter;
+
+/**
+ * The base class of the nodes an Interpreter runs. Each node knows its
+ * parent, so a node can replace itself in the tree with one that is
+ * specialized for what it has seen, and every later run goes straight
+ * to the new node.
+ *
+ * @author Marissa Allen
+ */
+abstract class Node
+{
+    private Node parent;
+
+    /**
+     * Makes this node the parent of a child.
+     *
+     * @param child - The child node.
+     * @return - The child.
+     */
+    <T extends Node> T adopt(T child)
+    {
+        ((Node) child).parent = this;
+        return child;
+    }
+
+    /**
+     * Replaces this node in the tree with another one.
+     *
+     * @param replacement - The node that takes its place.
+     * @return - The replacement.
+     */
+    <T extends Node> T replace(T replacement)
+    {
+        parent.replaceChild(this, parent.adopt(replacement));
+        return replacement;
+    }
+
+    /**
+     * Replaces one of the children of this node. A node without
+     * children has nothing to replace, and reports it with a
+     * RuntimeException.
+     *
+     * @param child - The child that is replaced.
+     * @param replacement - The node that takes its place.
+     */
+    void replaceChild(Node child, Node replacement)
+    {
+        throw new RuntimeException(getClass().getSimpleName() +
+                " has no child to replace");
+    }
+}
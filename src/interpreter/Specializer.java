@@ -0,0 +1,464 @@
+package interpreter;
+
+import ir.Operator;
+import parser.TypeEnum;
+import scanner.TokenType;
+import syntaxtree.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class makes the node an Interpreter runs for a piece of the
+ * syntax tree. Every variable is given its slot of the Frame once, when
+ * the Specializer is made, and the node for an expression is picked by
+ * the types the SemanticAnalyzer assigned to it: an add of two integers
+ * is an IntAdd, an add with a real in it is a RealArithmetic, and an
+ * integer plus a constant is an IntAddConstant. When there is no type,
+ * because the program wasn't analyzed, the type is worked out from the
+ * numbers and the declared variables in the expression, and a variable
+ * whose type isn't known is an integer.
+ *
+ * The children of a node it makes are Uninitialized, so the tree is only
+ * built as far as the program runs. A variable that isn't declared, and
+ * a div, mod, and or or of real numbers, are reported with a
+ * RuntimeException when they are first run.
+ *
+ * When it has a LoopCompiler, a while loop is a ProfiledWhile, which
+ * counts its iterations, and is compiled once it is hot.
+ *
+ * @author Marissa Allen
+ */
+final class Specializer
+{
+    private Map<String, Integer> intSlots = new HashMap<>();
+    private Map<String, Integer> realSlots = new HashMap<>();
+    private int rewrites = 0;
+    private LoopCompiler loops;
+
+    /**
+     * Specializer constructor that takes in the declared variables of
+     * the program and gives each one a slot.
+     *
+     * @param declarations - The DeclarationsNode of the program.
+     */
+    Specializer(DeclarationsNode declarations)
+    {
+        for (VariableNode variable : declarations.getVar())
+        {
+            if (variable.getType() == TypeEnum.REAL_TYPE)
+            {
+                realSlots.put(variable.getName(), realSlots.size());
+            }
+            else
+            {
+                intSlots.put(variable.getName(), intSlots.size());
+            }
+        }
+    }
+
+    /**
+     * Sets the LoopCompiler that compiles the hot while loops. With none,
+     * which is the default, the loops are never compiled.
+     *
+     * @param loops - The LoopCompiler, or null.
+     */
+    void setLoopCompiler(LoopCompiler loops)
+    {
+        this.loops = loops;
+    }
+
+    /**
+     * Returns the names of the integer variables, in the order of their
+     * slots.
+     *
+     * @return - The names.
+     */
+    String[] getIntNames()
+    {
+        String[] names = new String[intSlots.size()];
+        for (Map.Entry<String, Integer> entry : intSlots.entrySet())
+        {
+            names[entry.getValue()] = entry.getKey();
+        }
+        return names;
+    }
+
+    /**
+     * Returns the number of integer variables.
+     *
+     * @return - The number of integer slots of a Frame.
+     */
+    int getIntCount()
+    {
+        return intSlots.size();
+    }
+
+    /**
+     * Returns the number of real variables.
+     *
+     * @return - The number of real slots of a Frame.
+     */
+    int getRealCount()
+    {
+        return realSlots.size();
+    }
+
+    /**
+     * Returns how many nodes have been replaced with specialized ones.
+     *
+     * @return - The number of rewrites.
+     */
+    int getRewriteCount()
+    {
+        return rewrites;
+    }
+
+    /**
+     * Finds the slot of an integer variable.
+     *
+     * @param name - The name of the variable.
+     * @return - The slot, or null if there is no integer variable with
+     * that name.
+     */
+    Integer intSlot(String name)
+    {
+        return intSlots.get(name);
+    }
+
+    /**
+     * Finds the slot of a real variable.
+     *
+     * @param name - The name of the variable.
+     * @return - The slot, or null if there is no real variable with that
+     * name.
+     */
+    Integer realSlot(String name)
+    {
+        return realSlots.get(name);
+    }
+
+    /**
+     * Makes the node an expression starts out as.
+     *
+     * @param node - The expression.
+     * @return - An Uninitialized Expression.
+     */
+    Expression expression(ExpressionNode node)
+    {
+        return new Expression.Uninitialized(node, this);
+    }
+
+    /**
+     * Makes the node a statement starts out as. A missing statement, like
+     * an if without an else, does nothing.
+     *
+     * @param node - The statement, or null.
+     * @return - An Uninitialized Statement, or an empty Sequence.
+     */
+    Statement statement(StatementNode node)
+    {
+        if (node == null)
+        {
+            return new Statement.Sequence(new Statement[0]);
+        }
+        return new Statement.Uninitialized(node, this);
+    }
+
+    /**
+     * Makes the node that computes an expression with the types it has.
+     *
+     * @param node - The expression.
+     * @return - The specialized Expression.
+     */
+    Expression specialize(ExpressionNode node)
+    {
+        rewrites++;
+        if (node instanceof ValueNode)
+        {
+            String number = ((ValueNode) node).getAttribute();
+            if (isReal(node))
+            {
+                return new Expression.RealConstant(
+                        Double.parseDouble(number));
+            }
+            return new Expression.IntConstant(Integer.parseInt(number));
+        }
+        if (node instanceof VariableNode)
+        {
+            String name = ((VariableNode) node).getName();
+            if (realSlots.containsKey(name))
+            {
+                return new Expression.RealVariable(realSlots.get(name));
+            }
+            return new Expression.IntVariable(slot(intSlots, name));
+        }
+        OperationNode op = (OperationNode) node;
+        if (op.getOperation() == TokenType.FSLASH)
+        {
+            //A / always gives a real, even of two integers.
+            return new Expression.RealArithmetic(Operator.DIV,
+                    expression(op.getLeft()), expression(op.getRight()));
+        }
+        Operator operator = Operator.fromToken(op.getOperation());
+        if (operator.isRelational())
+        {
+            return compare(operator, op);
+        }
+        if (isCondition(op))
+        {
+            return operator == Operator.AND ?
+                    new Expression.And(expression(op.getLeft()),
+                            expression(op.getRight())) :
+                    new Expression.Or(expression(op.getLeft()),
+                            expression(op.getRight()));
+        }
+        if (isReal(op))
+        {
+            if (operator != Operator.ADD && operator != Operator.SUB &&
+                    operator != Operator.MUL)
+            {
+                throw new RuntimeException("The " + operator +
+                        " operator can't be used on real numbers");
+            }
+            return new Expression.RealArithmetic(operator,
+                    expression(op.getLeft()), expression(op.getRight()));
+        }
+        return arithmetic(operator, op);
+    }
+
+    /**
+     * Makes the node for a comparison. Two integers are compared by a
+     * node for their operator, and anything with a real in it by a
+     * RealCompare.
+     *
+     * @param operator - The relational Operator.
+     * @param op - The comparison.
+     * @return - The specialized Expression.
+     */
+    private Expression compare(Operator operator, OperationNode op)
+    {
+        Expression left = expression(op.getLeft());
+        Expression right = expression(op.getRight());
+        if (isReal(op.getLeft()) || isReal(op.getRight()))
+        {
+            return new Expression.RealCompare(operator, left, right);
+        }
+        switch (operator)
+        {
+            case EQ:
+                return new Expression.IntEqual(left, right);
+            case NE:
+                return new Expression.IntNotEqual(left, right);
+            case LT:
+                return new Expression.IntLess(left, right);
+            case LE:
+                return new Expression.IntLessEqual(left, right);
+            case GT:
+                return new Expression.IntGreater(left, right);
+            default:
+                return new Expression.IntGreaterEqual(left, right);
+        }
+    }
+
+    /**
+     * Makes the node for an operation on two integers. An add or a
+     * subtract of a constant becomes an IntAddConstant.
+     *
+     * @param operator - The Operator.
+     * @param op - The operation.
+     * @return - The specialized Expression.
+     */
+    private Expression arithmetic(Operator operator, OperationNode op)
+    {
+        if ((operator == Operator.ADD || operator == Operator.SUB) &&
+                op.getRight() instanceof ValueNode)
+        {
+            int value = Integer.parseInt(
+                    ((ValueNode) op.getRight()).getAttribute());
+            return new Expression.IntAddConstant(expression(op.getLeft()),
+                    operator == Operator.ADD ? value : -value);
+        }
+        Expression left = expression(op.getLeft());
+        Expression right = expression(op.getRight());
+        switch (operator)
+        {
+            case ADD:
+                return new Expression.IntAdd(left, right);
+            case SUB:
+                return new Expression.IntSub(left, right);
+            case MUL:
+                return new Expression.IntMul(left, right);
+            case DIV:
+                return new Expression.IntDiv(left, right);
+            case MOD:
+                return new Expression.IntMod(left, right);
+            case AND:
+                return new Expression.IntAnd(left, right);
+            default:
+                return new Expression.IntOr(left, right);
+        }
+    }
+
+    /**
+     * Makes the node that runs a statement.
+     *
+     * @param node - The statement.
+     * @return - The specialized Statement.
+     */
+    Statement specialize(StatementNode node)
+    {
+        rewrites++;
+        if (node instanceof CompoundStatementNode)
+        {
+            StatementNode[] children = ((CompoundStatementNode) node)
+                    .getStatements().toArray(new StatementNode[0]);
+            Statement[] statements = new Statement[children.length];
+            for (int index = 0; index < children.length; index++)
+            {
+                statements[index] = statement(children[index]);
+            }
+            return new Statement.Sequence(statements);
+        }
+        if (node instanceof AssignmentStatementNode)
+        {
+            AssignmentStatementNode asn = (AssignmentStatementNode) node;
+            String name = asn.getLvalue().getName();
+            Expression value = expression(asn.getExpression());
+            if (realSlots.containsKey(name))
+            {
+                return new Statement.RealAssign(realSlots.get(name), value);
+            }
+            return new Statement.IntAssign(slot(intSlots, name), value);
+        }
+        if (node instanceof IfStatementNode)
+        {
+            IfStatementNode isn = (IfStatementNode) node;
+            return new Statement.If(expression(isn.getTest()),
+                    statement(isn.getThenStatement()),
+                    statement(isn.getElseStatement()));
+        }
+        if (node instanceof WhileStatementNode)
+        {
+            WhileStatementNode wsn = (WhileStatementNode) node;
+            if (loops != null)
+            {
+                return new Statement.ProfiledWhile(wsn, loops,
+                        expression(wsn.getWhileTest()),
+                        statement(wsn.getStatement()));
+            }
+            return new Statement.While(expression(wsn.getWhileTest()),
+                    statement(wsn.getStatement()));
+        }
+        if (node instanceof ReadStatementNode)
+        {
+            String name = ((ReadStatementNode) node).getVarTest().getName();
+            if (realSlots.containsKey(name))
+            {
+                return new Statement.ReadReal(realSlots.get(name));
+            }
+            return new Statement.ReadInt(slot(intSlots, name));
+        }
+        if (node instanceof WriteStatementNode)
+        {
+            ExpressionNode value = ((WriteStatementNode) node)
+                    .getWriteTest();
+            return isReal(value) ?
+                    new Statement.WriteReal(expression(value)) :
+                    new Statement.WriteInt(expression(value));
+        }
+        if (node instanceof ReturnStatementNode)
+        {
+            return new Statement.Return(expression(
+                    ((ReturnStatementNode) node).getReturnTest()));
+        }
+        throw new RuntimeException("The interpreter can't run " + node);
+    }
+
+    /**
+     * Finds the slot of a variable that has to be declared.
+     *
+     * @param slots - The slots of the integer variables.
+     * @param name - The name of the variable.
+     * @return - The slot.
+     */
+    private static int slot(Map<String, Integer> slots, String name)
+    {
+        Integer slot = slots.get(name);
+        if (slot == null)
+        {
+            throw new RuntimeException("The variable " + name +
+                    " is not declared");
+        }
+        return slot;
+    }
+
+    /**
+     * Checks to see if an expression has a real value. A condition is 1
+     * or 0 even when it compares reals, and a / is always real.
+     *
+     * @param node - The expression.
+     * @return - True if the value is a real number.
+     */
+    private boolean isReal(ExpressionNode node)
+    {
+        if (isCondition(node))
+        {
+            return false;
+        }
+        if (node instanceof OperationNode &&
+                ((OperationNode) node).getOperation() == TokenType.FSLASH)
+        {
+            return true;
+        }
+        if (node.getType() != null)
+        {
+            return node.getType() == TypeEnum.REAL_TYPE;
+        }
+        if (node instanceof ValueNode)
+        {
+            String number = ((ValueNode) node).getAttribute();
+            return number.contains(".") || number.contains("e") ||
+                    number.contains("E");
+        }
+        if (node instanceof VariableNode)
+        {
+            return realSlots.containsKey(((VariableNode) node).getName());
+        }
+        OperationNode op = (OperationNode) node;
+        return isReal(op.getLeft()) || isReal(op.getRight());
+    }
+
+    /**
+     * Checks to see if an expression is a condition: a comparison, or an
+     * and or an or of two conditions. An and or an or of anything else
+     * is a bitwise operation on integers, and is not short circuited.
+     *
+     * @param node - The expression.
+     * @return - True if the expression is true or false.
+     */
+    private static boolean isCondition(ExpressionNode node)
+    {
+        if (!(node instanceof OperationNode))
+        {
+            return false;
+        }
+        OperationNode op = (OperationNode) node;
+        switch (op.getOperation())
+        {
+            case EQUIV:
+            case NOTEQUAL:
+            case LTHAN:
+            case LTHANEQUAL:
+            case GTHAN:
+            case GTHANEQUAL:
+                return true;
+            case AND:
+            case OR:
+                return isCondition(op.getLeft()) &&
+                        isCondition(op.getRight());
+            default:
+                return false;
+        }
+    }
+}
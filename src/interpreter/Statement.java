@@ -0,0 +1,431 @@
+package interpreter;
+
+import jvm.JvmLoop;
+import syntaxtree.StatementNode;
+import syntaxtree.WhileStatementNode;
+
+/**
+ * The base class of the statement nodes an Interpreter runs, and the
+ * nodes themselves. Like an Expression, a statement starts out
+ * Uninitialized and is replaced by a node for exactly what it does the
+ * first time it runs, so a statement that never runs is never built,
+ * and an assignment knows the slot and the type of its variable without
+ * looking at the syntax tree again.
+ *
+ * @author Marissa Allen
+ */
+abstract class Statement extends Node
+{
+    /**
+     * Runs the statement.
+     *
+     * @param frame - The variables and the PascalIO of the program.
+     */
+    abstract void execute(Frame frame);
+
+    /**
+     * Thrown by a return statement to stop the program. It has no stack
+     * trace, since it is only used to get out of the nodes that are
+     * running.
+     */
+    static final class Halt extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        static final Halt INSTANCE = new Halt();
+
+        private Halt()
+        {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * A statement that hasn't run yet. It replaces itself with the node
+     * the Specializer makes for it the first time it runs.
+     */
+    static final class Uninitialized extends Statement
+    {
+        private final StatementNode syntax;
+        private final Specializer specializer;
+
+        Uninitialized(StatementNode syntax, Specializer specializer)
+        {
+            this.syntax = syntax;
+            this.specializer = specializer;
+        }
+
+        @Override
+        void execute(Frame frame)
+        {
+            replace(specializer.specialize(syntax)).execute(frame);
+        }
+    }
+
+    /**
+     * The statements of a compound statement, run in order.
+     */
+    static final class Sequence extends Statement
+    {
+        private final Statement[] statements;
+
+        Sequence(Statement[] statements)
+        {
+            this.statements = statements;
+            for (Statement statement : statements)
+            {
+                adopt(statement);
+            }
+        }
+
+        @Override
+        void execute(Frame frame)
+        {
+            for (Statement statement : statements)
+            {
+                statement.execute(frame);
+            }
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement)
+        {
+            for (int index = 0; index < statements.length; index++)
+            {
+                if (statements[index] == child)
+                {
+                    statements[index] = (Statement) replacement;
+                }
+            }
+        }
+    }
+
+    /**
+     * An assignment to an integer variable.
+     */
+    static final class IntAssign extends Statement
+    {
+        private final int slot;
+        private Expression value;
+
+        IntAssign(int slot, Expression value)
+        {
+            this.slot = slot;
+            this.value = adopt(value);
+        }
+
+        @Override
+        void execute(Frame frame)
+        {
+            frame.ints[slot] = value.executeInt(frame);
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement)
+        {
+            value = (Expression) replacement;
+        }
+    }
+
+    /**
+     * An assignment to a real variable.
+     */
+    static final class RealAssign extends Statement
+    {
+        private final int slot;
+        private Expression value;
+
+        RealAssign(int slot, Expression value)
+        {
+            this.slot = slot;
+            this.value = adopt(value);
+        }
+
+        @Override
+        void execute(Frame frame)
+        {
+            frame.reals[slot] = value.executeReal(frame);
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement)
+        {
+            value = (Expression) replacement;
+        }
+    }
+
+    /**
+     * An if statement. The else part is an empty Sequence when there is
+     * none.
+     */
+    static final class If extends Statement
+    {
+        private Expression test;
+        private Statement then;
+        private Statement otherwise;
+
+        If(Expression test, Statement then, Statement otherwise)
+        {
+            this.test = adopt(test);
+            this.then = adopt(then);
+            this.otherwise = adopt(otherwise);
+        }
+
+        @Override
+        void execute(Frame frame)
+        {
+            if (test.executeInt(frame) != 0)
+            {
+                then.execute(frame);
+            }
+            else
+            {
+                otherwise.execute(frame);
+            }
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement)
+        {
+            if (child == test)
+            {
+                test = (Expression) replacement;
+            }
+            else if (child == then)
+            {
+                then = (Statement) replacement;
+            }
+            else
+            {
+                otherwise = (Statement) replacement;
+            }
+        }
+    }
+
+    /**
+     * A while loop.
+     */
+    static final class While extends Statement
+    {
+        private Expression test;
+        private Statement body;
+
+        While(Expression test, Statement body)
+        {
+            this.test = adopt(test);
+            this.body = adopt(body);
+        }
+
+        @Override
+        void execute(Frame frame)
+        {
+            while (test.executeInt(frame) != 0)
+            {
+                body.execute(frame);
+            }
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement)
+        {
+            if (child == test)
+            {
+                test = (Expression) replacement;
+            }
+            else
+            {
+                body = (Statement) replacement;
+            }
+        }
+    }
+
+    /**
+     * A while loop that counts its iterations, until it has run enough of
+     * them to be compiled. It is then replaced with the node the
+     * LoopCompiler makes for it, which runs the rest of the loop.
+     */
+    static final class ProfiledWhile extends Statement
+    {
+        private final WhileStatementNode syntax;
+        private final LoopCompiler compiler;
+        private Expression test;
+        private Statement body;
+        private int iterations = 0;
+
+        ProfiledWhile(WhileStatementNode syntax, LoopCompiler compiler,
+                      Expression test, Statement body)
+        {
+            this.syntax = syntax;
+            this.compiler = compiler;
+            this.test = adopt(test);
+            this.body = adopt(body);
+        }
+
+        @Override
+        void execute(Frame frame)
+        {
+            while (test.executeInt(frame) != 0)
+            {
+                body.execute(frame);
+                if (++iterations >= compiler.getCompileThreshold())
+                {
+                    //The rest of the loop starts from its next test.
+                    replace(compiler.compile(syntax, test, body))
+                            .execute(frame);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement)
+        {
+            if (child == test)
+            {
+                test = (Expression) replacement;
+            }
+            else
+            {
+                body = (Statement) replacement;
+            }
+        }
+    }
+
+    /**
+     * A while loop that has been compiled into a JvmLoop. The loop works
+     * on the integer variables of the Frame.
+     */
+    static final class CompiledWhile extends Statement
+    {
+        private final JvmLoop loop;
+
+        CompiledWhile(JvmLoop loop)
+        {
+            this.loop = loop;
+        }
+
+        @Override
+        void execute(Frame frame)
+        {
+            if (loop.run(frame.io, frame.ints))
+            {
+                throw Halt.INSTANCE;
+            }
+        }
+    }
+
+    /**
+     * Reads a line of input into an integer variable.
+     */
+    static final class ReadInt extends Statement
+    {
+        private final int slot;
+
+        ReadInt(int slot)
+        {
+            this.slot = slot;
+        }
+
+        @Override
+        void execute(Frame frame)
+        {
+            frame.ints[slot] = frame.io.read();
+        }
+    }
+
+    /**
+     * Reads a line of input into a real variable.
+     */
+    static final class ReadReal extends Statement
+    {
+        private final int slot;
+
+        ReadReal(int slot)
+        {
+            this.slot = slot;
+        }
+
+        @Override
+        void execute(Frame frame)
+        {
+            frame.reals[slot] = frame.io.readReal();
+        }
+    }
+
+    /**
+     * Prints an integer.
+     */
+    static final class WriteInt extends Statement
+    {
+        private Expression value;
+
+        WriteInt(Expression value)
+        {
+            this.value = adopt(value);
+        }
+
+        @Override
+        void execute(Frame frame)
+        {
+            frame.io.write(value.executeInt(frame));
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement)
+        {
+            value = (Expression) replacement;
+        }
+    }
+
+    /**
+     * Prints a real.
+     */
+    static final class WriteReal extends Statement
+    {
+        private Expression value;
+
+        WriteReal(Expression value)
+        {
+            this.value = adopt(value);
+        }
+
+        @Override
+        void execute(Frame frame)
+        {
+            frame.io.write(value.executeReal(frame));
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement)
+        {
+            value = (Expression) replacement;
+        }
+    }
+
+    /**
+     * A return statement. Its value is computed, and the program stops,
+     * since the main program has nothing to return the value to.
+     */
+    static final class Return extends Statement
+    {
+        private Expression value;
+
+        Return(Expression value)
+        {
+            this.value = adopt(value);
+        }
+
+        @Override
+        void execute(Frame frame)
+        {
+            value.executeReal(frame);
+            throw Halt.INSTANCE;
+        }
+
+        @Override
+        void replaceChild(Node child, Node replacement)
+        {
+            value = (Expression) replacement;
+        }
+    }
+}
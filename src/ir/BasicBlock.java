@@ -0,0 +1,131 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A BasicBlock is a run of Quads that is always run from its first Quad
+ * to its last. Only the first Quad can be branched to, which is the
+ * LABEL if the block has one, and only the last Quad can branch away.
+ * The blocks control can go to next are its successors, and the blocks
+ * control can come from are its predecessors.
+ *
+ * @author Marissa Allen
+ */
+public class BasicBlock
+{
+    private int number;
+    private List<Quad> quads = new ArrayList<>();
+    private List<BasicBlock> successors = new ArrayList<>();
+    private List<BasicBlock> predecessors = new ArrayList<>();
+
+    /**
+     * BasicBlock constructor that takes in the number of the block.
+     *
+     * @param number - The position of the block in its IrProgram.
+     */
+    public BasicBlock(int number)
+    {
+        this.number = number;
+    }
+
+    /**
+     * Returns the number of this block.
+     *
+     * @return - The position of the block in its IrProgram.
+     */
+    public int getNumber()
+    {
+        return number;
+    }
+
+    /**
+     * Changes the number of this block.
+     *
+     * @param number - The new position of the block.
+     */
+    public void setNumber(int number)
+    {
+        this.number = number;
+    }
+
+    /**
+     * Returns the Quads of this block in order. The list can be changed
+     * by passes that rewrite the block.
+     *
+     * @return - The list of Quads.
+     */
+    public List<Quad> getQuads()
+    {
+        return quads;
+    }
+
+    /**
+     * Returns the name of the label this block starts with.
+     *
+     * @return - The label, or null if the block doesn't start with one.
+     */
+    public String getLabel()
+    {
+        if (!quads.isEmpty() && quads.get(0).getKind() == Kind.LABEL)
+        {
+            return quads.get(0).getLabel();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the last Quad of this block.
+     *
+     * @return - The last Quad, or null if the block is empty.
+     */
+    public Quad getLast()
+    {
+        return quads.isEmpty() ? null : quads.get(quads.size() - 1);
+    }
+
+    /**
+     * Returns the blocks control can go to after this one.
+     *
+     * @return - The list of successors.
+     */
+    public List<BasicBlock> getSuccessors()
+    {
+        return successors;
+    }
+
+    /**
+     * Returns the blocks control can come from before this one.
+     *
+     * @return - The list of predecessors.
+     */
+    public List<BasicBlock> getPredecessors()
+    {
+        return predecessors;
+    }
+
+    /**
+     * Adds an edge from this block to another one.
+     *
+     * @param successor - The block control can go to after this one.
+     */
+    public void addSuccessor(BasicBlock successor)
+    {
+        if (!successors.contains(successor))
+        {
+            successors.add(successor);
+            successor.predecessors.add(this);
+        }
+    }
+
+    /**
+     * Returns the name of this block, such as B3.
+     *
+     * @return - The letter B followed by the number of the block.
+     */
+    @Override
+    public String toString()
+    {
+        return "B" + number;
+    }
+}
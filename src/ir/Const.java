@@ -0,0 +1,65 @@
+package ir;
+
+/**
+ * A Const is an integer that is known when the program is compiled.
+ *
+ * @author Marissa Allen
+ */
+public class Const extends Operand
+{
+    private int value;
+
+    /**
+     * Const constructor that takes in the value of the constant.
+     *
+     * @param value - The value of the constant.
+     */
+    public Const(int value)
+    {
+        this.value = value;
+    }
+
+    /**
+     * Returns the value of the constant.
+     *
+     * @return - The value of the constant.
+     */
+    public int getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Compares the values of two constants.
+     *
+     * @param o - The object to compare to.
+     * @return - True if the object is a Const with the same value.
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof Const && ((Const) o).value == value;
+    }
+
+    /**
+     * Returns a hash code that agrees with equals.
+     *
+     * @return - The value of the constant.
+     */
+    @Override
+    public int hashCode()
+    {
+        return value;
+    }
+
+    /**
+     * Returns the constant as it is written in three address code.
+     *
+     * @return - The value of the constant.
+     */
+    @Override
+    public String toString()
+    {
+        return Integer.toString(value);
+    }
+}
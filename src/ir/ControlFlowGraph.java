@@ -0,0 +1,204 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A ControlFlowGraph is the graph of the BasicBlocks of an IrProgram,
+ * with an edge from every block to each of its successors. The first
+ * block is the entry. The graph is searched depth first once, when it is
+ * built, to find the blocks that can be reached from the entry and the
+ * order they are finished in, so the blocks can be walked in postorder
+ * or reverse postorder in linear time. A forward data flow problem
+ * converges fastest in reverse postorder, because every block is seen
+ * after its predecessors except along the back edges of loops, and a
+ * backward problem converges fastest in postorder.
+ *
+ * The graph is a picture of the blocks when it was built. A pass that
+ * adds or removes blocks or edges has to build a new one.
+ *
+ * @author Marissa Allen
+ */
+public class ControlFlowGraph
+{
+    private IrProgram program;
+    private List<BasicBlock> postorder = new ArrayList<>();
+
+    /**
+     * The position of each block in reverse postorder, by block number,
+     * or -1 for blocks that can't be reached.
+     */
+    private int[] rpoNumber;
+
+    /**
+     * ControlFlowGraph constructor that builds the graph of a program.
+     *
+     * @param program - The IrProgram whose blocks make up the graph.
+     */
+    public ControlFlowGraph(IrProgram program)
+    {
+        this.program = program;
+        List<BasicBlock> blocks = program.getBlocks();
+        rpoNumber = new int[blocks.size()];
+        Arrays.fill(rpoNumber, -1);
+        if (!blocks.isEmpty())
+        {
+            search(blocks.get(0));
+        }
+        for (int index = 0; index < postorder.size(); index++)
+        {
+            rpoNumber[postorder.get(index).getNumber()] =
+                    postorder.size() - 1 - index;
+        }
+    }
+
+    /**
+     * Searches the graph depth first from the entry, without recursion
+     * so deeply nested programs can't overflow the stack, and adds each
+     * block to the postorder when all of its successors are finished.
+     *
+     * @param entry - The block to start from.
+     */
+    private void search(BasicBlock entry)
+    {
+        boolean[] visited = new boolean[rpoNumber.length];
+        List<BasicBlock> stack = new ArrayList<>();
+        List<Integer> next = new ArrayList<>();
+        visited[entry.getNumber()] = true;
+        stack.add(entry);
+        next.add(0);
+        while (!stack.isEmpty())
+        {
+            int top = stack.size() - 1;
+            BasicBlock block = stack.get(top);
+            int edge = next.get(top);
+            if (edge < block.getSuccessors().size())
+            {
+                next.set(top, edge + 1);
+                BasicBlock successor = block.getSuccessors().get(edge);
+                if (!visited[successor.getNumber()])
+                {
+                    visited[successor.getNumber()] = true;
+                    stack.add(successor);
+                    next.add(0);
+                }
+            }
+            else
+            {
+                postorder.add(block);
+                stack.remove(top);
+                next.remove(top);
+            }
+        }
+    }
+
+    /**
+     * Returns the program the graph was built from.
+     *
+     * @return - The IrProgram.
+     */
+    public IrProgram getProgram()
+    {
+        return program;
+    }
+
+    /**
+     * Returns the block control starts in.
+     *
+     * @return - The first block, or null if the program has no code.
+     */
+    public BasicBlock getEntry()
+    {
+        List<BasicBlock> blocks = program.getBlocks();
+        return blocks.isEmpty() ? null : blocks.get(0);
+    }
+
+    /**
+     * Returns every block of the graph in program order, including the
+     * ones that can't be reached.
+     *
+     * @return - The list of BasicBlocks.
+     */
+    public List<BasicBlock> getBlocks()
+    {
+        return program.getBlocks();
+    }
+
+    /**
+     * Returns the blocks that can be reached from the entry, each one
+     * after all of the blocks it leads to, except along back edges.
+     *
+     * @return - A new list of the blocks in postorder.
+     */
+    public List<BasicBlock> postorder()
+    {
+        return new ArrayList<>(postorder);
+    }
+
+    /**
+     * Returns the blocks that can be reached from the entry, each one
+     * before all of the blocks it leads to, except along back edges.
+     *
+     * @return - A new list of the blocks in reverse postorder.
+     */
+    public List<BasicBlock> reversePostorder()
+    {
+        List<BasicBlock> answer = new ArrayList<>(postorder);
+        Collections.reverse(answer);
+        return answer;
+    }
+
+    /**
+     * Returns the position of a block in reverse postorder. An edge goes
+     * backwards, to a block with the same or a smaller number, only when
+     * it is a back edge of a loop.
+     *
+     * @param block - The block.
+     * @return - The position, or -1 if the block can't be reached.
+     */
+    public int getRpoNumber(BasicBlock block)
+    {
+        return rpoNumber[block.getNumber()];
+    }
+
+    /**
+     * Checks to see if control can reach a block from the entry.
+     *
+     * @param block - The block.
+     * @return - True if the block can be reached.
+     */
+    public boolean isReachable(BasicBlock block)
+    {
+        return rpoNumber[block.getNumber()] >= 0;
+    }
+
+    /**
+     * Returns the number of blocks that can be reached from the entry.
+     *
+     * @return - The number of reachable blocks.
+     */
+    public int size()
+    {
+        return postorder.size();
+    }
+
+    /**
+     * Returns the reachable blocks in reverse postorder, one per line,
+     * with their successors.
+     *
+     * @return - A String of the graph.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder answer = new StringBuilder();
+        for (BasicBlock block : reversePostorder())
+        {
+            answer.append(block).append(" -> ")
+                    .append(block.getSuccessors()).append("\n");
+        }
+        return answer.toString();
+    }
+}
@@ -0,0 +1,191 @@
+package ir;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import parser.Parser;
+import syntaxtree.ProgramNode;
+
+/**
+ * A JUnit Java class that illustrates building the ControlFlowGraph of
+ * a program and finding its dominators and loops.
+ *
+ * @author Marissa Allen
+ */
+public class ControlFlowGraphTest
+{
+    /**
+     * A program with a while loop nested in another, and an if
+     * statement after the inner loop.
+     */
+    private static final String NESTED = "program foo;\n" +
+            "var fee, fo: integer;\n" +
+            "begin\n" +
+            "read(fee);\n" +
+            "while fee > 0 do\n" +
+            "begin\n" +
+            "fo := fee;\n" +
+            "while fo > 0 do fo := fo - 1;\n" +
+            "if fee = 3 then write(fo) else begin end;\n" +
+            "fee := fee - 1\n" +
+            "end;\n" +
+            "write( fo)\n" +
+            "end\n" +
+            ".\n";
+
+    /**
+     * Builds the graph of a program.
+     *
+     * @param test - The pascal program.
+     * @return - The ControlFlowGraph of its three address code.
+     */
+    private ControlFlowGraph graph(String test)
+    {
+        ProgramNode program = new Parser(test, false).program();
+        return new ControlFlowGraph(new IrBuilder().build(program));
+    }
+
+    /**
+     * This method tests that the blocks are put in reverse postorder,
+     * where only back edges go to an earlier block. This is a text
+     * string test.
+     */
+    @Test
+    public void testReversePostorder()
+    {
+        System.out.println("\n" + "##########################" + "\n" +
+                "# Test reverse postorder #" + "\n" +
+                "##########################" + "\n");
+
+        ControlFlowGraph cfg = graph(NESTED);
+        String expected = "B0 -> [B6, B1]\n" +
+                "B1 -> [B3, B2]\n" +
+                "B2 -> [B2, B3]\n" +
+                "B3 -> [B5, B4]\n" +
+                "B4 -> [B5]\n" +
+                "B5 -> [B1, B6]\n" +
+                "B6 -> []\n";
+        assertEquals(expected, cfg.toString());
+        assertEquals(7, cfg.size());
+        /*Only the two edges from the tests at the bottoms of the loops
+        go backwards.*/
+        String back = "";
+        for (BasicBlock block : cfg.reversePostorder())
+        {
+            for (BasicBlock successor : block.getSuccessors())
+            {
+                if (cfg.getRpoNumber(successor) <= cfg.getRpoNumber(block))
+                {
+                    back += block + "->" + successor + " ";
+                }
+            }
+        }
+        assertEquals("B2->B2 B5->B1 ", back);
+        System.out.print(cfg);
+    }
+
+    /**
+     * This method tests the immediate dominators and the dominance
+     * queries. This is a text string test.
+     */
+    @Test
+    public void testDominators()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test dominators   #" + "\n" +
+                "#####################" + "\n");
+
+        ControlFlowGraph cfg = graph(NESTED);
+        DominatorTree dom = new DominatorTree(cfg);
+        String expected = "B1 idom B0\n" +
+                "B2 idom B1\n" +
+                "B3 idom B1\n" +
+                "B4 idom B3\n" +
+                "B5 idom B3\n" +
+                "B6 idom B0\n";
+        assertEquals(expected, dom.toString());
+        BasicBlock[] blocks = cfg.getBlocks().toArray(new BasicBlock[0]);
+        assertTrue(dom.dominates(blocks[1], blocks[5]));
+        assertTrue(dom.dominates(blocks[5], blocks[5]));
+        assertFalse(dom.strictlyDominates(blocks[5], blocks[5]));
+        //The then part is skipped when the test is false.
+        assertFalse(dom.dominates(blocks[4], blocks[5]));
+        //The inner loop is skipped when its guard is false.
+        assertFalse(dom.dominates(blocks[2], blocks[3]));
+        assertEquals(3, dom.getDepth(blocks[5]));
+        assertNull(dom.getIdom(blocks[0]));
+        System.out.print(dom);
+    }
+
+    /**
+     * This method tests that code after a return can't be reached and
+     * is left out of the graph and the dominator tree.
+     */
+    @Test
+    public void testUnreachable()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test unreachable  #" + "\n" +
+                "#####################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee: integer;\n" +
+                "begin\n" +
+                "fee := 1;\n" +
+                "return fee;\n" +
+                "write( fee)\n" +
+                "end\n" +
+                ".\n";
+        ControlFlowGraph cfg = graph(test);
+        DominatorTree dom = new DominatorTree(cfg);
+        BasicBlock dead = cfg.getBlocks().get(1);
+        assertEquals(2, cfg.getBlocks().size());
+        assertEquals(1, cfg.size());
+        assertFalse(cfg.isReachable(dead));
+        assertEquals(-1, cfg.getRpoNumber(dead));
+        assertNull(dom.getIdom(dead));
+        assertFalse(dom.dominates(cfg.getEntry(), dead));
+        System.out.println("Passed! " + dead + " can't be reached.");
+    }
+
+    /**
+     * This method tests finding the loops and how they nest. This is a
+     * text string test.
+     */
+    @Test
+    public void testLoops()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test loops        #" + "\n" +
+                "#####################" + "\n");
+
+        ControlFlowGraph cfg = graph(NESTED);
+        LoopForest forest = new LoopForest(cfg, new DominatorTree(cfg));
+        String expected = "Loop B1 [B1, B2, B3, B4, B5]\n" +
+                "    Loop B2 [B2]\n";
+        assertEquals(expected, forest.toString());
+
+        Loop outer = forest.getTopLevelLoops().get(0);
+        Loop inner = outer.getChildren().get(0);
+        assertEquals(1, forest.getTopLevelLoops().size());
+        assertSame(outer, inner.getParent());
+        assertSame(inner, forest.getLoopsInnermostFirst().get(0));
+        assertTrue(inner.isInnermost());
+        assertEquals("[B5]", outer.getLatches().toString());
+        assertEquals("[B6]", outer.getExits().toString());
+        assertEquals("[B2]", inner.getLatches().toString());
+        /*The guard of an inverted loop branches around it, so the block
+        before the loop is not a preheader.*/
+        assertNull(outer.getPreheader());
+        assertNull(inner.getPreheader());
+
+        BasicBlock[] blocks = cfg.getBlocks().toArray(new BasicBlock[0]);
+        assertSame(inner, forest.getLoopFor(blocks[2]));
+        assertSame(outer, forest.getLoopFor(blocks[4]));
+        assertNull(forest.getLoopFor(blocks[6]));
+        assertEquals(2, forest.getDepth(blocks[2]));
+        assertEquals(0, forest.getDepth(blocks[0]));
+        System.out.print(forest);
+    }
+}
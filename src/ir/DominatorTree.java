@@ -0,0 +1,337 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class finds the dominators of a ControlFlowGraph. A block A
+ * dominates a block B when every path from the entry to B goes through
+ * A, and the immediate dominator of B is the dominator closest to it.
+ * Linking every block to its immediate dominator makes a tree rooted at
+ * the entry.
+ *
+ * The immediate dominators are found with the Lengauer-Tarjan algorithm,
+ * using path compression, which takes O(E log V) time. The blocks are
+ * numbered depth first, and the semidominator of each block, the
+ * earliest block that reaches it along a path of later blocks, is found
+ * in reverse of that order. The immediate dominator is then either the
+ * semidominator or the immediate dominator of a block between the two.
+ * The tree is numbered depth first as well, so a dominance query is a
+ * comparison of two numbers and doesn't walk up the tree.
+ *
+ * Blocks that can't be reached from the entry are left out of the tree.
+ *
+ * @author Marissa Allen
+ */
+public class DominatorTree
+{
+    private ControlFlowGraph cfg;
+    private BasicBlock[] idom;
+    private List<List<BasicBlock>> children = new ArrayList<>();
+    private int[] depth;
+    private int[] enter;
+    private int[] exit;
+
+    /*The arrays of the Lengauer-Tarjan algorithm, indexed by the depth
+    first number of a block.*/
+    private BasicBlock[] vertex;
+    private int[] parent;
+    private int[] semi;
+    private int[] ancestor;
+    private int[] best;
+
+    /**
+     * DominatorTree constructor that finds the dominators of every
+     * reachable block of a graph.
+     *
+     * @param cfg - The ControlFlowGraph.
+     */
+    public DominatorTree(ControlFlowGraph cfg)
+    {
+        this.cfg = cfg;
+        int size = cfg.getBlocks().size();
+        idom = new BasicBlock[size];
+        depth = new int[size];
+        enter = new int[size];
+        exit = new int[size];
+        Arrays.fill(enter, -1);
+        for (int index = 0; index < size; index++)
+        {
+            children.add(new ArrayList<>());
+        }
+        if (cfg.getEntry() != null)
+        {
+            immediateDominators();
+            numberTree();
+        }
+        vertex = null;
+        parent = semi = ancestor = best = null;
+    }
+
+    /**
+     * Numbers the blocks depth first and finds the immediate dominator
+     * of each one.
+     */
+    private void immediateDominators()
+    {
+        int size = cfg.getBlocks().size();
+        int[] dfnum = new int[size];
+        Arrays.fill(dfnum, -1);
+        vertex = new BasicBlock[size];
+        parent = new int[size];
+        semi = new int[size];
+        ancestor = new int[size];
+        best = new int[size];
+        int[] dominator = new int[size];
+        int count = 0;
+
+        //Numbers the blocks in depth first preorder.
+        List<BasicBlock> stack = new ArrayList<>();
+        List<Integer> from = new ArrayList<>();
+        stack.add(cfg.getEntry());
+        from.add(-1);
+        while (!stack.isEmpty())
+        {
+            BasicBlock block = stack.remove(stack.size() - 1);
+            int before = from.remove(from.size() - 1);
+            if (dfnum[block.getNumber()] >= 0)
+            {
+                continue;
+            }
+            dfnum[block.getNumber()] = count;
+            vertex[count] = block;
+            parent[count] = before;
+            semi[count] = count;
+            ancestor[count] = -1;
+            best[count] = count;
+            List<BasicBlock> successors = block.getSuccessors();
+            for (int index = successors.size() - 1; index >= 0; index--)
+            {
+                if (dfnum[successors.get(index).getNumber()] < 0)
+                {
+                    stack.add(successors.get(index));
+                    from.add(count);
+                }
+            }
+            count++;
+        }
+
+        //Finds the semidominators, latest block first.
+        List<List<Integer>> bucket = new ArrayList<>();
+        for (int index = 0; index < count; index++)
+        {
+            bucket.add(new ArrayList<>());
+        }
+        for (int w = count - 1; w > 0; w--)
+        {
+            for (BasicBlock predecessor : vertex[w].getPredecessors())
+            {
+                int v = dfnum[predecessor.getNumber()];
+                if (v >= 0)
+                {
+                    int u = eval(v);
+                    if (semi[u] < semi[w])
+                    {
+                        semi[w] = semi[u];
+                    }
+                }
+            }
+            bucket.get(semi[w]).add(w);
+            int p = parent[w];
+            ancestor[w] = p;
+            for (int v : bucket.get(p))
+            {
+                int u = eval(v);
+                dominator[v] = semi[u] < semi[v] ? u : p;
+            }
+            bucket.get(p).clear();
+        }
+
+        //Fixes the blocks whose immediate dominator isn't their semi.
+        for (int w = 1; w < count; w++)
+        {
+            if (dominator[w] != semi[w])
+            {
+                dominator[w] = dominator[dominator[w]];
+            }
+            BasicBlock block = vertex[w];
+            idom[block.getNumber()] = vertex[dominator[w]];
+            children.get(vertex[dominator[w]].getNumber()).add(block);
+        }
+    }
+
+    /**
+     * Finds the block with the smallest semidominator on the path from a
+     * block up to the root of its tree in the forest built so far.
+     *
+     * @param v - The depth first number of the block.
+     * @return - The depth first number of the block found.
+     */
+    private int eval(int v)
+    {
+        if (ancestor[v] < 0)
+        {
+            return v;
+        }
+        compress(v);
+        return best[v];
+    }
+
+    /**
+     * Shortens the path from a block to the root of its tree, so later
+     * searches from the block take fewer steps. The path is walked
+     * without recursion.
+     *
+     * @param v - The depth first number of the block.
+     */
+    private void compress(int v)
+    {
+        List<Integer> path = new ArrayList<>();
+        while (ancestor[ancestor[v]] >= 0)
+        {
+            path.add(v);
+            v = ancestor[v];
+        }
+        for (int index = path.size() - 1; index >= 0; index--)
+        {
+            int node = path.get(index);
+            int up = ancestor[node];
+            if (semi[best[up]] < semi[best[node]])
+            {
+                best[node] = best[up];
+            }
+            ancestor[node] = ancestor[up];
+        }
+    }
+
+    /**
+     * Numbers the tree depth first, giving each block the time it is
+     * entered and left, and its depth.
+     */
+    private void numberTree()
+    {
+        int time = 0;
+        List<BasicBlock> stack = new ArrayList<>();
+        List<Integer> next = new ArrayList<>();
+        stack.add(cfg.getEntry());
+        next.add(0);
+        enter[cfg.getEntry().getNumber()] = time++;
+        while (!stack.isEmpty())
+        {
+            int top = stack.size() - 1;
+            BasicBlock block = stack.get(top);
+            List<BasicBlock> below = children.get(block.getNumber());
+            int child = next.get(top);
+            if (child < below.size())
+            {
+                next.set(top, child + 1);
+                BasicBlock down = below.get(child);
+                depth[down.getNumber()] = depth[block.getNumber()] + 1;
+                enter[down.getNumber()] = time++;
+                stack.add(down);
+                next.add(0);
+            }
+            else
+            {
+                exit[block.getNumber()] = time++;
+                stack.remove(top);
+                next.remove(top);
+            }
+        }
+    }
+
+    /**
+     * Returns the graph the tree was built for.
+     *
+     * @return - The ControlFlowGraph.
+     */
+    public ControlFlowGraph getGraph()
+    {
+        return cfg;
+    }
+
+    /**
+     * Returns the immediate dominator of a block.
+     *
+     * @param block - The block.
+     * @return - The parent of the block in the tree, or null for the
+     * entry and for blocks that can't be reached.
+     */
+    public BasicBlock getIdom(BasicBlock block)
+    {
+        return idom[block.getNumber()];
+    }
+
+    /**
+     * Returns the blocks a block is the immediate dominator of.
+     *
+     * @param block - The block.
+     * @return - The children of the block in the tree.
+     */
+    public List<BasicBlock> getChildren(BasicBlock block)
+    {
+        return children.get(block.getNumber());
+    }
+
+    /**
+     * Returns how far a block is below the entry in the tree.
+     *
+     * @param block - The block.
+     * @return - The depth, which is 0 for the entry.
+     */
+    public int getDepth(BasicBlock block)
+    {
+        return depth[block.getNumber()];
+    }
+
+    /**
+     * Checks to see if one block dominates another. Every block
+     * dominates itself.
+     *
+     * @param a - The block that may dominate.
+     * @param b - The block that may be dominated.
+     * @return - True if every path from the entry to b goes through a.
+     */
+    public boolean dominates(BasicBlock a, BasicBlock b)
+    {
+        int first = a.getNumber();
+        int second = b.getNumber();
+        return enter[first] >= 0 && enter[second] >= 0 &&
+                enter[first] <= enter[second] && exit[second] <= exit[first];
+    }
+
+    /**
+     * Checks to see if one block dominates another and isn't the same
+     * block.
+     *
+     * @param a - The block that may dominate.
+     * @param b - The block that may be dominated.
+     * @return - True if a dominates b and a is not b.
+     */
+    public boolean strictlyDominates(BasicBlock a, BasicBlock b)
+    {
+        return a != b && dominates(a, b);
+    }
+
+    /**
+     * Returns the immediate dominator of every reachable block but the
+     * entry, one per line, in reverse postorder.
+     *
+     * @return - A String of the tree.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder answer = new StringBuilder();
+        for (BasicBlock block : cfg.reversePostorder())
+        {
+            if (idom[block.getNumber()] != null)
+            {
+                answer.append(block).append(" idom ")
+                        .append(idom[block.getNumber()]).append("\n");
+            }
+        }
+        return answer.toString();
+    }
+}
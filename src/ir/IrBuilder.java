@@ -0,0 +1,522 @@
+package ir;
+
+import scanner.TokenType;
+import syntaxtree.*;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class lowers a syntax tree into three address code. Every value
+ * an expression computes is put in a new Temp, so each Temp is written
+ * once and read once, and the variables of the program are only touched
+ * by COPY Quads that load them into temporaries or store temporaries
+ * back into them. The operands of an operation are lowered in
+ * Sethi-Ullman order, the operand that needs more registers first, so
+ * the number of temporaries alive at once stays as small as it can be.
+ *
+ * Statements are lowered like this:
+ * while test do body          if test then a else b
+ * if not test goto endLoop1   if not test goto Else2
+ * TopWhile1:                      a
+ *     body                        goto Next2
+ *     if test goto TopWhile1  Else2:
+ * endLoop1:                       b
+ *                             Next2:
+ * A while loop is inverted like this unless another LoopLayout is set,
+ * so each iteration only runs the test at the bottom and one branch.
+ *
+ * Tests are lowered into jumping code, and an and or an or of
+ * comparisons is short circuited instead of computing both sides.
+ * A comparison used as a value, like flag := fee < fo, is a BINARY
+ * that sets its Temp to 1 or 0 without a branch, and so is an and or
+ * an or of them, unless its right side divides and may only be
+ * computed when the left side doesn't decide it.
+ *
+ * Only integers are supported. A real number or a / operation is
+ * reported with a RuntimeException.
+ *
+ * @author Marissa Allen
+ */
+public class IrBuilder
+{
+    private IrProgram ir;
+    private List<Quad> code;
+    private LoopLayout layout = LoopLayout.INVERTED;
+
+    /**
+     * The Sethi-Ullman label of every node in the expression that is
+     * being lowered.
+     */
+    private Map<ExpressionNode, Integer> labels = new IdentityHashMap<>();
+
+    /**
+     * Sets how while loops are laid out. Loops are INVERTED unless
+     * another layout is set.
+     *
+     * @param layout - The LoopLayout.
+     */
+    public void setLoopLayout(LoopLayout layout)
+    {
+        this.layout = layout;
+    }
+
+    /**
+     * Lowers a whole program. The declared variables become the
+     * variables of the IrProgram, and the main compound statement
+     * becomes its code. Subprograms are not lowered.
+     *
+     * @param program - The ProgramNode to lower.
+     * @return - The three address code for the program.
+     */
+    public IrProgram build(ProgramNode program)
+    {
+        start(program.getName());
+        for (VariableNode variable : program.getVariables().getVar())
+        {
+            ir.getVariables().add(variable.getName());
+        }
+        statement(program.getMain());
+        return finish();
+    }
+
+    /**
+     * Lowers one statement on its own.
+     *
+     * @param statement - The StatementNode to lower.
+     * @return - The three address code for the statement.
+     */
+    public IrProgram build(StatementNode statement)
+    {
+        start(null);
+        statement(statement);
+        return finish();
+    }
+
+    /**
+     * Lowers one expression on its own. The Temp holding the value of the
+     * expression is the result of the IrProgram.
+     *
+     * @param expression - The ExpressionNode to lower.
+     * @return - The three address code for the expression.
+     */
+    public IrProgram build(ExpressionNode expression)
+    {
+        start(null);
+        ir.setResult(root(expression));
+        return finish();
+    }
+
+    /**
+     * Starts a new IrProgram.
+     *
+     * @param name - The name of the program.
+     */
+    private void start(String name)
+    {
+        ir = new IrProgram(name);
+        code = new ArrayList<>();
+    }
+
+    /**
+     * Splits the code that was lowered into blocks.
+     *
+     * @return - The finished IrProgram.
+     */
+    private IrProgram finish()
+    {
+        ir.setQuads(code);
+        return ir;
+    }
+
+    /**
+     * Lowers a statement and the statements inside of it.
+     *
+     * @param node - The statement to lower.
+     */
+    private void statement(StatementNode node)
+    {
+        if (node instanceof CompoundStatementNode)
+        {
+            for (StatementNode sNode :
+                    ((CompoundStatementNode) node).getStatements())
+            {
+                statement(sNode);
+            }
+        }
+        else if (node instanceof AssignmentStatementNode)
+        {
+            AssignmentStatementNode asn = (AssignmentStatementNode) node;
+            Operand value = root(asn.getExpression());
+            code.add(Quad.copy(new Var(asn.getLvalue().getName()), value));
+        }
+        else if (node instanceof IfStatementNode)
+        {
+            ifStatement((IfStatementNode) node);
+        }
+        else if (node instanceof WhileStatementNode)
+        {
+            whileStatement((WhileStatementNode) node);
+        }
+        else if (node instanceof ReadStatementNode)
+        {
+            code.add(Quad.read(new Var(
+                    ((ReadStatementNode) node).getVarTest().getName())));
+        }
+        else if (node instanceof WriteStatementNode)
+        {
+            code.add(Quad.write(
+                    root(((WriteStatementNode) node).getWriteTest())));
+        }
+        else if (node instanceof ReturnStatementNode)
+        {
+            code.add(Quad.ret(
+                    root(((ReturnStatementNode) node).getReturnTest())));
+        }
+    }
+
+    /**
+     * Lowers an if statement. When the else part is empty, the test
+     * branches straight past the then part.
+     *
+     * @param node - The if statement to lower.
+     */
+    private void ifStatement(IfStatementNode node)
+    {
+        int number = ir.newLabelNumber();
+        String next = "Next" + number;
+        if (isEmpty(node.getElseStatement()))
+        {
+            branchIfFalse(node.getTest(), next);
+            statement(node.getThenStatement());
+        }
+        else
+        {
+            String otherwise = "Else" + number;
+            branchIfFalse(node.getTest(), otherwise);
+            statement(node.getThenStatement());
+            code.add(Quad.jump(next));
+            code.add(Quad.label(otherwise));
+            statement(node.getElseStatement());
+        }
+        code.add(Quad.label(next));
+    }
+
+    /**
+     * Lowers a while statement in the layout that was set:
+     * TOP_TEST              INVERTED                 BOTTOM_TEST
+     * TopWhile1:            if not test goto         goto Test1
+     * if not test goto          endLoop1             TopWhile1:
+     *     endLoop1          TopWhile1:                   body
+     *     body                  body                 Test1:
+     *     goto TopWhile1        if test goto         if test goto
+     * endLoop1:                     TopWhile1            TopWhile1
+     *                       endLoop1:                endLoop1:
+     *
+     * @param node - The while statement to lower.
+     */
+    private void whileStatement(WhileStatementNode node)
+    {
+        int number = ir.newLabelNumber();
+        String top = "TopWhile" + number;
+        String end = "endLoop" + number;
+        switch (layout)
+        {
+            case TOP_TEST:
+                code.add(Quad.label(top));
+                branchIfFalse(node.getWhileTest(), end);
+                statement(node.getStatement());
+                code.add(Quad.jump(top));
+                break;
+            case INVERTED:
+                branchIfFalse(node.getWhileTest(), end);
+                code.add(Quad.label(top));
+                statement(node.getStatement());
+                branchIfTrue(node.getWhileTest(), top);
+                break;
+            default:
+                String test = "Test" + number;
+                code.add(Quad.jump(test));
+                code.add(Quad.label(top));
+                statement(node.getStatement());
+                code.add(Quad.label(test));
+                branchIfTrue(node.getWhileTest(), top);
+                break;
+        }
+        code.add(Quad.label(end));
+    }
+
+    /**
+     * Lowers a test that branches to a label when it is false and falls
+     * through when it is true.
+     *
+     * @param test - The expression that is tested.
+     * @param falseLabel - The label branched to when the test is false.
+     */
+    private void branchIfFalse(ExpressionNode test, String falseLabel)
+    {
+        labels.clear();
+        label(test);
+        jump(test, falseLabel, false);
+    }
+
+    /**
+     * Lowers a test that branches to a label when it is true and falls
+     * through when it is false.
+     *
+     * @param test - The expression that is tested.
+     * @param trueLabel - The label branched to when the test is true.
+     */
+    private void branchIfTrue(ExpressionNode test, String trueLabel)
+    {
+        labels.clear();
+        label(test);
+        jump(test, trueLabel, true);
+    }
+
+    /**
+     * Lowers a condition into jumping code, which branches to a label
+     * when the condition has the given value and falls through when it
+     * doesn't. No boolean is ever put in a Temp. A comparison becomes one
+     * BRANCH, and an and or an or of conditions is short circuited, so
+     * its right side is only tested when the left side doesn't already
+     * decide it:
+     * a and b, branch when false     a and b, branch when true
+     * if not a goto L                if not a goto Skip1
+     * if not b goto L                if b goto L
+     *                                Skip1:
+     * An or is the same with true and false swapped. Any other
+     * expression is compared to zero.
+     *
+     * @param test - The condition.
+     * @param target - The label branched to.
+     * @param when - The value of the condition that branches.
+     */
+    private void jump(ExpressionNode test, String target, boolean when)
+    {
+        if (isComparison(test))
+        {
+            OperationNode op = (OperationNode) test;
+            Operand[] operands = operands(op);
+            Operator relop = Operator.fromToken(op.getOperation());
+            code.add(Quad.branch(when ? relop : relop.negate(),
+                    operands[0], operands[1], target));
+        }
+        else if (isCondition(test))
+        {
+            OperationNode op = (OperationNode) test;
+            //An and decides when its left side is false, an or when true.
+            boolean decides = op.getOperation() == TokenType.OR;
+            if (decides == when)
+            {
+                jump(op.getLeft(), target, when);
+                jump(op.getRight(), target, when);
+            }
+            else
+            {
+                String skip = "Skip" + ir.newLabelNumber();
+                jump(op.getLeft(), skip, decides);
+                jump(op.getRight(), target, when);
+                code.add(Quad.label(skip));
+            }
+        }
+        else
+        {
+            code.add(Quad.branch(when ? Operator.NE : Operator.EQ,
+                    expression(test), new Const(0), target));
+        }
+    }
+
+    /**
+     * Lowers the expression at the root of an expression tree, after
+     * labeling the tree with the registers each subtree needs.
+     *
+     * @param node - The root of the expression tree.
+     * @return - The Temp holding the value of the expression.
+     */
+    private Operand root(ExpressionNode node)
+    {
+        labels.clear();
+        label(node);
+        return expression(node);
+    }
+
+    /**
+     * Labels every node of an expression tree with the number of
+     * registers needed to evaluate it without spilling. A variable or a
+     * value needs one register. An operation needs as many registers as
+     * its hungrier child, or one more than that if both children need
+     * the same number.
+     *
+     * @param node - The root of the expression tree.
+     * @return - The label of the root.
+     */
+    private int label(ExpressionNode node)
+    {
+        int answer = 1;
+        if (node instanceof OperationNode)
+        {
+            OperationNode op = (OperationNode) node;
+            int left = label(op.getLeft());
+            int right = label(op.getRight());
+            answer = left == right ? left + 1 : Math.max(left, right);
+        }
+        labels.put(node, answer);
+        return answer;
+    }
+
+    /**
+     * Lowers an expression into Quads that leave its value in a new
+     * Temp.
+     *
+     * @param node - The expression to lower.
+     * @return - The Temp holding the value of the expression.
+     */
+    private Operand expression(ExpressionNode node)
+    {
+        Temp answer = ir.newTemp();
+        if (node instanceof ValueNode)
+        {
+            code.add(Quad.copy(answer, constant((ValueNode) node)));
+        }
+        else if (node instanceof VariableNode)
+        {
+            code.add(Quad.copy(answer,
+                    new Var(((VariableNode) node).getName())));
+        }
+        else if (isCondition(node) && !isComparison(node) &&
+                divides(((OperationNode) node).getRight()))
+        {
+            /*An and or an or whose right side may divide by zero only
+            computes it when the left side doesn't decide the value, so
+            it is 1 or 0 by jumping code. Any other condition used as a
+            value is a BINARY that sets its Temp to 1 or 0.*/
+            String set = "Set" + ir.newLabelNumber();
+            code.add(Quad.copy(answer, new Const(1)));
+            jump(node, set, true);
+            code.add(Quad.copy(answer, new Const(0)));
+            code.add(Quad.label(set));
+        }
+        else if (node instanceof OperationNode)
+        {
+            OperationNode op = (OperationNode) node;
+            Operand[] operands = operands(op);
+            code.add(Quad.binary(Operator.fromToken(op.getOperation()),
+                    answer, operands[0], operands[1]));
+        }
+        return answer;
+    }
+
+    /**
+     * Lowers both operands of an operation, the one with the larger
+     * Sethi-Ullman label first.
+     *
+     * @param op - The operation.
+     * @return - The left and right operands, in that order.
+     */
+    private Operand[] operands(OperationNode op)
+    {
+        Operand[] answer = new Operand[2];
+        if (labels.get(op.getLeft()) >= labels.get(op.getRight()))
+        {
+            answer[0] = expression(op.getLeft());
+            answer[1] = expression(op.getRight());
+        }
+        else
+        {
+            answer[1] = expression(op.getRight());
+            answer[0] = expression(op.getLeft());
+        }
+        return answer;
+    }
+
+    /**
+     * Reads the integer held by a ValueNode.
+     *
+     * @param node - The ValueNode.
+     * @return - The integer as a Const.
+     */
+    private Const constant(ValueNode node)
+    {
+        String number = node.getAttribute();
+        try
+        {
+            return new Const(Integer.parseInt(number));
+        }
+        catch (NumberFormatException ex)
+        {
+            throw new RuntimeException("The code generator only supports " +
+                    "integers, not " + number);
+        }
+    }
+
+    /**
+     * Checks to see if an expression is a comparison.
+     *
+     * @param node - The expression.
+     * @return - True if it is an OperationNode with a relational
+     * operator.
+     */
+    private boolean isComparison(ExpressionNode node)
+    {
+        return node instanceof OperationNode && Operator.fromToken(
+                ((OperationNode) node).getOperation()).isRelational();
+    }
+
+    /**
+     * Checks to see if an expression has a div or a mod in it, which
+     * can't be computed when its divisor is zero.
+     *
+     * @param node - The expression.
+     * @return - True if the expression divides.
+     */
+    private boolean divides(ExpressionNode node)
+    {
+        if (!(node instanceof OperationNode))
+        {
+            return false;
+        }
+        OperationNode op = (OperationNode) node;
+        return op.getOperation() == TokenType.DIV ||
+                op.getOperation() == TokenType.MOD ||
+                divides(op.getLeft()) || divides(op.getRight());
+    }
+
+    /**
+     * Checks to see if an expression is a condition: a comparison, or an
+     * and or an or of two conditions. An and or an or of anything else
+     * is a bitwise operation on integers, and is not short circuited.
+     *
+     * @param node - The expression.
+     * @return - True if the expression is true or false.
+     */
+    private boolean isCondition(ExpressionNode node)
+    {
+        if (isComparison(node))
+        {
+            return true;
+        }
+        if (!(node instanceof OperationNode))
+        {
+            return false;
+        }
+        OperationNode op = (OperationNode) node;
+        return (op.getOperation() == TokenType.AND ||
+                op.getOperation() == TokenType.OR) &&
+                isCondition(op.getLeft()) && isCondition(op.getRight());
+    }
+
+    /**
+     * Checks to see if a statement does nothing.
+     *
+     * @param node - The statement.
+     * @return - True if it is missing or an empty compound statement.
+     */
+    private boolean isEmpty(StatementNode node)
+    {
+        return node == null || (node instanceof CompoundStatementNode &&
+                ((CompoundStatementNode) node).getStatements().isEmpty());
+    }
+}
@@ -0,0 +1,350 @@
+package ir;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import parser.Parser;
+import parser.TypeEnum;
+import syntaxtree.ExpressionNode;
+import syntaxtree.ProgramNode;
+
+/**
+ * A JUnit Java class that illustrates lowering syntax trees into three
+ * address code and splitting the code into linked basic blocks.
+ *
+ * @author Marissa Allen
+ */
+public class IrBuilderTest
+{
+    /**
+     * This method tests lowering an expression. Every value is put in a
+     * new Temp, and the operand that needs more registers is lowered
+     * first. This is a text string test.
+     */
+    @Test
+    public void testExpression()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test expression   #" + "\n" +
+                "#####################" + "\n");
+
+        ExpressionNode node = new Parser("fee + 2 * fo", false).expression();
+        IrProgram ir = new IrBuilder().build(node);
+        String expected = "B0 -> []\n" +
+                "    t3 = 2\n" +
+                "    t4 = fo\n" +
+                "    t2 = t3 * t4\n" +
+                "    t5 = fee\n" +
+                "    t1 = t5 + t2\n";
+        assertEquals(expected, ir.toString());
+        assertEquals(new Temp(1), ir.getResult());
+        assertEquals(5, ir.size());
+        System.out.print(ir);
+    }
+
+    /**
+     * This method tests lowering a comparison used as a value, which
+     * sets its Temp to 1 or 0 without a branch. This is a text string
+     * test.
+     */
+    @Test
+    public void testComparison()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test comparison   #" + "\n" +
+                "#####################" + "\n");
+
+        ExpressionNode node = new Parser("fee < fo", false).expression();
+        IrProgram ir = new IrBuilder().build(node);
+        String expected = "B0 -> []\n" +
+                "    t2 = fee\n" +
+                "    t3 = fo\n" +
+                "    t1 = t2 < t3\n";
+        assertEquals(expected, ir.toString());
+        System.out.print(ir);
+
+        //Negative test, real numbers are not supported.
+        try
+        {
+            new IrBuilder().build(new Parser("2.5 + fee", false)
+                    .expression());
+            fail("A real number was lowered.");
+        }
+        catch (RuntimeException ex)
+        {
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * This method tests lowering a program with a while loop and an if
+     * statement inside of it, and checks that the blocks are linked to
+     * their successors and predecessors. This is a text string test.
+     */
+    @Test
+    public void testProgram()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test program      #" + "\n" +
+                "#####################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fo: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "while fee > 0 do\n" +
+                "begin\n" +
+                "if fee = 3 then fo := fee * 2 else fo := fee - 1;\n" +
+                "fee := fee - 1\n" +
+                "end;\n" +
+                "write( fo)\n" +
+                "end\n" +
+                ".\n";
+        ProgramNode program = new Parser(test, false).program();
+        IrProgram ir = new IrBuilder().build(program);
+        String expected = "B0 -> [B5, B1]\n" +
+                "    read fee\n" +
+                "    t1 = fee\n" +
+                "    t2 = 0\n" +
+                "    if t1 <= t2 goto endLoop1\n" +
+                "B1 -> [B3, B2]\n" +
+                "TopWhile1:\n" +
+                "    t3 = fee\n" +
+                "    t4 = 3\n" +
+                "    if t3 <> t4 goto Else2\n" +
+                "B2 -> [B4]\n" +
+                "    t6 = fee\n" +
+                "    t7 = 2\n" +
+                "    t5 = t6 * t7\n" +
+                "    fo = t5\n" +
+                "    goto Next2\n" +
+                "B3 -> [B4]\n" +
+                "Else2:\n" +
+                "    t9 = fee\n" +
+                "    t10 = 1\n" +
+                "    t8 = t9 - t10\n" +
+                "    fo = t8\n" +
+                "B4 -> [B1, B5]\n" +
+                "Next2:\n" +
+                "    t12 = fee\n" +
+                "    t13 = 1\n" +
+                "    t11 = t12 - t13\n" +
+                "    fee = t11\n" +
+                "    t14 = fee\n" +
+                "    t15 = 0\n" +
+                "    if t14 > t15 goto TopWhile1\n" +
+                "B5 -> []\n" +
+                "endLoop1:\n" +
+                "    t16 = fo\n" +
+                "    write t16\n";
+        assertEquals(expected, ir.toString());
+        assertEquals(25, ir.size());
+
+        /*The top of the loop is reached from the guard before it and
+        from the test at its end.*/
+        BasicBlock top = ir.getBlocks().get(1);
+        assertEquals("TopWhile1", top.getLabel());
+        assertEquals("[B0, B4]", top.getPredecessors().toString());
+        System.out.print(ir);
+    }
+
+    /**
+     * This method tests that the tests of while and if statements are
+     * lowered into jumping code, where an and or an or of comparisons
+     * only tests its right side when the left side doesn't decide it.
+     * This is a text string test.
+     */
+    @Test
+    public void testShortCircuit()
+    {
+        System.out.println("\n" + "######################" + "\n" +
+                "# Test short circuit #" + "\n" +
+                "######################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fo: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "while (fee > 0) and ((fo < 10) or (fee = 5)) do\n" +
+                "fee := fee - 1;\n" +
+                "if (fee > 3) or (fo > 3) then write(fee) " +
+                "else write(fo)\n" +
+                "end\n" +
+                ".\n";
+        ProgramNode program = new Parser(test, false).program();
+        IrProgram ir = new IrBuilder().build(program);
+        String expected = "B0 -> [B8, B1]\n" +
+                "    read fee\n" +
+                "    t1 = fee\n" +
+                "    t2 = 0\n" +
+                "    if t1 <= t2 goto endLoop1\n" +
+                "B1 -> [B3, B2]\n" +
+                "    t3 = fo\n" +
+                "    t4 = 10\n" +
+                "    if t3 < t4 goto Skip2\n" +
+                "B2 -> [B8, B3]\n" +
+                "    t5 = fee\n" +
+                "    t6 = 5\n" +
+                "    if t5 <> t6 goto endLoop1\n" +
+                "B3 -> [B4]\n" +
+                "Skip2:\n" +
+                "B4 -> [B7, B5]\n" +
+                "TopWhile1:\n" +
+                "    t8 = fee\n" +
+                "    t9 = 1\n" +
+                "    t7 = t8 - t9\n" +
+                "    fee = t7\n" +
+                "    t10 = fee\n" +
+                "    t11 = 0\n" +
+                "    if t10 <= t11 goto Skip3\n" +
+                "B5 -> [B4, B6]\n" +
+                "    t12 = fo\n" +
+                "    t13 = 10\n" +
+                "    if t12 < t13 goto TopWhile1\n" +
+                "B6 -> [B4, B7]\n" +
+                "    t14 = fee\n" +
+                "    t15 = 5\n" +
+                "    if t14 = t15 goto TopWhile1\n" +
+                "B7 -> [B8]\n" +
+                "Skip3:\n" +
+                "B8 -> [B10, B9]\n" +
+                "endLoop1:\n" +
+                "    t16 = fee\n" +
+                "    t17 = 3\n" +
+                "    if t16 > t17 goto Skip5\n" +
+                "B9 -> [B11, B10]\n" +
+                "    t18 = fo\n" +
+                "    t19 = 3\n" +
+                "    if t18 <= t19 goto Else4\n" +
+                "B10 -> [B12]\n" +
+                "Skip5:\n" +
+                "    t20 = fee\n" +
+                "    write t20\n" +
+                "    goto Next4\n" +
+                "B11 -> [B12]\n" +
+                "Else4:\n" +
+                "    t21 = fo\n" +
+                "    write t21\n" +
+                "B12 -> []\n" +
+                "Next4:\n";
+        assertEquals(expected, ir.toString());
+        System.out.print(ir);
+
+        //An and of comparisons used as a value computes both sides.
+        ExpressionNode node = new Parser("(fee < fo) and (fo > 2)", false)
+                .expression();
+        ir = new IrBuilder().build(node);
+        expected = "B0 -> []\n" +
+                "    t3 = fee\n" +
+                "    t4 = fo\n" +
+                "    t2 = t3 < t4\n" +
+                "    t6 = fo\n" +
+                "    t7 = 2\n" +
+                "    t5 = t6 > t7\n" +
+                "    t1 = t2 and t5\n";
+        assertEquals(expected, ir.toString());
+        System.out.print(ir);
+
+        //Unless its right side divides, which is only done when needed.
+        node = new Parser("(fee <> 0) and (fo div fee > 2)", false)
+                .expression();
+        ir = new IrBuilder().build(node);
+        expected = "B0 -> [B2, B1]\n" +
+                "    t1 = 1\n" +
+                "    t2 = fee\n" +
+                "    t3 = 0\n" +
+                "    if t2 = t3 goto Skip2\n" +
+                "B1 -> [B3, B2]\n" +
+                "    t5 = fo\n" +
+                "    t6 = fee\n" +
+                "    t4 = t5 div t6\n" +
+                "    t7 = 2\n" +
+                "    if t4 > t7 goto Set1\n" +
+                "B2 -> [B3]\n" +
+                "Skip2:\n" +
+                "    t1 = 0\n" +
+                "B3 -> []\n" +
+                "Set1:\n";
+        assertEquals(expected, ir.toString());
+        System.out.print(ir);
+
+        //An and of integers is bitwise, so both sides are computed.
+        node = new Parser("fee and 2", false).expression();
+        ir = new IrBuilder().build(node);
+        expected = "B0 -> []\n" +
+                "    t2 = fee\n" +
+                "    t3 = 2\n" +
+                "    t1 = t2 and t3\n";
+        assertEquals(expected, ir.toString());
+    }
+
+    /**
+     * This method tests the three layouts of a while loop. An inverted
+     * loop runs one branch less each time around than a loop with its
+     * test at the top. This is a text string test.
+     */
+    @Test
+    public void testLoopLayout()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test loop layout  #" + "\n" +
+                "#####################" + "\n");
+
+        String[] expected = {"B0 -> [B2, B1]\n" +
+                        "TopWhile1:\n" +
+                        "    t1 = fee\n" +
+                        "    t2 = 10\n" +
+                        "    if t1 >= t2 goto endLoop1\n" +
+                        "B1 -> [B0]\n" +
+                        "    t4 = fee\n" +
+                        "    t5 = 1\n" +
+                        "    t3 = t4 + t5\n" +
+                        "    fee = t3\n" +
+                        "    goto TopWhile1\n" +
+                        "B2 -> []\n" +
+                        "endLoop1:\n",
+                "B0 -> [B2, B1]\n" +
+                        "    t1 = fee\n" +
+                        "    t2 = 10\n" +
+                        "    if t1 >= t2 goto endLoop1\n" +
+                        "B1 -> [B1, B2]\n" +
+                        "TopWhile1:\n" +
+                        "    t4 = fee\n" +
+                        "    t5 = 1\n" +
+                        "    t3 = t4 + t5\n" +
+                        "    fee = t3\n" +
+                        "    t6 = fee\n" +
+                        "    t7 = 10\n" +
+                        "    if t6 < t7 goto TopWhile1\n" +
+                        "B2 -> []\n" +
+                        "endLoop1:\n",
+                "B0 -> [B2]\n" +
+                        "    goto Test1\n" +
+                        "B1 -> [B2]\n" +
+                        "TopWhile1:\n" +
+                        "    t2 = fee\n" +
+                        "    t3 = 1\n" +
+                        "    t1 = t2 + t3\n" +
+                        "    fee = t1\n" +
+                        "B2 -> [B1, B3]\n" +
+                        "Test1:\n" +
+                        "    t4 = fee\n" +
+                        "    t5 = 10\n" +
+                        "    if t4 < t5 goto TopWhile1\n" +
+                        "B3 -> []\n" +
+                        "endLoop1:\n"};
+        for (LoopLayout layout : LoopLayout.values())
+        {
+            Parser parser = new Parser("while fee < 10 do fee := fee + 1",
+                    false);
+            parser.getSymbolTable().addVarName("fee", TypeEnum.INTEGER_TYPE);
+            IrBuilder builder = new IrBuilder();
+            builder.setLoopLayout(layout);
+            IrProgram ir = builder.build(parser.statement());
+            assertEquals(expected[layout.ordinal()], ir.toString());
+            System.out.println(layout);
+            System.out.print(ir);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ir;
+
+/**
+ * An IrPass is an optimization that rewrites the three address code of
+ * an IrProgram. Passes are run in order by a PassManager.
+ *
+ * @author Marissa Allen
+ */
+public interface IrPass
+{
+    /**
+     * Returns the name the pass is reported under.
+     *
+     * @return - The name of the pass.
+     */
+    String getName();
+
+    /**
+     * Rewrites the program.
+     *
+     * @param program - The IrProgram to optimize.
+     * @return - True if the program was changed.
+     */
+    boolean run(IrProgram program);
+}
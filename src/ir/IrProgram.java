@@ -0,0 +1,388 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An IrProgram holds the three address code for a pascal program, or for
+ * one statement or expression of it. The Quads are kept in BasicBlocks,
+ * in the order they are run when no branch is taken, and the blocks are
+ * linked to their successors and predecessors. The program also hands
+ * out new temporaries and label numbers, so passes that change the code
+ * never reuse one that is already in it.
+ *
+ * @author Marissa Allen
+ */
+public class IrProgram
+{
+    private String name;
+    private List<String> variables = new ArrayList<>();
+    private List<BasicBlock> blocks = new ArrayList<>();
+    private int tempCount = 0;
+    private int labelCount = 0;
+    private Operand result = null;
+    private Set<Temp> promoted = new HashSet<>();
+
+    /**
+     * IrProgram constructor that takes in the name of the program.
+     *
+     * @param name - The name of the pascal program.
+     */
+    public IrProgram(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the program.
+     *
+     * @return - The name of the pascal program.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns the names of the variables the program declares. Each one
+     * gets a word in the .data section.
+     *
+     * @return - The list of variable names.
+     */
+    public List<String> getVariables()
+    {
+        return variables;
+    }
+
+    /**
+     * Makes a temporary that hasn't been used in this program yet.
+     *
+     * @return - The new Temp.
+     */
+    public Temp newTemp()
+    {
+        return new Temp(++tempCount);
+    }
+
+    /**
+     * Returns the number of temporaries that have been made.
+     *
+     * @return - The number of the last Temp made.
+     */
+    public int getTempCount()
+    {
+        return tempCount;
+    }
+
+    /**
+     * Hands out a number that hasn't been used in a label of this
+     * program yet. The labels of one statement share a number, like
+     * TopWhile3 and endLoop3.
+     *
+     * @return - The new label number.
+     */
+    public int newLabelNumber()
+    {
+        return ++labelCount;
+    }
+
+    /**
+     * Returns the Temps that hold a variable for the whole of a loop.
+     * They stay live for a long time, so they are given saved registers.
+     *
+     * @return - The set of promoted Temps.
+     */
+    public Set<Temp> getPromoted()
+    {
+        return promoted;
+    }
+
+    /**
+     * Returns the operand holding the value of an expression, when this
+     * program was built for an expression on its own.
+     *
+     * @return - The result operand, or null for programs and statements.
+     */
+    public Operand getResult()
+    {
+        return result;
+    }
+
+    /**
+     * Sets the operand holding the value of an expression.
+     *
+     * @param result - The result operand.
+     */
+    public void setResult(Operand result)
+    {
+        this.result = result;
+    }
+
+    /**
+     * Returns the blocks of the program in order.
+     *
+     * @return - The list of BasicBlocks.
+     */
+    public List<BasicBlock> getBlocks()
+    {
+        return blocks;
+    }
+
+    /**
+     * Returns every Quad of the program, block after block.
+     *
+     * @return - A new list of the Quads.
+     */
+    public List<Quad> getQuads()
+    {
+        List<Quad> answer = new ArrayList<>();
+        for (BasicBlock block : blocks)
+        {
+            answer.addAll(block.getQuads());
+        }
+        return answer;
+    }
+
+    /**
+     * Counts the Quads that write each Temp. A Temp written once holds
+     * the same value everywhere it is read.
+     *
+     * @return - The number of writes of each Temp.
+     */
+    public Map<Temp, Integer> countWrites()
+    {
+        Map<Temp, Integer> answer = new HashMap<>();
+        for (BasicBlock block : blocks)
+        {
+            for (Quad quad : block.getQuads())
+            {
+                if (quad.getResult() instanceof Temp)
+                {
+                    answer.merge((Temp) quad.getResult(), 1, Integer::sum);
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Finds the Temps that are written once, with a constant.
+     *
+     * @return - The value of each of those Temps.
+     */
+    public Map<Temp, Integer> findConstants()
+    {
+        Map<Temp, Integer> writes = countWrites();
+        Map<Temp, Integer> answer = new HashMap<>();
+        for (BasicBlock block : blocks)
+        {
+            for (Quad quad : block.getQuads())
+            {
+                if (quad.getKind() == Kind.COPY &&
+                        quad.getLeft() instanceof Const &&
+                        quad.getResult() instanceof Temp &&
+                        writes.get(quad.getResult()) == 1)
+                {
+                    answer.put((Temp) quad.getResult(),
+                            ((Const) quad.getLeft()).getValue());
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Removes the Quads that write one of the given Temps when nothing
+     * reads the Temp anymore.
+     *
+     * @param temps - The Temps that may be unused.
+     */
+    public void removeUnused(Set<Temp> temps)
+    {
+        Set<Operand> read = new HashSet<>();
+        read.add(result);
+        for (BasicBlock block : blocks)
+        {
+            for (Quad quad : block.getQuads())
+            {
+                read.addAll(quad.getUses());
+            }
+        }
+        for (BasicBlock block : blocks)
+        {
+            block.getQuads().removeIf(quad ->
+                    temps.contains(quad.getResult()) &&
+                    !read.contains(quad.getResult()));
+        }
+    }
+
+    /**
+     * Replaces the code of the program with a list of Quads, splitting
+     * it into new BasicBlocks. A block starts at the first Quad, at every
+     * LABEL, and after every BRANCH, JUMP and RETURN.
+     *
+     * @param quads - The Quads of the program in order.
+     */
+    public void setQuads(List<Quad> quads)
+    {
+        blocks = new ArrayList<>();
+        BasicBlock current = null;
+        for (Quad quad : quads)
+        {
+            if (current == null || quad.getKind() == Kind.LABEL)
+            {
+                current = new BasicBlock(blocks.size());
+                blocks.add(current);
+            }
+            current.getQuads().add(quad);
+            if (quad.isControl())
+            {
+                current = null;
+            }
+        }
+        linkBlocks();
+    }
+
+    /**
+     * Recomputes the successors and predecessors of every block after
+     * the blocks or their last Quads have been changed by a pass.
+     */
+    public void linkBlocks()
+    {
+        Map<String, BasicBlock> labels = new HashMap<>();
+        for (int index = 0; index < blocks.size(); index++)
+        {
+            BasicBlock block = blocks.get(index);
+            block.setNumber(index);
+            block.getSuccessors().clear();
+            block.getPredecessors().clear();
+            if (block.getLabel() != null)
+            {
+                labels.put(block.getLabel(), block);
+            }
+        }
+        for (int index = 0; index < blocks.size(); index++)
+        {
+            BasicBlock block = blocks.get(index);
+            Quad last = block.getLast();
+            Kind kind = last == null ? null : last.getKind();
+            if (kind == Kind.BRANCH || kind == Kind.JUMP)
+            {
+                BasicBlock target = labels.get(last.getLabel());
+                if (target != null)
+                {
+                    block.addSuccessor(target);
+                }
+            }
+            if (kind != Kind.JUMP && kind != Kind.RETURN &&
+                    index + 1 < blocks.size())
+            {
+                block.addSuccessor(blocks.get(index + 1));
+            }
+        }
+    }
+
+    /**
+     * Gives a loop a preheader, a block that runs once right before the
+     * loop is entered, so code can be hoisted out of the loop into it.
+     * If the loop already has one, it is returned. Otherwise a new block
+     * is put right before the header, and every block outside of the
+     * loop that went to the header goes to the new block instead. The
+     * blocks are linked again, so graphs built before have to be built
+     * again.
+     *
+     * @param loop - The loop.
+     * @return - The preheader, or null if the block right before the
+     * header is in the loop and falls through into it, which leaves no
+     * place to put one.
+     */
+    public BasicBlock addPreheader(Loop loop)
+    {
+        BasicBlock existing = loop.getPreheader();
+        if (existing != null)
+        {
+            return existing;
+        }
+        BasicBlock header = loop.getHeader();
+        int position = blocks.indexOf(header);
+        if (position > 0 && loop.contains(blocks.get(position - 1)) &&
+                blocks.get(position - 1).getSuccessors().contains(header))
+        {
+            Quad last = blocks.get(position - 1).getLast();
+            if (last == null || last.getKind() != Kind.JUMP)
+            {
+                return null;
+            }
+        }
+        BasicBlock preheader = new BasicBlock(position);
+        String label = header.getLabel();
+        for (BasicBlock predecessor : header.getPredecessors())
+        {
+            Quad last = predecessor.getLast();
+            if (!loop.contains(predecessor) && last != null &&
+                    (last.getKind() == Kind.BRANCH ||
+                    last.getKind() == Kind.JUMP) &&
+                    last.getLabel().equals(label))
+            {
+                if (preheader.getQuads().isEmpty())
+                {
+                    preheader.getQuads().add(
+                            Quad.label("Pre" + newLabelNumber()));
+                }
+                last.setLabel(preheader.getLabel());
+            }
+        }
+        blocks.add(position, preheader);
+        linkBlocks();
+        return preheader;
+    }
+
+    /**
+     * Returns the number of Quads that become instructions, which is
+     * every Quad but the LABELs.
+     *
+     * @return - The number of Quads that are not labels.
+     */
+    public int size()
+    {
+        int answer = 0;
+        for (BasicBlock block : blocks)
+        {
+            for (Quad quad : block.getQuads())
+            {
+                if (quad.getKind() != Kind.LABEL)
+                {
+                    answer++;
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the three address code of the program, one Quad per line,
+     * with each block headed by its name and successors.
+     *
+     * @return - A String of the program.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder answer = new StringBuilder();
+        for (BasicBlock block : blocks)
+        {
+            answer.append(block).append(" -> ")
+                    .append(block.getSuccessors()).append("\n");
+            for (Quad quad : block.getQuads())
+            {
+                answer.append(quad.getKind() == Kind.LABEL ? "" : "    ")
+                        .append(quad).append("\n");
+            }
+        }
+        return answer.toString();
+    }
+}
@@ -0,0 +1,11 @@
+package ir;
+
+/**
+ * The different kinds of Quad in the three address code.
+ *
+ * @author Marissa Allen
+ */
+public enum Kind
+{
+    BINARY, COPY, BRANCH, JUMP, LABEL, READ, WRITE, RETURN
+}
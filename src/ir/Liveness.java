@@ -0,0 +1,153 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class finds the variables and Temps that are live at the start
+ * and end of every block of a ControlFlowGraph: the ones whose value may
+ * still be read before it is written again. It is a backward data flow
+ * problem,
+ * liveOut(B) = the union of liveIn(S) over the successors S of B
+ * liveIn(B) = uses(B) + (liveOut(B) - defs(B))
+ * solved by walking the blocks in postorder until nothing changes.
+ *
+ * At the end of a whole program nothing is live, since the variables
+ * are never read after main returns. The code for a statement on its
+ * own is followed by other code, so every variable is live at its end,
+ * and the result of an expression on its own is too.
+ *
+ * @author Marissa Allen
+ */
+public class Liveness
+{
+    private List<Set<Operand>> liveIn = new ArrayList<>();
+    private List<Set<Operand>> liveOut = new ArrayList<>();
+
+    /**
+     * Liveness constructor that solves the problem for a graph.
+     *
+     * @param cfg - The ControlFlowGraph.
+     */
+    public Liveness(ControlFlowGraph cfg)
+    {
+        IrProgram program = cfg.getProgram();
+        Set<Operand> atExit = new HashSet<>();
+        if (program.getName() == null)
+        {
+            for (Quad quad : program.getQuads())
+            {
+                for (Operand operand : quad.getUses())
+                {
+                    if (operand instanceof Var)
+                    {
+                        atExit.add(operand);
+                    }
+                }
+                if (quad.getResult() instanceof Var)
+                {
+                    atExit.add(quad.getResult());
+                }
+            }
+        }
+        if (program.getResult() != null)
+        {
+            atExit.add(program.getResult());
+        }
+        for (int index = 0; index < cfg.getBlocks().size(); index++)
+        {
+            liveIn.add(new HashSet<>());
+            liveOut.add(new HashSet<>());
+        }
+
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (BasicBlock block : cfg.postorder())
+            {
+                Set<Operand> out = liveOut.get(block.getNumber());
+                if (block.getSuccessors().isEmpty() &&
+                        !endsInReturn(block))
+                {
+                    out.addAll(atExit);
+                }
+                for (BasicBlock successor : block.getSuccessors())
+                {
+                    out.addAll(liveIn.get(successor.getNumber()));
+                }
+                Set<Operand> in = new HashSet<>(out);
+                List<Quad> quads = block.getQuads();
+                for (int at = quads.size() - 1; at >= 0; at--)
+                {
+                    step(quads.get(at), in);
+                }
+                if (!in.equals(liveIn.get(block.getNumber())))
+                {
+                    liveIn.set(block.getNumber(), in);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves a live set from after a Quad to before it: the operand the
+     * Quad writes stops being live, and the operands it reads start.
+     *
+     * @param quad - The Quad.
+     * @param live - The operands live after the Quad, which become the
+     * ones live before it.
+     */
+    public static void step(Quad quad, Set<Operand> live)
+    {
+        if (quad.getResult() != null)
+        {
+            live.remove(quad.getResult());
+        }
+        for (Operand operand : quad.getUses())
+        {
+            if (!(operand instanceof Const))
+            {
+                live.add(operand);
+            }
+        }
+    }
+
+    /**
+     * Checks to see if a block ends the program with a return, after
+     * which nothing is read, even in the code for a statement.
+     *
+     * @param block - The block.
+     * @return - True if the last Quad is a RETURN.
+     */
+    private boolean endsInReturn(BasicBlock block)
+    {
+        Quad last = block.getLast();
+        return last != null && last.getKind() == Kind.RETURN;
+    }
+
+    /**
+     * Returns the operands live at the start of a block.
+     *
+     * @param block - The block.
+     * @return - The set of live variables and Temps.
+     */
+    public Set<Operand> getLiveIn(BasicBlock block)
+    {
+        return liveIn.get(block.getNumber());
+    }
+
+    /**
+     * Returns the operands live at the end of a block.
+     *
+     * @param block - The block.
+     * @return - The set of live variables and Temps.
+     */
+    public Set<Operand> getLiveOut(BasicBlock block)
+    {
+        return liveOut.get(block.getNumber());
+    }
+}
@@ -0,0 +1,220 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A Loop is a natural loop of a ControlFlowGraph. It has one header,
+ * which dominates every block of the loop, and one or more latches,
+ * the blocks with a back edge to the header. The loop holds the header
+ * and every block that can reach a latch without going through the
+ * header. Loops nest, so a loop knows the loop it is inside of and the
+ * loops inside of it.
+ *
+ * @author Marissa Allen
+ */
+public class Loop
+{
+    private BasicBlock header;
+    private List<BasicBlock> latches = new ArrayList<>();
+    private List<BasicBlock> blocks = new ArrayList<>();
+    private BitSet members = new BitSet();
+    private Loop parent = null;
+    private List<Loop> children = new ArrayList<>();
+    private int depth = 1;
+
+    /**
+     * Loop constructor that takes in the header of the loop.
+     *
+     * @param header - The block every block of the loop is entered
+     * through.
+     */
+    public Loop(BasicBlock header)
+    {
+        this.header = header;
+        add(header);
+    }
+
+    /**
+     * Adds a block to the loop.
+     *
+     * @param block - The block.
+     * @return - True if the block wasn't in the loop already.
+     */
+    boolean add(BasicBlock block)
+    {
+        if (members.get(block.getNumber()))
+        {
+            return false;
+        }
+        members.set(block.getNumber());
+        blocks.add(block);
+        return true;
+    }
+
+    /**
+     * Sets the loop this one is nested directly inside of.
+     *
+     * @param parent - The enclosing loop.
+     */
+    void setParent(Loop parent)
+    {
+        this.parent = parent;
+        parent.children.add(this);
+    }
+
+    /**
+     * Sets how many loops this one is nested inside of, counting itself.
+     *
+     * @param depth - The depth of the loop.
+     */
+    void setDepth(int depth)
+    {
+        this.depth = depth;
+    }
+
+    /**
+     * Returns the header of the loop.
+     *
+     * @return - The block every block of the loop is entered through.
+     */
+    public BasicBlock getHeader()
+    {
+        return header;
+    }
+
+    /**
+     * Returns the blocks that branch back to the header.
+     *
+     * @return - The list of latches.
+     */
+    public List<BasicBlock> getLatches()
+    {
+        return latches;
+    }
+
+    /**
+     * Returns the blocks of the loop, including the blocks of the loops
+     * nested inside of it.
+     *
+     * @return - The list of blocks, in block order.
+     */
+    public List<BasicBlock> getBlocks()
+    {
+        return blocks;
+    }
+
+    /**
+     * Checks to see if a block is in the loop.
+     *
+     * @param block - The block.
+     * @return - True if the block is in the loop or a loop inside of it.
+     */
+    public boolean contains(BasicBlock block)
+    {
+        return members.get(block.getNumber());
+    }
+
+    /**
+     * Returns the loop this one is nested directly inside of.
+     *
+     * @return - The enclosing loop, or null for an outermost loop.
+     */
+    public Loop getParent()
+    {
+        return parent;
+    }
+
+    /**
+     * Returns the loops nested directly inside of this one.
+     *
+     * @return - The list of inner loops.
+     */
+    public List<Loop> getChildren()
+    {
+        return children;
+    }
+
+    /**
+     * Returns how many loops this one is nested inside of, counting
+     * itself, so an outermost loop has a depth of 1.
+     *
+     * @return - The depth of the loop.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * Checks to see if no loop is nested inside of this one.
+     *
+     * @return - True if the loop has no inner loops.
+     */
+    public boolean isInnermost()
+    {
+        return children.isEmpty();
+    }
+
+    /**
+     * Returns the blocks outside of the loop that a block of the loop
+     * can go to.
+     *
+     * @return - The list of exit blocks.
+     */
+    public List<BasicBlock> getExits()
+    {
+        List<BasicBlock> answer = new ArrayList<>();
+        for (BasicBlock block : blocks)
+        {
+            for (BasicBlock successor : block.getSuccessors())
+            {
+                if (!contains(successor) && !answer.contains(successor))
+                {
+                    answer.add(successor);
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the block code can be hoisted into so it runs once before
+     * the loop: the only block outside of the loop that goes to the
+     * header, if the header is its only successor.
+     *
+     * @return - The preheader, or null if the loop doesn't have one.
+     */
+    public BasicBlock getPreheader()
+    {
+        BasicBlock answer = null;
+        for (BasicBlock predecessor : header.getPredecessors())
+        {
+            if (!contains(predecessor))
+            {
+                if (answer != null)
+                {
+                    return null;
+                }
+                answer = predecessor;
+            }
+        }
+        if (answer != null && answer.getSuccessors().size() != 1)
+        {
+            return null;
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the header and blocks of the loop.
+     *
+     * @return - A String like Loop B1 [B1, B2, B3].
+     */
+    @Override
+    public String toString()
+    {
+        return "Loop " + header + " " + blocks;
+    }
+}
@@ -0,0 +1,194 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class finds the loops of a ControlFlowGraph and how they nest.
+ * An edge is a back edge when it goes to a block that dominates the
+ * block it comes from, and every back edge belongs to the natural loop
+ * of the block it goes to. The blocks of a loop are found by walking
+ * backwards from its latches until the header is reached.
+ *
+ * The headers are found in reverse postorder, so an outer loop is
+ * always found before the loops nested inside of it, and a loop is
+ * nested directly inside of the smallest other loop that holds its
+ * header. The graphs of while and if statements are always reducible,
+ * so every loop of a pascal program is a natural loop.
+ *
+ * @author Marissa Allen
+ */
+public class LoopForest
+{
+    private List<Loop> loops = new ArrayList<>();
+    private List<Loop> topLevel = new ArrayList<>();
+    private Loop[] innermost;
+
+    /**
+     * LoopForest constructor that finds the loops of a graph.
+     *
+     * @param cfg - The ControlFlowGraph.
+     * @param dominators - The DominatorTree of the graph.
+     */
+    public LoopForest(ControlFlowGraph cfg, DominatorTree dominators)
+    {
+        innermost = new Loop[cfg.getBlocks().size()];
+        for (BasicBlock header : cfg.reversePostorder())
+        {
+            Loop loop = null;
+            for (BasicBlock latch : header.getPredecessors())
+            {
+                if (dominators.dominates(header, latch))
+                {
+                    if (loop == null)
+                    {
+                        loop = new Loop(header);
+                    }
+                    loop.getLatches().add(latch);
+                    collect(loop, latch, cfg);
+                }
+            }
+            if (loop != null)
+            {
+                loop.getBlocks().sort(
+                        Comparator.comparingInt(BasicBlock::getNumber));
+                loops.add(loop);
+            }
+        }
+
+        /*Outer loops come first and are bigger than the loops inside of
+        them, so the last loop found that holds a header is the one
+        directly around it.*/
+        for (int index = 0; index < loops.size(); index++)
+        {
+            Loop loop = loops.get(index);
+            for (int outer = index - 1; outer >= 0; outer--)
+            {
+                if (loops.get(outer).contains(loop.getHeader()))
+                {
+                    loop.setParent(loops.get(outer));
+                    loop.setDepth(loops.get(outer).getDepth() + 1);
+                    break;
+                }
+            }
+            if (loop.getParent() == null)
+            {
+                topLevel.add(loop);
+            }
+            for (BasicBlock block : loop.getBlocks())
+            {
+                innermost[block.getNumber()] = loop;
+            }
+        }
+    }
+
+    /**
+     * Adds a latch and every block that reaches it without going
+     * through the header to a loop.
+     *
+     * @param loop - The loop.
+     * @param latch - A block with a back edge to the header.
+     * @param cfg - The graph, so blocks that can't be reached are left
+     * out.
+     */
+    private void collect(Loop loop, BasicBlock latch, ControlFlowGraph cfg)
+    {
+        List<BasicBlock> work = new ArrayList<>();
+        if (loop.add(latch))
+        {
+            work.add(latch);
+        }
+        while (!work.isEmpty())
+        {
+            BasicBlock block = work.remove(work.size() - 1);
+            for (BasicBlock predecessor : block.getPredecessors())
+            {
+                if (cfg.isReachable(predecessor) && loop.add(predecessor))
+                {
+                    work.add(predecessor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns every loop, each outer loop before the loops inside of it.
+     *
+     * @return - The list of loops.
+     */
+    public List<Loop> getLoops()
+    {
+        return loops;
+    }
+
+    /**
+     * Returns every loop, each inner loop before the loop around it,
+     * which is the order loop optimizations are done in.
+     *
+     * @return - A new list of the loops, innermost first.
+     */
+    public List<Loop> getLoopsInnermostFirst()
+    {
+        List<Loop> answer = new ArrayList<>();
+        for (int index = loops.size() - 1; index >= 0; index--)
+        {
+            answer.add(loops.get(index));
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the loops that aren't nested inside of another loop.
+     *
+     * @return - The list of outermost loops.
+     */
+    public List<Loop> getTopLevelLoops()
+    {
+        return topLevel;
+    }
+
+    /**
+     * Returns the innermost loop a block is in.
+     *
+     * @param block - The block.
+     * @return - The loop, or null if the block isn't in a loop.
+     */
+    public Loop getLoopFor(BasicBlock block)
+    {
+        return innermost[block.getNumber()];
+    }
+
+    /**
+     * Returns how many loops a block is nested inside of.
+     *
+     * @param block - The block.
+     * @return - The loop depth, which is 0 outside of every loop.
+     */
+    public int getDepth(BasicBlock block)
+    {
+        Loop loop = innermost[block.getNumber()];
+        return loop == null ? 0 : loop.getDepth();
+    }
+
+    /**
+     * Returns the loops, each one on its own line and indented under the
+     * loop it is nested inside of.
+     *
+     * @return - A String of the forest.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder answer = new StringBuilder();
+        for (Loop loop : loops)
+        {
+            for (int level = 1; level < loop.getDepth(); level++)
+            {
+                answer.append("    ");
+            }
+            answer.append(loop).append("\n");
+        }
+        return answer.toString();
+    }
+}
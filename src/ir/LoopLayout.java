@@ -0,0 +1,20 @@
+package ir;
+
+/**
+ * The ways an IrBuilder can lay out the code of a while loop.
+ * TOP_TEST tests the condition at the top of every iteration and jumps
+ * back to it from the bottom, which runs a test and a taken jump each
+ * time around.
+ * INVERTED tests the condition once before the loop, as a guard, and
+ * again at the bottom, so each iteration runs one backward branch and
+ * the body falls through from the guard.
+ * BOTTOM_TEST jumps straight to the test at the bottom on the way in,
+ * which keeps one copy of the test at the cost of one extra jump before
+ * the first iteration.
+ *
+ * @author Marissa Allen
+ */
+public enum LoopLayout
+{
+    TOP_TEST, INVERTED, BOTTOM_TEST
+}
@@ -0,0 +1,12 @@
+package ir;
+
+/**
+ * The base class for the operands of a Quad. An operand is either a
+ * Temp holding a value that is being computed, a Var naming a variable
+ * of the pascal program, or a Const holding an integer.
+ *
+ * @author Marissa Allen
+ */
+public abstract class Operand
+{
+}
@@ -0,0 +1,180 @@
+package ir;
+
+import scanner.TokenType;
+
+/**
+ * The operators of a binary Quad or a branch Quad. The relational
+ * operators compare their operands, and every other operator computes
+ * an integer from them. shl, sar, shr, mulhi, addu and subu can't be
+ * written in pascal. They are made by StrengthReduction: shl shifts
+ * left, sar shifts right keeping the sign, shr shifts right filling with
+ * zeros, and mulhi is the high word of the 64 bit product. addu and subu
+ * add and subtract like + and -, but wrap around on overflow instead of
+ * trapping, like the mult and div they stand in for.
+ *
+ * @author Marissa Allen
+ */
+public enum Operator
+{
+    ADD("+"), SUB("-"), MUL("*"), DIV("div"), MOD("mod"), AND("and"),
+    OR("or"), SHL("shl"), SAR("sar"), SHR("shr"), MULHI("mulhi"),
+    ADDU("addu"), SUBU("subu"),
+    EQ("="), NE("<>"), LT("<"), LE("<="), GT(">"), GE(">=");
+
+    private String symbol;
+
+    /**
+     * Operator constructor that takes in how the operator is written.
+     *
+     * @param symbol - The operator as it is written in pascal.
+     */
+    Operator(String symbol)
+    {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Finds the operator for a token from the scanner.
+     *
+     * @param token - The TokenType of an operation in the syntax tree.
+     * @return - The operator.
+     */
+    public static Operator fromToken(TokenType token)
+    {
+        switch (token)
+        {
+            case PLUS:
+                return ADD;
+            case MINUS:
+                return SUB;
+            case MULTI:
+                return MUL;
+            case DIV:
+                return DIV;
+            case MOD:
+                return MOD;
+            case AND:
+                return AND;
+            case OR:
+                return OR;
+            case EQUIV:
+                return EQ;
+            case NOTEQUAL:
+                return NE;
+            case LTHAN:
+                return LT;
+            case LTHANEQUAL:
+                return LE;
+            case GTHAN:
+                return GT;
+            case GTHANEQUAL:
+                return GE;
+            default:
+                throw new RuntimeException("The code generator does not " +
+                        "support the " + token + " operator");
+        }
+    }
+
+    /**
+     * Checks to see if this operator compares its operands.
+     *
+     * @return - True for =, <>, <, <=, > and >=.
+     */
+    public boolean isRelational()
+    {
+        return ordinal() >= EQ.ordinal();
+    }
+
+    /**
+     * Returns the relational operator that is true exactly when this one
+     * is false.
+     *
+     * @return - The negated operator.
+     */
+    public Operator negate()
+    {
+        switch (this)
+        {
+            case EQ:
+                return NE;
+            case NE:
+                return EQ;
+            case LT:
+                return GE;
+            case GE:
+                return LT;
+            case GT:
+                return LE;
+            case LE:
+                return GT;
+            default:
+                throw new RuntimeException(this + " is not a relational " +
+                        "operator");
+        }
+    }
+
+    /**
+     * Computes this operator on two values the way the MIPS instructions
+     * for it do. div and mod round towards zero, shift amounts only use
+     * their low five bits, and a relational operator gives 1 when it is
+     * true and 0 when it is false. A div or mod by zero throws an
+     * ArithmeticException.
+     *
+     * @param left - The left operand.
+     * @param right - The right operand.
+     * @return - The result.
+     */
+    public int apply(int left, int right)
+    {
+        switch (this)
+        {
+            case ADD:
+            case ADDU:
+                return left + right;
+            case SUB:
+            case SUBU:
+                return left - right;
+            case MUL:
+                return left * right;
+            case DIV:
+                return left / right;
+            case MOD:
+                return left % right;
+            case AND:
+                return left & right;
+            case OR:
+                return left | right;
+            case SHL:
+                return left << right;
+            case SAR:
+                return left >> right;
+            case SHR:
+                return left >>> right;
+            case MULHI:
+                return (int) (((long) left * right) >> 32);
+            case EQ:
+                return left == right ? 1 : 0;
+            case NE:
+                return left != right ? 1 : 0;
+            case LT:
+                return left < right ? 1 : 0;
+            case LE:
+                return left <= right ? 1 : 0;
+            case GT:
+                return left > right ? 1 : 0;
+            default:
+                return left >= right ? 1 : 0;
+        }
+    }
+
+    /**
+     * Returns the operator as it is written in three address code.
+     *
+     * @return - The symbol of the operator.
+     */
+    @Override
+    public String toString()
+    {
+        return symbol;
+    }
+}
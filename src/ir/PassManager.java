@@ -0,0 +1,110 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class runs a list of IrPasses over an IrProgram, one after
+ * another, and measures each one by counting the Quads of the program
+ * before and after it runs. The counts can be read back or printed as a
+ * report, which is how the effect of each optimization is measured.
+ *
+ * Example:
+ * PassManager passes = new PassManager();
+ * passes.add(new SomePass());
+ * passes.run(program);
+ * System.out.print(passes);
+ *
+ * @author Marissa Allen
+ */
+public class PassManager
+{
+    private List<IrPass> passes = new ArrayList<>();
+    private List<String> report = new ArrayList<>();
+    private int before = 0;
+    private int after = 0;
+
+    /**
+     * Adds a pass to the end of the list of passes.
+     *
+     * @param pass - The pass to add.
+     * @return - This PassManager, so calls can be chained.
+     */
+    public PassManager add(IrPass pass)
+    {
+        passes.add(pass);
+        return this;
+    }
+
+    /**
+     * Returns the passes that are run, in order.
+     *
+     * @return - The list of passes.
+     */
+    public List<IrPass> getPasses()
+    {
+        return passes;
+    }
+
+    /**
+     * Runs every pass over a program, in order, and records how many
+     * Quads the program had before and after each pass.
+     *
+     * @param program - The IrProgram to optimize.
+     */
+    public void run(IrProgram program)
+    {
+        report.clear();
+        before = program.size();
+        int size = before;
+        for (IrPass pass : passes)
+        {
+            pass.run(program);
+            int changed = program.size();
+            report.add(String.format("%-26s%6d -> %d\n", pass.getName(),
+                    size, changed));
+            size = changed;
+        }
+        after = size;
+    }
+
+    /**
+     * Returns how many Quads the program had before the passes ran.
+     *
+     * @return - The number of Quads that become instructions.
+     */
+    public int getSizeBefore()
+    {
+        return before;
+    }
+
+    /**
+     * Returns how many Quads the program had after the passes ran.
+     *
+     * @return - The number of Quads that become instructions.
+     */
+    public int getSizeAfter()
+    {
+        return after;
+    }
+
+    /**
+     * Returns a table of the number of Quads before and after each pass
+     * from the last run.
+     *
+     * @return - A String with one line per pass and a total.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder answer = new StringBuilder("IR passes, quads before " +
+                "-> after\n");
+        for (String line : report)
+        {
+            answer.append(line);
+        }
+        answer.append(String.format("%-26s%6d -> %d\n", "total", before,
+                after));
+        return answer.toString();
+    }
+}
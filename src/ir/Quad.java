@@ -0,0 +1,324 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Quad is one instruction of the three address code. Every Quad has a
+ * Kind, and uses at most an operator, a result, two operands and a
+ * label, which is where the name quadruple comes from. The kinds are
+ * written like this:
+ * BINARY   t3 = t1 + t2
+ * COPY     t1 = fee, fee = t3 or t1 = 5
+ * BRANCH   if t1 < t2 goto endLoop1
+ * JUMP     goto TopWhile1
+ * LABEL    TopWhile1:
+ * READ     read fee
+ * WRITE    write t1
+ * RETURN   return t1
+ *
+ * A RETURN puts its value in $v0 and leaves main.
+ *
+ * @author Marissa Allen
+ */
+public class Quad
+{
+    private Kind kind;
+    private Operator op;
+    private Operand result;
+    private Operand left;
+    private Operand right;
+    private String label;
+
+    /**
+     * Quad constructor that takes in every field. The static methods
+     * below are used to make each kind of Quad.
+     *
+     * @param kind - The kind of Quad.
+     * @param op - The operator of a BINARY or BRANCH.
+     * @param result - The operand that is written.
+     * @param left - The first operand that is read.
+     * @param right - The second operand that is read.
+     * @param label - The label of a BRANCH, JUMP or LABEL.
+     */
+    private Quad(Kind kind, Operator op, Operand result, Operand left,
+                 Operand right, String label)
+    {
+        this.kind = kind;
+        this.op = op;
+        this.result = result;
+        this.left = left;
+        this.right = right;
+        this.label = label;
+    }
+
+    /**
+     * Makes a BINARY Quad, result = left op right.
+     *
+     * @param op - The operator.
+     * @param result - The operand the answer is put in.
+     * @param left - The left operand.
+     * @param right - The right operand.
+     * @return - The new Quad.
+     */
+    public static Quad binary(Operator op, Operand result, Operand left,
+                              Operand right)
+    {
+        return new Quad(Kind.BINARY, op, result, left, right, null);
+    }
+
+    /**
+     * Makes a COPY Quad, result = source. Copies are how variables are
+     * loaded into temporaries and stored back into memory.
+     *
+     * @param result - The operand that is written.
+     * @param source - The operand that is read.
+     * @return - The new Quad.
+     */
+    public static Quad copy(Operand result, Operand source)
+    {
+        return new Quad(Kind.COPY, null, result, source, null, null);
+    }
+
+    /**
+     * Makes a BRANCH Quad, if left op right goto label.
+     *
+     * @param op - The relational operator.
+     * @param left - The left operand.
+     * @param right - The right operand.
+     * @param label - The label branched to when the comparison holds.
+     * @return - The new Quad.
+     */
+    public static Quad branch(Operator op, Operand left, Operand right,
+                              String label)
+    {
+        return new Quad(Kind.BRANCH, op, null, left, right, label);
+    }
+
+    /**
+     * Makes a JUMP Quad, goto label.
+     *
+     * @param label - The label jumped to.
+     * @return - The new Quad.
+     */
+    public static Quad jump(String label)
+    {
+        return new Quad(Kind.JUMP, null, null, null, null, label);
+    }
+
+    /**
+     * Makes a LABEL Quad, which marks a place that can be branched to.
+     *
+     * @param name - The name of the label.
+     * @return - The new Quad.
+     */
+    public static Quad label(String name)
+    {
+        return new Quad(Kind.LABEL, null, null, null, null, name);
+    }
+
+    /**
+     * Makes a READ Quad, which reads an integer from the console.
+     *
+     * @param result - The operand the integer is put in.
+     * @return - The new Quad.
+     */
+    public static Quad read(Operand result)
+    {
+        return new Quad(Kind.READ, null, result, null, null, null);
+    }
+
+    /**
+     * Makes a WRITE Quad, which prints an integer to the console.
+     *
+     * @param value - The operand to print.
+     * @return - The new Quad.
+     */
+    public static Quad write(Operand value)
+    {
+        return new Quad(Kind.WRITE, null, null, value, null, null);
+    }
+
+    /**
+     * Makes a RETURN Quad, which puts a value in $v0 and leaves main.
+     *
+     * @param value - The operand to return.
+     * @return - The new Quad.
+     */
+    public static Quad ret(Operand value)
+    {
+        return new Quad(Kind.RETURN, null, null, value, null, null);
+    }
+
+    /**
+     * Returns the kind of this Quad.
+     *
+     * @return - The Kind.
+     */
+    public Kind getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * Returns the operator of a BINARY or BRANCH.
+     *
+     * @return - The operator, or null for other kinds.
+     */
+    public Operator getOp()
+    {
+        return op;
+    }
+
+    /**
+     * Changes the operator of a BINARY or BRANCH.
+     *
+     * @param op - The new operator.
+     */
+    public void setOp(Operator op)
+    {
+        this.op = op;
+    }
+
+    /**
+     * Returns the operand this Quad writes.
+     *
+     * @return - The result, or null if nothing is written.
+     */
+    public Operand getResult()
+    {
+        return result;
+    }
+
+    /**
+     * Changes the operand this Quad writes.
+     *
+     * @param result - The new result.
+     */
+    public void setResult(Operand result)
+    {
+        this.result = result;
+    }
+
+    /**
+     * Returns the first operand this Quad reads. For a COPY, WRITE or
+     * RETURN this is the only operand read.
+     *
+     * @return - The left operand, or null if there is none.
+     */
+    public Operand getLeft()
+    {
+        return left;
+    }
+
+    /**
+     * Changes the first operand this Quad reads.
+     *
+     * @param left - The new left operand.
+     */
+    public void setLeft(Operand left)
+    {
+        this.left = left;
+    }
+
+    /**
+     * Returns the second operand this Quad reads.
+     *
+     * @return - The right operand, or null if there is none.
+     */
+    public Operand getRight()
+    {
+        return right;
+    }
+
+    /**
+     * Changes the second operand this Quad reads.
+     *
+     * @param right - The new right operand.
+     */
+    public void setRight(Operand right)
+    {
+        this.right = right;
+    }
+
+    /**
+     * Returns the label of a BRANCH, JUMP or LABEL.
+     *
+     * @return - The label, or null for other kinds.
+     */
+    public String getLabel()
+    {
+        return label;
+    }
+
+    /**
+     * Changes the label of a BRANCH, JUMP or LABEL.
+     *
+     * @param label - The new label.
+     */
+    public void setLabel(String label)
+    {
+        this.label = label;
+    }
+
+    /**
+     * Returns the operands this Quad reads, left first.
+     *
+     * @return - A list of the operands read, which may be empty.
+     */
+    public List<Operand> getUses()
+    {
+        List<Operand> answer = new ArrayList<>(2);
+        if (left != null)
+        {
+            answer.add(left);
+        }
+        if (right != null)
+        {
+            answer.add(right);
+        }
+        return answer;
+    }
+
+    /**
+     * Checks to see if control can leave this Quad some other way than
+     * falling through to the next one.
+     *
+     * @return - True for BRANCH, JUMP and RETURN.
+     */
+    public boolean isControl()
+    {
+        return kind == Kind.BRANCH || kind == Kind.JUMP ||
+                kind == Kind.RETURN;
+    }
+
+    /**
+     * Returns the Quad as it is written in three address code.
+     *
+     * @return - A String of the Quad.
+     */
+    @Override
+    public String toString()
+    {
+        switch (kind)
+        {
+            case BINARY:
+                return result + " = " + left + " " + op + " " + right;
+            case COPY:
+                return result + " = " + left;
+            case BRANCH:
+                return "if " + left + " " + op + " " + right + " goto " +
+                        label;
+            case JUMP:
+                return "goto " + label;
+            case LABEL:
+                return label + ":";
+            case READ:
+                return "read " + result;
+            case WRITE:
+                return "write " + left;
+            default:
+                return "return " + left;
+        }
+    }
+}
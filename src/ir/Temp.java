@@ -0,0 +1,68 @@
+package ir;
+
+/**
+ * A Temp is a temporary value made while an expression is computed,
+ * such as the answer to one operation of the expression. Temps are
+ * numbered in the order they are made, and the instruction selector
+ * decides which register, if any, holds each one.
+ *
+ * @author Marissa Allen
+ */
+public class Temp extends Operand
+{
+    private int number;
+
+    /**
+     * Temp constructor that takes in the number of the temporary.
+     *
+     * @param number - The number of the temporary.
+     */
+    public Temp(int number)
+    {
+        this.number = number;
+    }
+
+    /**
+     * Returns the number of the temporary.
+     *
+     * @return - The number of the temporary.
+     */
+    public int getNumber()
+    {
+        return number;
+    }
+
+    /**
+     * Compares the numbers of two temporaries.
+     *
+     * @param o - The object to compare to.
+     * @return - True if the object is a Temp with the same number.
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof Temp && ((Temp) o).number == number;
+    }
+
+    /**
+     * Returns a hash code that agrees with equals.
+     *
+     * @return - The number of the temporary.
+     */
+    @Override
+    public int hashCode()
+    {
+        return number;
+    }
+
+    /**
+     * Returns the temporary as it is written in three address code.
+     *
+     * @return - The letter t followed by the number of the temporary.
+     */
+    @Override
+    public String toString()
+    {
+        return "t" + number;
+    }
+}
@@ -0,0 +1,66 @@
+package ir;
+
+/**
+ * A Var is a variable declared by the pascal program. Its value lives in
+ * memory at the label with the name of the variable.
+ *
+ * @author Marissa Allen
+ */
+public class Var extends Operand
+{
+    private String name;
+
+    /**
+     * Var constructor that takes in the name of the variable.
+     *
+     * @param name - The name of the variable.
+     */
+    public Var(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the variable.
+     *
+     * @return - The name of the variable.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Compares the names of two variables.
+     *
+     * @param o - The object to compare to.
+     * @return - True if the object is a Var with the same name.
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof Var && ((Var) o).name.equals(name);
+    }
+
+    /**
+     * Returns a hash code that agrees with equals.
+     *
+     * @return - The hash code of the name.
+     */
+    @Override
+    public int hashCode()
+    {
+        return name.hashCode();
+    }
+
+    /**
+     * Returns the variable as it is written in three address code.
+     *
+     * @return - The name of the variable.
+     */
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
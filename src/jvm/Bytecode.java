@@ -0,0 +1,305 @@
+package jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class holds the code of one JVM method while it is written. It
+ * keeps track of how deep the operand stack gets, which the class file
+ * has to give, and of the branches to Labels that aren't placed yet,
+ * whose offsets are filled in once every Label has a place.
+ *
+ * @author Marissa Allen
+ */
+public class Bytecode
+{
+    public static final int ICONST_0 = 3;
+    public static final int ICONST_1 = 4;
+    public static final int BIPUSH = 16;
+    public static final int SIPUSH = 17;
+    public static final int LDC = 18;
+    public static final int LDC_W = 19;
+    public static final int ILOAD = 21;
+    public static final int ALOAD = 25;
+    public static final int ALOAD_0 = 42;
+    public static final int ALOAD_1 = 43;
+    public static final int IALOAD = 46;
+    public static final int ISTORE = 54;
+    public static final int ASTORE = 58;
+    public static final int IASTORE = 79;
+    public static final int POP = 87;
+    public static final int IADD = 96;
+    public static final int ISUB = 100;
+    public static final int IMUL = 104;
+    public static final int IDIV = 108;
+    public static final int IREM = 112;
+    public static final int IAND = 126;
+    public static final int IOR = 128;
+    public static final int IFEQ = 153;
+    public static final int IFNE = 154;
+    public static final int IFLT = 155;
+    public static final int IFGE = 156;
+    public static final int IFGT = 157;
+    public static final int IFLE = 158;
+    public static final int IF_ICMPEQ = 159;
+    public static final int IF_ICMPNE = 160;
+    public static final int IF_ICMPLT = 161;
+    public static final int IF_ICMPGE = 162;
+    public static final int IF_ICMPGT = 163;
+    public static final int IF_ICMPLE = 164;
+    public static final int GOTO = 167;
+    public static final int IRETURN = 172;
+    public static final int RETURN = 177;
+    public static final int GETSTATIC = 178;
+    public static final int PUTSTATIC = 179;
+    public static final int INVOKEVIRTUAL = 182;
+    public static final int ATHROW = 191;
+
+    /**
+     * A place in the code that can be branched to. It keeps how deep the
+     * stack is when it is branched to, so the depth is right after it
+     * even when the code before it ends with a goto.
+     */
+    public static class Label
+    {
+        private int position = -1;
+        private int stack = -1;
+        private List<Integer> branches = new ArrayList<>();
+    }
+
+    private ByteArrayOutputStream code = new ByteArrayOutputStream();
+    private int stack = 0;
+    private int maxStack = 0;
+    private List<Label> labels = new ArrayList<>();
+
+    /**
+     * The start, end and handler Labels of each exception handler.
+     */
+    private List<Label[]> handlers = new ArrayList<>();
+
+    /**
+     * Writes an instruction without operands.
+     *
+     * @param opcode - The opcode.
+     * @param effect - How many values it pushes, less how many it pops.
+     */
+    public void op(int opcode, int effect)
+    {
+        code.write(opcode);
+        move(effect);
+    }
+
+    /**
+     * Writes an instruction with a one byte operand, like the local
+     * variable of an iload.
+     *
+     * @param opcode - The opcode.
+     * @param operand - The operand.
+     * @param effect - How many values it pushes, less how many it pops.
+     */
+    public void op1(int opcode, int operand, int effect)
+    {
+        code.write(opcode);
+        code.write(operand);
+        move(effect);
+    }
+
+    /**
+     * Writes an instruction with a two byte operand, like the index of a
+     * constant.
+     *
+     * @param opcode - The opcode.
+     * @param operand - The operand.
+     * @param effect - How many values it pushes, less how many it pops.
+     */
+    public void op2(int opcode, int operand, int effect)
+    {
+        code.write(opcode);
+        code.write(operand >> 8);
+        code.write(operand);
+        move(effect);
+    }
+
+    /**
+     * Writes the shortest instruction that pushes an integer: iconst,
+     * bipush, sipush, or an ldc of its constant.
+     *
+     * @param value - The integer.
+     * @param classFile - The ClassFile with the constant pool.
+     */
+    public void push(int value, ClassFile classFile)
+    {
+        if (value >= -1 && value <= 5)
+        {
+            op(ICONST_0 + value, 1);
+        }
+        else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+        {
+            code.write(BIPUSH);
+            code.write(value);
+            move(1);
+        }
+        else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+        {
+            op2(SIPUSH, value, 1);
+        }
+        else
+        {
+            int index = classFile.integer(value);
+            if (index < 256)
+            {
+                code.write(LDC);
+                code.write(index);
+                move(1);
+            }
+            else
+            {
+                op2(LDC_W, index, 1);
+            }
+        }
+    }
+
+    /**
+     * Makes a Label that isn't placed yet.
+     *
+     * @return - The Label.
+     */
+    public Label newLabel()
+    {
+        Label label = new Label();
+        labels.add(label);
+        return label;
+    }
+
+    /**
+     * Places a Label at the next instruction.
+     *
+     * @param label - The Label.
+     */
+    public void mark(Label label)
+    {
+        label.position = code.size();
+        if (label.stack >= 0)
+        {
+            stack = label.stack;
+        }
+    }
+
+    /**
+     * Writes a branch or goto to a Label. An if pops the one or two
+     * values it compares. All the branches to a Label have to leave the
+     * stack just as deep.
+     *
+     * @param opcode - The opcode of the branch.
+     * @param label - Where it branches to.
+     */
+    public void branch(int opcode, Label label)
+    {
+        label.branches.add(code.size());
+        code.write(opcode);
+        code.write(0);
+        code.write(0);
+        if (opcode >= IF_ICMPEQ && opcode <= IF_ICMPLE)
+        {
+            move(-2);
+        }
+        else if (opcode != GOTO)
+        {
+            move(-1);
+        }
+        label.stack = stack;
+    }
+
+    /**
+     * Catches anything thrown by the code from one Label up to another,
+     * and goes to a handler Label, where the stack holds only what was
+     * thrown.
+     *
+     * @param start - The first instruction that is covered.
+     * @param end - The instruction after the last one that is covered.
+     * @param handler - Where the handler starts.
+     */
+    public void catchAll(Label start, Label end, Label handler)
+    {
+        handlers.add(new Label[] {start, end, handler});
+        handler.stack = 1;
+        maxStack = Math.max(maxStack, 1);
+    }
+
+    /**
+     * Returns the exception table of the code, once every Label has a
+     * place. Each handler is its start, end and handler offsets.
+     *
+     * @return - Three offsets for each handler, in the order they were
+     * added.
+     */
+    public int[] getHandlers()
+    {
+        int[] answer = new int[handlers.size() * 3];
+        for (int index = 0; index < answer.length; index++)
+        {
+            answer[index] = handlers.get(index / 3)[index % 3].position;
+        }
+        return answer;
+    }
+
+    /**
+     * Returns how deep the operand stack gets.
+     *
+     * @return - The most values on the stack at once.
+     */
+    public int getMaxStack()
+    {
+        return maxStack;
+    }
+
+    /**
+     * Returns the code with the offset of every branch filled in. A
+     * Label that was branched to but never placed, and a method or
+     * branch too long for the class file, are reported with a
+     * RuntimeException.
+     *
+     * @return - The bytes of the code.
+     */
+    public byte[] toBytes()
+    {
+        byte[] answer = code.toByteArray();
+        if (answer.length > 0xFFFF)
+        {
+            throw new RuntimeException("The program is too long for one " +
+                    "JVM method");
+        }
+        for (Label label : labels)
+        {
+            for (int at : label.branches)
+            {
+                if (label.position < 0)
+                {
+                    throw new RuntimeException("A branch goes to a label " +
+                            "that was never placed");
+                }
+                int offset = label.position - at;
+                if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+                {
+                    throw new RuntimeException("A branch is too far for " +
+                            "the JVM");
+                }
+                answer[at + 1] = (byte) (offset >> 8);
+                answer[at + 2] = (byte) offset;
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Moves the depth of the operand stack.
+     *
+     * @param effect - How many values are pushed, less how many popped.
+     */
+    private void move(int effect)
+    {
+        stack += effect;
+        maxStack = Math.max(maxStack, stack);
+    }
+}
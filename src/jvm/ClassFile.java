@@ -0,0 +1,333 @@
+package jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class writes a JVM class file with static fields and static
+ * methods, which is all the code of a pascal program needs. The class
+ * keeps its constant pool, where every name, type, number and reference
+ * the code uses is stored once and referred to by its index.
+ *
+ * The class files are version 49, which the JVM checks with its type
+ * inferring verifier, so the methods don't need the stack map frames
+ * newer versions have to have at every branch target.
+ *
+ * @author Marissa Allen
+ */
+public class ClassFile
+{
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int VERSION = 49;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    /**
+     * The access flags of a public final class.
+     */
+    private static final int CLASS_ACCESS = 0x0031;
+
+    /**
+     * The access flags of a public static field or method.
+     */
+    private static final int STATIC_ACCESS = 0x0009;
+
+    private String name;
+    private ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private DataOutputStream poolOut = new DataOutputStream(pool);
+    private Map<String, Integer> constants = new HashMap<>();
+    private int poolSize = 1;
+    private List<byte[]> fields = new ArrayList<>();
+    private List<byte[]> methods = new ArrayList<>();
+
+    /**
+     * ClassFile constructor that takes in the name of the class.
+     *
+     * @param name - The internal name of the class, like jvm/Foo.
+     */
+    public ClassFile(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the class.
+     *
+     * @return - The internal name, like jvm/Foo.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Adds a public static field.
+     *
+     * @param fieldName - The name of the field.
+     * @param descriptor - The type of the field, like I.
+     */
+    public void addField(String fieldName, String descriptor)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try
+        {
+            out.writeShort(STATIC_ACCESS);
+            out.writeShort(utf8(fieldName));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(0);
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Failed to write a field", ex);
+        }
+        fields.add(bytes.toByteArray());
+    }
+
+    /**
+     * Adds a public static method.
+     *
+     * @param methodName - The name of the method.
+     * @param descriptor - The type of the method, like (I)V.
+     * @param code - The Bytecode of the method.
+     * @param maxLocals - The number of local variable slots it uses,
+     * including its parameters.
+     */
+    public void addMethod(String methodName, String descriptor,
+                          Bytecode code, int maxLocals)
+    {
+        byte[] body = code.toBytes();
+        int[] handlers = code.getHandlers();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try
+        {
+            out.writeShort(STATIC_ACCESS);
+            out.writeShort(utf8(methodName));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1);
+            out.writeShort(utf8("Code"));
+            out.writeInt(12 + body.length + handlers.length / 3 * 8);
+            out.writeShort(code.getMaxStack());
+            out.writeShort(maxLocals);
+            out.writeInt(body.length);
+            out.write(body);
+            out.writeShort(handlers.length / 3);
+            for (int index = 0; index < handlers.length; index += 3)
+            {
+                out.writeShort(handlers[index]);
+                out.writeShort(handlers[index + 1]);
+                out.writeShort(handlers[index + 2]);
+                //A catch type of zero catches everything.
+                out.writeShort(0);
+            }
+            //No attributes.
+            out.writeShort(0);
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Failed to write a method", ex);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    /**
+     * Finds or adds a Utf8 constant.
+     *
+     * @param text - The text.
+     * @return - The index of the constant.
+     */
+    public int utf8(String text)
+    {
+        return constant("U" + text, out ->
+        {
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(text);
+        });
+    }
+
+    /**
+     * Finds or adds an Integer constant, for ldc.
+     *
+     * @param value - The integer.
+     * @return - The index of the constant.
+     */
+    public int integer(int value)
+    {
+        return constant("I" + value, out ->
+        {
+            out.writeByte(CONSTANT_INTEGER);
+            out.writeInt(value);
+        });
+    }
+
+    /**
+     * Finds or adds a Class constant.
+     *
+     * @param className - The internal name of the class.
+     * @return - The index of the constant.
+     */
+    public int classRef(String className)
+    {
+        int nameIndex = utf8(className);
+        return constant("C" + className, out ->
+        {
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(nameIndex);
+        });
+    }
+
+    /**
+     * Finds or adds a reference to a field.
+     *
+     * @param owner - The internal name of the class with the field.
+     * @param fieldName - The name of the field.
+     * @param descriptor - The type of the field.
+     * @return - The index of the constant.
+     */
+    public int fieldRef(String owner, String fieldName, String descriptor)
+    {
+        return memberRef(CONSTANT_FIELDREF, owner, fieldName, descriptor);
+    }
+
+    /**
+     * Finds or adds a reference to a method of a class.
+     *
+     * @param owner - The internal name of the class with the method.
+     * @param methodName - The name of the method.
+     * @param descriptor - The type of the method.
+     * @return - The index of the constant.
+     */
+    public int methodRef(String owner, String methodName,
+                         String descriptor)
+    {
+        return memberRef(CONSTANT_METHODREF, owner, methodName, descriptor);
+    }
+
+    /**
+     * Finds or adds a reference to a field or method.
+     *
+     * @param tag - CONSTANT_FIELDREF or CONSTANT_METHODREF.
+     * @param owner - The internal name of the class.
+     * @param member - The name of the field or method.
+     * @param descriptor - Its type.
+     * @return - The index of the constant.
+     */
+    private int memberRef(int tag, String owner, String member,
+                          String descriptor)
+    {
+        int classIndex = classRef(owner);
+        int memberName = utf8(member);
+        int type = utf8(descriptor);
+        int nameAndType = constant("N" + member + " " + descriptor, out ->
+        {
+            out.writeByte(CONSTANT_NAME_AND_TYPE);
+            out.writeShort(memberName);
+            out.writeShort(type);
+        });
+        return constant(tag + owner + "." + member + " " + descriptor,
+                out ->
+                {
+                    out.writeByte(tag);
+                    out.writeShort(classIndex);
+                    out.writeShort(nameAndType);
+                });
+    }
+
+    /**
+     * Writes one constant of the pool.
+     */
+    private interface Entry
+    {
+        /**
+         * Writes the tag and the contents of the constant. An
+         * IOException is thrown if it can't be written.
+         *
+         * @param out - The constant pool.
+         */
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Finds a constant, adding it to the pool the first time it is
+     * used.
+     *
+     * @param key - What the constant is, so it is only added once.
+     * @param entry - How the constant is written.
+     * @return - The index of the constant.
+     */
+    private int constant(String key, Entry entry)
+    {
+        Integer index = constants.get(key);
+        if (index != null)
+        {
+            return index;
+        }
+        if (poolSize >= 0xFFFF)
+        {
+            throw new RuntimeException("The constant pool of " + name +
+                    " is full");
+        }
+        try
+        {
+            entry.write(poolOut);
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Failed to write a constant", ex);
+        }
+        constants.put(key, poolSize);
+        return poolSize++;
+    }
+
+    /**
+     * Returns the bytes of the class file.
+     *
+     * @return - The class file.
+     */
+    public byte[] toBytes()
+    {
+        int thisClass = classRef(name);
+        int superClass = classRef("java/lang/Object");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try
+        {
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolSize);
+            out.write(pool.toByteArray());
+            out.writeShort(CLASS_ACCESS);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(fields.size());
+            for (byte[] field : fields)
+            {
+                out.write(field);
+            }
+            out.writeShort(methods.size());
+            for (byte[] method : methods)
+            {
+                out.write(method);
+            }
+            out.writeShort(0);
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Failed to write " + name, ex);
+        }
+        return bytes.toByteArray();
+    }
+}
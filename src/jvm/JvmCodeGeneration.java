@@ -0,0 +1,551 @@
+package jvm;
+
+import ir.Operator;
+import scanner.TokenType;
+import syntaxtree.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class lowers a syntax tree into a JVM class file, so a pascal
+ * program can be run on the JVM, where HotSpot compiles the loops that
+ * run the most into machine code. Each variable that is declared becomes
+ * a static int field of the class, and the main compound statement
+ * becomes the method
+ * public static void run(PascalIO io)
+ * where read and write call the methods of the same name on io.
+ *
+ * Statements are lowered like the IrBuilder lowers them:
+ * while test do body          if test then a else b
+ * if not test goto endLoop        if not test goto Else
+ * TopWhile:                       a
+ *     body                        goto Next
+ *     if test goto TopWhile   Else:
+ * endLoop:                        b
+ *                             Next:
+ * Tests are lowered into jumping code with if_icmp instructions, and an
+ * and or an or of comparisons is short circuited. A comparison used as a
+ * value is pushed as 1 or 0, and any other test is compared to zero.
+ *
+ * Only integers are supported. A real number or a / operation is
+ * reported with a RuntimeException. A div or mod by zero throws an
+ * ArithmeticException when the program runs, and add, sub and mul wrap
+ * around instead of trapping on overflow the way the MIPS add does.
+ *
+ * One while loop can also be lowered on its own with genLoop, for an
+ * Interpreter that finds the loop is hot. Its variables are then local
+ * variables of the method, which HotSpot keeps in machine registers,
+ * copied in from an int[] when the loop starts and back out when it
+ * stops, so the loop can take over from the Interpreter in the middle.
+ *
+ * @author Marissa Allen
+ */
+public class JvmCodeGeneration
+{
+    private static final String IO = "jvm/PascalIO";
+
+    private ProgramNode program;
+    private ClassFile classFile;
+    private Bytecode code;
+
+    /**
+     * The local variable of each variable of a loop from genLoop, or null
+     * when the variables are fields.
+     */
+    private Map<String, Integer> locals;
+    private String[] variables;
+
+    /**
+     * JvmCodeGeneration constructor that takes in the program to lower.
+     *
+     * @param program - The ProgramNode.
+     */
+    public JvmCodeGeneration(ProgramNode program)
+    {
+        this.program = program;
+    }
+
+    /**
+     * Returns the internal name of the class the program is lowered to.
+     * It is in the jvm package, so a JvmProgram can define it.
+     *
+     * @return - The name, like jvm/Foo.
+     */
+    public String getClassName()
+    {
+        return "jvm/" + program.getName();
+    }
+
+    /**
+     * Lowers the program into a class file.
+     *
+     * @return - The bytes of the class file.
+     */
+    public byte[] genClass()
+    {
+        classFile = new ClassFile(getClassName());
+        code = new Bytecode();
+        locals = null;
+        for (VariableNode variable : program.getVariables().getVar())
+        {
+            classFile.addField(variable.getName(), "I");
+        }
+        statement(program.getMain());
+        code.op(Bytecode.RETURN, 0);
+        classFile.addMethod("run", "(L" + IO + ";)V", code, 1);
+        return classFile.toBytes();
+    }
+
+    /**
+     * Lowers one while loop of the program into a class file with the
+     * method
+     * public static boolean loop(PascalIO io, int[] variables)
+     * which copies the variables into local variables, runs the loop from
+     * its test, and copies them back, even when the loop throws. It
+     * returns true when a return statement in the loop stopped the
+     * program. The variables are given in the order of their slots in
+     * the int[], and a loop that uses any other variable is reported
+     * with a RuntimeException, like a real number is.
+     *
+     * @param loop - The while loop.
+     * @param variables - The names of the integer variables.
+     * @return - The bytes of the class file.
+     */
+    public byte[] genLoop(WhileStatementNode loop, String[] variables)
+    {
+        //The io and the int[] come first, and the thrown value last.
+        if (variables.length + 3 > 256)
+        {
+            throw new RuntimeException("The loop has too many variables");
+        }
+        classFile = new ClassFile(getClassName() + "$Loop");
+        code = new Bytecode();
+        locals = new HashMap<>();
+        this.variables = variables;
+        for (int index = 0; index < variables.length; index++)
+        {
+            locals.put(variables[index], index + 2);
+            code.op(Bytecode.ALOAD_1, 1);
+            code.push(index, classFile);
+            code.op(Bytecode.IALOAD, -1);
+            code.op1(Bytecode.ISTORE, index + 2, -1);
+        }
+        Bytecode.Label start = code.newLabel();
+        Bytecode.Label end = code.newLabel();
+        Bytecode.Label thrown = code.newLabel();
+        code.mark(start);
+        statement(loop);
+        code.mark(end);
+        copyOut();
+        code.op(Bytecode.ICONST_0, 1);
+        code.op(Bytecode.IRETURN, -1);
+
+        //Anything the loop throws is thrown again with the variables out.
+        code.catchAll(start, end, thrown);
+        code.mark(thrown);
+        int throwable = variables.length + 2;
+        code.op1(Bytecode.ASTORE, throwable, -1);
+        copyOut();
+        code.op1(Bytecode.ALOAD, throwable, 1);
+        code.op(Bytecode.ATHROW, -1);
+        classFile.addMethod("loop", "(L" + IO + ";[I)Z", code,
+                throwable + 1);
+        return classFile.toBytes();
+    }
+
+    /**
+     * Copies the local variables of a loop back into its int[].
+     */
+    private void copyOut()
+    {
+        for (int index = 0; index < variables.length; index++)
+        {
+            code.op(Bytecode.ALOAD_1, 1);
+            code.push(index, classFile);
+            code.op1(Bytecode.ILOAD, index + 2, 1);
+            code.op(Bytecode.IASTORE, -3);
+        }
+    }
+
+    /**
+     * Lowers a statement and the statements inside of it.
+     *
+     * @param node - The statement to lower.
+     */
+    private void statement(StatementNode node)
+    {
+        if (node instanceof CompoundStatementNode)
+        {
+            for (StatementNode sNode :
+                    ((CompoundStatementNode) node).getStatements())
+            {
+                statement(sNode);
+            }
+        }
+        else if (node instanceof AssignmentStatementNode)
+        {
+            AssignmentStatementNode asn = (AssignmentStatementNode) node;
+            expression(asn.getExpression());
+            store(asn.getLvalue().getName());
+        }
+        else if (node instanceof IfStatementNode)
+        {
+            ifStatement((IfStatementNode) node);
+        }
+        else if (node instanceof WhileStatementNode)
+        {
+            WhileStatementNode wsn = (WhileStatementNode) node;
+            Bytecode.Label top = code.newLabel();
+            Bytecode.Label end = code.newLabel();
+            jump(wsn.getWhileTest(), end, false);
+            code.mark(top);
+            statement(wsn.getStatement());
+            jump(wsn.getWhileTest(), top, true);
+            code.mark(end);
+        }
+        else if (node instanceof ReadStatementNode)
+        {
+            code.op(Bytecode.ALOAD_0, 1);
+            code.op2(Bytecode.INVOKEVIRTUAL,
+                    classFile.methodRef(IO, "read", "()I"), 0);
+            store(((ReadStatementNode) node).getVarTest().getName());
+        }
+        else if (node instanceof WriteStatementNode)
+        {
+            code.op(Bytecode.ALOAD_0, 1);
+            expression(((WriteStatementNode) node).getWriteTest());
+            code.op2(Bytecode.INVOKEVIRTUAL,
+                    classFile.methodRef(IO, "write", "(I)V"), -2);
+        }
+        else if (node instanceof ReturnStatementNode)
+        {
+            //The main program has nothing to return the value to.
+            expression(((ReturnStatementNode) node).getReturnTest());
+            code.op(Bytecode.POP, -1);
+            if (locals == null)
+            {
+                code.op(Bytecode.RETURN, 0);
+            }
+            else
+            {
+                copyOut();
+                code.op(Bytecode.ICONST_1, 1);
+                code.op(Bytecode.IRETURN, -1);
+            }
+        }
+    }
+
+    /**
+     * Lowers an if statement. When the else part is empty, the test
+     * branches straight past the then part.
+     *
+     * @param node - The if statement to lower.
+     */
+    private void ifStatement(IfStatementNode node)
+    {
+        Bytecode.Label next = code.newLabel();
+        if (isEmpty(node.getElseStatement()))
+        {
+            jump(node.getTest(), next, false);
+            statement(node.getThenStatement());
+        }
+        else
+        {
+            Bytecode.Label otherwise = code.newLabel();
+            jump(node.getTest(), otherwise, false);
+            statement(node.getThenStatement());
+            code.branch(Bytecode.GOTO, next);
+            code.mark(otherwise);
+            statement(node.getElseStatement());
+        }
+        code.mark(next);
+    }
+
+    /**
+     * Lowers a condition into jumping code, which branches to a Label
+     * when the condition has the given value and falls through when it
+     * doesn't. A comparison becomes one if_icmp, and an and or an or of
+     * conditions is short circuited, so its right side is only tested
+     * when the left side doesn't already decide it. Any other
+     * expression is compared to zero.
+     *
+     * @param test - The condition.
+     * @param target - The Label branched to.
+     * @param when - The value of the condition that branches.
+     */
+    private void jump(ExpressionNode test, Bytecode.Label target,
+                      boolean when)
+    {
+        if (isComparison(test))
+        {
+            OperationNode op = (OperationNode) test;
+            Operator relop = operator(op);
+            expression(op.getLeft());
+            expression(op.getRight());
+            code.branch(compare(when ? relop : relop.negate()), target);
+        }
+        else if (isCondition(test))
+        {
+            OperationNode op = (OperationNode) test;
+            //An and decides when its left side is false, an or when true.
+            boolean decides = op.getOperation() == TokenType.OR;
+            if (decides == when)
+            {
+                jump(op.getLeft(), target, when);
+                jump(op.getRight(), target, when);
+            }
+            else
+            {
+                Bytecode.Label skip = code.newLabel();
+                jump(op.getLeft(), skip, decides);
+                jump(op.getRight(), target, when);
+                code.mark(skip);
+            }
+        }
+        else
+        {
+            expression(test);
+            code.branch(when ? Bytecode.IFNE : Bytecode.IFEQ, target);
+        }
+    }
+
+    /**
+     * Lowers an expression into code that pushes its value.
+     *
+     * @param node - The expression to lower.
+     */
+    private void expression(ExpressionNode node)
+    {
+        if (node instanceof ValueNode)
+        {
+            code.push(constant((ValueNode) node), classFile);
+        }
+        else if (node instanceof VariableNode)
+        {
+            load(((VariableNode) node).getName());
+        }
+        else if (isCondition(node))
+        {
+            //A condition used as a value pushes 1 or 0.
+            Bytecode.Label set = code.newLabel();
+            Bytecode.Label done = code.newLabel();
+            jump(node, set, true);
+            code.op(Bytecode.ICONST_0, 1);
+            code.branch(Bytecode.GOTO, done);
+            code.mark(set);
+            code.op(Bytecode.ICONST_1, 1);
+            code.mark(done);
+        }
+        else if (node instanceof OperationNode)
+        {
+            OperationNode op = (OperationNode) node;
+            expression(op.getLeft());
+            expression(op.getRight());
+            code.op(arithmetic(operator(op)), -1);
+        }
+    }
+
+    /**
+     * Finds the opcode of an arithmetic operator.
+     *
+     * @param operator - The Operator.
+     * @return - The opcode that computes it on the top two values.
+     */
+    private static int arithmetic(Operator operator)
+    {
+        switch (operator)
+        {
+            case ADD:
+                return Bytecode.IADD;
+            case SUB:
+                return Bytecode.ISUB;
+            case MUL:
+                return Bytecode.IMUL;
+            case DIV:
+                return Bytecode.IDIV;
+            case MOD:
+                return Bytecode.IREM;
+            case AND:
+                return Bytecode.IAND;
+            case OR:
+                return Bytecode.IOR;
+            default:
+                throw new RuntimeException("The JVM code generator does " +
+                        "not support the " + operator + " operator");
+        }
+    }
+
+    /**
+     * Finds the if_icmp opcode of a relational operator.
+     *
+     * @param relop - The relational Operator.
+     * @return - The opcode that branches when it is true.
+     */
+    private static int compare(Operator relop)
+    {
+        switch (relop)
+        {
+            case EQ:
+                return Bytecode.IF_ICMPEQ;
+            case NE:
+                return Bytecode.IF_ICMPNE;
+            case LT:
+                return Bytecode.IF_ICMPLT;
+            case GE:
+                return Bytecode.IF_ICMPGE;
+            case GT:
+                return Bytecode.IF_ICMPGT;
+            default:
+                return Bytecode.IF_ICMPLE;
+        }
+    }
+
+    /**
+     * Writes the code that pushes the value of a variable.
+     *
+     * @param name - The name of the variable.
+     */
+    private void load(String name)
+    {
+        if (locals == null)
+        {
+            code.op2(Bytecode.GETSTATIC, field(name), 1);
+        }
+        else
+        {
+            code.op1(Bytecode.ILOAD, local(name), 1);
+        }
+    }
+
+    /**
+     * Writes the code that pops a value into a variable.
+     *
+     * @param name - The name of the variable.
+     */
+    private void store(String name)
+    {
+        if (locals == null)
+        {
+            code.op2(Bytecode.PUTSTATIC, field(name), -1);
+        }
+        else
+        {
+            code.op1(Bytecode.ISTORE, local(name), -1);
+        }
+    }
+
+    /**
+     * Finds the reference to the field of a variable.
+     *
+     * @param name - The name of the variable.
+     * @return - The index of the constant.
+     */
+    private int field(String name)
+    {
+        return classFile.fieldRef(classFile.getName(), name, "I");
+    }
+
+    /**
+     * Finds the local variable of a variable of a loop.
+     *
+     * @param name - The name of the variable.
+     * @return - The local variable.
+     */
+    private int local(String name)
+    {
+        Integer local = locals.get(name);
+        if (local == null)
+        {
+            throw new RuntimeException("The JVM code generator only " +
+                    "supports integer variables, not " + name);
+        }
+        return local;
+    }
+
+    /**
+     * Reads the integer held by a ValueNode.
+     *
+     * @param node - The ValueNode.
+     * @return - The integer.
+     */
+    private static int constant(ValueNode node)
+    {
+        String number = node.getAttribute();
+        try
+        {
+            return Integer.parseInt(number);
+        }
+        catch (NumberFormatException ex)
+        {
+            throw new RuntimeException("The JVM code generator only " +
+                    "supports integers, not " + number);
+        }
+    }
+
+    /**
+     * Checks to see if an expression is a comparison.
+     *
+     * @param node - The expression.
+     * @return - True if it is an OperationNode with a relational
+     * operator.
+     */
+    private static boolean isComparison(ExpressionNode node)
+    {
+        return node instanceof OperationNode &&
+                operator((OperationNode) node).isRelational();
+    }
+
+    /**
+     * Finds the Operator of an operation. A / always gives a real, which
+     * isn't supported, and is reported with a RuntimeException.
+     *
+     * @param op - The operation.
+     * @return - The Operator.
+     */
+    private static Operator operator(OperationNode op)
+    {
+        if (op.getOperation() == TokenType.FSLASH)
+        {
+            throw new RuntimeException("The JVM code generator only " +
+                    "supports integers, not the / operator");
+        }
+        return Operator.fromToken(op.getOperation());
+    }
+
+    /**
+     * Checks to see if an expression is a condition: a comparison, or an
+     * and or an or of two conditions. An and or an or of anything else
+     * is a bitwise operation on integers, and is not short circuited.
+     *
+     * @param node - The expression.
+     * @return - True if the expression is true or false.
+     */
+    private static boolean isCondition(ExpressionNode node)
+    {
+        if (isComparison(node))
+        {
+            return true;
+        }
+        if (!(node instanceof OperationNode))
+        {
+            return false;
+        }
+        OperationNode op = (OperationNode) node;
+        return (op.getOperation() == TokenType.AND ||
+                op.getOperation() == TokenType.OR) &&
+                isCondition(op.getLeft()) && isCondition(op.getRight());
+    }
+
+    /**
+     * Checks to see if a statement does nothing.
+     *
+     * @param node - The statement.
+     * @return - True if it is missing or an empty compound statement.
+     */
+    private static boolean isEmpty(StatementNode node)
+    {
+        return node == null || (node instanceof CompoundStatementNode &&
+                ((CompoundStatementNode) node).getStatements().isEmpty());
+    }
+}
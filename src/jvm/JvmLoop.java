@@ -0,0 +1,69 @@
+package jvm;
+
+import syntaxtree.ProgramNode;
+import syntaxtree.WhileStatementNode;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+
+/**
+ * This class runs one while loop of a pascal program in the JVM that is
+ * running the compiler, so an Interpreter can hand a loop that has
+ * turned out to be hot over to HotSpot. The loop is lowered by the
+ * genLoop of a JvmCodeGeneration and defined as a hidden class, like a
+ * JvmProgram is. The integer variables of the program are passed in an
+ * int[], in the order of their names, and the loop reads them when it
+ * starts and writes them back when it stops, so it can start in the
+ * middle of the loop the Interpreter was running, and the Interpreter
+ * goes on with the values the loop left.
+ *
+ * @author Marissa Allen
+ */
+public class JvmLoop
+{
+    private MethodHandle loop;
+
+    /**
+     * JvmLoop constructor that takes in the loop to run and defines its
+     * class. A loop the JVM code generator doesn't support, like one that
+     * uses a real number, is reported with a RuntimeException.
+     *
+     * @param program - The ProgramNode the loop is in.
+     * @param loop - The while loop.
+     * @param variables - The names of the integer variables, in the
+     * order of the int[] they are passed in.
+     */
+    public JvmLoop(ProgramNode program, WhileStatementNode loop,
+                   String[] variables)
+    {
+        this.loop = JvmProgram.find(JvmProgram.define(
+                new JvmCodeGeneration(program).genLoop(loop, variables)),
+                "loop", MethodType.methodType(boolean.class,
+                        PascalIO.class, int[].class));
+    }
+
+    /**
+     * Runs the loop from its test until the test is false.
+     *
+     * @param io - The PascalIO the loop reads from and prints to.
+     * @param variables - The values of the integer variables, which are
+     * changed to the values they have when the loop stops.
+     * @return - True if a return statement in the loop stopped the
+     * program.
+     */
+    public boolean run(PascalIO io, int[] variables)
+    {
+        try
+        {
+            return (boolean) loop.invokeExact(io, variables);
+        }
+        catch (RuntimeException | Error ex)
+        {
+            throw ex;
+        }
+        catch (Throwable ex)
+        {
+            throw new RuntimeException("The loop failed", ex);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package jvm;
+
+import syntaxtree.ProgramNode;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * This class runs a pascal program in the JVM that is running the
+ * compiler. The class file a JvmCodeGeneration writes for the program is
+ * defined as a hidden class, which has no name any other class can find
+ * it by, and is unloaded once the JvmProgram is no longer used, so a
+ * program can be compiled and run again and again without filling up
+ * the JVM with classes. The JVM verifies the class when it is defined,
+ * and a class it can't accept is reported with a RuntimeException.
+ *
+ * The first runs of a program are interpreted by the JVM, and the loops
+ * that run the most are then compiled into machine code by HotSpot.
+ *
+ * @author Marissa Allen
+ */
+public class JvmProgram
+{
+    private MethodHandles.Lookup lookup;
+    private MethodHandle run;
+
+    /**
+     * JvmProgram constructor that takes in the program to run and
+     * defines its class.
+     *
+     * @param program - The ProgramNode.
+     */
+    public JvmProgram(ProgramNode program)
+    {
+        this(new JvmCodeGeneration(program).genClass());
+    }
+
+    /**
+     * JvmProgram constructor that takes in a class file written by a
+     * JvmCodeGeneration and defines it.
+     *
+     * @param classBytes - The bytes of the class file.
+     */
+    public JvmProgram(byte[] classBytes)
+    {
+        lookup = define(classBytes);
+        run = find(lookup, "run",
+                MethodType.methodType(void.class, PascalIO.class));
+    }
+
+    /**
+     * Defines a class file as a hidden class in the jvm package.
+     *
+     * @param classBytes - The bytes of the class file.
+     * @return - The Lookup of the class.
+     */
+    static MethodHandles.Lookup define(byte[] classBytes)
+    {
+        try
+        {
+            return MethodHandles.lookup().defineHiddenClass(classBytes,
+                    true);
+        }
+        catch (IllegalAccessException | LinkageError ex)
+        {
+            throw new RuntimeException("The JVM can't load the program: " +
+                    ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Finds a static method of a hidden class.
+     *
+     * @param lookup - The Lookup of the class.
+     * @param name - The name of the method.
+     * @param type - The type of the method.
+     * @return - The MethodHandle of the method.
+     */
+    static MethodHandle find(MethodHandles.Lookup lookup, String name,
+                             MethodType type)
+    {
+        try
+        {
+            return lookup.findStatic(lookup.lookupClass(), name, type);
+        }
+        catch (IllegalAccessException | NoSuchMethodException ex)
+        {
+            throw new RuntimeException("The JVM can't load the program: " +
+                    ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Runs the program, and then flushes its output.
+     *
+     * @param io - The PascalIO the program reads from and prints to.
+     */
+    public void run(PascalIO io)
+    {
+        try
+        {
+            run.invokeExact(io);
+        }
+        catch (RuntimeException | Error ex)
+        {
+            throw ex;
+        }
+        catch (Throwable ex)
+        {
+            throw new RuntimeException("The program failed", ex);
+        }
+        finally
+        {
+            io.flush();
+        }
+    }
+
+    /**
+     * Returns the value a variable of the program has now.
+     *
+     * @param name - The name of the variable.
+     * @return - The value of the variable.
+     */
+    public int getVariable(String name)
+    {
+        try
+        {
+            return (int) lookup.findStaticVarHandle(lookup.lookupClass(),
+                    name, int.class).get();
+        }
+        catch (NoSuchFieldException | IllegalAccessException ex)
+        {
+            throw new RuntimeException("The program has no variable " +
+                    name, ex);
+        }
+    }
+}
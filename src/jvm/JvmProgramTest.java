@@ -0,0 +1,150 @@
+package jvm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import parser.Parser;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * A JUnit Java class that illustrates lowering a pascal program into a
+ * JVM class, and running it in the JVM of the compiler.
+ *
+ * @author Marissa Allen
+ */
+public class JvmProgramTest
+{
+    private static final String TEST = "program foo;\n" +
+            "var fee, fi, fo: integer;\n" +
+            "begin\n" +
+            "read(fee);\n" +
+            "fi := 0;\n" +
+            "fo := 0;\n" +
+            "while fee > 0 do\n" +
+            "begin\n" +
+            "fi := fi + fee * 3;\n" +
+            "fo := fo + fee mod 4;\n" +
+            "fee := fee - 1\n" +
+            "end;\n" +
+            "write(fi);\n" +
+            "write(fo < fi)\n" +
+            "end\n" +
+            ".\n";
+
+    /**
+     * Runs a program with the given input.
+     *
+     * @param program - The JvmProgram.
+     * @param input - The input of the program.
+     * @return - What the program printed.
+     */
+    private String run(JvmProgram program, String input)
+    {
+        StringWriter output = new StringWriter();
+        program.run(new PascalIO(new StringReader(input), output));
+        return output.toString();
+    }
+
+    /**
+     * This method tests running a program on the JVM. It prints the same
+     * thing it prints in the Simulator, 165 and then 1 since fo, the sum
+     * of fee mod 4, is 15, which is less. The class can be run again.
+     * This is a text string test.
+     */
+    @Test
+    public void testRun()
+    {
+        System.out.println("\n" + "############" + "\n" +
+                "# Test run #" + "\n" +
+                "############" + "\n");
+
+        JvmProgram program = new JvmProgram(
+                new Parser(TEST, false).program());
+        assertEquals("1651", run(program, "10\n"));
+        assertEquals(0, program.getVariable("fee"));
+        assertEquals(15, program.getVariable("fo"));
+        assertEquals("31", run(program, "1\n"));
+        System.out.println(run(program, "1000\n"));
+    }
+
+    /**
+     * This method tests the errors of a program. A div by zero throws an
+     * ArithmeticException, input that runs out is reported with a
+     * RuntimeException, and so are a real number and a /, which aren't
+     * supported by the JVM code generator.
+     */
+    @Test
+    public void testErrors()
+    {
+        System.out.println("\n" + "###############" + "\n" +
+                "# Test errors #" + "\n" +
+                "###############" + "\n");
+
+        JvmProgram program = new JvmProgram(new Parser("program foo;\n" +
+                "var fee, fi: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "fi := 7 div fee;\n" +
+                "write(fi)\n" +
+                "end\n" +
+                ".\n", false).program());
+        assertEquals("3", run(program, "2\n"));
+        try
+        {
+            run(program, "0\n");
+            fail("A div by zero didn't throw.");
+        }
+        catch (ArithmeticException ex)
+        {
+            System.out.println(ex.getMessage());
+        }
+
+        //Negative test, the input ran out.
+        try
+        {
+            run(program, "");
+            fail("A read past the input didn't throw.");
+        }
+        catch (RuntimeException ex)
+        {
+            System.out.println(ex.getMessage());
+        }
+
+        //Negative test, real numbers aren't supported.
+        try
+        {
+            new JvmCodeGeneration(new Parser("program foo;\n" +
+                    "var fee: real;\n" +
+                    "begin\n" +
+                    "fee := 2.5\n" +
+                    "end\n" +
+                    ".\n", false).program()).genClass();
+            fail("A real number was lowered.");
+        }
+        catch (RuntimeException ex)
+        {
+            assertTrue(ex.getMessage().startsWith("The JVM code generator"));
+            System.out.println(ex.getMessage());
+        }
+
+        //Negative test, a / gives a real, so it isn't supported either.
+        try
+        {
+            new JvmCodeGeneration(new Parser("program foo;\n" +
+                    "var fee: integer;\n" +
+                    "begin\n" +
+                    "write(fee / 2)\n" +
+                    "end\n" +
+                    ".\n", false).program()).genClass();
+            fail("A / was lowered.");
+        }
+        catch (RuntimeException ex)
+        {
+            assertTrue(ex.getMessage().startsWith("The JVM code generator"));
+            System.out.println(ex.getMessage());
+        }
+    }
+}
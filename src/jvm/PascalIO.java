@@ -0,0 +1,169 @@
+package jvm;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * This class is the input and output of a pascal program run on the JVM.
+ * The code a JvmCodeGeneration writes calls read and write on it, the way
+ * the MIPS code makes syscall 5 and syscall 1:
+ * - read reads one line of input as an integer;
+ * - write prints an integer, with nothing after it.
+ * readReal and the write of a double do the same for real numbers, for
+ * the backends that support them.
+ *
+ * Both sides are buffered, so a program that reads or writes a lot of
+ * numbers doesn't go to the system for each one. The output is flushed
+ * when the program is done. Input that runs out, or isn't a number, is
+ * reported with a RuntimeException.
+ *
+ * @author Marissa Allen
+ */
+public final class PascalIO
+{
+    private BufferedReader input;
+    private Writer output;
+
+    /**
+     * PascalIO constructor that takes in where the program reads from and
+     * where it writes to.
+     *
+     * @param input - The Reader the program reads from.
+     * @param output - The Writer the program prints to.
+     */
+    public PascalIO(Reader input, Writer output)
+    {
+        this.input = input instanceof BufferedReader ?
+                (BufferedReader) input : new BufferedReader(input);
+        this.output = output instanceof BufferedWriter ?
+                output : new BufferedWriter(output);
+    }
+
+    /**
+     * Makes a PascalIO over the standard input and output.
+     *
+     * @return - The PascalIO of the console.
+     */
+    public static PascalIO console()
+    {
+        return new PascalIO(new InputStreamReader(System.in),
+                new OutputStreamWriter(System.out));
+    }
+
+    /**
+     * Reads a line of input as an integer.
+     *
+     * @return - The integer.
+     */
+    public int read()
+    {
+        String line = readLine();
+        try
+        {
+            return Integer.parseInt(line.trim());
+        }
+        catch (NumberFormatException ex)
+        {
+            throw new RuntimeException("The input " + line +
+                    " is not an integer");
+        }
+    }
+
+    /**
+     * Reads a line of input as a real number.
+     *
+     * @return - The real number.
+     */
+    public double readReal()
+    {
+        String line = readLine();
+        try
+        {
+            return Double.parseDouble(line.trim());
+        }
+        catch (NumberFormatException ex)
+        {
+            throw new RuntimeException("The input " + line +
+                    " is not a number");
+        }
+    }
+
+    /**
+     * Reads a line of input, after writing out the output so far, so a
+     * prompt is seen before the program waits.
+     *
+     * @return - The line.
+     */
+    private String readLine()
+    {
+        String line;
+        try
+        {
+            flush();
+            line = input.readLine();
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Failed to read the input", ex);
+        }
+        if (line == null)
+        {
+            throw new RuntimeException("The input ran out");
+        }
+        return line;
+    }
+
+    /**
+     * Prints an integer.
+     *
+     * @param value - The integer.
+     */
+    public void write(int value)
+    {
+        try
+        {
+            output.write(Integer.toString(value));
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Failed to write the output", ex);
+        }
+    }
+
+    /**
+     * Prints a real number.
+     *
+     * @param value - The real number.
+     */
+    public void write(double value)
+    {
+        try
+        {
+            output.write(Double.toString(value));
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Failed to write the output", ex);
+        }
+    }
+
+    /**
+     * Writes out whatever output is still buffered.
+     */
+    public void flush()
+    {
+        try
+        {
+            output.flush();
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Failed to write the output", ex);
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package optimizer;
+
+import parser.TypeEnum;
+import scanner.TokenType;
+import syntaxtree.*;
+
+import java.util.ArrayList;
+
+/**
+ * This class folds the constant parts of the expressions in a syntax
+ * tree before code is generated for it. An OperationNode whose children
+ * are both ValueNodes is replaced by a single ValueNode holding the
+ * answer, so 3 * 4 + fee becomes 12 + fee. Operations with one constant
+ * operand are simplified with algebraic identities, so fee + 0,
+ * fee * 1 and fee - fee become fee, fee and 0. An identity that throws
+ * an operand away, such as x * 0, is only used when x has no +, -, div
+ * or mod in it, since the MIPS code for x could trap.
+ *
+ * Integer operations are folded the way the MIPS code would compute
+ * them, and are left alone when the MIPS code would trap or has no
+ * defined answer, such as an add that overflows or a div by zero.
+ * Real operations are folded with doubles, and identities that are not
+ * exact for every real, such as x * 0 when x could be infinite, are
+ * only used for integers.
+ *
+ * @author Marissa Allen
+ */
+public class ConstantFolder
+{
+    private int folded = 0;
+
+    /**
+     * Folds the constant expressions in every statement of a program.
+     *
+     * @param program - The ProgramNode to fold, after its types have
+     * been assigned by the SemanticAnalyzer.
+     */
+    public void fold(ProgramNode program)
+    {
+        fold(program.getMain());
+    }
+
+    /**
+     * Folds the constant expressions in a statement and the statements
+     * inside of it.
+     *
+     * @param statement - A StatementNode that is either a
+     * CompoundStatementNode, AssignmentStatementNode, IfStatementNode,
+     * WhileStatementNode, WriteStatementNode, ReadStatementNode, or
+     * ReturnStatementNode.
+     */
+    public void fold(StatementNode statement)
+    {
+        if (statement instanceof CompoundStatementNode)
+        {
+            ArrayList<StatementNode> sn =
+                    ((CompoundStatementNode) statement).getStatements();
+            for (StatementNode s : sn)
+            {
+                fold(s);
+            }
+        }
+        else if (statement instanceof AssignmentStatementNode)
+        {
+            AssignmentStatementNode asn =
+                    (AssignmentStatementNode) statement;
+            asn.setExpression(fold(asn.getExpression()));
+        }
+        else if (statement instanceof IfStatementNode)
+        {
+            IfStatementNode ifNode = (IfStatementNode) statement;
+            ifNode.setTest(fold(ifNode.getTest()));
+            fold(ifNode.getThenStatement());
+            fold(ifNode.getElseStatement());
+        }
+        else if (statement instanceof WhileStatementNode)
+        {
+            WhileStatementNode whileNode = (WhileStatementNode) statement;
+            whileNode.setWhileTest(fold(whileNode.getWhileTest()));
+            fold(whileNode.getStatement());
+        }
+        else if (statement instanceof WriteStatementNode)
+        {
+            WriteStatementNode writeNode = (WriteStatementNode) statement;
+            writeNode.setWriteTest(fold(writeNode.getWriteTest()));
+        }
+        else if (statement instanceof ReturnStatementNode)
+        {
+            ReturnStatementNode returnNode =
+                    (ReturnStatementNode) statement;
+            returnNode.setReturnTest(fold(returnNode.getReturnTest()));
+        }
+    }
+
+    /**
+     * Folds an expression. The children of an OperationNode are folded
+     * first, so constants are folded from the bottom of the tree up.
+     *
+     * @param node - The expression to fold.
+     * @return - The folded expression, which is either the node that was
+     * passed in or the node that replaces it.
+     */
+    public ExpressionNode fold(ExpressionNode node)
+    {
+        if (!(node instanceof OperationNode))
+        {
+            return node;
+        }
+        OperationNode op = (OperationNode) node;
+        op.setLeft(fold(op.getLeft()));
+        op.setRight(fold(op.getRight()));
+
+        ExpressionNode answer;
+        if (op.getLeft() instanceof ValueNode &&
+                op.getRight() instanceof ValueNode)
+        {
+            answer = foldValues(op, (ValueNode) op.getLeft(),
+                    (ValueNode) op.getRight());
+        }
+        else
+        {
+            answer = simplify(op);
+        }
+        if (answer != op)
+        {
+            folded++;
+        }
+        return answer;
+    }
+
+    /**
+     * Returns how many operations have been folded or simplified away.
+     *
+     * @return - The number of OperationNodes that were replaced.
+     */
+    public int getFoldCount()
+    {
+        return folded;
+    }
+
+    /**
+     * Computes an operation whose operands are both values.
+     *
+     * @param op - The operation.
+     * @param left - The left value.
+     * @param right - The right value.
+     * @return - A ValueNode holding the answer, or the operation itself
+     * if it can't be folded.
+     */
+    private ExpressionNode foldValues(OperationNode op, ValueNode left,
+                                      ValueNode right)
+    {
+        TypeEnum type = typeOf(op);
+        TokenType kindOfOp = op.getOperation();
+        if (type == TypeEnum.INTEGER_TYPE && kindOfOp != TokenType.FSLASH)
+        {
+            Integer a = intValue(left);
+            Integer b = intValue(right);
+            if (a == null || b == null)
+            {
+                return op;
+            }
+            Integer answer = foldInteger(kindOfOp, a, b);
+            return answer == null ? op :
+                    value(Integer.toString(answer), TypeEnum.INTEGER_TYPE);
+        }
+        Double a = realValue(left);
+        Double b = realValue(right);
+        if (a == null || b == null)
+        {
+            return op;
+        }
+        Double answer = foldReal(kindOfOp, a, b);
+        return answer == null ? op :
+                value(Double.toString(answer), TypeEnum.REAL_TYPE);
+    }
+
+    /**
+     * Computes an integer operation the way the MIPS code would.
+     * add and sub trap on overflow and div has no answer for a zero
+     * divisor or for the smallest integer divided by -1, so those are
+     * not folded. mult keeps the low 32 bits, as mflo does.
+     *
+     * @param kindOfOp - The operator.
+     * @param a - The left operand.
+     * @param b - The right operand.
+     * @return - The answer, or null if the operation can't be folded.
+     */
+    private Integer foldInteger(TokenType kindOfOp, int a, int b)
+    {
+        try
+        {
+            switch (kindOfOp)
+            {
+                case PLUS:
+                    return Math.addExact(a, b);
+                case MINUS:
+                    return Math.subtractExact(a, b);
+                case MULTI:
+                    return a * b;
+                case DIV:
+                    return divisible(a, b) ? a / b : null;
+                case MOD:
+                    return divisible(a, b) ? a % b : null;
+                case AND:
+                    return a & b;
+                case OR:
+                    return a | b;
+                default:
+                    //Relational operators are left for the branches.
+                    return null;
+            }
+        }
+        catch (ArithmeticException ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Computes a real operation.
+     *
+     * @param kindOfOp - The operator.
+     * @param a - The left operand.
+     * @param b - The right operand.
+     * @return - The answer, or null if the operation can't be folded.
+     */
+    private Double foldReal(TokenType kindOfOp, double a, double b)
+    {
+        switch (kindOfOp)
+        {
+            case PLUS:
+                return a + b;
+            case MINUS:
+                return a - b;
+            case MULTI:
+                return a * b;
+            case FSLASH:
+                return b == 0 ? null : a / b;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Simplifies an operation with one constant operand using algebraic
+     * identities. An identity that returns one of the operands is only
+     * used when that operand has the same type as the operation.
+     *
+     * @param op - The operation to simplify.
+     * @return - The simplified expression, or the operation itself if no
+     * identity applies.
+     */
+    private ExpressionNode simplify(OperationNode op)
+    {
+        ExpressionNode left = op.getLeft();
+        ExpressionNode right = op.getRight();
+        TypeEnum type = typeOf(op);
+        boolean integer = type == TypeEnum.INTEGER_TYPE;
+        switch (op.getOperation())
+        {
+            case PLUS:
+                //0 + x is not x for a real x of -0.0, so only integers.
+                if (integer && isValue(right, 0) && sameType(left, type))
+                {
+                    return left;
+                }
+                if (integer && isValue(left, 0) && sameType(right, type))
+                {
+                    return right;
+                }
+                break;
+            case MINUS:
+                if (isValue(right, 0) && sameType(left, type))
+                {
+                    return left;
+                }
+                if (integer && left.equals(right) && !canTrap(left))
+                {
+                    return value("0", type);
+                }
+                break;
+            case MULTI:
+                if (isValue(right, 1) && sameType(left, type))
+                {
+                    return left;
+                }
+                if (isValue(left, 1) && sameType(right, type))
+                {
+                    return right;
+                }
+                if (integer && ((isValue(left, 0) && !canTrap(right)) ||
+                        (isValue(right, 0) && !canTrap(left))))
+                {
+                    return value("0", type);
+                }
+                break;
+            case DIV:
+            case FSLASH:
+                if (isValue(right, 1) && sameType(left, type))
+                {
+                    return left;
+                }
+                break;
+            case MOD:
+                if (integer && isValue(right, 1) && !canTrap(left))
+                {
+                    return value("0", type);
+                }
+                break;
+            default:
+                break;
+        }
+        return op;
+    }
+
+    /**
+     * Checks to see if the MIPS code for an integer expression could
+     * trap, because it has an add or sub that could overflow, or a div
+     * or mod that could divide by zero.
+     *
+     * @param node - The expression.
+     * @return - True if the expression has a +, -, div or mod in it.
+     */
+    private boolean canTrap(ExpressionNode node)
+    {
+        if (!(node instanceof OperationNode))
+        {
+            return false;
+        }
+        OperationNode op = (OperationNode) node;
+        switch (op.getOperation())
+        {
+            case PLUS:
+            case MINUS:
+            case DIV:
+            case MOD:
+                return true;
+            default:
+                return canTrap(op.getLeft()) || canTrap(op.getRight());
+        }
+    }
+
+    /**
+     * Finds the type of an expression. Expressions that haven't been
+     * through the SemanticAnalyzer are typed the same way it would type
+     * them.
+     *
+     * @param node - The expression.
+     * @return - The real or integer TypeEnum.
+     */
+    private TypeEnum typeOf(ExpressionNode node)
+    {
+        if (node.getType() != null)
+        {
+            return node.getType();
+        }
+        if (node instanceof ValueNode)
+        {
+            return isRealLiteral(((ValueNode) node).getAttribute()) ?
+                    TypeEnum.REAL_TYPE :
+                    TypeEnum.INTEGER_TYPE;
+        }
+        if (node instanceof OperationNode)
+        {
+            OperationNode op = (OperationNode) node;
+            if (typeOf(op.getLeft()) == TypeEnum.REAL_TYPE ||
+                    typeOf(op.getRight()) == TypeEnum.REAL_TYPE)
+            {
+                return TypeEnum.REAL_TYPE;
+            }
+            return TypeEnum.INTEGER_TYPE;
+        }
+        return null;
+    }
+
+    /**
+     * Checks to see if an operand has the type of the operation it is
+     * part of, so it can stand in for the whole operation.
+     *
+     * @param node - The operand.
+     * @param type - The type of the operation.
+     * @return - True if the types match.
+     */
+    private boolean sameType(ExpressionNode node, TypeEnum type)
+    {
+        return typeOf(node) == type;
+    }
+
+    /**
+     * Checks to see if an expression is a ValueNode holding a number.
+     *
+     * @param node - The expression.
+     * @param number - The number to look for.
+     * @return - True if the node is a value equal to the number.
+     */
+    private boolean isValue(ExpressionNode node, int number)
+    {
+        if (node instanceof ValueNode)
+        {
+            Double value = realValue((ValueNode) node);
+            return value != null && value == number;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the integer held by a ValueNode.
+     *
+     * @param node - The ValueNode.
+     * @return - The integer, or null if it is a real or doesn't fit in
+     * 32 bits.
+     */
+    private Integer intValue(ValueNode node)
+    {
+        if (isRealLiteral(node.getAttribute()))
+        {
+            return null;
+        }
+        try
+        {
+            return Integer.parseInt(node.getAttribute());
+        }
+        catch (NumberFormatException ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the number held by a ValueNode as a real.
+     *
+     * @param node - The ValueNode.
+     * @return - The number, or null if it can't be read.
+     */
+    private Double realValue(ValueNode node)
+    {
+        try
+        {
+            return Double.parseDouble(node.getAttribute());
+        }
+        catch (NumberFormatException ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Checks to see if a number is written as a real, the same way the
+     * SemanticAnalyzer does.
+     *
+     * @param number - The number as it is written.
+     * @return - True if the number is a real.
+     */
+    private boolean isRealLiteral(String number)
+    {
+        return number.contains(".") || number.contains("e") ||
+                number.contains("E");
+    }
+
+    /**
+     * Checks to see if an integer division has a defined answer.
+     *
+     * @param a - The dividend.
+     * @param b - The divisor.
+     * @return - False for a zero divisor and for the smallest integer
+     * divided by -1.
+     */
+    private boolean divisible(int a, int b)
+    {
+        return b != 0 && !(a == Integer.MIN_VALUE && b == -1);
+    }
+
+    /**
+     * Creates a typed ValueNode.
+     *
+     * @param attribute - The number the node holds.
+     * @param type - The type of the number.
+     * @return - The new ValueNode.
+     */
+    private ValueNode value(String attribute, TypeEnum type)
+    {
+        ValueNode answer = new ValueNode(attribute);
+        answer.setType(type);
+        return answer;
+    }
+}
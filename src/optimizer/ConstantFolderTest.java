@@ -0,0 +1,207 @@
+package optimizer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import analysis.SemanticAnalyzer;
+import parser.Parser;
+import parser.SymbolTable;
+import parser.TypeEnum;
+import syntaxtree.*;
+
+/**
+ * A JUnit Java class that illustrates folding the constant parts of
+ * expressions and simplifying operations with algebraic identities.
+ *
+ * @author Marissa Allen
+ */
+public class ConstantFolderTest
+{
+    /* This method uses JUnit to test the fold method from the
+     * ConstantFolder class by folding typed expressions and comparing
+     * the indentedToString of the folded tree.
+     */
+    @Test
+    public void testFold()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test fold         #" + "\n" +
+                "#####################" + "\n");
+
+        SymbolTable st = new SymbolTable();
+        st.addVarName("fee", TypeEnum.INTEGER_TYPE);
+        st.addVarName("fie", TypeEnum.REAL_TYPE);
+
+        //Positive test, constant subtree folded from the bottom up.
+        String expected = "Operation: PLUS INTEGER_TYPE\n" +
+                "|-- Value: 12 INTEGER_TYPE\n" +
+                "|-- Variable Name: fee INTEGER_TYPE\n";
+        String actual = fold("3 * 4 + fee", st);
+        assertEquals(expected, actual);
+        System.out.println("The folded expression for 3 * 4 + fee: ");
+        System.out.println(actual);
+
+        //Positive test, nested constants fold to one value.
+        expected = "Value: 1 INTEGER_TYPE\n";
+        actual = fold("(7 + 8) div 2 mod 3", st);
+        assertEquals(expected, actual);
+
+        //Positive test, reals are folded with doubles.
+        expected = "Value: 2.5 REAL_TYPE\n";
+        actual = fold("5 / 2", st);
+        assertEquals(expected, actual);
+        expected = "Operation: MULTI REAL_TYPE\n" +
+                "|-- Value: 3.0 REAL_TYPE\n" +
+                "|-- Variable Name: fie REAL_TYPE\n";
+        actual = fold("(1.5 + 1.5) * fie", st);
+        assertEquals(expected, actual);
+
+        //Negative test, div by zero is left for the program to trap.
+        expected = "Operation: DIV INTEGER_TYPE\n" +
+                "|-- Value: 4 INTEGER_TYPE\n" +
+                "|-- Value: 0 INTEGER_TYPE\n";
+        actual = fold("4 div 0", st);
+        assertEquals(expected, actual);
+
+        //Negative test, an add that overflows is not folded.
+        expected = "Operation: PLUS INTEGER_TYPE\n" +
+                "|-- Value: 2147483647 INTEGER_TYPE\n" +
+                "|-- Value: 1 INTEGER_TYPE\n";
+        actual = fold("2147483647 + 1", st);
+        assertEquals(expected, actual);
+
+        //Negative test, relational operators are left alone.
+        expected = "Operation: LTHAN INTEGER_TYPE\n" +
+                "|-- Value: 1 INTEGER_TYPE\n" +
+                "|-- Value: 2 INTEGER_TYPE\n";
+        actual = fold("1 < 2", st);
+        assertEquals(expected, actual);
+    }
+
+    /* This method uses JUnit to test the algebraic identities used by
+     * the fold method from the ConstantFolder class.
+     */
+    @Test
+    public void testIdentities()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test identities   #" + "\n" +
+                "#####################" + "\n");
+
+        SymbolTable st = new SymbolTable();
+        st.addVarName("fee", TypeEnum.INTEGER_TYPE);
+        st.addVarName("fie", TypeEnum.REAL_TYPE);
+
+        //Positive tests, integer identities.
+        String expected = "Variable Name: fee INTEGER_TYPE\n";
+        assertEquals(expected, fold("fee + 0", st));
+        assertEquals(expected, fold("0 + fee", st));
+        assertEquals(expected, fold("fee * 1", st));
+        assertEquals(expected, fold("fee - (2 - 2)", st));
+        expected = "Value: 0 INTEGER_TYPE\n";
+        assertEquals(expected, fold("fee * 0", st));
+        assertEquals(expected, fold("fee - fee", st));
+        assertEquals(expected, fold("(fee * 3) * 0", st));
+        assertEquals(expected, fold("fee mod 1", st));
+        System.out.println("Simplified fee + 0, fee * 1, fee * 0, " +
+                "fee - fee");
+
+        //Negative tests, an operand that could trap isn't thrown away.
+        expected = "Operation: MULTI INTEGER_TYPE\n" +
+                "|-- Operation: PLUS INTEGER_TYPE\n" +
+                "|-- --- Variable Name: fee INTEGER_TYPE\n" +
+                "|-- --- Variable Name: fee INTEGER_TYPE\n" +
+                "|-- Value: 0 INTEGER_TYPE\n";
+        assertEquals(expected, fold("(fee + fee) * 0", st));
+        expected = "Operation: MINUS INTEGER_TYPE\n" +
+                "|-- Operation: PLUS INTEGER_TYPE\n" +
+                "|-- --- Variable Name: fee INTEGER_TYPE\n" +
+                "|-- --- Value: 1 INTEGER_TYPE\n" +
+                "|-- Operation: PLUS INTEGER_TYPE\n" +
+                "|-- --- Variable Name: fee INTEGER_TYPE\n" +
+                "|-- --- Value: 1 INTEGER_TYPE\n";
+        assertEquals(expected, fold("(fee + 1) - (fee + 1)", st));
+        expected = "Operation: MOD INTEGER_TYPE\n" +
+                "|-- Operation: DIV INTEGER_TYPE\n" +
+                "|-- --- Value: 1 INTEGER_TYPE\n" +
+                "|-- --- Variable Name: fee INTEGER_TYPE\n" +
+                "|-- Value: 1 INTEGER_TYPE\n";
+        assertEquals(expected, fold("1 div fee mod 1", st));
+
+        //Positive tests, real identities that are exact.
+        expected = "Variable Name: fie REAL_TYPE\n";
+        assertEquals(expected, fold("fie * 1", st));
+        assertEquals(expected, fold("fie - 0", st));
+        assertEquals(expected, fold("fie / 1", st));
+
+        //Negative tests, real identities that are not exact.
+        expected = "Operation: MULTI REAL_TYPE\n" +
+                "|-- Variable Name: fie REAL_TYPE\n" +
+                "|-- Value: 0 INTEGER_TYPE\n";
+        assertEquals(expected, fold("fie * 0", st));
+        expected = "Operation: MINUS REAL_TYPE\n" +
+                "|-- Variable Name: fie REAL_TYPE\n" +
+                "|-- Variable Name: fie REAL_TYPE\n";
+        assertEquals(expected, fold("fie - fie", st));
+
+        //Negative test, an integer can't stand in for a real operation.
+        expected = "Operation: MULTI REAL_TYPE\n" +
+                "|-- Variable Name: fee INTEGER_TYPE\n" +
+                "|-- Value: 1.0 REAL_TYPE\n";
+        assertEquals(expected, fold("fee * 1.0", st));
+    }
+
+    /* This method uses JUnit to test the fold method from the
+     * ConstantFolder class on the statements of a program.
+     */
+    @Test
+    public void testFoldProgram()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test fold program #" + "\n" +
+                "#####################" + "\n");
+
+        Parser parser = new Parser("program foo; var fee : integer; " +
+                "begin fee := 2 * 3; while fee < 10 + 10 do " +
+                "fee := fee + 1 * 1 end.", false);
+        ProgramNode pn = parser.program();
+        SemanticAnalyzer sa =
+                new SemanticAnalyzer(pn, parser.getSymbolTable());
+        sa.analyze();
+        ConstantFolder folder = new ConstantFolder();
+        folder.fold(pn);
+        String expected = "Compound Statement\n" +
+                "|-- Assignment\n" +
+                "|-- --- Variable Name: fee INTEGER_TYPE\n" +
+                "|-- --- Value: 6 INTEGER_TYPE\n" +
+                "|-- While\n" +
+                "|-- --- Operation: LTHAN INTEGER_TYPE\n" +
+                "|-- --- --- Variable Name: fee INTEGER_TYPE\n" +
+                "|-- --- --- Value: 20 INTEGER_TYPE\n" +
+                "|-- --- Assignment\n" +
+                "|-- --- --- Variable Name: fee INTEGER_TYPE\n" +
+                "|-- --- --- Operation: PLUS INTEGER_TYPE\n" +
+                "|-- --- --- --- Variable Name: fee INTEGER_TYPE\n" +
+                "|-- --- --- --- Value: 1 INTEGER_TYPE\n";
+        String actual = pn.getMain().indentedToString(0);
+        assertEquals(expected, actual);
+        assertEquals(3, folder.getFoldCount());
+        System.out.println(actual);
+    }
+
+    /**
+     * Parses an expression, types it and folds it.
+     *
+     * @param expression - The expression to fold.
+     * @param st - The symbol table the variables are declared in.
+     * @return - The indentedToString of the folded expression.
+     */
+    private String fold(String expression, SymbolTable st)
+    {
+        Parser parser = new Parser(expression, false);
+        ExpressionNode test = parser.expression();
+        new SemanticAnalyzer(null, st).assignExpressionType(test);
+        return new ConstantFolder().fold(test).indentedToString(0);
+    }
+}
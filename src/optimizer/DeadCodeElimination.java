@@ -0,0 +1,300 @@
+package optimizer;
+
+import ir.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This pass removes the code of a program that can't change what it
+ * writes. It is done in four steps, over and over until none of them
+ * changes anything:
+ * - An operation on two constants is replaced by its value, so
+ *   1 + 1 = 2 becomes a constant too. A + or - that overflows is left
+ *   alone, like ConstantFolder leaves it, since the MIPS add or sub
+ *   traps.
+ * - A branch on two constants becomes a jump when it is taken and is
+ *   removed when it isn't, so an if with a constant test keeps only
+ *   one arm, and a while whose test is false at first never runs.
+ * - The blocks that can't be reached anymore are removed, along with
+ *   jumps to the very next label and labels nothing goes to.
+ * - A load, an operation or a store whose result isn't live afterwards
+ *   is removed, as Liveness finds it, so a store whose value is written
+ *   over before it is read is dropped.
+ *
+ * A read() is never removed, since it takes input even when its value
+ * is never used. A div or mod is only removed when it can't divide by
+ * zero, and a + or - only when it adds constants that don't overflow,
+ * since the program would have stopped there.
+ *
+ * @author Marissa Allen
+ */
+public class DeadCodeElimination implements IrPass
+{
+    private int removed = 0;
+
+    /**
+     * Returns the name the pass is reported under.
+     *
+     * @return - The name of the pass.
+     */
+    @Override
+    public String getName()
+    {
+        return "dead code elimination";
+    }
+
+    /**
+     * Returns how many Quads have been removed or folded by this pass.
+     *
+     * @return - The number of Quads.
+     */
+    public int getRemovedCount()
+    {
+        return removed;
+    }
+
+    /**
+     * Removes dead code until there is none left.
+     *
+     * @param program - The IrProgram to optimize.
+     * @return - True if the program was changed.
+     */
+    @Override
+    public boolean run(IrProgram program)
+    {
+        boolean changed = false;
+        boolean again = true;
+        while (again)
+        {
+            again = fold(program);
+            again |= removeUnreachable(program);
+            again |= removeDead(program);
+            changed |= again;
+        }
+        return changed;
+    }
+
+    /**
+     * Replaces operations on constants with their values, and branches
+     * on constants with a jump or nothing.
+     *
+     * @param program - The IrProgram.
+     * @return - True if any Quad was changed.
+     */
+    private boolean fold(IrProgram program)
+    {
+        Map<Temp, Integer> constants = program.findConstants();
+        boolean changed = false;
+        boolean branched = false;
+        for (BasicBlock block : program.getBlocks())
+        {
+            List<Quad> quads = block.getQuads();
+            for (int index = 0; index < quads.size(); index++)
+            {
+                Quad quad = quads.get(index);
+                if (quad.getKind() != Kind.BINARY &&
+                        quad.getKind() != Kind.BRANCH)
+                {
+                    continue;
+                }
+                Integer left = constantOf(quad.getLeft(), constants);
+                Integer right = constantOf(quad.getRight(), constants);
+                if (left == null || right == null ||
+                        (right == 0 && (quad.getOp() == Operator.DIV ||
+                        quad.getOp() == Operator.MOD)) ||
+                        overflows(quad.getOp(), left, right))
+                {
+                    continue;
+                }
+                int value = quad.getOp().apply(left, right);
+                if (quad.getKind() == Kind.BINARY)
+                {
+                    quads.set(index, Quad.copy(quad.getResult(),
+                            new Const(value)));
+                }
+                else if (value != 0)
+                {
+                    quads.set(index, Quad.jump(quad.getLabel()));
+                    branched = true;
+                }
+                else
+                {
+                    quads.remove(index--);
+                    branched = true;
+                }
+                removed++;
+                changed = true;
+            }
+        }
+        if (branched)
+        {
+            program.linkBlocks();
+        }
+        return changed;
+    }
+
+    /**
+     * Removes the blocks that can't be reached, the jumps to the label
+     * right after them and the labels nothing branches or jumps to.
+     *
+     * @param program - The IrProgram.
+     * @return - True if any Quad was removed.
+     */
+    private boolean removeUnreachable(IrProgram program)
+    {
+        ControlFlowGraph cfg = new ControlFlowGraph(program);
+        List<Quad> quads = new ArrayList<>();
+        int before = program.size();
+        for (BasicBlock block : program.getBlocks())
+        {
+            if (cfg.isReachable(block))
+            {
+                quads.addAll(block.getQuads());
+            }
+        }
+        Set<String> targets = new HashSet<>();
+        for (int index = 0; index < quads.size(); index++)
+        {
+            Quad quad = quads.get(index);
+            Quad next = index + 1 < quads.size() ?
+                    quads.get(index + 1) : null;
+            if (quad.getKind() == Kind.JUMP && next != null &&
+                    next.getKind() == Kind.LABEL &&
+                    quad.getLabel().equals(next.getLabel()))
+            {
+                quads.remove(index--);
+            }
+            else if (quad.getKind() == Kind.BRANCH ||
+                    quad.getKind() == Kind.JUMP)
+            {
+                targets.add(quad.getLabel());
+            }
+        }
+        int labels = program.getQuads().size() - program.size();
+        quads.removeIf(quad -> quad.getKind() == Kind.LABEL &&
+                !targets.contains(quad.getLabel()));
+        program.setQuads(quads);
+        int gone = before - program.size();
+        removed += gone;
+        return gone > 0 ||
+                labels != program.getQuads().size() - program.size();
+    }
+
+    /**
+     * Removes the loads, operations and stores whose results are never
+     * read.
+     *
+     * @param program - The IrProgram.
+     * @return - True if any Quad was removed.
+     */
+    private boolean removeDead(IrProgram program)
+    {
+        Liveness liveness = new Liveness(new ControlFlowGraph(program));
+        Map<Temp, Integer> constants = program.findConstants();
+        boolean changed = false;
+        for (BasicBlock block : program.getBlocks())
+        {
+            Set<Operand> live = new HashSet<>(liveness.getLiveOut(block));
+            List<Quad> quads = block.getQuads();
+            for (int index = quads.size() - 1; index >= 0; index--)
+            {
+                Quad quad = quads.get(index);
+                if ((quad.getKind() == Kind.COPY ||
+                        quad.getKind() == Kind.BINARY) &&
+                        !live.contains(quad.getResult()) &&
+                        !canTrap(quad, constants))
+                {
+                    quads.remove(index);
+                    removed++;
+                    changed = true;
+                }
+                else
+                {
+                    Liveness.step(quad, live);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Checks to see if a Quad might divide by zero or overflow.
+     *
+     * @param quad - The Quad.
+     * @param constants - The value of each Temp only written with one.
+     * @return - True for a div or mod whose divisor isn't a constant
+     * other than zero, and for a + or - that isn't of two constants
+     * whose value fits.
+     */
+    private boolean canTrap(Quad quad, Map<Temp, Integer> constants)
+    {
+        if (quad.getKind() != Kind.BINARY)
+        {
+            return false;
+        }
+        if (quad.getOp() == Operator.ADD || quad.getOp() == Operator.SUB)
+        {
+            Integer left = constantOf(quad.getLeft(), constants);
+            Integer right = constantOf(quad.getRight(), constants);
+            return left == null || right == null ||
+                    overflows(quad.getOp(), left, right);
+        }
+        if (quad.getOp() != Operator.DIV && quad.getOp() != Operator.MOD)
+        {
+            return false;
+        }
+        Integer divisor = constantOf(quad.getRight(), constants);
+        return divisor == null || divisor == 0;
+    }
+
+    /**
+     * Checks to see if a + or - of two constants overflows, which the
+     * MIPS add and sub trap on.
+     *
+     * @param op - The Operator.
+     * @param left - The left constant.
+     * @param right - The right constant.
+     * @return - True if the Operator is + or - and the value doesn't fit
+     * in an integer.
+     */
+    private static boolean overflows(Operator op, int left, int right)
+    {
+        try
+        {
+            if (op == Operator.ADD)
+            {
+                Math.addExact(left, right);
+            }
+            else if (op == Operator.SUB)
+            {
+                Math.subtractExact(left, right);
+            }
+            return false;
+        }
+        catch (ArithmeticException ex)
+        {
+            return true;
+        }
+    }
+
+    /**
+     * Finds the value of an operand that is a constant, or a Temp only
+     * ever written with one.
+     *
+     * @param operand - The operand.
+     * @param constants - The value of each Temp only written with one.
+     * @return - The value, or null if the operand isn't constant.
+     */
+    private Integer constantOf(Operand operand, Map<Temp, Integer> constants)
+    {
+        if (operand instanceof Const)
+        {
+            return ((Const) operand).getValue();
+        }
+        return constants.get(operand);
+    }
+}
@@ -0,0 +1,156 @@
+package optimizer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import ir.IrBuilder;
+import ir.IrProgram;
+import parser.Parser;
+import syntaxtree.ProgramNode;
+
+/**
+ * A JUnit Java class that illustrates removing the code that can't
+ * change what a program writes.
+ *
+ * @author Marissa Allen
+ */
+public class DeadCodeEliminationTest
+{
+    /**
+     * Lowers a program into three address code.
+     *
+     * @param test - The pascal program.
+     * @return - The IrProgram.
+     */
+    private IrProgram lower(String test)
+    {
+        ProgramNode program = new Parser(test, false).program();
+        return new IrBuilder().build(program);
+    }
+
+    /**
+     * This method tests a program with dead code. 1 = 2 is false, so
+     * only the else arm is kept, 0 > 1 is false, so the loop is removed,
+     * and fee := 1 is written over before fee is read.
+     * This is a text string test.
+     */
+    @Test
+    public void testDeadCode()
+    {
+        System.out.println("\n" + "##################" + "\n" +
+                "# Test dead code #" + "\n" +
+                "##################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "if 1 = 2 then fi := fee * 3 else fi := fee + 1;\n" +
+                "while 0 > 1 do\n" +
+                "begin\n" +
+                "fee := fee - 1\n" +
+                "end;\n" +
+                "fee := 1;\n" +
+                "fee := 2;\n" +
+                "write(fee + fi)\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = lower(test);
+        DeadCodeElimination elimination = new DeadCodeElimination();
+        assertTrue(elimination.run(ir));
+        String expected = "B0 -> []\n" +
+                "    read fee\n" +
+                "    t7 = fee\n" +
+                "    t8 = 1\n" +
+                "    t6 = t7 + t8\n" +
+                "    fi = t6\n" +
+                "    t17 = 2\n" +
+                "    fee = t17\n" +
+                "    t19 = fee\n" +
+                "    t20 = fi\n" +
+                "    t18 = t19 + t20\n" +
+                "    write t18\n";
+        assertEquals(expected, ir.toString());
+        assertEquals(22, elimination.getRemovedCount());
+        System.out.print(ir);
+    }
+
+    /**
+     * This method tests a program without dead code. Every store is read
+     * and the loop test depends on fee, so nothing is removed.
+     */
+    @Test
+    public void testNoDeadCode()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test no dead code #" + "\n" +
+                "#####################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "fi := 0;\n" +
+                "while fee > 0 do\n" +
+                "begin\n" +
+                "fi := fi + fee;\n" +
+                "fee := fee - 1\n" +
+                "end;\n" +
+                "write(fi)\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = lower(test);
+        String before = ir.toString();
+        DeadCodeElimination elimination = new DeadCodeElimination();
+        assertFalse(elimination.run(ir));
+        assertEquals(before, ir.toString());
+        assertEquals(0, elimination.getRemovedCount());
+        System.out.print(ir);
+    }
+
+    /**
+     * This method tests sums that overflow, which the MIPS add traps on.
+     * 2147483647 + 1 isn't folded, and fee + fee is kept even though fo
+     * is written over, since either could stop the program. Only the
+     * store of fee + fee is removed.
+     * This is a text string test.
+     */
+    @Test
+    public void testOverflow()
+    {
+        System.out.println("\n" + "#################" + "\n" +
+                "# Test overflow #" + "\n" +
+                "#################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fo: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "fo := fee + fee;\n" +
+                "fo := 3;\n" +
+                "write(2147483647 + 1);\n" +
+                "write(fo)\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = lower(test);
+        DeadCodeElimination elimination = new DeadCodeElimination();
+        assertTrue(elimination.run(ir));
+        String expected = "B0 -> []\n" +
+                "    read fee\n" +
+                "    t2 = fee\n" +
+                "    t3 = fee\n" +
+                "    t1 = t2 + t3\n" +
+                "    t4 = 3\n" +
+                "    fo = t4\n" +
+                "    t6 = 2147483647\n" +
+                "    t7 = 1\n" +
+                "    t5 = t6 + t7\n" +
+                "    write t5\n" +
+                "    t8 = fo\n" +
+                "    write t8\n";
+        assertEquals(expected, ir.toString());
+        assertEquals(1, elimination.getRemovedCount());
+        System.out.print(ir);
+    }
+}
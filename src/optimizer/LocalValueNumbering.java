@@ -0,0 +1,256 @@
+package optimizer;
+
+import ir.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This pass finds the Quads of a basic block that compute a value the
+ * block has already computed, and reuses the earlier value instead. It
+ * gives every value in the block a number: each constant, each variable
+ * as it is in memory, and each operation on two numbered values. Two
+ * Quads that compute the same operation on the same numbers compute the
+ * same value, so
+ * fo := fee * fi + fum;
+ * fum := fee * fi - fum
+ * only loads fee, fi and fum and multiplies them once. The operands of
+ * +, *, and, or, = and <> are put in order first, so fi * fee is found
+ * to be fee * fi as well.
+ *
+ * A variable gets the number of the value stored into it, so a load
+ * right after a store uses the stored value instead. A read() gives the
+ * variable a new number, since its value can't be known.
+ *
+ * A Temp that is written once is removed when its value is already in
+ * another Temp that is written once, and every read of it reads the
+ * other Temp instead. Otherwise, like for a promoted variable, a load or
+ * an operation is turned into a copy of the other Temp. A Temp that is
+ * written again stops holding the values it held.
+ *
+ * @author Marissa Allen
+ */
+public class LocalValueNumbering implements IrPass
+{
+    private int removed = 0;
+
+    /*The tables of the block being numbered.*/
+    private Map<Operand, Integer> numberOf;
+    private Map<String, Integer> expressions;
+    private Map<Integer, Temp> holders;
+    private int next;
+
+    /**
+     * Returns the name the pass is reported under.
+     *
+     * @return - The name of the pass.
+     */
+    @Override
+    public String getName()
+    {
+        return "local value numbering";
+    }
+
+    /**
+     * Returns how many Quads have been removed or turned into copies by
+     * this pass.
+     *
+     * @return - The number of redundant Quads found.
+     */
+    public int getRemovedCount()
+    {
+        return removed;
+    }
+
+    /**
+     * Numbers the values of every block and reuses the ones that are
+     * computed again.
+     *
+     * @param program - The IrProgram to optimize.
+     * @return - True if any Quad was removed or changed.
+     */
+    @Override
+    public boolean run(IrProgram program)
+    {
+        Map<Temp, Integer> writes = program.countWrites();
+        Map<Operand, Operand> renamed = new HashMap<>();
+        int before = removed;
+        for (BasicBlock block : program.getBlocks())
+        {
+            number(block, writes, renamed);
+        }
+        if (!renamed.isEmpty())
+        {
+            for (Quad quad : program.getQuads())
+            {
+                quad.setLeft(renamed.getOrDefault(quad.getLeft(),
+                        quad.getLeft()));
+                quad.setRight(renamed.getOrDefault(quad.getRight(),
+                        quad.getRight()));
+            }
+        }
+        return removed > before;
+    }
+
+    /**
+     * Numbers the values of one block.
+     *
+     * @param block - The block.
+     * @param writes - How many Quads of the program write each Temp.
+     * @param renamed - The Temp each removed Temp is replaced with.
+     */
+    private void number(BasicBlock block, Map<Temp, Integer> writes,
+                        Map<Operand, Operand> renamed)
+    {
+        numberOf = new HashMap<>();
+        expressions = new HashMap<>();
+        holders = new HashMap<>();
+        next = 0;
+        List<Quad> quads = block.getQuads();
+        for (int index = 0; index < quads.size(); index++)
+        {
+            Quad quad = quads.get(index);
+            quad.setLeft(renamed.getOrDefault(quad.getLeft(),
+                    quad.getLeft()));
+            quad.setRight(renamed.getOrDefault(quad.getRight(),
+                    quad.getRight()));
+            Operand result = quad.getResult();
+            if (quad.getKind() == Kind.READ)
+            {
+                //The value read in can't be known.
+                numberOf.put(result, next++);
+                continue;
+            }
+            if (quad.getKind() != Kind.COPY &&
+                    quad.getKind() != Kind.BINARY)
+            {
+                continue;
+            }
+            int value = valueOf(quad);
+            if (result instanceof Var)
+            {
+                numberOf.put(result, value);
+                continue;
+            }
+            Temp temp = (Temp) result;
+            Temp holder = holders.get(value);
+            forget(temp);
+            numberOf.put(temp, value);
+            if (holder != null && !holder.equals(temp))
+            {
+                if (writes.get(temp) == 1 &&
+                        writes.getOrDefault(holder, 0) == 1)
+                {
+                    renamed.put(temp, holder);
+                    quads.remove(index--);
+                    removed++;
+                }
+                else if (quad.getKind() == Kind.BINARY ||
+                        quad.getLeft() instanceof Var)
+                {
+                    //A copy is cheaper than doing the work again.
+                    quads.set(index, Quad.copy(temp, holder));
+                    removed++;
+                }
+            }
+            else if (holder == null)
+            {
+                holders.put(value, temp);
+            }
+        }
+    }
+
+    /**
+     * Finds the number of the value a COPY or BINARY Quad computes.
+     *
+     * @param quad - The Quad.
+     * @return - The value number.
+     */
+    private int valueOf(Quad quad)
+    {
+        int left = numberOf(quad.getLeft());
+        if (quad.getKind() == Kind.COPY)
+        {
+            return left;
+        }
+        int right = numberOf(quad.getRight());
+        Operator op = quad.getOp();
+        if (isCommutative(op) && right < left)
+        {
+            int swap = left;
+            left = right;
+            right = swap;
+        }
+        String key = op.name() + " " + left + " " + right;
+        Integer value = expressions.get(key);
+        if (value == null)
+        {
+            value = next++;
+            expressions.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Finds the number of an operand, giving it a new one the first time
+     * it is seen. Equal constants get the same number.
+     *
+     * @param operand - The operand.
+     * @return - The value number.
+     */
+    private int numberOf(Operand operand)
+    {
+        Integer value = numberOf.get(operand);
+        if (value == null)
+        {
+            value = next++;
+            numberOf.put(operand, value);
+            if (operand instanceof Temp && !holders.containsKey(value))
+            {
+                holders.put(value, (Temp) operand);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Stops a Temp that is about to be written from holding the values it
+     * held.
+     *
+     * @param temp - The Temp.
+     */
+    private void forget(Temp temp)
+    {
+        Integer old = numberOf.remove(temp);
+        if (old != null && temp.equals(holders.get(old)))
+        {
+            holders.remove(old);
+            //Another Temp may still hold the value.
+            for (Map.Entry<Operand, Integer> entry : numberOf.entrySet())
+            {
+                if (entry.getValue().equals(old) &&
+                        entry.getKey() instanceof Temp)
+                {
+                    holders.put(old, (Temp) entry.getKey());
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks to see if the order of the operands of an operator doesn't
+     * matter.
+     *
+     * @param op - The operator.
+     * @return - True for +, addu, *, and, or, = and <>.
+     */
+    private boolean isCommutative(Operator op)
+    {
+        return op == Operator.ADD || op == Operator.ADDU ||
+                op == Operator.MUL ||
+                op == Operator.AND || op == Operator.OR ||
+                op == Operator.EQ || op == Operator.NE;
+    }
+}
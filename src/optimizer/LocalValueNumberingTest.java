@@ -0,0 +1,152 @@
+package optimizer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import ir.IrBuilder;
+import ir.IrProgram;
+import ir.PassManager;
+import parser.Parser;
+import syntaxtree.ProgramNode;
+
+/**
+ * A JUnit Java class that illustrates reusing the values a basic block
+ * has already computed.
+ *
+ * @author Marissa Allen
+ */
+public class LocalValueNumberingTest
+{
+    /**
+     * Lowers a program into three address code.
+     *
+     * @param test - The pascal program.
+     * @return - The IrProgram.
+     */
+    private IrProgram lower(String test)
+    {
+        ProgramNode program = new Parser(test, false).program();
+        return new IrBuilder().build(program);
+    }
+
+    /**
+     * This method tests one block. fee * fi and fi * fee are multiplied
+     * once, the load of fum after it is assigned uses the value stored,
+     * and fi is only loaded once. The read of fee makes fee load again.
+     * This is a text string test.
+     */
+    @Test
+    public void testReuse()
+    {
+        System.out.println("\n" + "##############" + "\n" +
+                "# Test reuse #" + "\n" +
+                "##############" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi, fo, fum: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "read(fi);\n" +
+                "fum := 4;\n" +
+                "fo := fee * fi + fum;\n" +
+                "fum := fi * fee - fum;\n" +
+                "read(fee);\n" +
+                "fo := fo + fee * fi;\n" +
+                "write(fo + fum)\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = lower(test);
+        LocalValueNumbering numbering = new LocalValueNumbering();
+        assertTrue(numbering.run(ir));
+        String expected = "B0 -> []\n" +
+                "    read fee\n" +
+                "    read fi\n" +
+                "    t1 = 4\n" +
+                "    fum = t1\n" +
+                "    t4 = fee\n" +
+                "    t5 = fi\n" +
+                "    t3 = t4 * t5\n" +
+                "    t2 = t3 + t1\n" +
+                "    fo = t2\n" +
+                "    t7 = t3 - t1\n" +
+                "    fum = t7\n" +
+                "    read fee\n" +
+                "    t14 = fee\n" +
+                "    t13 = t14 * t5\n" +
+                "    t12 = t2 + t13\n" +
+                "    fo = t12\n" +
+                "    t17 = t12 + t7\n" +
+                "    write t17\n";
+        assertEquals(expected, ir.toString());
+        assertEquals(9, numbering.getRemovedCount());
+        System.out.print(ir);
+
+        //Negative test, nothing is left to reuse the second time.
+        assertFalse(numbering.run(ir));
+    }
+
+    /**
+     * This method tests a loop after its variables are promoted and its
+     * constants are moved out. fee * 2 is only multiplied once, and the
+     * 0 the guard compares against is the 0 stored into fi.
+     * This is a text string test.
+     */
+    @Test
+    public void testLoop()
+    {
+        System.out.println("\n" + "#############" + "\n" +
+                "# Test loop #" + "\n" +
+                "#############" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "fi := 0;\n" +
+                "while fee > 0 do\n" +
+                "begin\n" +
+                "fi := fi + fee * 2 + fee * 2;\n" +
+                "fee := fee - 1\n" +
+                "end;\n" +
+                "write(fi)\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = lower(test);
+        LocalValueNumbering numbering = new LocalValueNumbering();
+        PassManager passes = new PassManager()
+                .add(new ScalarPromotion())
+                .add(new LoopInvariantCodeMotion())
+                .add(numbering);
+        passes.run(ir);
+        String expected = "B0 -> [B4, B1]\n" +
+                "    read fee\n" +
+                "    t1 = 0\n" +
+                "    fi = t1\n" +
+                "    t2 = fee\n" +
+                "    if t2 <= t1 goto endLoop1\n" +
+                "B1 -> [B2]\n" +
+                "    t19 = fee\n" +
+                "    t20 = fi\n" +
+                "    t8 = 2\n" +
+                "    t15 = 1\n" +
+                "    t17 = 0\n" +
+                "B2 -> [B2, B3]\n" +
+                "TopWhile1:\n" +
+                "    t6 = t19 * t8\n" +
+                "    t5 = t20 + t6\n" +
+                "    t20 = t5 + t6\n" +
+                "    t19 = t19 - t15\n" +
+                "    if t19 > t17 goto TopWhile1\n" +
+                "B3 -> [B4]\n" +
+                "    fee = t19\n" +
+                "    fi = t20\n" +
+                "B4 -> []\n" +
+                "endLoop1:\n" +
+                "    t18 = fi\n" +
+                "    write t18\n";
+        assertEquals(expected, ir.toString());
+        assertEquals(3, numbering.getRemovedCount());
+        System.out.print(ir);
+    }
+}
@@ -0,0 +1,283 @@
+package optimizer;
+
+import ir.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This pass moves computations that give the same value on every
+ * iteration of a while loop out of the loop, into its preheader, so they
+ * are done once instead of every time around. A Quad in a loop is
+ * invariant when it writes a Temp and every operand it reads is:
+ * - a constant,
+ * - a variable that no assignment or read() in the loop changes,
+ * - a Temp written outside of the loop, or
+ * - a Temp written by another invariant Quad.
+ *
+ * Only Quads that write a Temp written nowhere else are moved, so the
+ * Temp holds the same value wherever it is read. Loads, moves, mult and
+ * the wrapping addu and subu can't fail, so they are safe to do before
+ * the loop even if the Quad is on a path the loop doesn't always take.
+ * A + or - becomes a MIPS add or sub, which traps on overflow, so it is
+ * only moved out of a block that runs on every trip through the loop,
+ * one that dominates every latch and every block that leaves the loop.
+ * Otherwise a sum the program never computes could stop it. A div or
+ * mod is only moved when it divides by a constant other than zero, since
+ * the loop might never have divided by zero.
+ *
+ * Loops are done innermost first, so code moved out of an inner loop can
+ * be moved again out of the loop around it.
+ *
+ * @author Marissa Allen
+ */
+public class LoopInvariantCodeMotion implements IrPass
+{
+    private int hoisted = 0;
+
+    /**
+     * The value of every Temp that is only ever written with a constant.
+     */
+    private Map<Temp, Integer> constants = new HashMap<>();
+
+    /**
+     * Returns the name the pass is reported under.
+     *
+     * @return - The name of the pass.
+     */
+    @Override
+    public String getName()
+    {
+        return "loop invariant motion";
+    }
+
+    /**
+     * Moves the invariant Quads of every loop into its preheader. The
+     * graph is built again after each loop that changes, because a new
+     * preheader adds a block.
+     *
+     * @param program - The IrProgram to optimize.
+     * @return - True if any Quad was moved.
+     */
+    @Override
+    public boolean run(IrProgram program)
+    {
+        boolean changed = false;
+        boolean again = true;
+        while (again)
+        {
+            again = false;
+            ControlFlowGraph cfg = new ControlFlowGraph(program);
+            DominatorTree dominators = new DominatorTree(cfg);
+            LoopForest forest = new LoopForest(cfg, dominators);
+            Map<Temp, Integer> writes = program.countWrites();
+            constants = program.findConstants();
+            for (Loop loop : forest.getLoopsInnermostFirst())
+            {
+                if (hoist(program, loop, dominators, writes))
+                {
+                    changed = again = true;
+                    break;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns how many Quads have been moved out of loops by this pass.
+     *
+     * @return - The number of Quads moved.
+     */
+    public int getHoistedCount()
+    {
+        return hoisted;
+    }
+
+    /**
+     * Moves the invariant Quads of one loop into its preheader.
+     *
+     * @param program - The program the loop is in.
+     * @param loop - The loop.
+     * @param dominators - The DominatorTree of the program.
+     * @param writes - How many Quads of the program write each Temp.
+     * @return - True if any Quad was moved.
+     */
+    private boolean hoist(IrProgram program, Loop loop,
+                          DominatorTree dominators,
+                          Map<Temp, Integer> writes)
+    {
+        Set<String> assigned = new HashSet<>();
+        Set<Temp> inside = new HashSet<>();
+        for (BasicBlock block : loop.getBlocks())
+        {
+            for (Quad quad : block.getQuads())
+            {
+                if (quad.getResult() instanceof Var)
+                {
+                    assigned.add(((Var) quad.getResult()).getName());
+                }
+                else if (quad.getResult() instanceof Temp)
+                {
+                    inside.add((Temp) quad.getResult());
+                }
+            }
+        }
+
+        /*Finds the invariant Quads in the order they are run, until no
+        more are found, since one can make another invariant.*/
+        List<Quad> invariant = new ArrayList<>();
+        Set<Quad> chosen = new HashSet<>();
+        Set<Temp> known = new HashSet<>();
+        boolean found = true;
+        while (found)
+        {
+            found = false;
+            for (BasicBlock block : loop.getBlocks())
+            {
+                boolean always = runsEveryTrip(block, loop, dominators);
+                for (Quad quad : block.getQuads())
+                {
+                    if (!chosen.contains(quad) &&
+                            (always || !canTrap(quad)) &&
+                            isInvariant(quad, assigned, inside, known,
+                                    writes))
+                    {
+                        invariant.add(quad);
+                        chosen.add(quad);
+                        known.add((Temp) quad.getResult());
+                        found = true;
+                    }
+                }
+            }
+        }
+        if (invariant.isEmpty())
+        {
+            return false;
+        }
+        BasicBlock preheader = program.addPreheader(loop);
+        if (preheader == null)
+        {
+            return false;
+        }
+
+        //Keeps a control Quad at the end of the preheader.
+        List<Quad> quads = preheader.getQuads();
+        Quad last = preheader.getLast();
+        int position = last != null && last.isControl() ?
+                quads.size() - 1 : quads.size();
+        for (BasicBlock block : loop.getBlocks())
+        {
+            block.getQuads().removeAll(chosen);
+        }
+        quads.addAll(position, invariant);
+        hoisted += invariant.size();
+        return true;
+    }
+
+    /**
+     * Checks to see if a Quad computes the same value on every iteration.
+     *
+     * @param quad - The Quad.
+     * @param assigned - The variables changed in the loop.
+     * @param inside - The Temps written in the loop.
+     * @param known - The Temps written by invariant Quads found so far.
+     * @param writes - How many Quads of the program write each Temp.
+     * @return - True if the Quad can be moved out of the loop.
+     */
+    private boolean isInvariant(Quad quad, Set<String> assigned,
+                                Set<Temp> inside, Set<Temp> known,
+                                Map<Temp, Integer> writes)
+    {
+        if ((quad.getKind() != Kind.COPY && quad.getKind() != Kind.BINARY) ||
+                !(quad.getResult() instanceof Temp) ||
+                writes.get(quad.getResult()) != 1)
+        {
+            return false;
+        }
+        if (quad.getKind() == Kind.BINARY &&
+                (quad.getOp() == Operator.DIV ||
+                quad.getOp() == Operator.MOD) &&
+                !isNonZeroConstant(quad.getRight()))
+        {
+            return false;
+        }
+        for (Operand use : quad.getUses())
+        {
+            if (use instanceof Var &&
+                    assigned.contains(((Var) use).getName()))
+            {
+                return false;
+            }
+            if (use instanceof Temp && inside.contains(use) &&
+                    !known.contains(use))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks to see if a block runs on every trip through a loop, which
+     * it does when it dominates every latch and every block that leaves
+     * the loop.
+     *
+     * @param block - The block of the loop.
+     * @param loop - The loop.
+     * @param dominators - The DominatorTree of the program.
+     * @return - True if the block can't be skipped.
+     */
+    private static boolean runsEveryTrip(BasicBlock block, Loop loop,
+                                         DominatorTree dominators)
+    {
+        for (BasicBlock other : loop.getBlocks())
+        {
+            boolean leaves = false;
+            for (BasicBlock successor : other.getSuccessors())
+            {
+                leaves |= !loop.contains(successor);
+            }
+            if ((leaves || loop.getLatches().contains(other)) &&
+                    !dominators.dominates(block, other))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks to see if a Quad is a + or -, which trap on overflow.
+     *
+     * @param quad - The Quad.
+     * @return - True if the Quad can stop the program.
+     */
+    private static boolean canTrap(Quad quad)
+    {
+        return quad.getKind() == Kind.BINARY &&
+                (quad.getOp() == Operator.ADD ||
+                quad.getOp() == Operator.SUB);
+    }
+
+    /**
+     * Checks to see if an operand is a constant other than zero, or a
+     * Temp that only ever holds one.
+     *
+     * @param operand - The operand.
+     * @return - True if the operand is never zero.
+     */
+    private boolean isNonZeroConstant(Operand operand)
+    {
+        if (operand instanceof Const)
+        {
+            return ((Const) operand).getValue() != 0;
+        }
+        Integer value = constants.get(operand);
+        return value != null && value != 0;
+    }
+}
@@ -0,0 +1,244 @@
+package optimizer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import codegen.CodeGeneration;
+import ir.IrBuilder;
+import ir.IrProgram;
+import ir.PassManager;
+import parser.Parser;
+import simulator.Assembler;
+import simulator.Simulator;
+import syntaxtree.ProgramNode;
+
+import java.io.StringReader;
+
+/**
+ * A JUnit Java class that illustrates moving the invariant computations
+ * of while loops into their preheaders.
+ *
+ * @author Marissa Allen
+ */
+public class LoopInvariantCodeMotionTest
+{
+    /**
+     * Lowers a program into three address code.
+     *
+     * @param test - The pascal program.
+     * @return - The IrProgram.
+     */
+    private IrProgram lower(String test)
+    {
+        ProgramNode program = new Parser(test, false).program();
+        return new IrBuilder().build(program);
+    }
+
+    /**
+     * This method tests nested loops. The constants and the load of fum,
+     * which no loop assigns, are moved out of both loops, and fee * 2,
+     * which the outer loop changes, is only moved out of the inner one.
+     * This is a text string test.
+     */
+    @Test
+    public void testNestedLoops()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test nested loops #" + "\n" +
+                "#####################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi, fo, fum: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "read(fum);\n" +
+                "while fee > 0 do\n" +
+                "begin\n" +
+                "fo := 0;\n" +
+                "while fo < fee * 2 do\n" +
+                "begin\n" +
+                "fi := fum * 3 + fo;\n" +
+                "fo := fo + 1\n" +
+                "end;\n" +
+                "fee := fee - 1\n" +
+                "end;\n" +
+                "write(fi)\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = lower(test);
+        LoopInvariantCodeMotion licm = new LoopInvariantCodeMotion();
+        PassManager passes = new PassManager().add(licm);
+        passes.run(ir);
+        String expected = "B0 -> [B6, B1]\n" +
+                "    read fee\n" +
+                "    read fum\n" +
+                "    t1 = fee\n" +
+                "    t2 = 0\n" +
+                "    if t1 <= t2 goto endLoop1\n" +
+                "B1 -> [B2]\n" +
+                "    t3 = 0\n" +
+                "    t6 = 2\n" +
+                "    t10 = fum\n" +
+                "    t11 = 3\n" +
+                "    t9 = t10 * t11\n" +
+                "    t15 = 1\n" +
+                "    t18 = 2\n" +
+                "    t22 = 1\n" +
+                "    t24 = 0\n" +
+                "B2 -> [B5, B3]\n" +
+                "TopWhile1:\n" +
+                "    fo = t3\n" +
+                "    t5 = fee\n" +
+                "    t4 = t5 * t6\n" +
+                "    t7 = fo\n" +
+                "    if t7 >= t4 goto endLoop2\n" +
+                "B3 -> [B4]\n" +
+                "    t17 = fee\n" +
+                "    t16 = t17 * t18\n" +
+                "B4 -> [B4, B5]\n" +
+                "TopWhile2:\n" +
+                "    t12 = fo\n" +
+                "    t8 = t9 + t12\n" +
+                "    fi = t8\n" +
+                "    t14 = fo\n" +
+                "    t13 = t14 + t15\n" +
+                "    fo = t13\n" +
+                "    t19 = fo\n" +
+                "    if t19 < t16 goto TopWhile2\n" +
+                "B5 -> [B2, B6]\n" +
+                "endLoop2:\n" +
+                "    t21 = fee\n" +
+                "    t20 = t21 - t22\n" +
+                "    fee = t20\n" +
+                "    t23 = fee\n" +
+                "    if t23 > t24 goto TopWhile1\n" +
+                "B6 -> []\n" +
+                "endLoop1:\n" +
+                "    t25 = fi\n" +
+                "    write t25\n";
+        assertEquals(expected, ir.toString());
+        assertEquals(16, licm.getHoistedCount());
+        System.out.print(ir);
+        System.out.print(passes);
+    }
+
+    /**
+     * This method tests that a variable changed by read() in the loop is
+     * loaded every time around, and that a div is only moved when it
+     * divides by a constant other than zero. This is a text string test.
+     */
+    @Test
+    public void testSideEffects()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test side effects #" + "\n" +
+                "#####################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi, fo, fum: integer;\n" +
+                "begin\n" +
+                "while fee > 0 do\n" +
+                "begin\n" +
+                "read(fum);\n" +
+                "fo := fum + fi div fee + fi div 4;\n" +
+                "fee := fee - 1\n" +
+                "end\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = lower(test);
+        LoopInvariantCodeMotion licm = new LoopInvariantCodeMotion();
+        assertTrue(licm.run(ir));
+        String expected = "B0 -> [B3, B1]\n" +
+                "    t1 = fee\n" +
+                "    t2 = 0\n" +
+                "    if t1 <= t2 goto endLoop1\n" +
+                "B1 -> [B2]\n" +
+                "    t6 = fi\n" +
+                "    t10 = fi\n" +
+                "    t11 = 4\n" +
+                "    t9 = t10 div t11\n" +
+                "    t14 = 1\n" +
+                "    t16 = 0\n" +
+                "B2 -> [B2, B3]\n" +
+                "TopWhile1:\n" +
+                "    read fum\n" +
+                "    t7 = fee\n" +
+                "    t5 = t6 div t7\n" +
+                "    t8 = fum\n" +
+                "    t4 = t8 + t5\n" +
+                "    t3 = t4 + t9\n" +
+                "    fo = t3\n" +
+                "    t13 = fee\n" +
+                "    t12 = t13 - t14\n" +
+                "    fee = t12\n" +
+                "    t15 = fee\n" +
+                "    if t15 > t16 goto TopWhile1\n" +
+                "B3 -> []\n" +
+                "endLoop1:\n";
+        assertEquals(expected, ir.toString());
+        assertEquals(6, licm.getHoistedCount());
+        System.out.print(ir);
+
+        //Nothing is left to move the second time.
+        assertFalse(licm.run(ir));
+    }
+
+    /**
+     * This method tests that a + that the loop only does on some trips
+     * stays in the loop, since it traps on overflow, while a + that is
+     * done on every trip is still moved. big + big overflows, but the
+     * program never adds it, so it prints 0 like it does without the
+     * pass. This is a text string test.
+     */
+    @Test
+    public void testGuardedOverflow()
+    {
+        System.out.println("\n" + "##########################" + "\n" +
+                "# Test guarded overflow #" + "\n" +
+                "##########################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi, fo, big: integer;\n" +
+                "begin\n" +
+                "read(big);\n" +
+                "fee := 0;\n" +
+                "fo := 0;\n" +
+                "while fee < 3 do\n" +
+                "begin\n" +
+                "if big < 0 then fo := (big + big) * 3 else fo := fo;\n" +
+                "fi := big - 1;\n" +
+                "fee := fee + 1\n" +
+                "end;\n" +
+                "write(fo)\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = lower(test);
+        LoopInvariantCodeMotion licm = new LoopInvariantCodeMotion();
+        assertTrue(licm.run(ir));
+        String actual = ir.toString();
+        assertTrue(actual.contains("B3 -> [B5]\n" +
+                "    t8 = t9 + t10\n" +
+                "    t7 = t8 * t11\n"));
+        assertTrue(actual.contains("B1 -> [B2]\n" +
+                "    t5 = big\n" +
+                "    t6 = 0\n" +
+                "    t9 = big\n" +
+                "    t10 = big\n" +
+                "    t11 = 3\n" +
+                "    t14 = big\n" +
+                "    t15 = 1\n" +
+                "    t13 = t14 - t15\n"));
+        assertEquals(10, licm.getHoistedCount());
+        System.out.print(ir);
+
+        ProgramNode program = new Parser(test, false).program();
+        CodeGeneration gen = new CodeGeneration(program, null);
+        gen.setPassManager(new PassManager().add(
+                new LoopInvariantCodeMotion()));
+        StringBuilder output = new StringBuilder();
+        new Simulator(new Assembler().assemble(gen.genCode()),
+                new StringReader("2000000000\n"), output).run();
+        assertEquals("0", output.toString());
+    }
+}
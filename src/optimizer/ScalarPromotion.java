@@ -0,0 +1,548 @@
+package optimizer;
+
+import ir.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This pass keeps the variables a while loop uses in registers for the
+ * whole loop, instead of loading them from memory every time they are
+ * read and storing them every time they are assigned. Each promoted
+ * variable gets a Temp that is loaded from the variable once, in the
+ * preheader of the loop. Inside the loop every read of the variable
+ * becomes a read of the Temp and every assignment writes the Temp. The
+ * Temp is stored back into the variable once, on every way out of the
+ * loop, and right before a return, which leaves main.
+ *
+ * The read and write syscalls only pass values in registers, so they
+ * can't see a variable that hasn't been stored yet. A read() of a
+ * promoted variable still stores into memory, and the Temp is loaded
+ * from it right after.
+ *
+ * The outermost loops are promoted, which covers the loops nested
+ * inside of them. When a loop uses more variables than there are saved
+ * registers to give them, the ones used most, counting uses in nested
+ * loops more, are promoted. A loop is left alone if one of its exits
+ * can also be reached from outside of the loop along an edge that has
+ * no place for the stores, which the while statements never make.
+ *
+ * @author Marissa Allen
+ */
+public class ScalarPromotion implements IrPass
+{
+    /**
+     * The most variables promoted in one loop, one per saved register.
+     */
+    public static final int DEFAULT_LIMIT = 8;
+
+    private int limit;
+    private int promoted = 0;
+
+    /**
+     * ScalarPromotion constructor that promotes up to DEFAULT_LIMIT
+     * variables per loop.
+     */
+    public ScalarPromotion()
+    {
+        this(DEFAULT_LIMIT);
+    }
+
+    /**
+     * ScalarPromotion constructor that promotes up to the given number of
+     * variables per loop.
+     *
+     * @param limit - The most variables promoted in one loop.
+     */
+    public ScalarPromotion(int limit)
+    {
+        if (limit < 0)
+        {
+            throw new IllegalArgumentException("The promotion limit can't " +
+                    "be negative");
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the name the pass is reported under.
+     *
+     * @return - The name of the pass.
+     */
+    @Override
+    public String getName()
+    {
+        return "scalar promotion";
+    }
+
+    /**
+     * Returns how many variables have been promoted by this pass,
+     * counting each loop a variable is promoted in.
+     *
+     * @return - The number of variables promoted.
+     */
+    public int getPromotedCount()
+    {
+        return promoted;
+    }
+
+    /**
+     * Promotes the variables of every outermost loop. Promoting a loop
+     * adds blocks, which renumbers the blocks the loops were found with,
+     * so the loops are found again after each one, and a loop that is
+     * already promoted is known by its header.
+     *
+     * @param program - The IrProgram to optimize.
+     * @return - True if any variable was promoted.
+     */
+    @Override
+    public boolean run(IrProgram program)
+    {
+        Set<BasicBlock> done = new HashSet<>();
+        boolean changed = false;
+        boolean again = true;
+        while (again)
+        {
+            again = false;
+            ControlFlowGraph cfg = new ControlFlowGraph(program);
+            LoopForest forest =
+                    new LoopForest(cfg, new DominatorTree(cfg));
+            for (Loop loop : forest.getTopLevelLoops())
+            {
+                if (done.add(loop.getHeader()))
+                {
+                    changed |= promote(program, loop,
+                            new HashSet<>(loop.getBlocks()),
+                            weigh(loop, forest));
+                    again = true;
+                    break;
+                }
+            }
+        }
+        if (changed)
+        {
+            propagate(program);
+        }
+        return changed;
+    }
+
+    /**
+     * Counts how often each variable is used in a loop, weighting a use
+     * ten times more for each loop it is nested in.
+     *
+     * @param loop - The loop.
+     * @param forest - The LoopForest the loop is in.
+     * @return - The weight of each variable, in the order first used.
+     */
+    private Map<String, Integer> weigh(Loop loop, LoopForest forest)
+    {
+        Map<String, Integer> answer = new LinkedHashMap<>();
+        for (BasicBlock block : loop.getBlocks())
+        {
+            int weight = 1;
+            for (int depth = 1; depth < forest.getDepth(block); depth++)
+            {
+                weight *= 10;
+            }
+            for (Quad quad : block.getQuads())
+            {
+                /*A read() stores into memory anyway, so it is no reason
+                to promote a variable.*/
+                if (quad.getKind() == Kind.READ)
+                {
+                    continue;
+                }
+                for (String name : variables(quad))
+                {
+                    answer.merge(name, weight, Integer::sum);
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Promotes the most used variables of one loop.
+     *
+     * @param program - The program the loop is in.
+     * @param loop - The loop.
+     * @param body - The blocks of the loop.
+     * @param weights - How much each variable of the loop is used.
+     * @return - True if any variable was promoted.
+     */
+    private boolean promote(IrProgram program, Loop loop,
+                            Set<BasicBlock> body,
+                            Map<String, Integer> weights)
+    {
+        if (weights.isEmpty() || limit == 0)
+        {
+            return false;
+        }
+
+        /*Finds where the stores go on each way out of the loop. An exit
+        only reached from the loop gets them at its start, and an exit
+        the loop falls into gets a new block in between.*/
+        List<BasicBlock> starts = new ArrayList<>();
+        List<BasicBlock> between = new ArrayList<>();
+        for (BasicBlock exit : exits(body))
+        {
+            List<BasicBlock> inside = new ArrayList<>();
+            boolean outside = false;
+            for (BasicBlock predecessor : exit.getPredecessors())
+            {
+                if (body.contains(predecessor))
+                {
+                    inside.add(predecessor);
+                }
+                else
+                {
+                    outside = true;
+                }
+            }
+            if (!outside)
+            {
+                starts.add(exit);
+                continue;
+            }
+            for (BasicBlock predecessor : inside)
+            {
+                if (!fallsInto(program, predecessor, exit))
+                {
+                    return false;
+                }
+                between.add(predecessor);
+            }
+        }
+        BasicBlock preheader = program.addPreheader(loop);
+        if (preheader == null)
+        {
+            return false;
+        }
+
+        //Picks the variables used most.
+        List<String> names = new ArrayList<>(weights.keySet());
+        names.sort((a, b) -> weights.get(b) - weights.get(a));
+        Map<String, Temp> temps = new LinkedHashMap<>();
+        for (String name : names.subList(0, Math.min(limit, names.size())))
+        {
+            Temp temp = program.newTemp();
+            temps.put(name, temp);
+            program.getPromoted().add(temp);
+            promoted++;
+        }
+
+        //Loads the variables in the preheader.
+        List<Quad> loads = new ArrayList<>();
+        for (Map.Entry<String, Temp> entry : temps.entrySet())
+        {
+            loads.add(Quad.copy(entry.getValue(), new Var(entry.getKey())));
+        }
+        insertBeforeControl(preheader, loads);
+
+        //Rewrites the reads and writes of the variables in the loop.
+        for (BasicBlock block : body)
+        {
+            List<Quad> quads = block.getQuads();
+            for (int index = 0; index < quads.size(); index++)
+            {
+                Quad quad = quads.get(index);
+                Temp temp = temps.get(name(quad.getLeft()));
+                if (temp != null)
+                {
+                    quad.setLeft(temp);
+                }
+                temp = temps.get(name(quad.getResult()));
+                if (temp != null && quad.getKind() == Kind.READ)
+                {
+                    quads.add(++index, Quad.copy(temp, quad.getResult()));
+                }
+                else if (temp != null)
+                {
+                    quad.setResult(temp);
+                }
+                if (quad.getKind() == Kind.RETURN)
+                {
+                    List<Quad> stores = stores(temps);
+                    quads.addAll(index, stores);
+                    index += stores.size();
+                }
+            }
+        }
+
+        //Stores the variables back on the way out of the loop.
+        for (BasicBlock exit : starts)
+        {
+            int position = exit.getLabel() == null ? 0 : 1;
+            exit.getQuads().addAll(position, stores(temps));
+        }
+        for (BasicBlock predecessor : between)
+        {
+            BasicBlock split = new BasicBlock(0);
+            split.getQuads().addAll(stores(temps));
+            program.getBlocks().add(
+                    program.getBlocks().indexOf(predecessor) + 1, split);
+        }
+        program.linkBlocks();
+        return true;
+    }
+
+    /**
+     * Removes the copies between promoted Temps and the Temps the
+     * expressions of a block are computed in. A Temp that is a copy of a
+     * promoted Temp is replaced by the promoted Temp where it is read,
+     * and an expression whose only use is to be copied into a promoted
+     * Temp is computed straight into it:
+     * t5 = t12              t4 = t12 + t11
+     * t4 = t5 + t11   ->    t12 = t4         ->   t12 = t12 + t11
+     * t12 = t4
+     * Only Temps written once and read in the same block are changed,
+     * and never across a write of the promoted Temp.
+     *
+     * @param program - The IrProgram.
+     */
+    private void propagate(IrProgram program)
+    {
+        Map<Operand, Integer> writes = new HashMap<>();
+        Map<Operand, Integer> reads = new HashMap<>();
+        for (Quad quad : program.getQuads())
+        {
+            if (quad.getResult() instanceof Temp)
+            {
+                writes.merge(quad.getResult(), 1, Integer::sum);
+            }
+            for (Operand use : quad.getUses())
+            {
+                reads.merge(use, 1, Integer::sum);
+            }
+        }
+        Set<Temp> promotedTemps = program.getPromoted();
+        for (BasicBlock block : program.getBlocks())
+        {
+            List<Quad> quads = block.getQuads();
+            for (int index = 0; index < quads.size(); index++)
+            {
+                Quad quad = quads.get(index);
+                if (quad.getKind() != Kind.COPY ||
+                        !(quad.getLeft() instanceof Temp) ||
+                        !(quad.getResult() instanceof Temp))
+                {
+                    continue;
+                }
+                Temp source = (Temp) quad.getLeft();
+                Temp target = (Temp) quad.getResult();
+                if (promotedTemps.contains(source) &&
+                        !promotedTemps.contains(target) &&
+                        writes.get(target) == 1 &&
+                        forward(quads, index, reads.getOrDefault(target, 0)))
+                {
+                    quads.remove(index--);
+                }
+                else if (promotedTemps.contains(target) &&
+                        !promotedTemps.contains(source) &&
+                        writes.get(source) == 1 &&
+                        reads.get(source) == 1 && backward(quads, index))
+                {
+                    quads.remove(index--);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the reads of a copy of a promoted Temp with the promoted
+     * Temp, if every read comes after the copy in the same block and
+     * before the promoted Temp is written again.
+     *
+     * @param quads - The Quads of the block.
+     * @param index - The position of the copy.
+     * @param count - How many times the copy is read in the program.
+     * @return - True if every read was replaced.
+     */
+    private boolean forward(List<Quad> quads, int index, int count)
+    {
+        Quad copy = quads.get(index);
+        List<Quad> readers = new ArrayList<>();
+        int found = 0;
+        for (int next = index + 1; next < quads.size() && found < count;
+             next++)
+        {
+            Quad quad = quads.get(next);
+            int uses = 0;
+            for (Operand use : quad.getUses())
+            {
+                if (use.equals(copy.getResult()))
+                {
+                    uses++;
+                }
+            }
+            if (uses > 0)
+            {
+                readers.add(quad);
+                found += uses;
+            }
+            if (copy.getLeft().equals(quad.getResult()))
+            {
+                break;
+            }
+        }
+        if (found != count)
+        {
+            return false;
+        }
+        for (Quad quad : readers)
+        {
+            if (copy.getResult().equals(quad.getLeft()))
+            {
+                quad.setLeft(copy.getLeft());
+            }
+            if (copy.getResult().equals(quad.getRight()))
+            {
+                quad.setRight(copy.getLeft());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the Temp copied into a promoted Temp straight into the
+     * promoted Temp, if it is computed earlier in the same block and the
+     * promoted Temp isn't read or written in between.
+     *
+     * @param quads - The Quads of the block.
+     * @param index - The position of the copy.
+     * @return - True if the Temp is now computed into the promoted Temp.
+     */
+    private boolean backward(List<Quad> quads, int index)
+    {
+        Quad copy = quads.get(index);
+        for (int before = index - 1; before >= 0; before--)
+        {
+            Quad quad = quads.get(before);
+            if (copy.getLeft().equals(quad.getResult()))
+            {
+                if (quad.getKind() != Kind.BINARY &&
+                        quad.getKind() != Kind.COPY)
+                {
+                    return false;
+                }
+                quad.setResult(copy.getResult());
+                return true;
+            }
+            if (copy.getResult().equals(quad.getResult()) ||
+                    quad.getUses().contains(copy.getResult()))
+            {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the blocks outside of a loop that the loop can go to.
+     *
+     * @param body - The blocks of the loop.
+     * @return - The exit blocks.
+     */
+    private List<BasicBlock> exits(Set<BasicBlock> body)
+    {
+        List<BasicBlock> answer = new ArrayList<>();
+        for (BasicBlock block : body)
+        {
+            for (BasicBlock successor : block.getSuccessors())
+            {
+                if (!body.contains(successor) && !answer.contains(successor))
+                {
+                    answer.add(successor);
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Checks to see if a block only goes to another one by falling
+     * through into it, so a new block can be put between the two.
+     *
+     * @param program - The program.
+     * @param block - The block that is left.
+     * @param exit - The block that is gone to.
+     * @return - True if the edge is a fall through and not a branch.
+     */
+    private boolean fallsInto(IrProgram program, BasicBlock block,
+                              BasicBlock exit)
+    {
+        List<BasicBlock> blocks = program.getBlocks();
+        Quad last = block.getLast();
+        return blocks.indexOf(block) + 1 == blocks.indexOf(exit) &&
+                (last == null || last.getKind() != Kind.JUMP) &&
+                (last == null || last.getKind() != Kind.BRANCH ||
+                !last.getLabel().equals(exit.getLabel()));
+    }
+
+    /**
+     * Makes the Quads that store promoted variables back into memory.
+     *
+     * @param temps - The Temp of each promoted variable.
+     * @return - A new list of COPY Quads.
+     */
+    private List<Quad> stores(Map<String, Temp> temps)
+    {
+        List<Quad> answer = new ArrayList<>();
+        for (Map.Entry<String, Temp> entry : temps.entrySet())
+        {
+            answer.add(Quad.copy(new Var(entry.getKey()), entry.getValue()));
+        }
+        return answer;
+    }
+
+    /**
+     * Adds Quads to the end of a block, before the Quad that ends it if
+     * it is a control Quad.
+     *
+     * @param block - The block.
+     * @param quads - The Quads to add.
+     */
+    private void insertBeforeControl(BasicBlock block, List<Quad> quads)
+    {
+        Quad last = block.getLast();
+        int position = last != null && last.isControl() ?
+                block.getQuads().size() - 1 : block.getQuads().size();
+        block.getQuads().addAll(position, quads);
+    }
+
+    /**
+     * Returns the names of the variables a Quad reads or writes.
+     *
+     * @param quad - The Quad.
+     * @return - A list of variable names, which may be empty.
+     */
+    private List<String> variables(Quad quad)
+    {
+        List<String> answer = new ArrayList<>(2);
+        if (name(quad.getLeft()) != null)
+        {
+            answer.add(name(quad.getLeft()));
+        }
+        if (name(quad.getResult()) != null)
+        {
+            answer.add(name(quad.getResult()));
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the name of an operand that is a variable.
+     *
+     * @param operand - The operand, which may be null.
+     * @return - The name of the variable, or null if it isn't one.
+     */
+    private String name(Operand operand)
+    {
+        return operand instanceof Var ? ((Var) operand).getName() : null;
+    }
+}
@@ -0,0 +1,281 @@
+package optimizer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import codegen.CodeGeneration;
+import ir.IrBuilder;
+import ir.IrProgram;
+import ir.PassManager;
+import parser.Parser;
+import simulator.Assembler;
+import simulator.Simulator;
+import syntaxtree.ProgramNode;
+
+import java.io.StringReader;
+
+/**
+ * A JUnit Java class that illustrates keeping the variables of while
+ * loops in registers for the whole loop.
+ *
+ * @author Marissa Allen
+ */
+public class ScalarPromotionTest
+{
+    /**
+     * Lowers a program into three address code.
+     *
+     * @param test - The pascal program.
+     * @return - The IrProgram.
+     */
+    private IrProgram lower(String test)
+    {
+        ProgramNode program = new Parser(test, false).program();
+        return new IrBuilder().build(program);
+    }
+
+    /**
+     * Generates the code of a program, with or without ScalarPromotion,
+     * and runs it in the Simulator.
+     *
+     * @param test - The pascal program.
+     * @param promote - True to run ScalarPromotion on it.
+     * @return - What the program printed.
+     */
+    private String run(String test, boolean promote)
+    {
+        CodeGeneration gen = new CodeGeneration(
+                new Parser(test, false).program(), null);
+        gen.setPassManager(promote ?
+                new PassManager().add(new ScalarPromotion()) : null);
+        StringBuilder output = new StringBuilder();
+        Simulator simulator = new Simulator(
+                new Assembler().assemble(gen.genCode()),
+                new StringReader(""), output);
+        simulator.setStepLimit(100000);
+        simulator.run();
+        return output.toString();
+    }
+
+    /**
+     * This method tests promoting a loop counter and an accumulator. They
+     * are loaded in the preheader, computed in place in the loop, and
+     * stored back in a block on the way out of the loop that the guard
+     * skips. fum is only changed by read(), so it stays in memory. This
+     * is a text string test.
+     */
+    @Test
+    public void testAccumulator()
+    {
+        System.out.println("\n" + "#####################" + "\n" +
+                "# Test accumulator  #" + "\n" +
+                "#####################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi, fo, fum: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "fi := 0;\n" +
+                "while fee > 0 do\n" +
+                "begin\n" +
+                "fi := fi + fee;\n" +
+                "read(fum);\n" +
+                "fee := fee - 1\n" +
+                "end;\n" +
+                "write(fi)\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = lower(test);
+        ScalarPromotion promotion = new ScalarPromotion();
+        assertTrue(promotion.run(ir));
+        String expected = "B0 -> [B4, B1]\n" +
+                "    read fee\n" +
+                "    t1 = 0\n" +
+                "    fi = t1\n" +
+                "    t2 = fee\n" +
+                "    t3 = 0\n" +
+                "    if t2 <= t3 goto endLoop1\n" +
+                "B1 -> [B2]\n" +
+                "    t13 = fee\n" +
+                "    t14 = fi\n" +
+                "B2 -> [B2, B3]\n" +
+                "TopWhile1:\n" +
+                "    t14 = t14 + t13\n" +
+                "    read fum\n" +
+                "    t9 = 1\n" +
+                "    t13 = t13 - t9\n" +
+                "    t11 = 0\n" +
+                "    if t13 > t11 goto TopWhile1\n" +
+                "B3 -> [B4]\n" +
+                "    fee = t13\n" +
+                "    fi = t14\n" +
+                "B4 -> []\n" +
+                "endLoop1:\n" +
+                "    t12 = fi\n" +
+                "    write t12\n";
+        assertEquals(expected, ir.toString());
+        assertEquals(2, promotion.getPromotedCount());
+        assertEquals(2, ir.getPromoted().size());
+        System.out.print(ir);
+    }
+
+    /**
+     * This method tests nested loops with a return in the inner one. With
+     * room for two variables, fo and fi, which the inner loop uses, are
+     * picked over fee, and they are stored back before the return too.
+     * This is a text string test.
+     */
+    @Test
+    public void testLimitAndReturn()
+    {
+        System.out.println("\n" + "#########################" + "\n" +
+                "# Test limit and return #" + "\n" +
+                "#########################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi, fo: integer;\n" +
+                "begin\n" +
+                "while fee < 100 do\n" +
+                "begin\n" +
+                "fo := 0;\n" +
+                "while fo < 10 do\n" +
+                "begin\n" +
+                "fi := fi + fo;\n" +
+                "if fi > 50 then return fee else begin end;\n" +
+                "fo := fo + 1\n" +
+                "end;\n" +
+                "fee := fee + 1\n" +
+                "end\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = lower(test);
+        ScalarPromotion promotion = new ScalarPromotion(2);
+        assertTrue(promotion.run(ir));
+        String expected = "B0 -> [B8, B1]\n" +
+                "    t1 = fee\n" +
+                "    t2 = 100\n" +
+                "    if t1 >= t2 goto endLoop1\n" +
+                "B1 -> [B2]\n" +
+                "    t22 = fo\n" +
+                "    t23 = fi\n" +
+                "B2 -> [B6, B3]\n" +
+                "TopWhile1:\n" +
+                "    t22 = 0\n" +
+                "    t5 = 10\n" +
+                "    if t22 >= t5 goto endLoop2\n" +
+                "B3 -> [B5, B4]\n" +
+                "TopWhile2:\n" +
+                "    t23 = t23 + t22\n" +
+                "    t10 = 50\n" +
+                "    if t23 <= t10 goto Next3\n" +
+                "B4 -> []\n" +
+                "    fo = t22\n" +
+                "    fi = t23\n" +
+                "    t11 = fee\n" +
+                "    return t11\n" +
+                "B5 -> [B3, B6]\n" +
+                "Next3:\n" +
+                "    t14 = 1\n" +
+                "    t22 = t22 + t14\n" +
+                "    t16 = 10\n" +
+                "    if t22 < t16 goto TopWhile2\n" +
+                "B6 -> [B2, B7]\n" +
+                "endLoop2:\n" +
+                "    t18 = fee\n" +
+                "    t19 = 1\n" +
+                "    t17 = t18 + t19\n" +
+                "    fee = t17\n" +
+                "    t20 = fee\n" +
+                "    t21 = 100\n" +
+                "    if t20 < t21 goto TopWhile1\n" +
+                "B7 -> [B8]\n" +
+                "    fo = t22\n" +
+                "    fi = t23\n" +
+                "B8 -> []\n" +
+                "endLoop1:\n";
+        assertEquals(expected, ir.toString());
+        System.out.print(ir);
+
+        //Negative test, a limit of zero promotes nothing.
+        ir = lower(test);
+        assertFalse(new ScalarPromotion(0).run(ir));
+        assertTrue(ir.getPromoted().isEmpty());
+    }
+
+    /**
+     * This method tests two loops one after the other. Promoting the
+     * first adds blocks, and the second is still promoted on its own
+     * blocks, so its back edge goes to its own top and not to its
+     * preheader, and the program stops.
+     */
+    @Test
+    public void testTwoLoops()
+    {
+        System.out.println("\n" + "##################" + "\n" +
+                "# Test two loops #" + "\n" +
+                "##################" + "\n");
+
+        String test = "program foo;\n" +
+                "var lca, lcb: integer;\n" +
+                "begin\n" +
+                "lca := 0;\n" +
+                "while lca < 3 do lca := lca + 1;\n" +
+                "lcb := 0;\n" +
+                "while lcb < 5 do lcb := lcb + 1;\n" +
+                "write(lcb)\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = lower(test);
+        ScalarPromotion promotion = new ScalarPromotion();
+        assertTrue(promotion.run(ir));
+        assertEquals(2, promotion.getPromotedCount());
+        String expected = "B5 -> [B6]\n" +
+                "    t19 = lcb\n" +
+                "B6 -> [B6, B7]\n" +
+                "TopWhile2:\n" +
+                "    t14 = 1\n" +
+                "    t19 = t19 + t14\n" +
+                "    t16 = 5\n" +
+                "    if t19 < t16 goto TopWhile2\n" +
+                "B7 -> [B8]\n" +
+                "    lcb = t19\n";
+        assertTrue(ir.toString().contains(expected));
+        assertEquals("5", run(test, true));
+
+        //Two loops, each with a loop nested in it.
+        test = "program foo;\n" +
+                "var fee, fi, fo: integer;\n" +
+                "begin\n" +
+                "while fee < 4 do\n" +
+                "begin\n" +
+                "fo := 0;\n" +
+                "while fo < 3 do\n" +
+                "begin\n" +
+                "fi := fi + fo;\n" +
+                "fo := fo + 1\n" +
+                "end;\n" +
+                "fee := fee + 1\n" +
+                "end;\n" +
+                "write(fi);\n" +
+                "while fee > 0 do\n" +
+                "begin\n" +
+                "fo := fee;\n" +
+                "while fo > 0 do\n" +
+                "begin\n" +
+                "fi := fi + fee;\n" +
+                "fo := fo - 1\n" +
+                "end;\n" +
+                "fee := fee - 1\n" +
+                "end;\n" +
+                "write(fi)\n" +
+                "end\n" +
+                ".\n";
+        ir = lower(test);
+        promotion = new ScalarPromotion();
+        assertTrue(promotion.run(ir));
+        assertEquals(6, promotion.getPromotedCount());
+        assertEquals("1242", run(test, true));
+        assertEquals(run(test, false), run(test, true));
+    }
+}
@@ -0,0 +1,436 @@
+package optimizer;
+
+import ir.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This pass replaces *, div and mod by a constant with cheaper
+ * instructions. mult takes several cycles and div takes dozens, while a
+ * shift, an add or a mulhi are much faster.
+ *
+ * A multiply by a power of two is a shift left, and a multiply by a
+ * constant with two bits set, or that is a power of two less another,
+ * is two shifts and an add or a sub, so fee * 10 is
+ * (fee shl 3) + (fee shl 1) and fee * 7 is (fee shl 3) - fee.
+ *
+ * div rounds towards zero, so a div by 2^k first adds 2^k - 1 to a
+ * negative dividend before the sar:
+ * q = (fee + ((fee sar 31) shr (32 - k))) sar k
+ * A mod by 2^k masks the same biased dividend with an and, and takes the
+ * bias back off, so the remainder keeps the sign of the dividend. A div
+ * by any other constant d multiplies by a magic number M close to
+ * 2^(32 + s) / d, keeps the high word, shifts it right by s and adds one
+ * when the result is negative. A mod by it is fee - (fee div d) * d.
+ * M and s are found the way Hacker's Delight, chapter 10, finds them.
+ *
+ * The adds and subs of this code are addu and subu, which wrap around
+ * on overflow like mult and div do, since the add and sub of pascal trap
+ * on overflow, and a product or quotient that doesn't overflow can still
+ * have a step that does, like the shifts of fee * 7.
+ *
+ * Constants are found in the Quads and in the Temps only ever written
+ * with one, and the loads of those Temps are removed when nothing reads
+ * them anymore.
+ *
+ * @author Marissa Allen
+ */
+public class StrengthReduction implements IrPass
+{
+    private int reduced = 0;
+    private IrProgram program;
+
+    /**
+     * Returns the name the pass is reported under.
+     *
+     * @return - The name of the pass.
+     */
+    @Override
+    public String getName()
+    {
+        return "strength reduction";
+    }
+
+    /**
+     * Returns how many *, div and mod Quads have been replaced by this
+     * pass.
+     *
+     * @return - The number of Quads replaced.
+     */
+    public int getReducedCount()
+    {
+        return reduced;
+    }
+
+    /**
+     * Replaces every *, div and mod by a constant that has cheaper code.
+     *
+     * @param program - The IrProgram to optimize.
+     * @return - True if any Quad was replaced.
+     */
+    @Override
+    public boolean run(IrProgram program)
+    {
+        this.program = program;
+        Map<Temp, Integer> constants = program.findConstants();
+        int before = reduced;
+        for (BasicBlock block : program.getBlocks())
+        {
+            List<Quad> quads = new ArrayList<>();
+            for (Quad quad : block.getQuads())
+            {
+                List<Quad> code = null;
+                if (quad.getKind() == Kind.BINARY)
+                {
+                    code = reduce(quad, constants);
+                }
+                if (code == null)
+                {
+                    quads.add(quad);
+                }
+                else
+                {
+                    quads.addAll(code);
+                    reduced++;
+                }
+            }
+            block.getQuads().clear();
+            block.getQuads().addAll(quads);
+        }
+        if (reduced == before)
+        {
+            return false;
+        }
+        program.removeUnused(constants.keySet());
+        return true;
+    }
+
+    /**
+     * Finds cheaper code for a BINARY Quad.
+     *
+     * @param quad - The Quad.
+     * @param constants - The value of each Temp only written with one.
+     * @return - The new Quads, or null if the Quad is kept.
+     */
+    private List<Quad> reduce(Quad quad, Map<Temp, Integer> constants)
+    {
+        Integer right = constantOf(quad.getRight(), constants);
+        Integer left = constantOf(quad.getLeft(), constants);
+        List<Quad> code = new ArrayList<>();
+        switch (quad.getOp())
+        {
+            case MUL:
+                if (right != null &&
+                        multiply(code, quad.getResult(), quad.getLeft(),
+                                right))
+                {
+                    return code;
+                }
+                if (left != null &&
+                        multiply(code, quad.getResult(), quad.getRight(),
+                                left))
+                {
+                    return code;
+                }
+                return null;
+            case DIV:
+                return right != null &&
+                        divide(code, quad.getResult(), quad.getLeft(),
+                                right) ? code : null;
+            case MOD:
+                return right != null &&
+                        modulo(code, quad.getResult(), quad.getLeft(),
+                                right) ? code : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Adds the Quads that multiply by a constant with shifts.
+     *
+     * @param code - The list the Quads are added to.
+     * @param result - The operand the product goes in.
+     * @param value - The operand multiplied.
+     * @param constant - The constant it is multiplied by.
+     * @return - True if cheaper code was found.
+     */
+    private boolean multiply(List<Quad> code, Operand result,
+                             Operand value, int constant)
+    {
+        if (constant == 0 || constant == 1)
+        {
+            code.add(Quad.copy(result,
+                    constant == 0 ? new Const(0) : value));
+            return true;
+        }
+        if (constant == -1)
+        {
+            code.add(Quad.binary(Operator.SUBU, result, new Const(0),
+                    value));
+            return true;
+        }
+        long size = Math.abs((long) constant);
+        long low = Long.lowestOneBit(size);
+        Operator op = Operator.ADDU;
+        long high = size - low;
+        if (high != 0 && Long.bitCount(high) != 1)
+        {
+            //Like 7 or 14, a power of two less a smaller one.
+            op = Operator.SUBU;
+            high = size + low;
+        }
+        if (Long.bitCount(high) > 1 || high > 1L << 31)
+        {
+            return false;
+        }
+        Operand target = constant < 0 ? program.newTemp() : result;
+        if (high == 0)
+        {
+            code.add(shift(target, value, low));
+        }
+        else
+        {
+            Operand first = program.newTemp();
+            code.add(shift(first, value, high));
+            Operand second = value;
+            if (low != 1)
+            {
+                second = program.newTemp();
+                code.add(shift(second, value, low));
+            }
+            code.add(Quad.binary(op, target, first, second));
+        }
+        if (constant < 0)
+        {
+            code.add(Quad.binary(Operator.SUBU, result, new Const(0),
+                    target));
+        }
+        return true;
+    }
+
+    /**
+     * Adds the Quads that divide by a constant without a div.
+     *
+     * @param code - The list the Quads are added to.
+     * @param result - The operand the quotient goes in.
+     * @param value - The dividend.
+     * @param constant - The divisor.
+     * @return - True if cheaper code was found.
+     */
+    private boolean divide(List<Quad> code, Operand result, Operand value,
+                           int constant)
+    {
+        if (constant == 0 || constant == Integer.MIN_VALUE)
+        {
+            return false;
+        }
+        if (constant == 1 || constant == -1)
+        {
+            return multiply(code, result, value, constant);
+        }
+        int size = Math.abs(constant);
+        if (Integer.bitCount(size) == 1)
+        {
+            int power = Integer.numberOfTrailingZeros(size);
+            Operand bias = bias(code, value, power);
+            Operand biased = program.newTemp();
+            code.add(Quad.binary(Operator.ADDU, biased, value, bias));
+            Operand target = constant < 0 ? program.newTemp() : result;
+            code.add(Quad.binary(Operator.SAR, target, biased,
+                    new Const(power)));
+            if (constant < 0)
+            {
+                code.add(Quad.binary(Operator.SUBU, result, new Const(0),
+                        target));
+            }
+            return true;
+        }
+
+        int[] magic = magic(constant);
+        Operand multiplier = program.newTemp();
+        code.add(Quad.copy(multiplier, new Const(magic[0])));
+        Operand quotient = program.newTemp();
+        code.add(Quad.binary(Operator.MULHI, quotient, value, multiplier));
+        if (constant > 0 && magic[0] < 0)
+        {
+            Operand sum = program.newTemp();
+            code.add(Quad.binary(Operator.ADDU, sum, quotient, value));
+            quotient = sum;
+        }
+        else if (constant < 0 && magic[0] > 0)
+        {
+            Operand difference = program.newTemp();
+            code.add(Quad.binary(Operator.SUBU, difference, quotient,
+                    value));
+            quotient = difference;
+        }
+        if (magic[1] > 0)
+        {
+            Operand shifted = program.newTemp();
+            code.add(Quad.binary(Operator.SAR, shifted, quotient,
+                    new Const(magic[1])));
+            quotient = shifted;
+        }
+
+        //Adds one when the quotient is negative, to round towards zero.
+        Operand sign = program.newTemp();
+        code.add(Quad.binary(Operator.SHR, sign,
+                constant > 0 ? value : quotient, new Const(31)));
+        code.add(Quad.binary(Operator.ADDU, result, quotient, sign));
+        return true;
+    }
+
+    /**
+     * Adds the Quads that find the remainder of a division by a constant
+     * without a div.
+     *
+     * @param code - The list the Quads are added to.
+     * @param result - The operand the remainder goes in.
+     * @param value - The dividend.
+     * @param constant - The divisor.
+     * @return - True if cheaper code was found.
+     */
+    private boolean modulo(List<Quad> code, Operand result, Operand value,
+                           int constant)
+    {
+        if (constant == 0 || constant == Integer.MIN_VALUE)
+        {
+            return false;
+        }
+        int size = Math.abs(constant);
+        if (size == 1)
+        {
+            code.add(Quad.copy(result, new Const(0)));
+            return true;
+        }
+        if (Integer.bitCount(size) == 1)
+        {
+            int power = Integer.numberOfTrailingZeros(size);
+            Operand bias = bias(code, value, power);
+            Operand biased = program.newTemp();
+            code.add(Quad.binary(Operator.ADDU, biased, value, bias));
+            Operand masked = program.newTemp();
+            code.add(Quad.binary(Operator.AND, masked, biased,
+                    new Const(size - 1)));
+            code.add(Quad.binary(Operator.SUBU, result, masked, bias));
+            return true;
+        }
+        //The remainder has the sign of the dividend, so -d works like d.
+        Operand quotient = program.newTemp();
+        divide(code, quotient, value, size);
+        Operand product = program.newTemp();
+        if (!multiply(code, product, quotient, size))
+        {
+            Operand divisor = program.newTemp();
+            code.add(Quad.copy(divisor, new Const(size)));
+            code.add(Quad.binary(Operator.MUL, product, quotient,
+                    divisor));
+        }
+        code.add(Quad.binary(Operator.SUBU, result, value, product));
+        return true;
+    }
+
+    /**
+     * Adds the Quads that find what to add to a dividend before dividing
+     * it by 2^power with a sar: 2^power - 1 if it is negative, and 0 if
+     * it isn't.
+     *
+     * @param code - The list the Quads are added to.
+     * @param value - The dividend.
+     * @param power - The power of two divided by.
+     * @return - The Temp holding the bias.
+     */
+    private Operand bias(List<Quad> code, Operand value, int power)
+    {
+        Operand sign = value;
+        if (power > 1)
+        {
+            sign = program.newTemp();
+            code.add(Quad.binary(Operator.SAR, sign, value, new Const(31)));
+        }
+        Operand bias = program.newTemp();
+        code.add(Quad.binary(Operator.SHR, bias, sign,
+                new Const(32 - power)));
+        return bias;
+    }
+
+    /**
+     * Makes a Quad that multiplies by a power of two with a shift left.
+     *
+     * @param result - The operand the shifted value goes in.
+     * @param value - The operand shifted.
+     * @param factor - A power of two.
+     * @return - The Quad.
+     */
+    private Quad shift(Operand result, Operand value, long factor)
+    {
+        return Quad.binary(Operator.SHL, result, value,
+                new Const(Long.numberOfTrailingZeros(factor)));
+    }
+
+    /**
+     * Finds the magic number and shift for dividing by a constant that
+     * isn't 0, 1, -1 or a power of two.
+     *
+     * @param divisor - The constant.
+     * @return - The magic number M and the shift s.
+     */
+    static int[] magic(int divisor)
+    {
+        final long two31 = 1L << 31;
+        long size = Math.abs((long) divisor);
+        long t = two31 + (divisor < 0 ? 1 : 0);
+        long anc = t - 1 - t % size;
+        int power = 31;
+        long q1 = two31 / anc;
+        long r1 = two31 - q1 * anc;
+        long q2 = two31 / size;
+        long r2 = two31 - q2 * size;
+        long delta;
+        do
+        {
+            power++;
+            q1 = 2 * q1;
+            r1 = 2 * r1;
+            if (r1 >= anc)
+            {
+                q1++;
+                r1 -= anc;
+            }
+            q2 = 2 * q2;
+            r2 = 2 * r2;
+            if (r2 >= size)
+            {
+                q2++;
+                r2 -= size;
+            }
+            delta = size - r2;
+        } while (q1 < delta || (q1 == delta && r1 == 0));
+        int multiplier = (int) (q2 + 1);
+        if (divisor < 0)
+        {
+            multiplier = -multiplier;
+        }
+        return new int[] {multiplier, power - 32};
+    }
+
+    /**
+     * Finds the value of an operand that is a constant, or a Temp only
+     * ever written with one.
+     *
+     * @param operand - The operand.
+     * @param constants - The value of each Temp only written with one.
+     * @return - The value, or null if the operand isn't constant.
+     */
+    private Integer constantOf(Operand operand, Map<Temp, Integer> constants)
+    {
+        if (operand instanceof Const)
+        {
+            return ((Const) operand).getValue();
+        }
+        return constants.get(operand);
+    }
+}
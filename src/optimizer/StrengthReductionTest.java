@@ -0,0 +1,253 @@
+package optimizer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import codegen.CodeGeneration;
+import ir.IrBuilder;
+import ir.IrProgram;
+import ir.PassManager;
+import parser.Parser;
+import simulator.Assembler;
+import simulator.Simulator;
+import syntaxtree.ProgramNode;
+
+import java.io.StringReader;
+
+/**
+ * A JUnit Java class that illustrates replacing *, div and mod by
+ * constants with shifts and multiplies.
+ *
+ * @author Marissa Allen
+ */
+public class StrengthReductionTest
+{
+    /**
+     * Lowers a program into three address code.
+     *
+     * @param test - The pascal program.
+     * @return - The IrProgram.
+     */
+    private IrProgram lower(String test)
+    {
+        ProgramNode program = new Parser(test, false).program();
+        return new IrBuilder().build(program);
+    }
+
+    /**
+     * Generates the code of a program, with or without StrengthReduction,
+     * and runs it in the Simulator. Its constants are folded first when
+     * it is reduced, so 0 - 3 is a constant.
+     *
+     * @param test - The pascal program.
+     * @param reduce - True to run StrengthReduction on it.
+     * @param input - The input of the program.
+     * @return - What the program printed.
+     */
+    private String run(String test, boolean reduce, String input)
+    {
+        ProgramNode program = new Parser(test, false).program();
+        if (reduce)
+        {
+            new ConstantFolder().fold(program);
+        }
+        CodeGeneration gen = new CodeGeneration(program, null);
+        gen.setPassManager(reduce ?
+                new PassManager().add(new StrengthReduction()) : null);
+        StringBuilder output = new StringBuilder();
+        new Simulator(new Assembler().assemble(gen.genCode()),
+                new StringReader(input), output).run();
+        return output.toString();
+    }
+
+    /**
+     * This method tests multiplying. fee * 10 is two shifts and an add,
+     * 7 * fee is a shift and a sub, and fee * 11, which has three bits
+     * set, keeps its mult.
+     * This is a text string test.
+     */
+    @Test
+    public void testMultiply()
+    {
+        System.out.println("\n" + "#################" + "\n" +
+                "# Test multiply #" + "\n" +
+                "#################" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi, fo, fum: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "fo := fee * 10;\n" +
+                "fi := 7 * fee;\n" +
+                "fum := fee * 11;\n" +
+                "write(fo + fi + fum)\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = lower(test);
+        StrengthReduction reduction = new StrengthReduction();
+        assertTrue(reduction.run(ir));
+        String expected = "B0 -> []\n" +
+                "    read fee\n" +
+                "    t2 = fee\n" +
+                "    t15 = t2 shl 3\n" +
+                "    t16 = t2 shl 1\n" +
+                "    t1 = t15 addu t16\n" +
+                "    fo = t1\n" +
+                "    t6 = fee\n" +
+                "    t17 = t6 shl 3\n" +
+                "    t4 = t17 subu t6\n" +
+                "    fi = t4\n" +
+                "    t8 = fee\n" +
+                "    t9 = 11\n" +
+                "    t7 = t8 * t9\n" +
+                "    fum = t7\n" +
+                "    t12 = fo\n" +
+                "    t13 = fi\n" +
+                "    t11 = t12 + t13\n" +
+                "    t14 = fum\n" +
+                "    t10 = t11 + t14\n" +
+                "    write t10\n";
+        assertEquals(expected, ir.toString());
+        assertEquals(2, reduction.getReducedCount());
+        System.out.print(ir);
+    }
+
+    /**
+     * This method tests dividing. fee div 16 biases a negative fee before
+     * the sar, fee mod 10 multiplies by the magic number for 10 and takes
+     * the product of the quotient and 10 off, and fee div 0 is left for
+     * the div to fail on.
+     * This is a text string test.
+     */
+    @Test
+    public void testDivide()
+    {
+        System.out.println("\n" + "###############" + "\n" +
+                "# Test divide #" + "\n" +
+                "###############" + "\n");
+
+        String test = "program foo;\n" +
+                "var fee, fi, fo, fum: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "fo := fee div 16;\n" +
+                "fi := fee mod 10;\n" +
+                "fum := fee div 0;\n" +
+                "write(fo + fi + fum)\n" +
+                "end\n" +
+                ".\n";
+        IrProgram ir = lower(test);
+        StrengthReduction reduction = new StrengthReduction();
+        assertTrue(reduction.run(ir));
+        String expected = "B0 -> []\n" +
+                "    read fee\n" +
+                "    t2 = fee\n" +
+                "    t15 = t2 sar 31\n" +
+                "    t16 = t15 shr 28\n" +
+                "    t17 = t2 addu t16\n" +
+                "    t1 = t17 sar 4\n" +
+                "    fo = t1\n" +
+                "    t5 = fee\n" +
+                "    t19 = 1717986919\n" +
+                "    t20 = t5 mulhi t19\n" +
+                "    t21 = t20 sar 2\n" +
+                "    t22 = t5 shr 31\n" +
+                "    t18 = t21 addu t22\n" +
+                "    t24 = t18 shl 3\n" +
+                "    t25 = t18 shl 1\n" +
+                "    t23 = t24 addu t25\n" +
+                "    t4 = t5 subu t23\n" +
+                "    fi = t4\n" +
+                "    t8 = fee\n" +
+                "    t9 = 0\n" +
+                "    t7 = t8 div t9\n" +
+                "    fum = t7\n" +
+                "    t12 = fo\n" +
+                "    t13 = fi\n" +
+                "    t11 = t12 + t13\n" +
+                "    t14 = fum\n" +
+                "    t10 = t11 + t14\n" +
+                "    write t10\n";
+        assertEquals(expected, ir.toString());
+        assertEquals(2, reduction.getReducedCount());
+        System.out.print(ir);
+
+        //Negative test, nothing is left to replace the second time.
+        assertFalse(reduction.run(ir));
+    }
+
+    /**
+     * This method tests the magic numbers against the ones listed in
+     * Hacker's Delight for 3, 5, 7, -5 and -7.
+     */
+    @Test
+    public void testMagic()
+    {
+        System.out.println("\n" + "##############" + "\n" +
+                "# Test magic #" + "\n" +
+                "##############" + "\n");
+
+        assertArrayEquals(new int[] {0x55555556, 0},
+                StrengthReduction.magic(3));
+        assertArrayEquals(new int[] {0x66666667, 1},
+                StrengthReduction.magic(5));
+        assertArrayEquals(new int[] {0x92492493, 2},
+                StrengthReduction.magic(7));
+        assertArrayEquals(new int[] {0x99999999, 1},
+                StrengthReduction.magic(-5));
+        assertArrayEquals(new int[] {0x6DB6DB6D, 2},
+                StrengthReduction.magic(-7));
+    }
+
+    /**
+     * This method tests operands at the ends of the integers. The adds
+     * and subs of the reduced code are addu and subu, so they wrap around
+     * like the mult and div they replace, instead of trapping on
+     * overflow: fee * 7 and fee * (0 - 3) wrap, and fee mod 7 of the
+     * largest integer is 1.
+     */
+    @Test
+    public void testBoundaries()
+    {
+        System.out.println("\n" + "###################" + "\n" +
+                "# Test boundaries #" + "\n" +
+                "###################" + "\n");
+
+        String[] operations = {"fee * 7", "fee * (0 - 3)", "fee * 15",
+                "fee div 7", "fee div (0 - 1)", "fee div 16", "fee mod 7",
+                "fee mod 16", "fee mod (0 - 10)"};
+        int[] values = {Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Integer.MIN_VALUE + 1, -1};
+        for (String operation : operations)
+        {
+            String test = "program foo;\n" +
+                    "var fee, fi: integer;\n" +
+                    "begin\n" +
+                    "read(fee);\n" +
+                    "fi := " + operation + ";\n" +
+                    "write(fi)\n" +
+                    "end\n" +
+                    ".\n";
+            for (int value : values)
+            {
+                assertEquals(operation + " of " + value,
+                        run(test, false, value + "\n"),
+                        run(test, true, value + "\n"));
+            }
+        }
+        String test = "program foo;\n" +
+                "var fee, fi: integer;\n" +
+                "begin\n" +
+                "read(fee);\n" +
+                "fi := fee mod 7;\n" +
+                "write(fi)\n" +
+                "end\n" +
+                ".\n";
+        assertEquals("1", run(test, true, Integer.MAX_VALUE + "\n"));
+        assertEquals("" + Integer.MAX_VALUE * 7, run(test.replace(
+                "mod 7", "* 7"), true, Integer.MAX_VALUE + "\n"));
+        assertEquals("" + Integer.MIN_VALUE * -3, run(test.replace(
+                "mod 7", "* (0 - 3)"), true, Integer.MIN_VALUE + "\n"));
+    }
+}
@@ -0,0 +1,42 @@
+package parser;
+
+import scanner.Token;
+import scanner.TokenType;
+
+/**
+ * A listener that can be attached to the Parser or the Recognizer to
+ * watch a parse as it happens. The listener is told every time a
+ * non-terminal rule of the micro pascal grammar is entered and exited,
+ * and every time a token is matched. When no listener is attached the
+ * parser skips these calls entirely, so tracing costs nothing unless it
+ * is turned on.
+ *
+ * @author Marissa Allen
+ */
+public interface ParseListener
+{
+    /**
+     * Called when the parser starts executing the rule for a
+     * non-terminal symbol.
+     *
+     * @param nonTerminal - The name of the non-terminal symbol.
+     */
+    void enter(String nonTerminal);
+
+    /**
+     * Called when the parser finishes executing the rule for a
+     * non-terminal symbol.
+     *
+     * @param nonTerminal - The name of the non-terminal symbol.
+     */
+    void exit(String nonTerminal);
+
+    /**
+     * Called when the lookahead token is matched against the expected
+     * token type, before the next token is read.
+     *
+     * @param expected - The token type the parser expected.
+     * @param token - The lookahead token that was matched.
+     */
+    void match(TokenType expected, Token token);
+}
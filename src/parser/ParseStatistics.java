@@ -0,0 +1,146 @@
+package parser;
+
+import scanner.Token;
+import scanner.TokenType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A ParseListener that counts and times a parse. It keeps a count of
+ * how many times each non-terminal rule was executed and how long was
+ * spent inside of it, and a count of how many tokens of each token type
+ * were matched. The time for a rule is measured from the outermost call
+ * of the rule, so rules that call themselves are not counted twice.
+ *
+ * @author Marissa Allen
+ */
+public class ParseStatistics implements ParseListener
+{
+    private Map<String, RuleData> rules = new LinkedHashMap<>();
+    private long[] matches = new long[TokenType.values().length];
+    private long totalMatches = 0;
+
+    @Override
+    public void enter(String nonTerminal)
+    {
+        RuleData data = rules.get(nonTerminal);
+        if (data == null)
+        {
+            data = new RuleData();
+            rules.put(nonTerminal, data);
+        }
+        data.count++;
+        //Only the outermost call of a rule starts the timer.
+        if (data.active++ == 0)
+        {
+            data.start = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void exit(String nonTerminal)
+    {
+        RuleData data = rules.get(nonTerminal);
+        if (data != null && --data.active == 0)
+        {
+            data.nanos += System.nanoTime() - data.start;
+        }
+    }
+
+    @Override
+    public void match(TokenType expected, Token token)
+    {
+        matches[expected.ordinal()]++;
+        totalMatches++;
+    }
+
+    /**
+     * Returns how many times the rule for a non-terminal was executed.
+     *
+     * @param nonTerminal - The name of the non-terminal symbol.
+     * @return - The number of times the rule was entered.
+     */
+    public long getCount(String nonTerminal)
+    {
+        RuleData data = rules.get(nonTerminal);
+        return data == null ? 0 : data.count;
+    }
+
+    /**
+     * Returns the time spent inside the rule for a non-terminal,
+     * including the rules it called.
+     *
+     * @param nonTerminal - The name of the non-terminal symbol.
+     * @return - The time spent in the rule in nanoseconds.
+     */
+    public long getNanos(String nonTerminal)
+    {
+        RuleData data = rules.get(nonTerminal);
+        return data == null ? 0 : data.nanos;
+    }
+
+    /**
+     * Returns how many tokens of the given type were matched.
+     *
+     * @param type - The token type.
+     * @return - The number of tokens of that type that were matched.
+     */
+    public long getMatchCount(TokenType type)
+    {
+        return matches[type.ordinal()];
+    }
+
+    /**
+     * Returns how many tokens were matched in total.
+     *
+     * @return - The number of tokens that were matched.
+     */
+    public long getMatchCount()
+    {
+        return totalMatches;
+    }
+
+    /**
+     * The string displayed for the parse statistics.
+     *
+     * @return - A table of the rules with their counts and times,
+     * followed by a table of the matched token types and their counts.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-25s %12s %14s%n", "Rules", "Calls",
+                "Time (us)"));
+        for (Map.Entry<String, RuleData> entry : rules.entrySet())
+        {
+            sb.append(String.format("%-25s %12d %14.1f%n", entry.getKey(),
+                    entry.getValue().count,
+                    entry.getValue().nanos / 1000.0));
+        }
+        sb.append(String.format("%n%-25s %12s%n", "Tokens", "Matches"));
+        for (TokenType type : TokenType.values())
+        {
+            if (matches[type.ordinal()] > 0)
+            {
+                sb.append(String.format("%-25s %12d%n", type,
+                        matches[type.ordinal()]));
+            }
+        }
+        sb.append(String.format("%-25s %12d%n", "Total", totalMatches));
+        return sb.toString();
+    }
+
+    /**
+     * Contains the call count and timing information that is kept for
+     * every non-terminal rule.
+     */
+    private static class RuleData
+    {
+        long count;
+        long nanos;
+        long start;
+        int active;
+    }
+}
@@ -0,0 +1,62 @@
+package parser;
+
+import scanner.Token;
+import scanner.TokenType;
+
+import java.io.PrintStream;
+
+/**
+ * A ParseListener that prints a trace of the parse. Every non-terminal
+ * that is entered is printed on its own line, indented by how deep the
+ * parse is, along with every token that is matched inside of it.
+ *
+ * @author Marissa Allen
+ */
+public class ParseTracer implements ParseListener
+{
+    private PrintStream out;
+    private int depth = 0;
+
+    /**
+     * ParseTracer constructor that takes in the stream the trace is
+     * printed to.
+     *
+     * @param out - The stream the trace is printed to.
+     */
+    public ParseTracer(PrintStream out)
+    {
+        this.out = out;
+    }
+
+    @Override
+    public void enter(String nonTerminal)
+    {
+        indent();
+        out.println(nonTerminal);
+        depth++;
+    }
+
+    @Override
+    public void exit(String nonTerminal)
+    {
+        depth--;
+    }
+
+    @Override
+    public void match(TokenType expected, Token token)
+    {
+        indent();
+        out.println("match( " + expected + ")");
+    }
+
+    /**
+     * Prints two spaces for every level of the parse.
+     */
+    private void indent()
+    {
+        for (int level = 0; level < depth; level++)
+        {
+            out.print("  ");
+        }
+    }
+}
@@ -40,6 +40,8 @@ public class Parser
 
     private SymbolTable symbols = new SymbolTable();
 
+    private ParseListener listener = null;
+
     ///////////////////////////////
     //       Constructors
     ///////////////////////////////
@@ -103,6 +105,7 @@ public class Parser
      */
     public ProgramNode program()
     {
+        enter("program");
         match(TokenType.PROGRAM);
         String programName = lookahead.lexeme;
         match(TokenType.ID);
@@ -118,6 +121,7 @@ public class Parser
         CompoundStatementNode csn = compound_statement();
         pn.setMain(csn);
         match(TokenType.PERIOD);
+        exit("program");
         return pn;
     }
 
@@ -130,6 +134,7 @@ public class Parser
      */
     public ArrayList<String> identifier_list()
     {
+        enter("identifier_list");
         ArrayList<String> answer = new ArrayList<>();
 
         String varName = lookahead.lexeme;
@@ -147,6 +152,7 @@ public class Parser
             match(TokenType.ID);
         }
 
+        exit("identifier_list");
         return answer;
     }
 
@@ -158,6 +164,7 @@ public class Parser
      */
     public DeclarationsNode declarations()
     {
+        enter("declarations");
         DeclarationsNode answer = new DeclarationsNode();
 
         /*Comparing the current lookahead token with a token type to
@@ -184,6 +191,7 @@ public class Parser
             //Do nothing. The empty lambda option.
         }
 
+        exit("declarations");
         return answer;
     }
 
@@ -196,6 +204,7 @@ public class Parser
      */
     public TypeEnum type()
     {
+        enter("type");
         TypeEnum answer = null;
 
         /*Comparing the current lookahead token with a token type to
@@ -223,6 +232,7 @@ public class Parser
             //if not a type
             error("Type");
         }
+        exit("type");
         return answer;
     }
 
@@ -234,6 +244,7 @@ public class Parser
      */
     public TypeEnum standard_type()
     {
+        enter("standard_type");
         TypeEnum answer = null;
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
@@ -255,6 +266,7 @@ public class Parser
             //if not a standard type
             error("Standard Type");
         }
+        exit("standard_type");
         return answer;
     }
 
@@ -267,6 +279,7 @@ public class Parser
      */
     public SubProgramDeclarationsNode subprogram_declarations()
     {
+        enter("subprogram_declarations");
         SubProgramDeclarationsNode answer =
                 new SubProgramDeclarationsNode();
 
@@ -284,6 +297,7 @@ public class Parser
             //Do nothing. The empty lambda option.
         }
 
+        exit("subprogram_declarations");
         return answer;
     }
 
@@ -296,12 +310,14 @@ public class Parser
      */
     public SubProgramNode subprogram_declaration()
     {
+        enter("subprogram_declaration");
         SubProgramNode answer = new SubProgramNode();
 
         answer.addSubProgramDeclaration(subprogram_head());
         declarations();
         compound_statement();
 
+        exit("subprogram_declaration");
         return answer;
     }
 
@@ -314,6 +330,7 @@ public class Parser
      */
     public SubProgramNode subprogram_head()
     {
+        enter("subprogram_head");
         SubProgramNode answer = new SubProgramNode();
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
@@ -350,6 +367,7 @@ public class Parser
             //if not a subprogram head
             error("Subprogram Head");
         }
+        exit("subprogram_head");
         return answer;
     }
 
@@ -361,6 +379,7 @@ public class Parser
      */
     public ArrayList<VariableNode> arguments()
     {
+        enter("arguments");
         ArrayList<VariableNode> answer = new ArrayList<>();
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
@@ -374,6 +393,7 @@ public class Parser
         {
             //Do nothing. The empty lambda option.
         }
+        exit("arguments");
         return answer;
     }
 
@@ -385,6 +405,7 @@ public class Parser
      */
     public ArrayList<VariableNode> parameter_list()
     {
+        enter("parameter_list");
         ArrayList<VariableNode> answer = new ArrayList<>();
         ArrayList<String> idList = identifier_list();
         for (String s : idList)
@@ -404,6 +425,7 @@ public class Parser
         {
             //Do nothing. The empty lambda option.
         }
+        exit("parameter_list");
         return answer;
     }
 
@@ -416,6 +438,7 @@ public class Parser
      */
     public CompoundStatementNode compound_statement()
     {
+        enter("compound_statement");
         CompoundStatementNode answer = new CompoundStatementNode();
 
         match(TokenType.BEGIN);
@@ -429,6 +452,7 @@ public class Parser
         }
         match(TokenType.END);
 
+        exit("compound_statement");
         return answer;
     }
 
@@ -440,6 +464,7 @@ public class Parser
      */
     public ArrayList<StatementNode> optional_statements()
     {
+        enter("optional_statements");
         ArrayList<StatementNode> answers = null;
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
@@ -451,6 +476,7 @@ public class Parser
         {
             //Do nothing. The empty lambda option.
         }
+        exit("optional_statements");
         return answers;
     }
 
@@ -462,6 +488,7 @@ public class Parser
      */
     public ArrayList<StatementNode> statement_list()
     {
+        enter("statement_list");
         ArrayList<StatementNode> answer = new ArrayList<>();
         answer.add(statement());
         /*Comparing the current lookahead token with a token type to
@@ -473,6 +500,7 @@ public class Parser
             answer.add(statement());
         }
 
+        exit("statement_list");
         return answer;
     }
 
@@ -485,6 +513,7 @@ public class Parser
      */
     public StatementNode statement()
     {
+        enter("statement");
         StatementNode answer = null;
 
     /*All if/else if statements compare the lookahead token with a
@@ -565,6 +594,7 @@ public class Parser
             //if not a statement
             error("Statement");
         }
+        exit("statement");
         return answer;
     }
 
@@ -577,6 +607,7 @@ public class Parser
      */
     public VariableNode variable()
     {
+        enter("variable");
         String varName = lookahead.lexeme;
         VariableNode answer = new VariableNode(varName);
 
@@ -593,6 +624,7 @@ public class Parser
         {
             //Do nothing. The empty lambda option.
         }
+        exit("variable");
         return answer;
 
     }
@@ -603,6 +635,7 @@ public class Parser
      */
     public VariableNode procedure_statement()
     {
+        enter("procedure_statement");
         String varName = lookahead.lexeme;
         VariableNode answer = new VariableNode(varName);
 
@@ -619,6 +652,7 @@ public class Parser
         {
             //Do nothing. The empty lambda option.
         }
+        exit("procedure_statement");
         return answer;
     }
 
@@ -631,6 +665,7 @@ public class Parser
      */
     public ExpressionNode expression_list()
     {
+        enter("expression_list");
         ExpressionNode answer = null;
 
         answer = expression();
@@ -645,6 +680,7 @@ public class Parser
         {
             //Do nothing. The empty lambda option.
         }
+        exit("expression_list");
         return answer;
     }
 
@@ -657,6 +693,7 @@ public class Parser
      */
     public ExpressionNode expression()
     {
+        enter("expression");
         ExpressionNode answer = null;
         answer = simple_expression();
         if (isRelop(lookahead))
@@ -671,6 +708,7 @@ public class Parser
         {
             //Do nothing. The empty lambda option.
         }
+        exit("expression");
         return answer;
     }
 
@@ -684,6 +722,7 @@ public class Parser
      */
     public ExpressionNode simple_expression()
     {
+        enter("simple_expression");
         ExpressionNode answer = null;
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
@@ -707,6 +746,7 @@ public class Parser
             //if not a simple expression
             error("Simple Expression");
         }
+        exit("simple_expression");
         return answer;
     }
 
@@ -720,6 +760,8 @@ public class Parser
      */
     public ExpressionNode simple_part(ExpressionNode possibleLeft)
     {
+        enter("simple_part");
+        ExpressionNode answer = possibleLeft;
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
         if (lookahead.getType() == TokenType.PLUS ||
@@ -730,13 +772,14 @@ public class Parser
             ExpressionNode right = term();
             on.setLeft(possibleLeft);
             on.setRight(right);
-            return simple_part(on);
+            answer = simple_part(on);
         }
         else
         {
             //Do nothing. The empty lambda option.
-            return possibleLeft;
         }
+        exit("simple_part");
+        return answer;
     }
 
     /**
@@ -748,8 +791,11 @@ public class Parser
      */
     public ExpressionNode term()
     {
+        enter("term");
         ExpressionNode left = factor();
-        return term_part(left);
+        ExpressionNode answer = term_part(left);
+        exit("term");
+        return answer;
     }
 
     /**
@@ -762,19 +808,22 @@ public class Parser
      */
     public ExpressionNode term_part(ExpressionNode possibleLeft)
     {
+        enter("term_part");
+        ExpressionNode answer = possibleLeft;
         if (isMulop(lookahead))
         {
             OperationNode on = mulop();
             ExpressionNode right = factor();
             on.setLeft(possibleLeft);
             on.setRight(right);
-            return term_part(on);
+            answer = term_part(on);
         }
         else
         {
             //Do nothing. The empty lambda option.
-            return possibleLeft;
         }
+        exit("term_part");
+        return answer;
     }
 
     /**
@@ -786,6 +835,7 @@ public class Parser
      */
     public ExpressionNode factor()
     {
+        enter("factor");
         ExpressionNode answer = null;
         /*All if/else if statements compare the lookahead token with a
         token type to see if it matches the same type. */
@@ -836,6 +886,7 @@ public class Parser
             //if not a factor
             error("Factor");
         }
+        exit("factor");
         return answer;
     }
 
@@ -845,6 +896,7 @@ public class Parser
      */
     public void sign()
     {
+        enter("sign");
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
         if (this.lookahead.getType() == TokenType.PLUS)
@@ -860,6 +912,7 @@ public class Parser
             //if not a sign
             error("Sign");
         }
+        exit("sign");
     }
 
     /**
@@ -872,6 +925,7 @@ public class Parser
      */
     private OperationNode relop()
     {
+        enter("relop");
         OperationNode answer = null;
         /*All if/else if statements compare the lookahead token with a
         token type to see if it matches the same type. */
@@ -910,6 +964,7 @@ public class Parser
             //if not a relop
             error("Relop");
         }
+        exit("relop");
         return answer;
     }
 
@@ -922,6 +977,7 @@ public class Parser
      */
     private OperationNode addop()
     {
+        enter("addop");
         OperationNode answer = null;
         /*All if/else if statements compare the lookahead token with a
         token type to see if it matches the same type. */
@@ -945,6 +1001,7 @@ public class Parser
             //if not an addop
             error("Addop");
         }
+        exit("addop");
         return answer;
     }
 
@@ -958,6 +1015,7 @@ public class Parser
      */
     protected OperationNode mulop()
     {
+        enter("mulop");
         OperationNode answer = null;
         /*All if/else if statements compare the lookahead token with a
         token type to see if it matches the same type. */
@@ -991,6 +1049,7 @@ public class Parser
             //if not a mulop
             error("Mulop");
         }
+        exit("mulop");
         return answer;
     }
 
@@ -1000,6 +1059,7 @@ public class Parser
      */
     private void assignop()
     {
+        enter("assignop");
        /*Compares the lookahead token with a token type to see if it
          matches the same type. */
         if (lookahead.getType() == TokenType.ASSIGN)
@@ -1011,6 +1071,7 @@ public class Parser
             //if not an assignop
             error("Assignop");
         }
+        exit("assignop");
     }
 
     /**
@@ -1022,7 +1083,10 @@ public class Parser
      */
     protected void match(TokenType expected)
     {
-        System.out.println("match( " + expected + ")");
+        if (listener != null)
+        {
+            listener.match(expected, lookahead);
+        }
         /*Compares the lookahead token with a token type to see if it
          matches the same expected type. */
         if (this.lookahead.getType() == expected)
@@ -1144,6 +1208,46 @@ public class Parser
         return answer;
     }
 
+    /**
+     * Attaches a listener that is told about every rule that is executed
+     * and every token that is matched during the parse. Passing in null
+     * turns tracing off, which is the default.
+     *
+     * @param listener - The ParseListener to attach, or null.
+     */
+    public void setParseListener(ParseListener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * Tells the attached listener, if there is one, that the rule for a
+     * non-terminal symbol is being executed.
+     *
+     * @param nonTerminal - The name of the non-terminal symbol.
+     */
+    private void enter(String nonTerminal)
+    {
+        if (listener != null)
+        {
+            listener.enter(nonTerminal);
+        }
+    }
+
+    /**
+     * Tells the attached listener, if there is one, that the rule for a
+     * non-terminal symbol has finished.
+     *
+     * @param nonTerminal - The name of the non-terminal symbol.
+     */
+    private void exit(String nonTerminal)
+    {
+        if (listener != null)
+        {
+            listener.exit(nonTerminal);
+        }
+    }
+
     public SymbolTable getSymbolTable()
     {
         return symbols;
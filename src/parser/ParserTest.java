@@ -4,6 +4,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.*;
 
+import scanner.TokenType;
 import syntaxtree.*;
 
 /**
@@ -182,4 +183,32 @@ public class ParserTest
         System.out.println(actual);
     }
 
-}
+    /**
+     * This method uses JUnit to test attaching a ParseListener to the
+     * Parser. A ParseStatistics listener should count every rule that
+     * is executed and every token that is matched while parsing an
+     * expression.
+     */
+    @Test
+    public void testParseListener()
+    {
+        System.out.println("\n" + "######################" + "\n" +
+                "# Test parse listener #" + "\n" +
+                "######################" + "\n");
+
+        String test = "34 + 17 * 7";
+        Parser instance = new Parser(test, false);
+        ParseStatistics stats = new ParseStatistics();
+        instance.setParseListener(stats);
+        instance.expression();
+        assertEquals(1, stats.getCount("expression"));
+        assertEquals(2, stats.getCount("term"));
+        assertEquals(3, stats.getCount("factor"));
+        assertEquals(3, stats.getMatchCount(TokenType.NUMBER));
+        assertEquals(1, stats.getMatchCount(TokenType.PLUS));
+        assertEquals(1, stats.getMatchCount(TokenType.MULTI));
+        assertEquals(5, stats.getMatchCount());
+        System.out.println(stats);
+    }
+
+}
\ No newline at end of file
@@ -39,6 +39,8 @@ public class Recognizer
 
     private SymbolTable symbols = new SymbolTable();
 
+    private ParseListener listener = null;
+
     ///////////////////////////////
     //       Constructors
     ///////////////////////////////
@@ -100,6 +102,7 @@ public class Recognizer
      */
     public void program()
     {
+        enter("program");
         match(TokenType.PROGRAM);
         String programName = lookahead.lexeme;
         match(TokenType.ID);
@@ -111,6 +114,7 @@ public class Recognizer
         subprogram_declarations();
         compound_statement();
         match(TokenType.PERIOD);
+        exit("program");
     }
 
     /**
@@ -119,6 +123,7 @@ public class Recognizer
      */
     public void identifier_list()
     {
+        enter("identifier_list");
         String varName = lookahead.lexeme;
         match(TokenType.ID);
         /* Allows the current identifier to be added as a
@@ -135,6 +140,7 @@ public class Recognizer
         {
             //Do nothing. The empty lambda option.
         }
+        exit("identifier_list");
     }
 
     /**
@@ -143,6 +149,7 @@ public class Recognizer
      */
     public void declarations()
     {
+        enter("declarations");
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
         if (this.lookahead.getType() == TokenType.VAR)
@@ -158,6 +165,7 @@ public class Recognizer
         {
             //Do nothing. The empty lambda option.
         }
+        exit("declarations");
     }
 
 
@@ -167,6 +175,7 @@ public class Recognizer
      */
     public void type()
     {
+        enter("type");
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
         if (this.lookahead.getType() == TokenType.INTEGER ||
@@ -192,6 +201,7 @@ public class Recognizer
             //if not a type
             error("Type");
         }
+        exit("type");
     }
 
     /**
@@ -200,6 +210,7 @@ public class Recognizer
      */
     public void standard_type()
     {
+        enter("standard_type");
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
         if (this.lookahead.getType() == TokenType.INTEGER)
@@ -217,6 +228,7 @@ public class Recognizer
             //if not a standard type
             error("Standard Type");
         }
+        exit("standard_type");
     }
 
     /**
@@ -225,6 +237,7 @@ public class Recognizer
      */
     public void subprogram_declarations()
     {
+        enter("subprogram_declarations");
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
         if (lookahead.getType() == TokenType.FUNCTION ||
@@ -238,6 +251,7 @@ public class Recognizer
         {
             //Do nothing. The empty lambda option.
         }
+        exit("subprogram_declarations");
     }
 
     /**
@@ -246,9 +260,11 @@ public class Recognizer
      */
     public void subprogram_declaration()
     {
+        enter("subprogram_declaration");
         subprogram_head();
         declarations();
         compound_statement();
+        exit("subprogram_declaration");
     }
 
     /**
@@ -257,6 +273,7 @@ public class Recognizer
      */
     public void subprogram_head()
     {
+        enter("subprogram_head");
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
         if (lookahead.getType() == TokenType.FUNCTION)
@@ -290,6 +307,7 @@ public class Recognizer
             //if not a subprogram head
             error("Subprogram Head");
         }
+        exit("subprogram_head");
     }
 
     /**
@@ -298,6 +316,7 @@ public class Recognizer
      */
     public void arguments()
     {
+        enter("arguments");
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
         if (this.lookahead.getType() == TokenType.LPAREN)
@@ -310,6 +329,7 @@ public class Recognizer
         {
             //Do nothing. The empty lambda option.
         }
+        exit("arguments");
     }
 
     /**
@@ -318,6 +338,7 @@ public class Recognizer
      */
     public void parameter_list()
     {
+        enter("parameter_list");
         identifier_list();
         match(TokenType.COLON);
         type();
@@ -332,6 +353,7 @@ public class Recognizer
         {
             //Do nothing. The empty lambda option.
         }
+        exit("parameter_list");
     }
 
     /**
@@ -340,9 +362,11 @@ public class Recognizer
      */
     public void compound_statement()
     {
+        enter("compound_statement");
         match(TokenType.BEGIN);
         optional_statements();
         match(TokenType.END);
+        exit("compound_statement");
     }
 
     /**
@@ -351,6 +375,7 @@ public class Recognizer
      */
     public void optional_statements()
     {
+        enter("optional_statements");
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
         if (isStatement(lookahead))
@@ -361,6 +386,7 @@ public class Recognizer
         {
             //Do nothing. The empty lambda option.
         }
+        exit("optional_statements");
     }
 
     /**
@@ -369,6 +395,7 @@ public class Recognizer
      */
     public void statement_list()
     {
+        enter("statement_list");
         statement();
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
@@ -381,6 +408,7 @@ public class Recognizer
         {
             //Do nothing. The empty lambda option.
         }
+        exit("statement_list");
     }
 
     /**
@@ -389,6 +417,7 @@ public class Recognizer
      */
     public void statement()
     {
+        enter("statement");
         /*All if/else if statements compare the lookahead token with a
         token type to see if it matches the same type. */
         if (lookahead.getType() == TokenType.ID)
@@ -450,6 +479,7 @@ public class Recognizer
             //if not a statement
             error("Statement");
         }
+        exit("statement");
     }
 
     /**
@@ -458,6 +488,7 @@ public class Recognizer
      */
     public void variable()
     {
+        enter("variable");
         match(TokenType.ID);
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
@@ -471,6 +502,7 @@ public class Recognizer
         {
             //Do nothing. The empty lambda option.
         }
+        exit("variable");
     }
 
     /**
@@ -479,6 +511,7 @@ public class Recognizer
      */
     public void procedure_statement()
     {
+        enter("procedure_statement");
         match(TokenType.ID);
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
@@ -492,6 +525,7 @@ public class Recognizer
         {
             //Do nothing. The empty lambda option.
         }
+        exit("procedure_statement");
     }
 
     /**
@@ -500,6 +534,7 @@ public class Recognizer
      */
     public void expression_list()
     {
+        enter("expression_list");
         expression();
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
@@ -512,6 +547,7 @@ public class Recognizer
         {
             //Do nothing. The empty lambda option.
         }
+        exit("expression_list");
     }
 
     /**
@@ -520,6 +556,7 @@ public class Recognizer
      */
     public void expression()
     {
+        enter("expression");
         simple_expression();
         if (isRelop(lookahead))
         {
@@ -530,6 +567,7 @@ public class Recognizer
         {
             //Do nothing. The empty lambda option.
         }
+        exit("expression");
     }
 
     /**
@@ -539,6 +577,7 @@ public class Recognizer
      */
     public void simple_expression()
     {
+        enter("simple_expression");
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
         if (this.lookahead.getType() == TokenType.ID ||
@@ -561,6 +600,7 @@ public class Recognizer
             //if not a simple expression
             error("Simple Expression");
         }
+        exit("simple_expression");
     }
 
     /**
@@ -569,6 +609,7 @@ public class Recognizer
      */
     public void simple_part()
     {
+        enter("simple_part");
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
         if (lookahead.getType() == TokenType.PLUS ||
@@ -583,6 +624,7 @@ public class Recognizer
         {
             //Do nothing. The empty lambda option.
         }
+        exit("simple_part");
     }
 
     /**
@@ -591,8 +633,10 @@ public class Recognizer
      */
     public void term()
     {
+        enter("term");
         factor();
         term_part();
+        exit("term");
     }
 
     /**
@@ -601,6 +645,7 @@ public class Recognizer
      */
     public void term_part()
     {
+        enter("term_part");
         if (isMulop(lookahead))
         {
             mulop();
@@ -611,6 +656,7 @@ public class Recognizer
         {
             //Do nothing. The empty lambda option.
         }
+        exit("term_part");
     }
 
     /**
@@ -619,6 +665,7 @@ public class Recognizer
      */
     public void factor()
     {
+        enter("factor");
         /*All if/else if statements compare the lookahead token with a
         token type to see if it matches the same type. */
         if (this.lookahead.getType() == TokenType.ID)
@@ -661,6 +708,7 @@ public class Recognizer
             //if not a factor
             error("Factor");
         }
+        exit("factor");
     }
 
     /**
@@ -669,6 +717,7 @@ public class Recognizer
      */
     public void sign()
     {
+        enter("sign");
         /*Comparing the current lookahead token with a token type to
         see if it matches the same type. */
         if (this.lookahead.getType() == TokenType.PLUS)
@@ -684,6 +733,7 @@ public class Recognizer
             //if not a sign
             error("Sign");
         }
+        exit("sign");
     }
 
     /**
@@ -693,6 +743,7 @@ public class Recognizer
      */
     private void relop()
     {
+        enter("relop");
         /*All if/else if statements compare the lookahead token with a
         token type to see if it matches the same type. */
         if (this.lookahead.getType() == TokenType.EQUIV)
@@ -724,6 +775,7 @@ public class Recognizer
             //if not a relop
             error("Relop");
         }
+        exit("relop");
     }
 
     /**
@@ -732,6 +784,7 @@ public class Recognizer
      */
     private void addop()
     {
+        enter("addop");
         /*All if/else if statements compare the lookahead token with a
         token type to see if it matches the same type. */
         if (lookahead.getType() == TokenType.PLUS)
@@ -751,6 +804,7 @@ public class Recognizer
             //if not an addop
             error("Addop");
         }
+        exit("addop");
     }
 
     /**
@@ -760,6 +814,7 @@ public class Recognizer
      */
     protected void mulop()
     {
+        enter("mulop");
         /*All if/else if statements compare the lookahead token with a
         token type to see if it matches the same type. */
         if (lookahead.getType() == TokenType.MULTI)
@@ -787,6 +842,7 @@ public class Recognizer
             //if not a mulop
             error("Mulop");
         }
+        exit("mulop");
     }
 
     /**
@@ -795,6 +851,7 @@ public class Recognizer
      */
     private void assignop()
     {
+        enter("assignop");
        /*Compares the lookahead token with a token type to see if it
          matches the same type. */
         if (lookahead.getType() == TokenType.ASSIGN)
@@ -806,6 +863,7 @@ public class Recognizer
             //if not an assignop
             error("Assignop");
         }
+        exit("assignop");
     }
 
     /**
@@ -817,7 +875,10 @@ public class Recognizer
      */
     protected void match(TokenType expected)
     {
-        System.out.println("match( " + expected + ")");
+        if (listener != null)
+        {
+            listener.match(expected, lookahead);
+        }
         /*Compares the lookahead token with a token type to see if it
          matches the same expected type. */
         if (this.lookahead.getType() == expected)
@@ -939,6 +1000,46 @@ public class Recognizer
         return answer;
     }
 
+    /**
+     * Attaches a listener that is told about every rule that is executed
+     * and every token that is matched during the parse. Passing in null
+     * turns tracing off, which is the default.
+     *
+     * @param listener - The ParseListener to attach, or null.
+     */
+    public void setParseListener(ParseListener listener)
+    {
+        this.listener = listener;
+    }
+
+    /**
+     * Tells the attached listener, if there is one, that the rule for a
+     * non-terminal symbol is being executed.
+     *
+     * @param nonTerminal - The name of the non-terminal symbol.
+     */
+    private void enter(String nonTerminal)
+    {
+        if (listener != null)
+        {
+            listener.enter(nonTerminal);
+        }
+    }
+
+    /**
+     * Tells the attached listener, if there is one, that the rule for a
+     * non-terminal symbol has finished.
+     *
+     * @param nonTerminal - The name of the non-terminal symbol.
+     */
+    private void exit(String nonTerminal)
+    {
+        if (listener != null)
+        {
+            listener.exit(nonTerminal);
+        }
+    }
+
     public SymbolTable getSymbolTable()
     {
         return symbols;
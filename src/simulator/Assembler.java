@@ -0,0 +1,540 @@
+package simulator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class puts together the MIPS assembly code the code generator
+ * writes, so a Simulator can run it. It takes two passes over the code.
+ * The first finds where every label is, laying out the .data section and
+ * numbering the instructions of the .text section, and the second
+ * decodes the operands of every instruction, with each label replaced by
+ * the index or address it stands for.
+ *
+ * The .data section can hold .word, .asciiz, .space and .align
+ * directives, and .globl is skipped. Comments start with # and run to
+ * the end of the line. Anything else the simulator can't run, like an
+ * unknown instruction, a bad register or a label that isn't defined, is
+ * reported with a RuntimeException that gives the line it is on.
+ *
+ * @author Marissa Allen
+ */
+public class Assembler
+{
+    private static final String[] REGISTER_NAMES = {"$zero", "$at", "$v0",
+            "$v1", "$a0", "$a1", "$a2", "$a3", "$t0", "$t1", "$t2", "$t3",
+            "$t4", "$t5", "$t6", "$t7", "$s0", "$s1", "$s2", "$s3", "$s4",
+            "$s5", "$s6", "$s7", "$t8", "$t9", "$k0", "$k1", "$gp", "$sp",
+            "$fp", "$ra"};
+
+    private static final Map<String, Integer> REGISTERS = new HashMap<>();
+
+    static
+    {
+        for (int index = 0; index < REGISTER_NAMES.length; index++)
+        {
+            REGISTERS.put(REGISTER_NAMES[index], index);
+            REGISTERS.put("$" + index, index);
+        }
+    }
+
+    private Map<String, Integer> labels;
+    private List<Byte> data;
+    private List<String> text;
+    private List<Integer> textLines;
+    private int lineNumber;
+
+    /**
+     * Puts together a program.
+     *
+     * @param source - The assembly code, like the String genCode returns.
+     * @return - The MachineCode, ready to run.
+     */
+    public MachineCode assemble(String source)
+    {
+        labels = new HashMap<>();
+        data = new ArrayList<>();
+        text = new ArrayList<>();
+        textLines = new ArrayList<>();
+
+        //The first pass lays out the program and finds the labels.
+        boolean inText = true;
+        String[] lines = source.split("\n");
+        for (lineNumber = 1; lineNumber <= lines.length; lineNumber++)
+        {
+            String line = stripComment(lines[lineNumber - 1]).trim();
+            int colon = labelEnd(line);
+            if (colon >= 0)
+            {
+                String name = line.substring(0, colon).trim();
+                if (labels.containsKey(name))
+                {
+                    throw error("The label " + name + " is defined twice");
+                }
+                labels.put(name, inText ? text.size() :
+                        MachineCode.DATA_BASE + data.size());
+                line = line.substring(colon + 1).trim();
+            }
+            if (line.isEmpty())
+            {
+                continue;
+            }
+            if (line.equals(".data") || line.equals(".text"))
+            {
+                inText = line.equals(".text");
+            }
+            else if (line.startsWith("."))
+            {
+                directive(line, name(colon, lines[lineNumber - 1]));
+            }
+            else if (inText)
+            {
+                text.add(line);
+                textLines.add(lineNumber);
+            }
+            else
+            {
+                throw error("An instruction is in the .data section");
+            }
+        }
+
+        //The second pass decodes the instructions.
+        int size = text.size();
+        Opcode[] ops = new Opcode[size];
+        int[] a = new int[size];
+        int[] b = new int[size];
+        int[] c = new int[size];
+        int[] weights = new int[size];
+        for (int index = 0; index < size; index++)
+        {
+            lineNumber = textLines.get(index);
+            decode(text.get(index), index, ops, a, b, c, weights);
+        }
+        Integer main = labels.get("main");
+        int entry = main == null ? 0 : main;
+        return new MachineCode(ops, a, b, c, weights,
+                text.toArray(new String[0]), words(), labels, entry);
+    }
+
+    /**
+     * Lays out a directive of the .data section.
+     *
+     * @param line - The directive, without its label.
+     * @param label - The label in front of it, or null.
+     */
+    private void directive(String line, String label)
+    {
+        String[] parts = line.split("\\s+", 2);
+        String rest = parts.length > 1 ? parts[1].trim() : "";
+        switch (parts[0])
+        {
+            case ".word":
+                align(4, label);
+                for (String value : rest.split(","))
+                {
+                    int word = number(value.trim());
+                    for (int shift = 0; shift < 32; shift += 8)
+                    {
+                        data.add((byte) (word >>> shift));
+                    }
+                }
+                break;
+            case ".asciiz":
+                for (char letter : string(rest).toCharArray())
+                {
+                    data.add((byte) letter);
+                }
+                data.add((byte) 0);
+                break;
+            case ".space":
+                for (int count = number(rest); count > 0; count--)
+                {
+                    data.add((byte) 0);
+                }
+                break;
+            case ".align":
+                align(1 << number(rest), label);
+                break;
+            case ".globl":
+                break;
+            default:
+                throw error("Unknown directive " + parts[0]);
+        }
+    }
+
+    /**
+     * Pads the .data section up to a multiple of a size, and moves the
+     * label in front of the directive along with it.
+     *
+     * @param size - The size, a power of two.
+     * @param label - The label in front of the directive, or null.
+     */
+    private void align(int size, String label)
+    {
+        while (data.size() % size != 0)
+        {
+            data.add((byte) 0);
+        }
+        if (label != null)
+        {
+            labels.put(label, MachineCode.DATA_BASE + data.size());
+        }
+    }
+
+    /**
+     * Decodes one instruction into the arrays of the MachineCode.
+     *
+     * @param line - The instruction, without its comment or label.
+     * @param index - The index of the instruction.
+     * @param ops - The Opcodes.
+     * @param a - The first numbers.
+     * @param b - The second numbers.
+     * @param c - The third numbers.
+     * @param weights - The weights.
+     */
+    private void decode(String line, int index, Opcode[] ops, int[] a,
+                        int[] b, int[] c, int[] weights)
+    {
+        String[] parts = line.split("\\s+", 2);
+        Opcode op = Opcode.fromMnemonic(parts[0]);
+        if (op == null)
+        {
+            throw error("Unknown instruction " + parts[0]);
+        }
+        String[] operands = parts.length > 1 ?
+                parts[1].split("\\s*,\\s*") : new String[0];
+        ops[index] = op;
+        weights[index] = 1;
+        switch (op.getFormat())
+        {
+            case REG3:
+                count(operands, 3);
+                a[index] = register(operands[0]);
+                b[index] = register(operands[1]);
+                c[index] = register(operands[2]);
+                break;
+            case IMM:
+                count(operands, 3);
+                a[index] = register(operands[0]);
+                b[index] = register(operands[1]);
+                c[index] = number(operands[2]);
+                if (!fits(op, c[index]))
+                {
+                    //The assembler builds the value in $at first.
+                    weights[index] = 3;
+                }
+                break;
+            case HI_LO:
+                count(operands, 2);
+                a[index] = register(operands[0]);
+                b[index] = register(operands[1]);
+                break;
+            case MOVE_FROM:
+            case JUMP_REG:
+                count(operands, 1);
+                a[index] = register(operands[0]);
+                break;
+            case MEMORY:
+                count(operands, 2);
+                a[index] = register(operands[0]);
+                address(operands[1], index, b, c);
+                break;
+            case LOAD_IMM:
+                count(operands, 2);
+                a[index] = register(operands[0]);
+                c[index] = number(operands[1]);
+                weights[index] = c[index] >= Short.MIN_VALUE &&
+                        c[index] <= 0xFFFF ? 1 : 2;
+                break;
+            case LOAD_ADDRESS:
+                count(operands, 2);
+                a[index] = register(operands[0]);
+                c[index] = label(operands[1]);
+                weights[index] = 2;
+                break;
+            case MOVE:
+                count(operands, 2);
+                a[index] = register(operands[0]);
+                b[index] = register(operands[1]);
+                break;
+            case BRANCH2:
+                count(operands, 3);
+                a[index] = register(operands[0]);
+                b[index] = register(operands[1]);
+                c[index] = target(operands[2]);
+                //blt and the others are an slt and a beq or bne.
+                weights[index] = op == Opcode.BEQ || op == Opcode.BNE ?
+                        1 : 2;
+                break;
+            case BRANCH1:
+                count(operands, 2);
+                a[index] = register(operands[0]);
+                c[index] = target(operands[1]);
+                break;
+            case JUMP:
+                count(operands, 1);
+                c[index] = target(operands[0]);
+                break;
+            default:
+                count(operands, 0);
+                break;
+        }
+    }
+
+    /**
+     * Decodes a memory operand, either a label or offset($base).
+     *
+     * @param operand - The operand.
+     * @param index - The index of the instruction.
+     * @param b - The base registers.
+     * @param c - The offsets.
+     */
+    private void address(String operand, int index, int[] b, int[] c)
+    {
+        int open = operand.indexOf('(');
+        if (open < 0)
+        {
+            b[index] = 0;
+            c[index] = label(operand);
+        }
+        else if (operand.endsWith(")"))
+        {
+            String offset = operand.substring(0, open).trim();
+            b[index] = register(operand.substring(open + 1,
+                    operand.length() - 1).trim());
+            c[index] = offset.isEmpty() ? 0 : number(offset);
+        }
+        else
+        {
+            throw error("Bad address " + operand);
+        }
+    }
+
+    /**
+     * Checks to see if the immediate of an instruction fits in its 16
+     * bits. andi, ori and xori take an unsigned immediate, the shifts a
+     * shift amount, and the others a signed one.
+     *
+     * @param op - The Opcode.
+     * @param value - The immediate.
+     * @return - True if it fits.
+     */
+    private boolean fits(Opcode op, int value)
+    {
+        switch (op)
+        {
+            case ANDI:
+            case ORI:
+            case XORI:
+                return value >= 0 && value <= 0xFFFF;
+            case SLL:
+            case SRL:
+            case SRA:
+                if (value < 0 || value > 31)
+                {
+                    throw error("Bad shift amount " + value);
+                }
+                return true;
+            default:
+                return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Checks that an instruction has the right number of operands.
+     *
+     * @param operands - The operands.
+     * @param count - The number it should have.
+     */
+    private void count(String[] operands, int count)
+    {
+        if (operands.length != count)
+        {
+            throw error("Expected " + count + " operands");
+        }
+    }
+
+    /**
+     * Finds the number of a register.
+     *
+     * @param name - The register, like $t0 or $8.
+     * @return - The number of the register.
+     */
+    private int register(String name)
+    {
+        Integer answer = REGISTERS.get(name);
+        if (answer == null)
+        {
+            throw error("Unknown register " + name);
+        }
+        return answer;
+    }
+
+    /**
+     * Finds the index of a label in the .text section.
+     *
+     * @param name - The label.
+     * @return - The index of the instruction it is in front of.
+     */
+    private int target(String name)
+    {
+        Integer answer = labels.get(name);
+        if (answer == null || answer >= MachineCode.DATA_BASE)
+        {
+            throw error("Unknown label " + name);
+        }
+        return answer;
+    }
+
+    /**
+     * Finds the address of a label. A label in the .text section is the
+     * address of its instruction.
+     *
+     * @param name - The label.
+     * @return - The address.
+     */
+    private int label(String name)
+    {
+        Integer answer = labels.get(name);
+        if (answer == null)
+        {
+            throw error("Unknown label " + name);
+        }
+        return answer >= MachineCode.DATA_BASE ? answer :
+                MachineCode.TEXT_BASE + 4 * answer;
+    }
+
+    /**
+     * Reads a number, written in decimal or, starting with 0x, in hex.
+     *
+     * @param value - The number.
+     * @return - Its value.
+     */
+    private int number(String value)
+    {
+        try
+        {
+            if (value.startsWith("0x") || value.startsWith("-0x"))
+            {
+                boolean negative = value.startsWith("-");
+                int answer = Integer.parseUnsignedInt(
+                        value.substring(negative ? 3 : 2), 16);
+                return negative ? -answer : answer;
+            }
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException ex)
+        {
+            throw error("Bad number " + value);
+        }
+    }
+
+    /**
+     * Reads the String of an .asciiz directive, with its \n, \t, \" and
+     * \\ escapes.
+     *
+     * @param quoted - The String, in quotes.
+     * @return - The characters of the String.
+     */
+    private String string(String quoted)
+    {
+        if (quoted.length() < 2 || !quoted.startsWith("\"") ||
+                !quoted.endsWith("\""))
+        {
+            throw error("Bad string " + quoted);
+        }
+        StringBuilder answer = new StringBuilder();
+        for (int index = 1; index < quoted.length() - 1; index++)
+        {
+            char letter = quoted.charAt(index);
+            if (letter == '\\' && index + 1 < quoted.length() - 1)
+            {
+                letter = quoted.charAt(++index);
+                letter = letter == 'n' ? '\n' : letter == 't' ? '\t' :
+                        letter;
+            }
+            answer.append(letter);
+        }
+        return answer.toString();
+    }
+
+    /**
+     * Removes the comment from a line, leaving any # inside a String.
+     *
+     * @param line - The line.
+     * @return - The line without its comment.
+     */
+    private static String stripComment(String line)
+    {
+        boolean quoted = false;
+        for (int index = 0; index < line.length(); index++)
+        {
+            char letter = line.charAt(index);
+            if (letter == '"' && (index == 0 ||
+                    line.charAt(index - 1) != '\\'))
+            {
+                quoted = !quoted;
+            }
+            else if (letter == '#' && !quoted)
+            {
+                return line.substring(0, index);
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Finds the colon that ends the label at the start of a line.
+     *
+     * @param line - The line, without its comment.
+     * @return - The index of the colon, or -1 if the line has no label.
+     */
+    private static int labelEnd(String line)
+    {
+        int colon = line.indexOf(':');
+        int quote = line.indexOf('"');
+        return quote >= 0 && quote < colon ? -1 : colon;
+    }
+
+    /**
+     * Returns the label in front of a line.
+     *
+     * @param colon - The index of the colon, or -1.
+     * @param line - The line.
+     * @return - The label, or null if there isn't one.
+     */
+    private static String name(int colon, String line)
+    {
+        return colon < 0 ? null :
+                stripComment(line).trim().substring(0, colon).trim();
+    }
+
+    /**
+     * Packs the bytes of the .data section into little endian words.
+     *
+     * @return - The words.
+     */
+    private int[] words()
+    {
+        int[] answer = new int[(data.size() + 3) / 4];
+        for (int index = 0; index < data.size(); index++)
+        {
+            answer[index / 4] |= (data.get(index) & 0xFF) <<
+                    (8 * (index % 4));
+        }
+        return answer;
+    }
+
+    /**
+     * Makes the exception for a mistake in the code.
+     *
+     * @param message - What is wrong.
+     * @return - The RuntimeException, with the line number.
+     */
+    private RuntimeException error(String message)
+    {
+        return new RuntimeException(message + " on line " + lineNumber);
+    }
+}
@@ -0,0 +1,168 @@
+package simulator;
+
+/**
+ * This class holds the timing of the pipeline a Profiler charges a run
+ * with. It is modeled on a classic five stage MIPS pipeline with
+ * forwarding, where each machine instruction issues in one cycle and
+ * time is only lost to:
+ * - a load-use stall, when an instruction reads the register the lw
+ *   right before it loads, which forwarding can't cover;
+ * - the multiply and divide unit, which works on its own while the
+ *   pipeline goes on, so an mfhi or mflo, or the next mult or div,
+ *   waits until the last one is done;
+ * - a taken branch, since the pipeline fetches the instructions after
+ *   a branch and has to throw them away when it is taken;
+ * - a jump, which throws away the instruction fetched after it.
+ *
+ * Every number can be changed to model other hardware. A number that
+ * is less than zero is reported with an IllegalArgumentException.
+ *
+ * @author Marissa Allen
+ */
+public class CostModel
+{
+    private int loadUseStall = 1;
+    private int multiplyLatency = 5;
+    private int divideLatency = 35;
+    private int takenBranchPenalty = 1;
+    private int jumpPenalty = 1;
+
+    /**
+     * Returns the cycles an instruction waits for the lw right before it.
+     *
+     * @return - The number of cycles, 1 by default.
+     */
+    public int getLoadUseStall()
+    {
+        return loadUseStall;
+    }
+
+    /**
+     * Sets the cycles an instruction waits for the lw right before it.
+     *
+     * @param loadUseStall - The number of cycles.
+     * @return - This CostModel, so calls can be chained.
+     */
+    public CostModel setLoadUseStall(int loadUseStall)
+    {
+        this.loadUseStall = check(loadUseStall);
+        return this;
+    }
+
+    /**
+     * Returns the cycles a mult takes before HI and LO can be read.
+     *
+     * @return - The number of cycles, 5 by default.
+     */
+    public int getMultiplyLatency()
+    {
+        return multiplyLatency;
+    }
+
+    /**
+     * Sets the cycles a mult takes before HI and LO can be read.
+     *
+     * @param multiplyLatency - The number of cycles.
+     * @return - This CostModel, so calls can be chained.
+     */
+    public CostModel setMultiplyLatency(int multiplyLatency)
+    {
+        this.multiplyLatency = check(multiplyLatency);
+        return this;
+    }
+
+    /**
+     * Returns the cycles a div takes before HI and LO can be read.
+     *
+     * @return - The number of cycles, 35 by default.
+     */
+    public int getDivideLatency()
+    {
+        return divideLatency;
+    }
+
+    /**
+     * Sets the cycles a div takes before HI and LO can be read.
+     *
+     * @param divideLatency - The number of cycles.
+     * @return - This CostModel, so calls can be chained.
+     */
+    public CostModel setDivideLatency(int divideLatency)
+    {
+        this.divideLatency = check(divideLatency);
+        return this;
+    }
+
+    /**
+     * Returns the cycles lost when a branch is taken.
+     *
+     * @return - The number of cycles, 1 by default.
+     */
+    public int getTakenBranchPenalty()
+    {
+        return takenBranchPenalty;
+    }
+
+    /**
+     * Sets the cycles lost when a branch is taken.
+     *
+     * @param takenBranchPenalty - The number of cycles.
+     * @return - This CostModel, so calls can be chained.
+     */
+    public CostModel setTakenBranchPenalty(int takenBranchPenalty)
+    {
+        this.takenBranchPenalty = check(takenBranchPenalty);
+        return this;
+    }
+
+    /**
+     * Returns the cycles lost by a j, b, jal or jr.
+     *
+     * @return - The number of cycles, 1 by default.
+     */
+    public int getJumpPenalty()
+    {
+        return jumpPenalty;
+    }
+
+    /**
+     * Sets the cycles lost by a j, b, jal or jr.
+     *
+     * @param jumpPenalty - The number of cycles.
+     * @return - This CostModel, so calls can be chained.
+     */
+    public CostModel setJumpPenalty(int jumpPenalty)
+    {
+        this.jumpPenalty = check(jumpPenalty);
+        return this;
+    }
+
+    /**
+     * Checks that a number of cycles isn't less than zero.
+     *
+     * @param cycles - The number of cycles.
+     * @return - The number of cycles.
+     */
+    private static int check(int cycles)
+    {
+        if (cycles < 0)
+        {
+            throw new IllegalArgumentException("A cost can't be less " +
+                    "than zero, but was " + cycles);
+        }
+        return cycles;
+    }
+
+    /**
+     * Returns the numbers of the model.
+     *
+     * @return - A String of the numbers.
+     */
+    @Override
+    public String toString()
+    {
+        return "load-use " + loadUseStall + ", mult " + multiplyLatency +
+                ", div " + divideLatency + ", taken branch " +
+                takenBranchPenalty + ", jump " + jumpPenalty;
+    }
+}
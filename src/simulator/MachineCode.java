@@ -0,0 +1,193 @@
+package simulator;
+
+import java.util.Map;
+
+/**
+ * This class holds a program the Assembler has put together, ready to
+ * be run by a Simulator. Each instruction is decoded once, into its
+ * Opcode and three numbers whose meaning depends on its Format:
+ * REG3          a = $d, b = $s, c = $t
+ * IMM           a = $d, b = $s, c = the immediate
+ * HI_LO         a = $s, b = $t
+ * MOVE_FROM     a = $d
+ * MEMORY        a = $t, b = the base register, c = the offset, which is
+ *               the address of a label with $zero as the base
+ * LOAD_IMM      a = $d, c = the value
+ * LOAD_ADDRESS  a = $d, c = the address
+ * MOVE          a = $d, b = $s
+ * BRANCH2       a = $s, b = $t, c = the index of the target
+ * BRANCH1       a = $s, c = the index of the target
+ * JUMP          c = the index of the target
+ * JUMP_REG      a = $s
+ * so running an instruction never has to look at its text again.
+ *
+ * Each instruction also has a weight, the number of machine instructions
+ * it stands for. A pseudo instruction like blt is an slt and a bne, and
+ * an li of a value that doesn't fit in 16 bits is a lui and an ori, so
+ * the instruction counts of a run match what real hardware would run.
+ *
+ * @author Marissa Allen
+ */
+public class MachineCode
+{
+    /**
+     * The address of the first instruction.
+     */
+    public static final int TEXT_BASE = 0x00400000;
+
+    /**
+     * The address of the first word of the .data section.
+     */
+    public static final int DATA_BASE = 0x10010000;
+
+    /**
+     * The value of $sp when a program starts.
+     */
+    public static final int STACK_TOP = 0x7fffeffc;
+
+    private Opcode[] ops;
+    private int[] a;
+    private int[] b;
+    private int[] c;
+    private int[] weights;
+    private String[] lines;
+    private int[] data;
+    private Map<String, Integer> labels;
+    private int entry;
+
+    /**
+     * MachineCode constructor that takes in the decoded instructions and
+     * the .data section.
+     *
+     * @param ops - The Opcode of each instruction.
+     * @param a - The first number of each instruction.
+     * @param b - The second number of each instruction.
+     * @param c - The third number of each instruction.
+     * @param weights - The number of machine instructions each stands
+     * for.
+     * @param lines - The text of each instruction.
+     * @param data - The words of the .data section.
+     * @param labels - The index of each label in the .text section, and
+     * the address of each label in the .data section.
+     * @param entry - The index of the first instruction run.
+     */
+    MachineCode(Opcode[] ops, int[] a, int[] b, int[] c, int[] weights,
+                String[] lines, int[] data, Map<String, Integer> labels,
+                int entry)
+    {
+        this.ops = ops;
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.weights = weights;
+        this.lines = lines;
+        this.data = data;
+        this.labels = labels;
+        this.entry = entry;
+    }
+
+    /**
+     * Returns the Opcodes of the instructions.
+     *
+     * @return - The Opcode of each instruction.
+     */
+    Opcode[] getOps()
+    {
+        return ops;
+    }
+
+    /**
+     * Returns the first number of each instruction.
+     *
+     * @return - The numbers.
+     */
+    int[] getA()
+    {
+        return a;
+    }
+
+    /**
+     * Returns the second number of each instruction.
+     *
+     * @return - The numbers.
+     */
+    int[] getB()
+    {
+        return b;
+    }
+
+    /**
+     * Returns the third number of each instruction.
+     *
+     * @return - The numbers.
+     */
+    int[] getC()
+    {
+        return c;
+    }
+
+    /**
+     * Returns the number of machine instructions each instruction stands
+     * for.
+     *
+     * @return - The weights.
+     */
+    int[] getWeights()
+    {
+        return weights;
+    }
+
+    /**
+     * Returns the words the .data section starts with.
+     *
+     * @return - The words, which must not be changed.
+     */
+    int[] getData()
+    {
+        return data;
+    }
+
+    /**
+     * Returns the index of the first instruction run, which is the one
+     * at main if there is a main label.
+     *
+     * @return - The index.
+     */
+    public int getEntry()
+    {
+        return entry;
+    }
+
+    /**
+     * Returns the number of instructions in the program.
+     *
+     * @return - The number of instructions.
+     */
+    public int size()
+    {
+        return ops.length;
+    }
+
+    /**
+     * Returns the text of an instruction, without its comment.
+     *
+     * @param index - The index of the instruction.
+     * @return - The instruction as it was written.
+     */
+    public String getLine(int index)
+    {
+        return lines[index];
+    }
+
+    /**
+     * Finds a label.
+     *
+     * @param name - The name of the label.
+     * @return - The index of a .text label, the address of a .data
+     * label, or null if there is no such label.
+     */
+    public Integer getLabel(String name)
+    {
+        return labels.get(name);
+    }
+}
@@ -0,0 +1,120 @@
+package simulator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The MIPS instructions the simulator can run, each with its mnemonic
+ * and the Format its operands are written in. These are the instructions
+ * and pseudo instructions the code generator writes, and a few more that
+ * hand written code often uses, like b, beqz and jal.
+ *
+ * @author Marissa Allen
+ */
+public enum Opcode
+{
+    ADD("add", Format.REG3), ADDU("addu", Format.REG3),
+    SUB("sub", Format.REG3), SUBU("subu", Format.REG3),
+    AND("and", Format.REG3), OR("or", Format.REG3),
+    XOR("xor", Format.REG3), NOR("nor", Format.REG3),
+    SLT("slt", Format.REG3), SLTU("sltu", Format.REG3),
+    SLLV("sllv", Format.REG3), SRLV("srlv", Format.REG3),
+    SRAV("srav", Format.REG3), MUL("mul", Format.REG3),
+    ADDI("addi", Format.IMM), ADDIU("addiu", Format.IMM),
+    ANDI("andi", Format.IMM), ORI("ori", Format.IMM),
+    XORI("xori", Format.IMM), SLTI("slti", Format.IMM),
+    SLTIU("sltiu", Format.IMM), SLL("sll", Format.IMM),
+    SRL("srl", Format.IMM), SRA("sra", Format.IMM),
+    MULT("mult", Format.HI_LO), DIV("div", Format.HI_LO),
+    MFHI("mfhi", Format.MOVE_FROM), MFLO("mflo", Format.MOVE_FROM),
+    LW("lw", Format.MEMORY), SW("sw", Format.MEMORY),
+    LI("li", Format.LOAD_IMM), LA("la", Format.LOAD_ADDRESS),
+    MOVE("move", Format.MOVE),
+    BEQ("beq", Format.BRANCH2), BNE("bne", Format.BRANCH2),
+    BLT("blt", Format.BRANCH2), BLE("ble", Format.BRANCH2),
+    BGT("bgt", Format.BRANCH2), BGE("bge", Format.BRANCH2),
+    BLTZ("bltz", Format.BRANCH1), BLEZ("blez", Format.BRANCH1),
+    BGTZ("bgtz", Format.BRANCH1), BGEZ("bgez", Format.BRANCH1),
+    BEQZ("beqz", Format.BRANCH1), BNEZ("bnez", Format.BRANCH1),
+    B("b", Format.JUMP), J("j", Format.JUMP), JAL("jal", Format.JUMP),
+    JR("jr", Format.JUMP_REG), SYSCALL("syscall", Format.NONE),
+    NOP("nop", Format.NONE);
+
+    /**
+     * How the operands of an instruction are written.
+     * REG3          $d, $s, $t
+     * IMM           $d, $s, imm
+     * HI_LO         $s, $t
+     * MOVE_FROM     $d
+     * MEMORY        $t, label or $t, offset($s)
+     * LOAD_IMM      $d, imm
+     * LOAD_ADDRESS  $d, label
+     * MOVE          $d, $s
+     * BRANCH2       $s, $t, label
+     * BRANCH1       $s, label
+     * JUMP          label
+     * JUMP_REG      $s
+     * NONE
+     */
+    public enum Format
+    {
+        REG3, IMM, HI_LO, MOVE_FROM, MEMORY, LOAD_IMM, LOAD_ADDRESS, MOVE,
+        BRANCH2, BRANCH1, JUMP, JUMP_REG, NONE
+    }
+
+    private static final Map<String, Opcode> BY_MNEMONIC = new HashMap<>();
+
+    static
+    {
+        for (Opcode opcode : values())
+        {
+            BY_MNEMONIC.put(opcode.mnemonic, opcode);
+        }
+    }
+
+    private String mnemonic;
+    private Format format;
+
+    /**
+     * Opcode constructor that takes in the mnemonic and the format.
+     *
+     * @param mnemonic - The mnemonic, like add.
+     * @param format - How its operands are written.
+     */
+    Opcode(String mnemonic, Format format)
+    {
+        this.mnemonic = mnemonic;
+        this.format = format;
+    }
+
+    /**
+     * Finds the Opcode of a mnemonic.
+     *
+     * @param mnemonic - The mnemonic, like add.
+     * @return - The Opcode, or null if the simulator can't run it.
+     */
+    public static Opcode fromMnemonic(String mnemonic)
+    {
+        return BY_MNEMONIC.get(mnemonic);
+    }
+
+    /**
+     * Returns the mnemonic of the instruction.
+     *
+     * @return - The mnemonic, like add.
+     */
+    public String getMnemonic()
+    {
+        return mnemonic;
+    }
+
+    /**
+     * Returns how the operands of the instruction are written.
+     *
+     * @return - The Format.
+     */
+    public Format getFormat()
+    {
+        return format;
+    }
+}
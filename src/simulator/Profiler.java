@@ -0,0 +1,321 @@
+package simulator;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class charges each instruction a Simulator runs with the cycles
+ * it takes on the pipeline of a CostModel, so a run reports the time the
+ * code would take on real hardware and not just how many instructions
+ * it runs. It is told about every instruction right after it runs, and
+ * keeps:
+ * - the cycles of the whole run, and of each instruction;
+ * - the load-use stalls and the stalls waiting on HI and LO;
+ * - the branches that were taken and not taken, and the jumps;
+ * - how many times each mnemonic ran, and the cycles it took, which is
+ *   the instruction mix of the run.
+ *
+ * The registers each instruction reads, and the one each lw loads, are
+ * found once, when the Profiler is made, so charging an instruction is
+ * only a few array reads.
+ *
+ * @author Marissa Allen
+ */
+public class Profiler
+{
+    private MachineCode code;
+    private CostModel model;
+    private int[] reads;
+    private int[] loads;
+    private long[] counts;
+    private long[] charged;
+    private long cycles = 0;
+    private long loadUseStalls = 0;
+    private long hiLoStalls = 0;
+    private long taken = 0;
+    private long notTaken = 0;
+    private long jumps = 0;
+    private long hiLoReady = 0;
+    private int lastLoad = 0;
+
+    /**
+     * Profiler constructor that takes in the program and the pipeline it
+     * runs on.
+     *
+     * @param code - The MachineCode that is run.
+     * @param model - The CostModel.
+     */
+    Profiler(MachineCode code, CostModel model)
+    {
+        this.code = code;
+        this.model = model;
+        int size = code.size();
+        reads = new int[size];
+        loads = new int[size];
+        counts = new long[size];
+        charged = new long[size];
+        Opcode[] ops = code.getOps();
+        int[] a = code.getA();
+        int[] b = code.getB();
+        int[] c = code.getC();
+        for (int index = 0; index < size; index++)
+        {
+            reads[index] = readMask(ops[index], a[index], b[index],
+                    c[index]);
+            loads[index] = ops[index] == Opcode.LW ? a[index] : 0;
+        }
+    }
+
+    /**
+     * Finds the registers an instruction reads.
+     *
+     * @param op - The Opcode.
+     * @param a - The first number of the instruction.
+     * @param b - The second number.
+     * @param c - The third number.
+     * @return - A mask with a bit set for each register read.
+     */
+    private static int readMask(Opcode op, int a, int b, int c)
+    {
+        switch (op.getFormat())
+        {
+            case REG3:
+                return 1 << b | 1 << c;
+            case IMM:
+            case MOVE:
+                return 1 << b;
+            case HI_LO:
+            case BRANCH2:
+                return 1 << a | 1 << b;
+            case MEMORY:
+                return op == Opcode.SW ? 1 << a | 1 << b : 1 << b;
+            case BRANCH1:
+            case JUMP_REG:
+                return 1 << a;
+            case NONE:
+                //A syscall reads $v0 and $a0.
+                return op == Opcode.SYSCALL ? 1 << 2 | 1 << 4 : 0;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Charges the instruction that just ran.
+     *
+     * @param pc - The index of the instruction.
+     * @param next - The index of the instruction that runs after it.
+     */
+    void record(int pc, int next)
+    {
+        Opcode op = code.getOps()[pc];
+        long stall = 0;
+        if (lastLoad != 0 && (reads[pc] & 1 << lastLoad) != 0)
+        {
+            stall = model.getLoadUseStall();
+            loadUseStalls += stall;
+        }
+        if (op == Opcode.MFHI || op == Opcode.MFLO || op == Opcode.MULT ||
+                op == Opcode.DIV)
+        {
+            long wait = hiLoReady - (cycles + stall);
+            if (wait > 0)
+            {
+                stall += wait;
+                hiLoStalls += wait;
+            }
+            if (op == Opcode.MULT || op == Opcode.DIV)
+            {
+                hiLoReady = cycles + stall + (op == Opcode.MULT ?
+                        model.getMultiplyLatency() :
+                        model.getDivideLatency());
+            }
+        }
+        long cost = code.getWeights()[pc] + stall;
+        switch (op.getFormat())
+        {
+            case BRANCH1:
+            case BRANCH2:
+                if (next != pc + 1)
+                {
+                    taken++;
+                    cost += model.getTakenBranchPenalty();
+                }
+                else
+                {
+                    notTaken++;
+                }
+                break;
+            case JUMP:
+            case JUMP_REG:
+                jumps++;
+                cost += model.getJumpPenalty();
+                break;
+            default:
+                break;
+        }
+        lastLoad = loads[pc];
+        cycles += cost;
+        counts[pc]++;
+        charged[pc] += cost;
+    }
+
+    /**
+     * Returns the cycles the run took.
+     *
+     * @return - The number of cycles.
+     */
+    public long getCycles()
+    {
+        return cycles;
+    }
+
+    /**
+     * Returns the cycles lost to load-use stalls.
+     *
+     * @return - The number of cycles.
+     */
+    public long getLoadUseStalls()
+    {
+        return loadUseStalls;
+    }
+
+    /**
+     * Returns the cycles lost waiting for a mult or div.
+     *
+     * @return - The number of cycles.
+     */
+    public long getHiLoStalls()
+    {
+        return hiLoStalls;
+    }
+
+    /**
+     * Returns the cycles lost to all stalls.
+     *
+     * @return - The number of cycles.
+     */
+    public long getStalls()
+    {
+        return loadUseStalls + hiLoStalls;
+    }
+
+    /**
+     * Returns how many branches were taken.
+     *
+     * @return - The number of branches.
+     */
+    public long getTakenBranches()
+    {
+        return taken;
+    }
+
+    /**
+     * Returns how many branches were not taken.
+     *
+     * @return - The number of branches.
+     */
+    public long getNotTakenBranches()
+    {
+        return notTaken;
+    }
+
+    /**
+     * Returns how many jumps were run.
+     *
+     * @return - The number of j, b, jal and jr instructions.
+     */
+    public long getJumps()
+    {
+        return jumps;
+    }
+
+    /**
+     * Returns the cycles charged to one instruction of the code.
+     *
+     * @param index - The index of the instruction.
+     * @return - The number of cycles.
+     */
+    public long getCycles(int index)
+    {
+        return charged[index];
+    }
+
+    /**
+     * Returns how many times each mnemonic ran.
+     *
+     * @return - The count of each mnemonic that ran, in alphabetical
+     * order.
+     */
+    public Map<String, Long> getHistogram()
+    {
+        return sum(counts);
+    }
+
+    /**
+     * Returns the cycles charged to each mnemonic.
+     *
+     * @return - The cycles of each mnemonic that ran, in alphabetical
+     * order.
+     */
+    public Map<String, Long> getCyclesByMnemonic()
+    {
+        return sum(charged);
+    }
+
+    /**
+     * Adds up a number kept for each instruction by mnemonic.
+     *
+     * @param numbers - The number of each instruction.
+     * @return - The sum for each mnemonic that ran.
+     */
+    private Map<String, Long> sum(long[] numbers)
+    {
+        Map<String, Long> answer = new TreeMap<>();
+        Opcode[] ops = code.getOps();
+        for (int index = 0; index < numbers.length; index++)
+        {
+            if (counts[index] > 0)
+            {
+                answer.merge(ops[index].getMnemonic(), numbers[index],
+                        Long::sum);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the report of the run: the cycles, the stalls and the
+     * branches, then the count and cycles of each mnemonic, with the
+     * share of the cycles each took.
+     *
+     * @return - A String of the report.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder answer = new StringBuilder();
+        answer.append("Pipeline profile, ").append(model).append("\n");
+        answer.append(String.format("%-22s%12d\n", "cycles", cycles));
+        answer.append(String.format("%-22s%12d\n", "load-use stalls",
+                loadUseStalls));
+        answer.append(String.format("%-22s%12d\n", "hi/lo stalls",
+                hiLoStalls));
+        answer.append(String.format("%-22s%12d\n", "taken branches",
+                taken));
+        answer.append(String.format("%-22s%12d\n", "not taken branches",
+                notTaken));
+        answer.append(String.format("%-22s%12d\n", "jumps", jumps));
+        answer.append(String.format("%-10s%12s%12s%8s\n", "opcode",
+                "count", "cycles", "share"));
+        Map<String, Long> byMnemonic = getCyclesByMnemonic();
+        for (Map.Entry<String, Long> entry : getHistogram().entrySet())
+        {
+            long spent = byMnemonic.get(entry.getKey());
+            answer.append(String.format("%-10s%12d%12d%7.1f%%\n",
+                    entry.getKey(), entry.getValue(), spent,
+                    cycles == 0 ? 0.0 : 100.0 * spent / cycles));
+        }
+        return answer.toString();
+    }
+}
@@ -0,0 +1,103 @@
+package simulator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+
+/**
+ * A JUnit Java class that illustrates charging a run with the cycles it
+ * takes on the pipeline of a CostModel.
+ *
+ * @author Marissa Allen
+ */
+public class ProfilerTest
+{
+    private static final String TEST = "main:\n" +
+            "lw     $t0, 0($sp)\n" +
+            "addi   $t1, $t0, 1\n" +
+            "li     $t2, 3\n" +
+            "mult   $t1, $t2\n" +
+            "mflo   $t3\n" +
+            "li     $t4, 2\n" +
+            "Top:\n" +
+            "addi   $t4, $t4, -1\n" +
+            "bgtz   $t4, Top\n" +
+            "jr     $ra\n";
+
+    /**
+     * Runs the test code on a pipeline.
+     *
+     * @param model - The CostModel.
+     * @return - The Profiler of the run.
+     */
+    private Profiler profile(CostModel model)
+    {
+        Simulator simulator = new Simulator(new Assembler().assemble(TEST),
+                new StringReader(""), new StringBuilder());
+        simulator.setCostModel(model);
+        simulator.run();
+        return simulator.getProfiler();
+    }
+
+    /**
+     * This method tests the cycles of the default pipeline. The addi
+     * waits a cycle for the lw before it, the mflo waits 4 cycles for
+     * the mult, the bgtz is taken once, and the jr jumps, so the 11
+     * instructions take 18 cycles.
+     * This is a text string test.
+     */
+    @Test
+    public void testCycles()
+    {
+        System.out.println("\n" + "###############" + "\n" +
+                "# Test cycles #" + "\n" +
+                "###############" + "\n");
+
+        Profiler profiler = profile(new CostModel());
+        assertEquals(18, profiler.getCycles());
+        assertEquals(1, profiler.getLoadUseStalls());
+        assertEquals(4, profiler.getHiLoStalls());
+        assertEquals(5, profiler.getStalls());
+        assertEquals(1, profiler.getTakenBranches());
+        assertEquals(1, profiler.getNotTakenBranches());
+        assertEquals(1, profiler.getJumps());
+        assertEquals(5, profiler.getCycles(4));
+        assertEquals(3, profiler.getHistogram().get("addi").longValue());
+        assertEquals(3, profiler.getCyclesByMnemonic().get("bgtz")
+                .longValue());
+        assertTrue(profiler.toString().contains(
+                "mflo                 1           5   27.8%\n"));
+        System.out.print(profiler);
+    }
+
+    /**
+     * This method tests changing the pipeline. With a mult that is done
+     * in one cycle and no penalties, only the load-use stall is left.
+     */
+    @Test
+    public void testChangedModel()
+    {
+        System.out.println("\n" + "######################" + "\n" +
+                "# Test changed model #" + "\n" +
+                "######################" + "\n");
+
+        Profiler profiler = profile(new CostModel().setMultiplyLatency(1)
+                .setTakenBranchPenalty(0).setJumpPenalty(0));
+        assertEquals(12, profiler.getCycles());
+        assertEquals(0, profiler.getHiLoStalls());
+        System.out.print(profiler);
+
+        //Negative test, a cost can't be less than zero.
+        try
+        {
+            new CostModel().setDivideLatency(-1);
+            fail("A cost less than zero was set.");
+        }
+        catch (IllegalArgumentException ex)
+        {
+            System.out.println(ex.getMessage());
+        }
+    }
+}
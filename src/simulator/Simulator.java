@@ -0,0 +1,581 @@
+package simulator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class runs the MachineCode of a MIPS program, so the code the
+ * compiler writes can be run and measured without SPIM or MARS. It
+ * keeps the 32 registers, HI and LO, the .data section and a stack, and
+ * runs one decoded instruction after another from main until the
+ * program makes the exit syscall, or jr $ra returns from main.
+ *
+ * The syscalls are the ones SPIM has for integers and Strings:
+ * 1   print the integer in $a0
+ * 4   print the String at the address in $a0
+ * 5   read an integer into $v0, one line of input at a time
+ * 10  exit
+ * 11  print the character in $a0
+ *
+ * add, sub and addi stop the program when they overflow, the way MIPS
+ * does, and a div by zero leaves HI and LO as they were. A load or store
+ * outside of the .data section and the stack, a jump outside of the
+ * program, and a run longer than the step limit are reported with a
+ * RuntimeException.
+ *
+ * While it runs, the simulator counts how many times each instruction
+ * is run, so a run reports both the number of instructions of the code,
+ * and the number of machine instructions they stand for. With a
+ * CostModel set, a Profiler also charges each instruction the cycles it
+ * takes on a pipeline.
+ *
+ * @author Marissa Allen
+ */
+public class Simulator
+{
+    /**
+     * The number of words of stack a program has.
+     */
+    private static final int STACK_WORDS = 1 << 18;
+
+    private MachineCode code;
+    private BufferedReader input;
+    private Appendable output;
+    private long stepLimit = Long.MAX_VALUE;
+    private CostModel model = null;
+    private Profiler profiler = null;
+    private int[] registers = new int[32];
+    private int hi;
+    private int lo;
+    private int[] data;
+    private int[] stack;
+    private long[] executed;
+    private long steps;
+
+    /**
+     * Simulator constructor that takes in the program, where it reads
+     * its input from, and where it writes its output.
+     *
+     * @param code - The MachineCode to run.
+     * @param input - The input read by syscall 5.
+     * @param output - The Appendable the program prints to.
+     */
+    public Simulator(MachineCode code, Reader input, Appendable output)
+    {
+        this.code = code;
+        this.input = input instanceof BufferedReader ?
+                (BufferedReader) input : new BufferedReader(input);
+        this.output = output;
+    }
+
+    /**
+     * Sets the most instructions a run may take before it is stopped,
+     * so a program that never ends can't hang a test.
+     *
+     * @param stepLimit - The most instructions to run.
+     */
+    public void setStepLimit(long stepLimit)
+    {
+        this.stepLimit = stepLimit;
+    }
+
+    /**
+     * Sets the pipeline each run is charged with. When it is set, every
+     * run makes a Profiler that reports the cycles the run took. No
+     * cycles are counted when it is null, which is the default and the
+     * fastest way to run.
+     *
+     * @param model - The CostModel, or null.
+     */
+    public void setCostModel(CostModel model)
+    {
+        this.model = model;
+    }
+
+    /**
+     * Returns the Profiler of the last run.
+     *
+     * @return - The Profiler, or null if no CostModel was set.
+     */
+    public Profiler getProfiler()
+    {
+        return profiler;
+    }
+
+    /**
+     * Runs the program from its entry until it exits. The registers and
+     * memory start over on every run.
+     */
+    public void run()
+    {
+        Opcode[] ops = code.getOps();
+        int[] a = code.getA();
+        int[] b = code.getB();
+        int[] c = code.getC();
+        int size = ops.length;
+        int[] r = registers;
+        Arrays.fill(r, 0);
+        r[29] = MachineCode.STACK_TOP;
+        r[31] = MachineCode.TEXT_BASE + 4 * size;
+        hi = 0;
+        lo = 0;
+        data = code.getData().clone();
+        stack = new int[STACK_WORDS];
+        long[] counts = new long[size];
+        executed = counts;
+        Profiler charge = model == null ? null : new Profiler(code, model);
+        profiler = charge;
+        long limit = stepLimit;
+        long step = 0;
+        int pc = code.getEntry();
+
+        try
+        {
+            while (pc < size)
+            {
+                if (++step > limit)
+                {
+                    throw new RuntimeException("The program ran more " +
+                            "than " + limit + " instructions");
+                }
+                counts[pc]++;
+                int next = pc + 1;
+                int x = a[pc];
+                int y = b[pc];
+                int z = c[pc];
+                switch (ops[pc])
+                {
+                    case ADD:
+                        r[x] = Math.addExact(r[y], r[z]);
+                        break;
+                    case ADDU:
+                        r[x] = r[y] + r[z];
+                        break;
+                    case SUB:
+                        r[x] = Math.subtractExact(r[y], r[z]);
+                        break;
+                    case SUBU:
+                        r[x] = r[y] - r[z];
+                        break;
+                    case AND:
+                        r[x] = r[y] & r[z];
+                        break;
+                    case OR:
+                        r[x] = r[y] | r[z];
+                        break;
+                    case XOR:
+                        r[x] = r[y] ^ r[z];
+                        break;
+                    case NOR:
+                        r[x] = ~(r[y] | r[z]);
+                        break;
+                    case SLT:
+                        r[x] = r[y] < r[z] ? 1 : 0;
+                        break;
+                    case SLTU:
+                        r[x] = Integer.compareUnsigned(r[y], r[z]) < 0 ? 1 : 0;
+                        break;
+                    case SLLV:
+                        r[x] = r[y] << r[z];
+                        break;
+                    case SRLV:
+                        r[x] = r[y] >>> r[z];
+                        break;
+                    case SRAV:
+                        r[x] = r[y] >> r[z];
+                        break;
+                    case MUL:
+                        r[x] = r[y] * r[z];
+                        break;
+                    case ADDI:
+                        r[x] = Math.addExact(r[y], z);
+                        break;
+                    case ADDIU:
+                        r[x] = r[y] + z;
+                        break;
+                    case ANDI:
+                        r[x] = r[y] & z;
+                        break;
+                    case ORI:
+                        r[x] = r[y] | z;
+                        break;
+                    case XORI:
+                        r[x] = r[y] ^ z;
+                        break;
+                    case SLTI:
+                        r[x] = r[y] < z ? 1 : 0;
+                        break;
+                    case SLTIU:
+                        r[x] = Integer.compareUnsigned(r[y], z) < 0 ? 1 : 0;
+                        break;
+                    case SLL:
+                        r[x] = r[y] << z;
+                        break;
+                    case SRL:
+                        r[x] = r[y] >>> z;
+                        break;
+                    case SRA:
+                        r[x] = r[y] >> z;
+                        break;
+                    case MULT:
+                        long product = (long) r[x] * r[y];
+                        hi = (int) (product >> 32);
+                        lo = (int) product;
+                        break;
+                    case DIV:
+                        if (r[y] != 0)
+                        {
+                            hi = r[x] % r[y];
+                            lo = r[x] / r[y];
+                        }
+                        break;
+                    case MFHI:
+                        r[x] = hi;
+                        break;
+                    case MFLO:
+                        r[x] = lo;
+                        break;
+                    case LW:
+                        r[x] = load(r[y] + z, pc);
+                        break;
+                    case SW:
+                        store(r[y] + z, r[x], pc);
+                        break;
+                    case LI:
+                    case LA:
+                        r[x] = z;
+                        break;
+                    case MOVE:
+                        r[x] = r[y];
+                        break;
+                    case BEQ:
+                        next = r[x] == r[y] ? z : next;
+                        break;
+                    case BNE:
+                        next = r[x] != r[y] ? z : next;
+                        break;
+                    case BLT:
+                        next = r[x] < r[y] ? z : next;
+                        break;
+                    case BLE:
+                        next = r[x] <= r[y] ? z : next;
+                        break;
+                    case BGT:
+                        next = r[x] > r[y] ? z : next;
+                        break;
+                    case BGE:
+                        next = r[x] >= r[y] ? z : next;
+                        break;
+                    case BLTZ:
+                        next = r[x] < 0 ? z : next;
+                        break;
+                    case BLEZ:
+                        next = r[x] <= 0 ? z : next;
+                        break;
+                    case BGTZ:
+                        next = r[x] > 0 ? z : next;
+                        break;
+                    case BGEZ:
+                        next = r[x] >= 0 ? z : next;
+                        break;
+                    case BEQZ:
+                        next = r[x] == 0 ? z : next;
+                        break;
+                    case BNEZ:
+                        next = r[x] != 0 ? z : next;
+                        break;
+                    case B:
+                    case J:
+                        next = z;
+                        break;
+                    case JAL:
+                        r[31] = MachineCode.TEXT_BASE + 4 * next;
+                        next = z;
+                        break;
+                    case JR:
+                        next = jumpTarget(r[x], pc);
+                        break;
+                    case SYSCALL:
+                        if (syscall(pc))
+                        {
+                            next = size;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                r[0] = 0;
+                if (charge != null)
+                {
+                    charge.record(pc, next);
+                }
+                pc = next;
+            }
+        }
+        catch (ArithmeticException ex)
+        {
+            throw error("Arithmetic overflow", pc);
+        }
+        finally
+        {
+            steps = Math.min(step, limit);
+        }
+    }
+
+    /**
+     * Runs a syscall, picked by the number in $v0.
+     *
+     * @param pc - The index of the syscall.
+     * @return - True if the program exits.
+     */
+    private boolean syscall(int pc)
+    {
+        int[] r = registers;
+        try
+        {
+            switch (r[2])
+            {
+                case 1:
+                    output.append(Integer.toString(r[4]));
+                    return false;
+                case 4:
+                    for (int at = r[4]; loadByte(at, pc) != 0; at++)
+                    {
+                        output.append((char) loadByte(at, pc));
+                    }
+                    return false;
+                case 5:
+                    r[2] = readInt(pc);
+                    return false;
+                case 10:
+                    return true;
+                case 11:
+                    output.append((char) (r[4] & 0xFF));
+                    return false;
+                default:
+                    throw error("Unknown syscall " + r[2], pc);
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Failed to run a syscall", ex);
+        }
+    }
+
+    /**
+     * Reads a line of input as an integer.
+     *
+     * @param pc - The index of the syscall.
+     * @return - The integer. An IOException is thrown if the input
+     * can't be read.
+     */
+    private int readInt(int pc) throws IOException
+    {
+        String line = input.readLine();
+        if (line == null)
+        {
+            throw error("The input ran out", pc);
+        }
+        try
+        {
+            return Integer.parseInt(line.trim());
+        }
+        catch (NumberFormatException ex)
+        {
+            throw error("The input " + line + " is not an integer", pc);
+        }
+    }
+
+    /**
+     * Reads a word of memory.
+     *
+     * @param address - The address of the word.
+     * @param pc - The index of the instruction reading it.
+     * @return - The word.
+     */
+    private int load(int address, int pc)
+    {
+        int[] words = segment(address, pc);
+        return words[index(address, words)];
+    }
+
+    /**
+     * Writes a word of memory.
+     *
+     * @param address - The address of the word.
+     * @param value - The word.
+     * @param pc - The index of the instruction writing it.
+     */
+    private void store(int address, int value, int pc)
+    {
+        int[] words = segment(address, pc);
+        words[index(address, words)] = value;
+    }
+
+    /**
+     * Reads a byte of memory.
+     *
+     * @param address - The address of the byte.
+     * @param pc - The index of the instruction reading it.
+     * @return - The byte, from 0 to 255.
+     */
+    private int loadByte(int address, int pc)
+    {
+        int word = load(address & ~3, pc);
+        return (word >>> (8 * (address & 3))) & 0xFF;
+    }
+
+    /**
+     * Finds the words an address is in, the .data section or the stack.
+     *
+     * @param address - The address.
+     * @param pc - The index of the instruction using it.
+     * @return - The words.
+     */
+    private int[] segment(int address, int pc)
+    {
+        if ((address & 3) != 0)
+        {
+            throw error("The address " + Integer.toHexString(address) +
+                    " is not a word", pc);
+        }
+        if (address >= MachineCode.DATA_BASE &&
+                address - MachineCode.DATA_BASE < 4L * data.length)
+        {
+            return data;
+        }
+        if (address <= MachineCode.STACK_TOP &&
+                MachineCode.STACK_TOP - address < 4L * stack.length)
+        {
+            return stack;
+        }
+        throw error("The address " + Integer.toHexString(address) +
+                " is out of memory", pc);
+    }
+
+    /**
+     * Finds where an address is in the words of its segment.
+     *
+     * @param address - The address.
+     * @param words - The .data section or the stack.
+     * @return - The index of the word.
+     */
+    private int index(int address, int[] words)
+    {
+        return words == data ? (address - MachineCode.DATA_BASE) >> 2 :
+                (MachineCode.STACK_TOP - address) >> 2;
+    }
+
+    /**
+     * Finds the instruction a jr goes to.
+     *
+     * @param address - The address in the register.
+     * @param pc - The index of the jr.
+     * @return - The index of the instruction, which is the size of the
+     * program when main returns.
+     */
+    private int jumpTarget(int address, int pc)
+    {
+        int offset = address - MachineCode.TEXT_BASE;
+        if (offset < 0 || (offset & 3) != 0 ||
+                offset / 4 > code.size())
+        {
+            throw error("jr to " + Integer.toHexString(address) +
+                    " is outside of the program", pc);
+        }
+        return offset / 4;
+    }
+
+    /**
+     * Makes the exception for a mistake found while running.
+     *
+     * @param message - What is wrong.
+     * @param pc - The index of the instruction running.
+     * @return - The RuntimeException, with the instruction.
+     */
+    private RuntimeException error(String message, int pc)
+    {
+        return new RuntimeException(message + " at " + code.getLine(pc));
+    }
+
+    /**
+     * Returns the value of a register after a run.
+     *
+     * @param number - The number of the register, from 0 to 31.
+     * @return - The value.
+     */
+    public int getRegister(int number)
+    {
+        return registers[number];
+    }
+
+    /**
+     * Returns the number of instructions of the code the last run took,
+     * counting a pseudo instruction once.
+     *
+     * @return - The number of instructions.
+     */
+    public long getStepCount()
+    {
+        return steps;
+    }
+
+    /**
+     * Returns the number of machine instructions the last run took, with
+     * each pseudo instruction counted as the instructions it stands for.
+     *
+     * @return - The number of machine instructions.
+     */
+    public long getInstructionCount()
+    {
+        if (executed == null)
+        {
+            return 0;
+        }
+        int[] weights = code.getWeights();
+        long answer = 0;
+        for (int index = 0; index < executed.length; index++)
+        {
+            answer += executed[index] * weights[index];
+        }
+        return answer;
+    }
+
+    /**
+     * Returns how many times each instruction of the code was run by the
+     * last run.
+     *
+     * @param index - The index of the instruction.
+     * @return - The number of times it was run.
+     */
+    public long getExecutionCount(int index)
+    {
+        return executed == null ? 0 : executed[index];
+    }
+
+    /**
+     * Returns how many times each mnemonic was run by the last run.
+     *
+     * @return - The number of times for each mnemonic that was run, in
+     * alphabetical order.
+     */
+    public Map<String, Long> getCounts()
+    {
+        Map<String, Long> answer = new TreeMap<>();
+        Opcode[] ops = code.getOps();
+        for (int index = 0; executed != null && index < executed.length;
+             index++)
+        {
+            if (executed[index] > 0)
+            {
+                answer.merge(ops[index].getMnemonic(), executed[index],
+                        Long::sum);
+            }
+        }
+        return answer;
+    }
+}
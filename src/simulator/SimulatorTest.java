@@ -0,0 +1,189 @@
+package simulator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import codegen.CodeGeneration;
+import ir.PassManager;
+import optimizer.LoopInvariantCodeMotion;
+import optimizer.ScalarPromotion;
+import optimizer.StrengthReduction;
+import parser.Parser;
+
+import java.io.StringReader;
+
+/**
+ * A JUnit Java class that illustrates putting together and running the
+ * MIPS assembly code the code generator writes, and counting the
+ * instructions it takes.
+ *
+ * @author Marissa Allen
+ */
+public class SimulatorTest
+{
+    private static final String TEST = "program foo;\n" +
+            "var fee, fi, fo: integer;\n" +
+            "begin\n" +
+            "read(fee);\n" +
+            "fi := 0;\n" +
+            "fo := 0;\n" +
+            "while fee > 0 do\n" +
+            "begin\n" +
+            "fi := fi + fee * 3;\n" +
+            "fo := fo + fee mod 4;\n" +
+            "fee := fee - 1\n" +
+            "end;\n" +
+            "write(fi);\n" +
+            "write(fo < fi)\n" +
+            "end\n" +
+            ".\n";
+
+    /**
+     * Compiles the test program and runs it.
+     *
+     * @param passes - The passes run over the code, or null.
+     * @param input - The input of the program.
+     * @param output - Where the program prints.
+     * @return - The Simulator after the run.
+     */
+    private Simulator run(PassManager passes, String input,
+                          StringBuilder output)
+    {
+        CodeGeneration gen = new CodeGeneration(
+                new Parser(TEST, false).program(), null);
+        gen.setPassManager(passes);
+        MachineCode code = new Assembler().assemble(gen.genCode());
+        Simulator simulator = new Simulator(code, new StringReader(input),
+                output);
+        simulator.run();
+        return simulator;
+    }
+
+    /**
+     * This method tests running a compiled program. 3 * (10 + 9 + ... +
+     * 1) is 165, and fo, the sum of fee mod 4, is 15, which is less. The
+     * optimized code prints the same thing with fewer instructions.
+     */
+    @Test
+    public void testRun()
+    {
+        System.out.println("\n" + "############" + "\n" +
+                "# Test run #" + "\n" +
+                "############" + "\n");
+
+        StringBuilder output = new StringBuilder();
+        Simulator plain = run(null, "10\n", output);
+        assertEquals("1651", output.toString());
+        assertEquals(plain.getStepCount(), plain.getInstructionCount());
+        assertEquals(10, plain.getCounts().get("mult").longValue());
+
+        output = new StringBuilder();
+        Simulator optimized = run(new PassManager()
+                .add(new ScalarPromotion())
+                .add(new StrengthReduction())
+                .add(new LoopInvariantCodeMotion()), "10\n", output);
+        assertEquals("1651", output.toString());
+        assertNull(optimized.getCounts().get("mult"));
+        assertTrue(optimized.getInstructionCount() <
+                plain.getInstructionCount());
+        System.out.println(plain.getInstructionCount() + " " +
+                optimized.getInstructionCount());
+        System.out.println(optimized.getCounts());
+    }
+
+    /**
+     * This method tests the counts of hand written code. blt stands for
+     * an slt and a bne, la and an li of a value over 16 bits for a lui
+     * and an ori, so the 13 instructions run stand for 18. The String
+     * is printed with syscall 4.
+     * This is a text string test.
+     */
+    @Test
+    public void testCounts()
+    {
+        System.out.println("\n" + "###############" + "\n" +
+                "# Test counts #" + "\n" +
+                "###############" + "\n");
+
+        String test = ".data\n" +
+                "hello:  .asciiz  \"hi # there\\n\"\n" +
+                ".text\n" +
+                "main:\n" +
+                "li     $t0, 0\n" +
+                "li     $t1, 3\n" +
+                "Top:   addi $t0, $t0, 1   # Counts up.\n" +
+                "blt    $t0, $t1, Top\n" +
+                "li     $t2, 100000\n" +
+                "li     $v0, 4\n" +
+                "la     $a0, hello\n" +
+                "syscall\n" +
+                "jr     $ra\n";
+        MachineCode code = new Assembler().assemble(test);
+        StringBuilder output = new StringBuilder();
+        Simulator simulator = new Simulator(code, new StringReader(""),
+                output);
+        simulator.run();
+        assertEquals("hi # there\n", output.toString());
+        assertEquals(3, simulator.getRegister(8));
+        assertEquals(13, simulator.getStepCount());
+        assertEquals(18, simulator.getInstructionCount());
+        assertEquals(3, simulator.getExecutionCount(
+                code.getLabel("Top")));
+        System.out.print(output);
+    }
+
+    /**
+     * This method tests the mistakes the assembler and simulator report.
+     */
+    @Test
+    public void testErrors()
+    {
+        System.out.println("\n" + "###############" + "\n" +
+                "# Test errors #" + "\n" +
+                "###############" + "\n");
+
+        //Negative test, an instruction the simulator can't run.
+        try
+        {
+            new Assembler().assemble("main:\nfoo $t0, $t1\n");
+            fail("An unknown instruction was assembled.");
+        }
+        catch (RuntimeException ex)
+        {
+            assertEquals("Unknown instruction foo on line 2",
+                    ex.getMessage());
+        }
+
+        //Negative test, add overflows.
+        MachineCode code = new Assembler().assemble(
+                "li $t0, 2147483647\nadd $t0, $t0, $t0\n");
+        try
+        {
+            new Simulator(code, new StringReader(""), new StringBuilder())
+                    .run();
+            fail("An add overflowed.");
+        }
+        catch (RuntimeException ex)
+        {
+            assertEquals("Arithmetic overflow at add $t0, $t0, $t0",
+                    ex.getMessage());
+        }
+
+        //Negative test, a loop that never ends is stopped.
+        code = new Assembler().assemble("Top: j Top\n");
+        Simulator simulator = new Simulator(code, new StringReader(""),
+                new StringBuilder());
+        simulator.setStepLimit(1000);
+        try
+        {
+            simulator.run();
+            fail("A loop ran forever.");
+        }
+        catch (RuntimeException ex)
+        {
+            System.out.println(ex.getMessage());
+        }
+        assertEquals(1000, simulator.getStepCount());
+    }
+}
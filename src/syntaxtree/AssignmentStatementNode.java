@@ -38,20 +38,18 @@ public class AssignmentStatementNode extends StatementNode
 
 
     /**
-     * Creates a String representation of this assignment statement node
+     * Writes a representation of this assignment statement node
      * and its children.
      *
+     * @param out - The TreePrinter the node is written to.
      * @param level - The tree level that the assignment statement node
      *              resides at.
-     * @return - A String representing the assignment statement node.
      */
     @Override
-    public String indentedToString(int level)
+    public void printTree(TreePrinter out, int level)
     {
-        String answer = this.indentation(level);
-        answer += "Assignment\n";
-        answer += this.lvalue.indentedToString(level + 1);
-        answer += this.expression.indentedToString(level + 1);
-        return answer;
+        out.indent(level).print("Assignment").println();
+        this.lvalue.printTree(out, level + 1);
+        this.expression.printTree(out, level + 1);
     }
 }
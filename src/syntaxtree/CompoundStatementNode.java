@@ -30,22 +30,20 @@ public class CompoundStatementNode extends StatementNode
     }
 
     /**
-     * This method creates a String representation of the compound
+     * This method writes a representation of the compound
      * statement node and its children.
      *
+     * @param out - The TreePrinter the node is written to.
      * @param level - The tree level that the compound statement node
      *              resides at.
-     * @return - A String representing the compound statement node.
      */
     @Override
-    public String indentedToString(int level)
+    public void printTree(TreePrinter out, int level)
     {
-        String answer = this.indentation(level);
-        answer += "Compound Statement\n";
+        out.indent(level).print("Compound Statement").println();
         for (StatementNode state : statements)
         {
-            answer += state.indentedToString(level + 1);
+            state.printTree(out, level + 1);
         }
-        return answer;
     }
 }
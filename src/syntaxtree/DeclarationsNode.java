@@ -28,22 +28,20 @@ public class DeclarationsNode extends SyntaxTreeNode
     }
 
     /**
-     * Creates a String representation of the declarations node and
+     * Writes a representation of the declarations node and
      * its children.
      *
+     * @param out - The TreePrinter the node is written to.
      * @param level - The tree level at which the declarations node
      *              resides.
-     * @return - A String representing the declarations node.
      */
     @Override
-    public String indentedToString(int level)
+    public void printTree(TreePrinter out, int level)
     {
-        String answer = this.indentation(level);
-        answer += "Declarations\n";
+        out.indent(level).print("Declarations").println();
         for (VariableNode variable : vars)
         {
-            answer += variable.indentedToString(level + 1);
+            variable.printTree(out, level + 1);
         }
-        return answer;
     }
 }
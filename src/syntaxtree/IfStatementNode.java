@@ -43,22 +43,20 @@ public class IfStatementNode extends StatementNode
     }
 
     /**
-     * Creates a String representation of if statement node and its
+     * Writes a representation of if statement node and its
      * children.
      *
+     * @param out - The TreePrinter the node is written to.
      * @param level - The tree level that the if statement node resides
      *              at.
-     * @return - A String representing the if statement node.
      */
     @Override
-    public String indentedToString(int level)
+    public void printTree(TreePrinter out, int level)
     {
-        String answer = this.indentation(level);
-        answer += "If\n";
-        answer += this.test.indentedToString(level + 1);
-        answer += this.thenStatement.indentedToString(level + 1);
-        answer += this.elseStatement.indentedToString(level + 1);
-        return answer;
+        out.indent(level).print("If").println();
+        this.test.printTree(out, level + 1);
+        this.thenStatement.printTree(out, level + 1);
+        this.elseStatement.printTree(out, level + 1);
     }
 
 }
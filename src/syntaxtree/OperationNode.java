@@ -83,21 +83,19 @@ public class OperationNode extends ExpressionNode
     }
 
     /**
-     * Creates a String representation of the operation node and its
+     * Writes a representation of the operation node and its
      * children.
      *
+     * @param out - The TreePrinter the node is written to.
      * @param level - The tree level that the operation node resides at.
-     * @return - A String representing the operation node.
      */
     @Override
-    public String indentedToString(int level)
+    public void printTree(TreePrinter out, int level)
     {
-        String answer = this.indentation(level);
-        answer += "Operation: " + this.operation + " " +
-                OperationNode.super.getType() + "\n";
-        answer += left.indentedToString(level + 1);
-        answer += right.indentedToString(level + 1);
-        return (answer);
+        out.indent(level).print("Operation: ").print(this.operation)
+                .print(" ").print(OperationNode.super.getType()).println();
+        left.printTree(out, level + 1);
+        right.printTree(out, level + 1);
     }
 
     /**
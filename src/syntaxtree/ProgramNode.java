@@ -24,6 +24,11 @@ public class ProgramNode extends SyntaxTreeNode
         this.name = aName;
     }
 
+    public String getName()
+    {
+        return name;
+    }
+
     public DeclarationsNode getVariables()
     {
         return variables;
@@ -55,20 +60,18 @@ public class ProgramNode extends SyntaxTreeNode
     }
 
     /**
-     * This method creates a String representation of the program node
+     * This method writes a representation of the program node
      * and its children.
      *
+     * @param out - The TreePrinter the node is written to.
      * @param level - The tree level that the program node resides at.
-     * @return - A String representing the program node.
      */
     @Override
-    public String indentedToString(int level)
+    public void printTree(TreePrinter out, int level)
     {
-        String answer = this.indentation(level);
-        answer += "Program: " + name + "\n";
-        answer += variables.indentedToString(level + 1);
-        answer += functions.indentedToString(level + 1);
-        answer += main.indentedToString(level + 1);
-        return answer;
+        out.indent(level).print("Program: ").print(name).println();
+        variables.printTree(out, level + 1);
+        functions.printTree(out, level + 1);
+        main.printTree(out, level + 1);
     }
 }
@@ -20,19 +20,17 @@ public class ReadStatementNode extends StatementNode
     }
 
     /**
-     * Creates a String representation of the read statement node and its
+     * Writes a representation of the read statement node and its
      * children.
      *
+     * @param out - The TreePrinter the node is written to.
      * @param level - The tree level that the read statement node resides
      *              at.
-     * @return - A String representing the read statement node.
      */
     @Override
-    public String indentedToString(int level)
+    public void printTree(TreePrinter out, int level)
     {
-        String answer = this.indentation(level);
-        answer += "Read\n";
-        answer += this.varTest.indentedToString(level + 1);
-        return answer;
+        out.indent(level).print("Read").println();
+        this.varTest.printTree(out, level + 1);
     }
 }
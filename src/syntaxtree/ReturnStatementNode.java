@@ -20,19 +20,17 @@ public class ReturnStatementNode extends StatementNode
     }
 
     /**
-     * Creates a String representation of the return statement node and
+     * Writes a representation of the return statement node and
      * its children.
      *
+     * @param out - The TreePrinter the node is written to.
      * @param level - The tree level that the return statement node
      *              resides at.
-     * @return - A String representing the return statement node.
      */
     @Override
-    public String indentedToString(int level)
+    public void printTree(TreePrinter out, int level)
     {
-        String answer = this.indentation(level);
-        answer += "Return\n";
-        answer += this.returnTest.indentedToString(level + 1);
-        return answer;
+        out.indent(level).print("Return").println();
+        this.returnTest.printTree(out, level + 1);
     }
 }
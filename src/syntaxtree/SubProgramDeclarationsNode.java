@@ -24,23 +24,21 @@ public class SubProgramDeclarationsNode extends SyntaxTreeNode
     }
 
     /**
-     * Creates a String representation of the subprogram declarations
+     * Writes a representation of the subprogram declarations
      * node and its children.
      *
+     * @param out - The TreePrinter the node is written to.
      * @param level - The tree level that the subprogram declarations
      *              node resides at.
-     * @return - A String representing the subprogram declarations node.
      */
     @Override
-    public String indentedToString(int level)
+    public void printTree(TreePrinter out, int level)
     {
-        String answer = this.indentation(level);
-        answer += "SubProgramDeclarations\n";
+        out.indent(level).print("SubProgramDeclarations").println();
         for (SubProgramNode subProg : procs)
         {
-            answer += subProg.indentedToString(level + 1);
+            subProg.printTree(out, level + 1);
         }
-        return answer;
     }
 
 }
@@ -14,7 +14,22 @@ public abstract class SyntaxTreeNode
      * @param level - The tree level that the syntax tree node resides at.
      * @return - A String representing the syntax tree node.
      */
-    public abstract String indentedToString(int level);
+    public String indentedToString(int level)
+    {
+        StringBuilder answer = new StringBuilder();
+        printTree(new TreePrinter(answer), level);
+        return answer.toString();
+    }
+
+    /**
+     * Writes the representation of this node and its children into a
+     * TreePrinter, one line per node, in the same format as
+     * indentedToString.
+     *
+     * @param out - The TreePrinter the node is written to.
+     * @param level - The tree level that the syntax tree node resides at.
+     */
+    public abstract void printTree(TreePrinter out, int level);
 
     /**
      * Creates an indentation String for the indentedToString.
@@ -25,13 +40,9 @@ public abstract class SyntaxTreeNode
      */
     protected String indentation(int level)
     {
-        String answer = "";
-        if (level > 0)
-        {
-            answer = "|-- ";
-        }
-        for (int indent = 1; indent < level; indent++) answer += "--- ";
-        return (answer);
+        StringBuilder answer = new StringBuilder();
+        new TreePrinter(answer).indent(level);
+        return answer.toString();
     }
 
 }
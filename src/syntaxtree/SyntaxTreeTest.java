@@ -123,4 +123,33 @@ public class SyntaxTreeTest
         System.out.println(expected);
         System.out.println("It passed!");
     }
+
+    /**
+     * A JUnit syntax tree test for the TreePrinter. A chain of
+     * operation nodes deeper than the cached indentation is printed
+     * into a StringBuilder, and every line should start with "|-- "
+     * followed by one "--- " for every level after the first.
+     */
+    @Test
+    public void testPrintTree()
+    {
+        int depth = 150;
+        ExpressionNode root = new ValueNode("0");
+        for (int level = 1; level <= depth; level++)
+        {
+            OperationNode op = new OperationNode(TokenType.PLUS);
+            op.setLeft(root);
+            op.setRight(new ValueNode(Integer.toString(level)));
+            root = op;
+        }
+        StringBuilder actual = new StringBuilder();
+        root.printTree(new TreePrinter(actual), 0);
+        assertEquals(root.indentedToString(0), actual.toString());
+
+        String[] lines = actual.toString().split("\n");
+        String expected = "|-- " + "--- ".repeat(depth - 1) +
+                "Value: 0 null";
+        assertEquals(expected, lines[depth]);
+        System.out.println("It passed!");
+    }
 }
@@ -0,0 +1,116 @@
+package syntaxtree;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * This class writes the indented String representation of a syntax tree
+ * straight into a sink, such as a Writer for a .tree file. Every node
+ * prints its own line and then asks its children to print theirs, so
+ * the tree is never built up as one String. The indentation in front of
+ * each line is copied out of one cached String instead of being rebuilt
+ * for every line, which keeps the time linear in the size of the output
+ * and the memory used the same no matter how deep the tree is.
+ *
+ * @author Marissa Allen
+ */
+public class TreePrinter
+{
+    /**
+     * The indentation used for every level after the first. Deeper
+     * levels are written by copying this String more than once.
+     */
+    private static final String DASHES = "--- ".repeat(64);
+
+    private Appendable sink;
+
+    /**
+     * TreePrinter constructor that takes in the sink the tree is
+     * written to.
+     *
+     * @param sink - The Appendable the tree is written to.
+     */
+    public TreePrinter(Appendable sink)
+    {
+        this.sink = sink;
+    }
+
+    /**
+     * Writes the indentation for a line at the given tree level.
+     * Level zero has no indentation, level one is "|-- ", and every
+     * level after that adds another "--- ".
+     *
+     * @param level - The tree level of the line.
+     * @return - This printer, so calls can be chained.
+     */
+    public TreePrinter indent(int level)
+    {
+        try
+        {
+            if (level > 0)
+            {
+                sink.append("|-- ");
+            }
+            int remaining = (level - 1) * 4;
+            while (remaining > 0)
+            {
+                int chunk = Math.min(remaining, DASHES.length());
+                sink.append(DASHES, 0, chunk);
+                remaining -= chunk;
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Failed to write syntax tree", ex);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the String value of an object, or null, on the current line.
+     *
+     * @param text - The object to write.
+     * @return - This printer, so calls can be chained.
+     */
+    public TreePrinter print(Object text)
+    {
+        try
+        {
+            sink.append(String.valueOf(text));
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Failed to write syntax tree", ex);
+        }
+        return this;
+    }
+
+    /**
+     * Ends the current line.
+     *
+     * @return - This printer, so calls can be chained.
+     */
+    public TreePrinter println()
+    {
+        return print("\n");
+    }
+
+    /**
+     * Flushes the sink if it buffers its output.
+     */
+    public void flush()
+    {
+        if (sink instanceof Flushable)
+        {
+            try
+            {
+                ((Flushable) sink).flush();
+            }
+            catch (IOException ex)
+            {
+                throw new RuntimeException("Failed to write syntax tree",
+                        ex);
+            }
+        }
+    }
+}
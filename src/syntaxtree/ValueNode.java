@@ -45,18 +45,16 @@ public class ValueNode extends ExpressionNode
     }
 
     /**
-     * Creates a String representation of this value node.
+     * Writes a representation of this value node.
      *
+     * @param out - The TreePrinter the node is written to.
      * @param level - The tree level that the value node resides at.
-     * @return - A String representing thevalue node.
      */
     @Override
-    public String indentedToString(int level)
+    public void printTree(TreePrinter out, int level)
     {
-        String answer = this.indentation(level);
-        answer += "Value: " + this.attribute + " " +
-                ValueNode.super.getType() + "\n";
-        return answer;
+        out.indent(level).print("Value: ").print(this.attribute)
+                .print(" ").print(ValueNode.super.getType()).println();
     }
 
     /**
@@ -45,18 +45,16 @@ public class VariableNode extends ExpressionNode
     }
 
     /**
-     * Creates a String representation of the variable node.
+     * Writes a representation of the variable node.
      *
+     * @param out - The TreePrinter the node is written to.
      * @param level - The tree level that the variable node resides at.
-     * @return - A String representing the variable node.
      */
     @Override
-    public String indentedToString(int level)
+    public void printTree(TreePrinter out, int level)
     {
-        String answer = this.indentation(level);
-        answer += "Variable Name: " + this.name + " " +
-                VariableNode.super.getType() + "\n";
-        return answer;
+        out.indent(level).print("Variable Name: ").print(this.name)
+                .print(" ").print(VariableNode.super.getType()).println();
     }
 
     /**
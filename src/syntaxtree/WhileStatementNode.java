@@ -31,20 +31,18 @@ public class WhileStatementNode extends StatementNode
     }
 
     /**
-     * Creates a String representation of the while statement node and its
+     * Writes a representation of the while statement node and its
      * children.
      *
+     * @param out - The TreePrinter the node is written to.
      * @param level - The tree level that the while statement node resides
      *              at.
-     * @return - A String representing the while statement node.
      */
     @Override
-    public String indentedToString(int level)
+    public void printTree(TreePrinter out, int level)
     {
-        String answer = this.indentation(level);
-        answer += "While\n";
-        answer += this.whileTest.indentedToString(level + 1);
-        answer += this.statement.indentedToString(level + 1);
-        return answer;
+        out.indent(level).print("While").println();
+        this.whileTest.printTree(out, level + 1);
+        this.statement.printTree(out, level + 1);
     }
 }
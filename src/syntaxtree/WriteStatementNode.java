@@ -20,19 +20,17 @@ public class WriteStatementNode extends StatementNode
     }
 
     /**
-     * Creates a String representation of the write statement node and its
+     * Writes a representation of the write statement node and its
      * children.
      *
+     * @param out - The TreePrinter the node is written to.
      * @param level - The tree level that the write statement node resides
      *              at.
-     * @return - A String representing the write statement node.
      */
     @Override
-    public String indentedToString(int level)
+    public void printTree(TreePrinter out, int level)
     {
-        String answer = this.indentation(level);
-        answer += "Write\n";
-        answer += this.writeTest.indentedToString(level + 1);
-        return answer;
+        out.indent(level).print("Write").println();
+        this.writeTest.printTree(out, level + 1);
     }
 }
@@ -0,0 +1,150 @@
+package vm;
+
+/**
+ * This class holds the opcodes of the register machine a VirtualMachine
+ * runs, and how they are packed into the int[] of a VmProgram. The first
+ * word of an instruction has the opcode in its low byte, and up to three
+ * registers in the bytes above it:
+ * word = opcode | a << 8 | b << 16 | c << 24
+ * A constant or a branch target is a whole word after the first one.
+ *
+ * opcode             words   does
+ * LOADK a, k         2       a = k
+ * MOVE a, b          1       a = b
+ * ADD a, b, c        1       a = b + c, and the same for SUB, MUL, DIV,
+ *                            MOD, AND and OR
+ * EQ a, b, c         1       a = b = c ? 1 : 0, and the same for NE, LT,
+ *                            LE, GT and GE
+ * JUMP target        2       goto target
+ * JZ a, target       2       if a = 0 goto target
+ * JNZ a, target      2       if a <> 0 goto target
+ * READ a             1       a = the next line of input
+ * WRITE a            1       print a
+ * HALT               1       stop
+ *
+ * The superinstructions each do the work of a common pair of the
+ * instructions above in one dispatch:
+ * ADDK a, b, k       2       LOADK t, k and ADD a, b, t, and the same
+ *                            for MULK, DIVK and MODK
+ * BEQ a, b, target   2       EQ t, a, b and JNZ t, target, and the same
+ *                            for BNE, BLT, BLE, BGT and BGE
+ * BEQK a, k, target  3       LOADK t, k, EQ t, a, t and JNZ t, target,
+ *                            and the same for BNEK, BLTK, BLEK, BGTK and
+ *                            BGEK
+ *
+ * @author Marissa Allen
+ */
+final class Instruction
+{
+    static final int LOADK = 0;
+    static final int MOVE = 1;
+    static final int ADD = 2;
+    static final int SUB = 3;
+    static final int MUL = 4;
+    static final int DIV = 5;
+    static final int MOD = 6;
+    static final int AND = 7;
+    static final int OR = 8;
+    static final int EQ = 9;
+    static final int NE = 10;
+    static final int LT = 11;
+    static final int LE = 12;
+    static final int GT = 13;
+    static final int GE = 14;
+    static final int JUMP = 15;
+    static final int JZ = 16;
+    static final int JNZ = 17;
+    static final int READ = 18;
+    static final int WRITE = 19;
+    static final int HALT = 20;
+    static final int ADDK = 21;
+    static final int BEQ = 22;
+    static final int BNE = 23;
+    static final int BLT = 24;
+    static final int BLE = 25;
+    static final int BGT = 26;
+    static final int BGE = 27;
+    static final int BEQK = 28;
+    static final int BNEK = 29;
+    static final int BLTK = 30;
+    static final int BLEK = 31;
+    static final int BGTK = 32;
+    static final int BGEK = 33;
+    static final int MULK = 34;
+    static final int DIVK = 35;
+    static final int MODK = 36;
+
+    /**
+     * The largest register number that fits in a byte of a word.
+     */
+    static final int MAX_REGISTER = 255;
+
+    private static final String[] MNEMONICS = {"loadk", "move", "add",
+            "sub", "mul", "div", "mod", "and", "or", "eq", "ne", "lt", "le",
+            "gt", "ge", "jump", "jz", "jnz", "read", "write", "halt", "addk",
+            "beq", "bne", "blt", "ble", "bgt", "bge", "beqk", "bnek",
+            "bltk", "blek", "bgtk", "bgek", "mulk", "divk", "modk"};
+
+    /**
+     * Instruction is never made, it only holds constants.
+     */
+    private Instruction()
+    {
+    }
+
+    /**
+     * Packs the first word of an instruction.
+     *
+     * @param opcode - The opcode.
+     * @param a - The first register.
+     * @param b - The second register.
+     * @param c - The third register.
+     * @return - The word.
+     */
+    static int word(int opcode, int a, int b, int c)
+    {
+        return opcode | a << 8 | b << 16 | c << 24;
+    }
+
+    /**
+     * Returns the opcode of a word.
+     *
+     * @param word - The first word of an instruction.
+     * @return - The opcode.
+     */
+    static int opcode(int word)
+    {
+        return word & 0xFF;
+    }
+
+    /**
+     * Returns the mnemonic of an opcode.
+     *
+     * @param opcode - The opcode.
+     * @return - The mnemonic, like addk.
+     */
+    static String mnemonic(int opcode)
+    {
+        return MNEMONICS[opcode];
+    }
+
+    /**
+     * Returns how many words an instruction takes.
+     *
+     * @param opcode - The opcode.
+     * @return - 1, 2 or 3.
+     */
+    static int size(int opcode)
+    {
+        if (opcode >= BEQK && opcode <= BGEK)
+        {
+            return 3;
+        }
+        if (opcode == LOADK || opcode >= ADDK ||
+                (opcode >= JUMP && opcode <= JNZ))
+        {
+            return 2;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,241 @@
+package vm;
+
+import jvm.PascalIO;
+
+/**
+ * This class runs a VmProgram. It is one loop that reads the word at the
+ * program counter and switches on its opcode, with the code, the
+ * registers and the program counter in local variables, so the JVM keeps
+ * them in machine registers while the loop runs. Each pass of the loop
+ * is a dispatch, and the VirtualMachine counts them, so a run reports
+ * how much a superinstruction saves.
+ *
+ * The registers keep their values after a run, until the next run, and
+ * the variables can be read with getVariable. A div or mod by zero
+ * throws an ArithmeticException, and input that runs out or isn't a
+ * number is reported with a RuntimeException.
+ *
+ * @author Marissa Allen
+ */
+public class VirtualMachine
+{
+    private VmProgram program;
+    private int[] registers;
+    private long dispatches = 0;
+
+    /**
+     * VirtualMachine constructor that takes in the program it runs.
+     *
+     * @param program - The VmProgram.
+     */
+    public VirtualMachine(VmProgram program)
+    {
+        this.program = program;
+        registers = new int[program.getRegisterCount()];
+    }
+
+    /**
+     * Runs the program, with every register starting at zero, and then
+     * flushes its output.
+     *
+     * @param io - The PascalIO the program reads from and prints to.
+     */
+    public void run(PascalIO io)
+    {
+        registers = new int[program.getRegisterCount()];
+        int[] code = program.getCode();
+        int[] r = registers;
+        int pc = 0;
+        long count = 0;
+        try
+        {
+            while (true)
+            {
+                int word = code[pc];
+                int a = word >>> 8 & 0xFF;
+                count++;
+                switch (word & 0xFF)
+                {
+                    case Instruction.LOADK:
+                        r[a] = code[pc + 1];
+                        pc += 2;
+                        break;
+                    case Instruction.MOVE:
+                        r[a] = r[word >>> 16 & 0xFF];
+                        pc++;
+                        break;
+                    case Instruction.ADD:
+                        r[a] = r[word >>> 16 & 0xFF] + r[word >>> 24];
+                        pc++;
+                        break;
+                    case Instruction.SUB:
+                        r[a] = r[word >>> 16 & 0xFF] - r[word >>> 24];
+                        pc++;
+                        break;
+                    case Instruction.MUL:
+                        r[a] = r[word >>> 16 & 0xFF] * r[word >>> 24];
+                        pc++;
+                        break;
+                    case Instruction.DIV:
+                        r[a] = r[word >>> 16 & 0xFF] / r[word >>> 24];
+                        pc++;
+                        break;
+                    case Instruction.MOD:
+                        r[a] = r[word >>> 16 & 0xFF] % r[word >>> 24];
+                        pc++;
+                        break;
+                    case Instruction.AND:
+                        r[a] = r[word >>> 16 & 0xFF] & r[word >>> 24];
+                        pc++;
+                        break;
+                    case Instruction.OR:
+                        r[a] = r[word >>> 16 & 0xFF] | r[word >>> 24];
+                        pc++;
+                        break;
+                    case Instruction.EQ:
+                        r[a] = r[word >>> 16 & 0xFF] == r[word >>> 24] ?
+                                1 : 0;
+                        pc++;
+                        break;
+                    case Instruction.NE:
+                        r[a] = r[word >>> 16 & 0xFF] != r[word >>> 24] ?
+                                1 : 0;
+                        pc++;
+                        break;
+                    case Instruction.LT:
+                        r[a] = r[word >>> 16 & 0xFF] < r[word >>> 24] ?
+                                1 : 0;
+                        pc++;
+                        break;
+                    case Instruction.LE:
+                        r[a] = r[word >>> 16 & 0xFF] <= r[word >>> 24] ?
+                                1 : 0;
+                        pc++;
+                        break;
+                    case Instruction.GT:
+                        r[a] = r[word >>> 16 & 0xFF] > r[word >>> 24] ?
+                                1 : 0;
+                        pc++;
+                        break;
+                    case Instruction.GE:
+                        r[a] = r[word >>> 16 & 0xFF] >= r[word >>> 24] ?
+                                1 : 0;
+                        pc++;
+                        break;
+                    case Instruction.JUMP:
+                        pc = code[pc + 1];
+                        break;
+                    case Instruction.JZ:
+                        pc = r[a] == 0 ? code[pc + 1] : pc + 2;
+                        break;
+                    case Instruction.JNZ:
+                        pc = r[a] != 0 ? code[pc + 1] : pc + 2;
+                        break;
+                    case Instruction.READ:
+                        r[a] = io.read();
+                        pc++;
+                        break;
+                    case Instruction.WRITE:
+                        io.write(r[a]);
+                        pc++;
+                        break;
+                    case Instruction.HALT:
+                        return;
+                    case Instruction.ADDK:
+                        r[a] = r[word >>> 16 & 0xFF] + code[pc + 1];
+                        pc += 2;
+                        break;
+                    case Instruction.BEQ:
+                        pc = r[a] == r[word >>> 16 & 0xFF] ?
+                                code[pc + 1] : pc + 2;
+                        break;
+                    case Instruction.BNE:
+                        pc = r[a] != r[word >>> 16 & 0xFF] ?
+                                code[pc + 1] : pc + 2;
+                        break;
+                    case Instruction.BLT:
+                        pc = r[a] < r[word >>> 16 & 0xFF] ?
+                                code[pc + 1] : pc + 2;
+                        break;
+                    case Instruction.BLE:
+                        pc = r[a] <= r[word >>> 16 & 0xFF] ?
+                                code[pc + 1] : pc + 2;
+                        break;
+                    case Instruction.BGT:
+                        pc = r[a] > r[word >>> 16 & 0xFF] ?
+                                code[pc + 1] : pc + 2;
+                        break;
+                    case Instruction.BGE:
+                        pc = r[a] >= r[word >>> 16 & 0xFF] ?
+                                code[pc + 1] : pc + 2;
+                        break;
+                    case Instruction.BEQK:
+                        pc = r[a] == code[pc + 1] ? code[pc + 2] : pc + 3;
+                        break;
+                    case Instruction.BNEK:
+                        pc = r[a] != code[pc + 1] ? code[pc + 2] : pc + 3;
+                        break;
+                    case Instruction.BLTK:
+                        pc = r[a] < code[pc + 1] ? code[pc + 2] : pc + 3;
+                        break;
+                    case Instruction.BLEK:
+                        pc = r[a] <= code[pc + 1] ? code[pc + 2] : pc + 3;
+                        break;
+                    case Instruction.BGTK:
+                        pc = r[a] > code[pc + 1] ? code[pc + 2] : pc + 3;
+                        break;
+                    case Instruction.BGEK:
+                        pc = r[a] >= code[pc + 1] ? code[pc + 2] : pc + 3;
+                        break;
+                    case Instruction.MULK:
+                        r[a] = r[word >>> 16 & 0xFF] * code[pc + 1];
+                        pc += 2;
+                        break;
+                    case Instruction.DIVK:
+                        r[a] = r[word >>> 16 & 0xFF] / code[pc + 1];
+                        pc += 2;
+                        break;
+                    case Instruction.MODK:
+                        r[a] = r[word >>> 16 & 0xFF] % code[pc + 1];
+                        pc += 2;
+                        break;
+                    default:
+                        throw new RuntimeException("Unknown opcode " +
+                                (word & 0xFF) + " at " + pc);
+                }
+            }
+        }
+        finally
+        {
+            dispatches = count;
+            io.flush();
+        }
+    }
+
+    /**
+     * Returns the value a variable has now.
+     *
+     * @param name - The name of the variable.
+     * @return - The value of the variable.
+     */
+    public int getVariable(String name)
+    {
+        int register = program.getRegister(name);
+        if (register < 0)
+        {
+            throw new RuntimeException("The program has no variable " +
+                    name);
+        }
+        return registers[register];
+    }
+
+    /**
+     * Returns how many instructions the last run dispatched.
+     *
+     * @return - The number of dispatches.
+     */
+    public long getDispatchCount()
+    {
+        return dispatches;
+    }
+}
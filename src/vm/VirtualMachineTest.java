@@ -0,0 +1,167 @@
+package vm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import jvm.PascalIO;
+import parser.Parser;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * A JUnit Java class that illustrates compiling a pascal program into
+ * register code, and running it on the VirtualMachine.
+ *
+ * @author Marissa Allen
+ */
+public class VirtualMachineTest
+{
+    private static final String TEST = "program foo;\n" +
+            "var fee, fi, fo: integer;\n" +
+            "begin\n" +
+            "read(fee);\n" +
+            "fi := 0;\n" +
+            "fo := 0;\n" +
+            "while fee > 0 do\n" +
+            "begin\n" +
+            "fi := fi + fee * 3;\n" +
+            "fo := fo + fee mod 4;\n" +
+            "fee := fee - 1\n" +
+            "end;\n" +
+            "write(fi);\n" +
+            "write(fo < fi)\n" +
+            "end\n" +
+            ".\n";
+
+    /**
+     * Runs a program with the given input.
+     *
+     * @param machine - The VirtualMachine.
+     * @param input - The input of the program.
+     * @return - What the program printed.
+     */
+    private String run(VirtualMachine machine, String input)
+    {
+        StringWriter output = new StringWriter();
+        machine.run(new PascalIO(new StringReader(input), output));
+        return output.toString();
+    }
+
+    /**
+     * This method tests compiling and running a program. Each variable
+     * has its own register, and is computed straight into it, and the
+     * constants and the tests of the loop are superinstructions. It
+     * prints what it prints on the other backends, 165 and then 1.
+     * This is a text string test.
+     */
+    @Test
+    public void testRun()
+    {
+        System.out.println("\n" + "############" + "\n" +
+                "# Test run #" + "\n" +
+                "############" + "\n");
+
+        VmProgram program = new VmCompiler().compile(
+                new Parser(TEST, false).program());
+        String expected = "0: read r0\n" +
+                "1: loadk r1, 0\n" +
+                "3: loadk r2, 0\n" +
+                "5: blek r0, 0, 19\n" +
+                "8: mulk r3, r0, 3\n" +
+                "10: add r1, r1, r3\n" +
+                "11: modk r3, r0, 4\n" +
+                "13: add r2, r2, r3\n" +
+                "14: addk r0, r0, -1\n" +
+                "16: bgtk r0, 0, 8\n" +
+                "19: write r1\n" +
+                "20: lt r3, r2, r1\n" +
+                "21: write r3\n" +
+                "22: halt\n";
+        assertEquals(expected, program.toString());
+        assertEquals(4, program.getRegisterCount());
+        assertEquals(14, program.getInstructionCount());
+        assertEquals(23, program.size());
+
+        VirtualMachine machine = new VirtualMachine(program);
+        assertEquals("1651", run(machine, "10\n"));
+        assertEquals(15, machine.getVariable("fo"));
+        assertEquals(68, machine.getDispatchCount());
+        assertEquals("31", run(machine, "1\n"));
+        System.out.print(program);
+    }
+
+    /**
+     * This method tests the same program without superinstructions. It
+     * prints the same thing, but each iteration of the loop takes 11
+     * dispatches instead of 6.
+     */
+    @Test
+    public void testSuperinstructions()
+    {
+        System.out.println("\n" + "###########################" + "\n" +
+                "# Test superinstructions #" + "\n" +
+                "###########################" + "\n");
+
+        VmProgram program = new VmCompiler().setSuperinstructions(false)
+                .compile(new Parser(TEST, false).program());
+        assertEquals(21, program.getInstructionCount());
+        assertEquals(5, program.getRegisterCount());
+        assertFalse(program.toString().contains("mulk"));
+        assertFalse(program.toString().contains("bgtk"));
+        VirtualMachine machine = new VirtualMachine(program);
+        assertEquals("1651", run(machine, "10\n"));
+        assertEquals(120, machine.getDispatchCount());
+        System.out.print(program);
+    }
+
+    /**
+     * This method tests the errors of a program. A div by zero throws an
+     * ArithmeticException, and a real number can't be compiled, which is
+     * reported with a RuntimeException.
+     */
+    @Test
+    public void testErrors()
+    {
+        System.out.println("\n" + "###############" + "\n" +
+                "# Test errors #" + "\n" +
+                "###############" + "\n");
+
+        VirtualMachine machine = new VirtualMachine(new VmCompiler()
+                .compile(new Parser("program foo;\n" +
+                        "var fee, fi: integer;\n" +
+                        "begin\n" +
+                        "read(fee);\n" +
+                        "fi := 7 div fee;\n" +
+                        "write(fi)\n" +
+                        "end\n" +
+                        ".\n", false).program()));
+        assertEquals("3", run(machine, "2\n"));
+        try
+        {
+            run(machine, "0\n");
+            fail("A div by zero didn't throw.");
+        }
+        catch (ArithmeticException ex)
+        {
+            System.out.println(ex.getMessage());
+        }
+
+        //Negative test, real numbers aren't supported.
+        try
+        {
+            new VmCompiler().compile(new Parser("program foo;\n" +
+                    "var fee: real;\n" +
+                    "begin\n" +
+                    "fee := 2.5\n" +
+                    "end\n" +
+                    ".\n", false).program());
+            fail("A real number was compiled.");
+        }
+        catch (RuntimeException ex)
+        {
+            System.out.println(ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package vm;
+
+import analysis.SemanticAnalyzer;
+import interpreter.Interpreter;
+import jvm.PascalIO;
+import parser.Parser;
+import syntaxtree.ProgramNode;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * This class times a pascal program on the VirtualMachine, with and
+ * without superinstructions, against running it straight from its syntax
+ * tree in the Interpreter. It is run with the name of the file and the
+ * input of the program, one line for each read, split by commas:
+ * java vm.VmBenchmark loop.pas 20000000
+ * Each way is run a few times first so the JVM has compiled it, and
+ * then the fastest of the timed runs is printed, with the output of the
+ * program, so the ways can be checked against each other.
+ *
+ * @author Marissa Allen
+ */
+public class VmBenchmark
+{
+    private static final int WARM_UP_RUNS = 3;
+    private static final int TIMED_RUNS = 5;
+
+    /**
+     * A way to run the program.
+     */
+    private interface Runner
+    {
+        /**
+         * Runs the program once.
+         *
+         * @param io - The PascalIO of the run.
+         */
+        void run(PascalIO io);
+    }
+
+    public static void main(String[] args)
+    {
+        if (args.length == 0)
+        {
+            System.out.println("Please enter a file name");
+            System.exit(0);
+        }
+        String input = args.length > 1 ? args[1].replace(",", "\n") + "\n" :
+                "";
+        Parser parser = new Parser(args[0], true);
+        ProgramNode program = parser.program();
+        new SemanticAnalyzer(program, parser.getSymbolTable()).analyze();
+
+        Interpreter interpreter = new Interpreter(program);
+        VmProgram fused = new VmCompiler().compile(program);
+        VmProgram plain = new VmCompiler().setSuperinstructions(false)
+                .compile(program);
+        VirtualMachine fusedMachine = new VirtualMachine(fused);
+        VirtualMachine plainMachine = new VirtualMachine(plain);
+
+        System.out.printf("%-28s%10s%16s  %s\n", "", "ms", "dispatches",
+                "output");
+        time("AST interpreter", interpreter::run, input, null);
+        time("VM", plainMachine::run, input, plainMachine);
+        time("VM with superinstructions", fusedMachine::run, input,
+                fusedMachine);
+        System.out.println(plain.getInstructionCount() + " instructions " +
+                "without superinstructions, " +
+                fused.getInstructionCount() + " with them");
+    }
+
+    /**
+     * Times one way to run the program, and prints the fastest run.
+     *
+     * @param name - The name of the way.
+     * @param runner - The Runner.
+     * @param input - The input of the program.
+     * @param machine - The VirtualMachine whose dispatches are printed,
+     * or null.
+     */
+    private static void time(String name, Runner runner, String input,
+                             VirtualMachine machine)
+    {
+        long best = Long.MAX_VALUE;
+        String output = "";
+        for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; run++)
+        {
+            StringWriter out = new StringWriter();
+            long start = System.nanoTime();
+            runner.run(new PascalIO(new StringReader(input), out));
+            long time = System.nanoTime() - start;
+            if (run >= WARM_UP_RUNS)
+            {
+                best = Math.min(best, time);
+            }
+            output = out.toString();
+        }
+        System.out.printf("%-28s%10.1f%16s  %s\n", name, best / 1e6,
+                machine == null ? "" : "" + machine.getDispatchCount(),
+                output);
+    }
+}
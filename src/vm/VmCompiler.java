@@ -0,0 +1,537 @@
+package vm;
+
+import ir.Operator;
+import scanner.TokenType;
+import syntaxtree.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class compiles a syntax tree into the register code of a
+ * VirtualMachine. Each declared variable is given a register of its own,
+ * so an operation reads its variables straight from their registers, and
+ * an assignment computes its value straight into the register of its
+ * variable:
+ * fi := fi + fee * 3      mul r3, r0, r4     (r4 holds 3)
+ *                         add r1, r1, r3
+ * Temporaries are given the registers after the variables, and are
+ * reused once the expression that needs them is done.
+ *
+ * Statements are laid out like the IrBuilder lays them out, with while
+ * loops inverted so each iteration only runs the test at the bottom, and
+ * tests are jumping code where an and or an or of comparisons is short
+ * circuited. With superinstructions, which is the default, the most
+ * common pairs of instructions are one instruction: an add of a
+ * constant is an addk, a multiply, div or mod of a constant is a mulk,
+ * divk or modk, and a comparison that is branched on is a beq,
+ * blt and so on, or a beqk, bltk and so on when it compares to a
+ * constant.
+ *
+ * Only integers are supported. A real number or a / operation, and a
+ * program that needs more registers than fit in a byte, are reported
+ * with a RuntimeException.
+ *
+ * @author Marissa Allen
+ */
+public class VmCompiler
+{
+    private boolean superinstructions = true;
+    private Map<String, Integer> variables;
+    private int[] code;
+    private int size;
+    private int top;
+    private int registerCount;
+    private List<Integer> labels;
+    private List<int[]> fixups;
+
+    /**
+     * Sets whether the common pairs of instructions are compiled into
+     * superinstructions. They are unless it is set to false.
+     *
+     * @param superinstructions - True to use superinstructions.
+     * @return - This VmCompiler, so calls can be chained.
+     */
+    public VmCompiler setSuperinstructions(boolean superinstructions)
+    {
+        this.superinstructions = superinstructions;
+        return this;
+    }
+
+    /**
+     * Compiles a whole program. Subprograms are not compiled.
+     *
+     * @param program - The ProgramNode to compile.
+     * @return - The VmProgram.
+     */
+    public VmProgram compile(ProgramNode program)
+    {
+        variables = new LinkedHashMap<>();
+        code = new int[64];
+        size = 0;
+        labels = new ArrayList<>();
+        fixups = new ArrayList<>();
+        for (VariableNode variable : program.getVariables().getVar())
+        {
+            variables.put(variable.getName(), variables.size());
+        }
+        if (variables.size() > Instruction.MAX_REGISTER + 1)
+        {
+            throw new RuntimeException("The program has more than " +
+                    (Instruction.MAX_REGISTER + 1) + " variables");
+        }
+        top = variables.size();
+        registerCount = top;
+        statement(program.getMain());
+        emit(Instruction.word(Instruction.HALT, 0, 0, 0));
+        for (int[] fixup : fixups)
+        {
+            code[fixup[0]] = labels.get(fixup[1]);
+        }
+        int[] answer = new int[size];
+        System.arraycopy(code, 0, answer, 0, size);
+        return new VmProgram(answer, registerCount, variables);
+    }
+
+    /**
+     * Compiles a statement and the statements inside of it.
+     *
+     * @param node - The statement to compile.
+     */
+    private void statement(StatementNode node)
+    {
+        if (node instanceof CompoundStatementNode)
+        {
+            for (StatementNode sNode :
+                    ((CompoundStatementNode) node).getStatements())
+            {
+                statement(sNode);
+            }
+        }
+        else if (node instanceof AssignmentStatementNode)
+        {
+            AssignmentStatementNode asn = (AssignmentStatementNode) node;
+            expression(asn.getExpression(),
+                    variable(asn.getLvalue().getName()));
+        }
+        else if (node instanceof IfStatementNode)
+        {
+            IfStatementNode isn = (IfStatementNode) node;
+            int next = newLabel();
+            if (isEmpty(isn.getElseStatement()))
+            {
+                jump(isn.getTest(), next, false);
+                statement(isn.getThenStatement());
+            }
+            else
+            {
+                int otherwise = newLabel();
+                jump(isn.getTest(), otherwise, false);
+                statement(isn.getThenStatement());
+                emitJump(Instruction.word(Instruction.JUMP, 0, 0, 0),
+                        next);
+                mark(otherwise);
+                statement(isn.getElseStatement());
+            }
+            mark(next);
+        }
+        else if (node instanceof WhileStatementNode)
+        {
+            WhileStatementNode wsn = (WhileStatementNode) node;
+            int loop = newLabel();
+            int end = newLabel();
+            jump(wsn.getWhileTest(), end, false);
+            mark(loop);
+            statement(wsn.getStatement());
+            jump(wsn.getWhileTest(), loop, true);
+            mark(end);
+        }
+        else if (node instanceof ReadStatementNode)
+        {
+            emit(Instruction.word(Instruction.READ, variable(
+                    ((ReadStatementNode) node).getVarTest().getName()),
+                    0, 0));
+        }
+        else if (node instanceof WriteStatementNode)
+        {
+            int value = expression(
+                    ((WriteStatementNode) node).getWriteTest(), -1);
+            emit(Instruction.word(Instruction.WRITE, value, 0, 0));
+        }
+        else if (node instanceof ReturnStatementNode)
+        {
+            //The main program has nothing to return the value to.
+            expression(((ReturnStatementNode) node).getReturnTest(), -1);
+            emit(Instruction.word(Instruction.HALT, 0, 0, 0));
+        }
+    }
+
+    /**
+     * Compiles a condition into jumping code, which branches to a label
+     * when the condition has the given value and falls through when it
+     * doesn't. An and or an or of conditions is short circuited, and any
+     * other expression is compared to zero.
+     *
+     * @param test - The condition.
+     * @param target - The label branched to.
+     * @param when - The value of the condition that branches.
+     */
+    private void jump(ExpressionNode test, int target, boolean when)
+    {
+        int saved = top;
+        if (isComparison(test))
+        {
+            OperationNode op = (OperationNode) test;
+            Operator relop = Operator.fromToken(op.getOperation());
+            if (!when)
+            {
+                relop = relop.negate();
+            }
+            int relation = relop.ordinal() - Operator.EQ.ordinal();
+            int left = expression(op.getLeft(), -1);
+            if (superinstructions && op.getRight() instanceof ValueNode)
+            {
+                emit(Instruction.word(Instruction.BEQK + relation, left,
+                        0, 0));
+                emit(constant((ValueNode) op.getRight()));
+                emitTarget(target);
+            }
+            else if (superinstructions)
+            {
+                int right = expression(op.getRight(), -1);
+                emitJump(Instruction.word(Instruction.BEQ + relation,
+                        left, right, 0), target);
+            }
+            else
+            {
+                int right = expression(op.getRight(), -1);
+                int flag = temp();
+                emit(Instruction.word(Instruction.EQ + relation, flag,
+                        left, right));
+                emitJump(Instruction.word(Instruction.JNZ, flag, 0, 0),
+                        target);
+            }
+        }
+        else if (isCondition(test))
+        {
+            OperationNode op = (OperationNode) test;
+            //An and decides when its left side is false, an or when true.
+            boolean decides = op.getOperation() == TokenType.OR;
+            if (decides == when)
+            {
+                jump(op.getLeft(), target, when);
+                jump(op.getRight(), target, when);
+            }
+            else
+            {
+                int skip = newLabel();
+                jump(op.getLeft(), skip, decides);
+                jump(op.getRight(), target, when);
+                mark(skip);
+            }
+        }
+        else
+        {
+            int value = expression(test, -1);
+            emitJump(Instruction.word(when ? Instruction.JNZ :
+                    Instruction.JZ, value, 0, 0), target);
+        }
+        top = saved;
+    }
+
+    /**
+     * Compiles an expression. Only the last instruction writes the
+     * register the value goes to, so an expression may read the variable
+     * it is assigned to.
+     *
+     * @param node - The expression to compile.
+     * @param target - The register the value has to go to, or -1 to use
+     * any register.
+     * @return - The register holding the value.
+     */
+    private int expression(ExpressionNode node, int target)
+    {
+        int saved = top;
+        int answer;
+        if (node instanceof VariableNode)
+        {
+            int register = variable(((VariableNode) node).getName());
+            if (target < 0)
+            {
+                return register;
+            }
+            emit(Instruction.word(Instruction.MOVE, target, register, 0));
+            return target;
+        }
+        if (node instanceof ValueNode)
+        {
+            answer = target < 0 ? temp() : target;
+            emit(Instruction.word(Instruction.LOADK, answer, 0, 0));
+            emit(constant((ValueNode) node));
+            return answer;
+        }
+        OperationNode op = (OperationNode) node;
+        if (isCondition(op) && !isComparison(op))
+        {
+            /*An and or an or of conditions is 1 or 0 by jumping code,
+            so its right side is only computed when the left side
+            doesn't decide it. The jumping code writes a temporary more
+            than once, and then it is moved where it has to go.*/
+            int flag = temp();
+            int set = newLabel();
+            emit(Instruction.word(Instruction.LOADK, flag, 0, 0));
+            emit(1);
+            jump(op, set, true);
+            emit(Instruction.word(Instruction.LOADK, flag, 0, 0));
+            emit(0);
+            mark(set);
+            if (target < 0)
+            {
+                return flag;
+            }
+            top = saved;
+            emit(Instruction.word(Instruction.MOVE, target, flag, 0));
+            return target;
+        }
+        Operator operator = Operator.fromToken(op.getOperation());
+        int withConstant = constantOpcode(operator);
+        if (superinstructions && op.getRight() instanceof ValueNode &&
+                withConstant >= 0)
+        {
+            int left = expression(op.getLeft(), -1);
+            int value = constant((ValueNode) op.getRight());
+            top = saved;
+            answer = target < 0 ? temp() : target;
+            emit(Instruction.word(withConstant, answer, left, 0));
+            emit(operator == Operator.SUB ? -value : value);
+            return answer;
+        }
+        int left = expression(op.getLeft(), -1);
+        int right = expression(op.getRight(), -1);
+        top = saved;
+        answer = target < 0 ? temp() : target;
+        emit(Instruction.word(opcode(operator), answer, left, right));
+        return answer;
+    }
+
+    /**
+     * Finds the opcode of an operator.
+     *
+     * @param operator - The Operator.
+     * @return - The opcode that computes it.
+     */
+    private static int opcode(Operator operator)
+    {
+        switch (operator)
+        {
+            case ADD:
+                return Instruction.ADD;
+            case SUB:
+                return Instruction.SUB;
+            case MUL:
+                return Instruction.MUL;
+            case DIV:
+                return Instruction.DIV;
+            case MOD:
+                return Instruction.MOD;
+            case AND:
+                return Instruction.AND;
+            case OR:
+                return Instruction.OR;
+            default:
+                return Instruction.EQ + operator.ordinal() -
+                        Operator.EQ.ordinal();
+        }
+    }
+
+    /**
+     * Finds the superinstruction that computes an operator with a
+     * constant on its right. A subtract is an addk of the negated
+     * constant.
+     *
+     * @param operator - The Operator.
+     * @return - The opcode, or -1 if there is none for the operator.
+     */
+    private static int constantOpcode(Operator operator)
+    {
+        switch (operator)
+        {
+            case ADD:
+            case SUB:
+                return Instruction.ADDK;
+            case MUL:
+                return Instruction.MULK;
+            case DIV:
+                return Instruction.DIVK;
+            case MOD:
+                return Instruction.MODK;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Finds the register of a variable.
+     *
+     * @param name - The name of the variable.
+     * @return - The register.
+     */
+    private int variable(String name)
+    {
+        Integer register = variables.get(name);
+        if (register == null)
+        {
+            throw new RuntimeException("The variable " + name +
+                    " is not declared");
+        }
+        return register;
+    }
+
+    /**
+     * Takes the next free register for a temporary.
+     *
+     * @return - The register.
+     */
+    private int temp()
+    {
+        if (top > Instruction.MAX_REGISTER)
+        {
+            throw new RuntimeException("The program needs more than " +
+                    (Instruction.MAX_REGISTER + 1) + " registers");
+        }
+        registerCount = Math.max(registerCount, top + 1);
+        return top++;
+    }
+
+    /**
+     * Reads the integer held by a ValueNode.
+     *
+     * @param node - The ValueNode.
+     * @return - The integer.
+     */
+    private static int constant(ValueNode node)
+    {
+        String number = node.getAttribute();
+        try
+        {
+            return Integer.parseInt(number);
+        }
+        catch (NumberFormatException ex)
+        {
+            throw new RuntimeException("The VM only supports integers, " +
+                    "not " + number);
+        }
+    }
+
+    /**
+     * Makes a label that isn't placed yet.
+     *
+     * @return - The number of the label.
+     */
+    private int newLabel()
+    {
+        labels.add(-1);
+        return labels.size() - 1;
+    }
+
+    /**
+     * Places a label at the next instruction.
+     *
+     * @param label - The number of the label.
+     */
+    private void mark(int label)
+    {
+        labels.set(label, size);
+    }
+
+    /**
+     * Adds a word to the code.
+     *
+     * @param word - The word.
+     */
+    private void emit(int word)
+    {
+        if (size == code.length)
+        {
+            int[] bigger = new int[size * 2];
+            System.arraycopy(code, 0, bigger, 0, size);
+            code = bigger;
+        }
+        code[size++] = word;
+    }
+
+    /**
+     * Adds a branch target, which is filled in once every label has a
+     * place.
+     *
+     * @param label - The number of the label.
+     */
+    private void emitTarget(int label)
+    {
+        fixups.add(new int[]{size, label});
+        emit(-1);
+    }
+
+    /**
+     * Adds a branch or jump and its target.
+     *
+     * @param word - The first word of the branch.
+     * @param label - The number of the label it goes to.
+     */
+    private void emitJump(int word, int label)
+    {
+        emit(word);
+        emitTarget(label);
+    }
+
+    /**
+     * Checks to see if an expression is a comparison.
+     *
+     * @param node - The expression.
+     * @return - True if it is an OperationNode with a relational
+     * operator.
+     */
+    private static boolean isComparison(ExpressionNode node)
+    {
+        return node instanceof OperationNode && Operator.fromToken(
+                ((OperationNode) node).getOperation()).isRelational();
+    }
+
+    /**
+     * Checks to see if an expression is a condition: a comparison, or an
+     * and or an or of two conditions. An and or an or of anything else
+     * is a bitwise operation on integers, and is not short circuited.
+     *
+     * @param node - The expression.
+     * @return - True if the expression is true or false.
+     */
+    private static boolean isCondition(ExpressionNode node)
+    {
+        if (isComparison(node))
+        {
+            return true;
+        }
+        if (!(node instanceof OperationNode))
+        {
+            return false;
+        }
+        OperationNode op = (OperationNode) node;
+        return (op.getOperation() == TokenType.AND ||
+                op.getOperation() == TokenType.OR) &&
+                isCondition(op.getLeft()) && isCondition(op.getRight());
+    }
+
+    /**
+     * Checks to see if a statement does nothing.
+     *
+     * @param node - The statement.
+     * @return - True if it is missing or an empty compound statement.
+     */
+    private static boolean isEmpty(StatementNode node)
+    {
+        return node == null || (node instanceof CompoundStatementNode &&
+                ((CompoundStatementNode) node).getStatements().isEmpty());
+    }
+}
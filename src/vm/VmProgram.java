@@ -0,0 +1,173 @@
+package vm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class holds a program compiled for the register machine of a
+ * VirtualMachine: its instructions packed into an int[], how many
+ * registers it uses, and the register of each variable. The variables
+ * are the first registers, in the order they are declared, and the
+ * temporaries come after them, so a variable is read and written by its
+ * number and never looked up by its name.
+ *
+ * @author Marissa Allen
+ */
+public class VmProgram
+{
+    private int[] code;
+    private int registerCount;
+    private Map<String, Integer> variables;
+
+    /**
+     * VmProgram constructor that takes in the code and registers.
+     *
+     * @param code - The packed instructions.
+     * @param registerCount - The number of registers the code uses.
+     * @param variables - The register of each variable.
+     */
+    VmProgram(int[] code, int registerCount,
+              Map<String, Integer> variables)
+    {
+        this.code = code;
+        this.registerCount = registerCount;
+        this.variables = new LinkedHashMap<>(variables);
+    }
+
+    /**
+     * Returns the packed instructions.
+     *
+     * @return - The code.
+     */
+    int[] getCode()
+    {
+        return code;
+    }
+
+    /**
+     * Returns the number of registers the code uses.
+     *
+     * @return - The number of variables and temporaries.
+     */
+    public int getRegisterCount()
+    {
+        return registerCount;
+    }
+
+    /**
+     * Returns the register of a variable.
+     *
+     * @param name - The name of the variable.
+     * @return - The register, or -1 if there is no such variable.
+     */
+    public int getRegister(String name)
+    {
+        Integer register = variables.get(name);
+        return register == null ? -1 : register;
+    }
+
+    /**
+     * Returns how many words the code takes.
+     *
+     * @return - The number of ints of the code.
+     */
+    public int size()
+    {
+        return code.length;
+    }
+
+    /**
+     * Returns how many instructions the code has.
+     *
+     * @return - The number of instructions.
+     */
+    public int getInstructionCount()
+    {
+        int answer = 0;
+        for (int pc = 0; pc < code.length;
+             pc += Instruction.size(Instruction.opcode(code[pc])))
+        {
+            answer++;
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the code, one instruction a line, with the index of its
+     * first word, like
+     * 4: bgtk r0, 0, 9
+     *
+     * @return - A String of the code.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder answer = new StringBuilder();
+        int pc = 0;
+        while (pc < code.length)
+        {
+            int word = code[pc];
+            int opcode = Instruction.opcode(word);
+            int[] registers = {word >>> 8 & 0xFF, word >>> 16 & 0xFF,
+                    word >>> 24};
+            answer.append(pc).append(": ")
+                    .append(Instruction.mnemonic(opcode));
+            String[] operands;
+            switch (opcode)
+            {
+                case Instruction.LOADK:
+                case Instruction.JZ:
+                case Instruction.JNZ:
+                    operands = new String[]{"r" + registers[0],
+                            "" + code[pc + 1]};
+                    break;
+                case Instruction.MOVE:
+                    operands = new String[]{"r" + registers[0],
+                            "r" + registers[1]};
+                    break;
+                case Instruction.JUMP:
+                    operands = new String[]{"" + code[pc + 1]};
+                    break;
+                case Instruction.READ:
+                case Instruction.WRITE:
+                    operands = new String[]{"r" + registers[0]};
+                    break;
+                case Instruction.HALT:
+                    operands = new String[0];
+                    break;
+                case Instruction.ADDK:
+                case Instruction.MULK:
+                case Instruction.DIVK:
+                case Instruction.MODK:
+                    operands = new String[]{"r" + registers[0],
+                            "r" + registers[1], "" + code[pc + 1]};
+                    break;
+                default:
+                    if (opcode >= Instruction.BEQK &&
+                            opcode <= Instruction.BGEK)
+                    {
+                        operands = new String[]{"r" + registers[0],
+                                "" + code[pc + 1], "" + code[pc + 2]};
+                    }
+                    else if (opcode >= Instruction.BEQ)
+                    {
+                        operands = new String[]{"r" + registers[0],
+                                "r" + registers[1], "" + code[pc + 1]};
+                    }
+                    else
+                    {
+                        operands = new String[]{"r" + registers[0],
+                                "r" + registers[1], "r" + registers[2]};
+                    }
+                    break;
+            }
+            if (operands.length > 0)
+            {
+                answer.append(" ").append(String.join(", ", operands));
+            }
+            answer.append("\n");
+            pc += Instruction.size(opcode);
+        }
+        return answer.toString();
+    }
+}